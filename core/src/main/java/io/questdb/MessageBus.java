@@ -28,6 +28,12 @@ import io.questdb.cairo.CairoConfiguration;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.Sequence;
 import io.questdb.tasks.ColumnIndexerTask;
+import io.questdb.tasks.OutOfOrderMergeTask;
+import io.questdb.tasks.PageFrameFilterTask;
+import io.questdb.tasks.HashJoinBuildTask;
+import io.questdb.tasks.LatestByTask;
+import io.questdb.tasks.SampleByTask;
+import io.questdb.tasks.SortTask;
 import io.questdb.tasks.VectorAggregateTask;
 
 public interface MessageBus {
@@ -37,11 +43,47 @@ public interface MessageBus {
 
     Sequence getIndexerSubSequence();
 
+    Sequence getOutOfOrderMergePubSequence();
+
+    RingQueue<OutOfOrderMergeTask> getOutOfOrderMergeQueue();
+
+    Sequence getOutOfOrderMergeSubSequence();
+
     RingQueue<VectorAggregateTask> getVectorAggregateQueue();
 
     Sequence getVectorAggregatePubSequence();
 
     Sequence getVectorAggregateSubSequence();
 
+    RingQueue<PageFrameFilterTask> getPageFrameFilterQueue();
+
+    Sequence getPageFrameFilterPubSequence();
+
+    Sequence getPageFrameFilterSubSequence();
+
+    RingQueue<SampleByTask> getSampleByQueue();
+
+    Sequence getSampleByPubSequence();
+
+    Sequence getSampleBySubSequence();
+
+    RingQueue<SortTask> getSortQueue();
+
+    Sequence getSortPubSequence();
+
+    Sequence getSortSubSequence();
+
+    RingQueue<HashJoinBuildTask> getHashJoinBuildQueue();
+
+    Sequence getHashJoinBuildPubSequence();
+
+    Sequence getHashJoinBuildSubSequence();
+
+    RingQueue<LatestByTask> getLatestByQueue();
+
+    Sequence getLatestByPubSequence();
+
+    Sequence getLatestBySubSequence();
+
     CairoConfiguration getConfiguration();
 }
@@ -30,6 +30,12 @@ import io.questdb.mp.MPSequence;
 import io.questdb.mp.RingQueue;
 import io.questdb.mp.Sequence;
 import io.questdb.tasks.ColumnIndexerTask;
+import io.questdb.tasks.OutOfOrderMergeTask;
+import io.questdb.tasks.PageFrameFilterTask;
+import io.questdb.tasks.HashJoinBuildTask;
+import io.questdb.tasks.LatestByTask;
+import io.questdb.tasks.SampleByTask;
+import io.questdb.tasks.SortTask;
 import io.questdb.tasks.VectorAggregateTask;
 import org.jetbrains.annotations.NotNull;
 
@@ -38,10 +44,33 @@ public class MessageBusImpl implements MessageBus {
     private final MPSequence indexerPubSeq;
     private final MCSequence indexerSubSeq;
 
+    private final RingQueue<OutOfOrderMergeTask> outOfOrderMergeQueue;
+    private final MPSequence outOfOrderMergePubSeq;
+    private final MCSequence outOfOrderMergeSubSeq;
+
     private final RingQueue<VectorAggregateTask> vectorAggregateQueue;
     private final MPSequence vectorAggregatePubSeq;
     private final MCSequence vectorAggregateSubSeq;
 
+    private final RingQueue<PageFrameFilterTask> pageFrameFilterQueue;
+    private final MPSequence pageFrameFilterPubSeq;
+    private final MCSequence pageFrameFilterSubSeq;
+
+    private final RingQueue<SampleByTask> sampleByQueue;
+    private final MPSequence sampleByPubSeq;
+    private final MCSequence sampleBySubSeq;
+
+    private final RingQueue<SortTask> sortQueue;
+    private final MPSequence sortPubSeq;
+    private final MCSequence sortSubSeq;
+
+    private final RingQueue<HashJoinBuildTask> hashJoinBuildQueue;
+    private final MPSequence hashJoinBuildPubSeq;
+    private final MCSequence hashJoinBuildSubSeq;
+    private final RingQueue<LatestByTask> latestByQueue;
+    private final MPSequence latestByPubSeq;
+    private final MCSequence latestBySubSeq;
+
 
     private final CairoConfiguration configuration;
 
@@ -52,12 +81,45 @@ public class MessageBusImpl implements MessageBus {
         this.indexerPubSeq = new MPSequence(indexerQueue.getCapacity());
         this.indexerSubSeq = new MCSequence(indexerQueue.getCapacity());
 
+        this.outOfOrderMergeQueue = new RingQueue<>(OutOfOrderMergeTask::new, 1024);
+        this.outOfOrderMergePubSeq = new MPSequence(outOfOrderMergeQueue.getCapacity());
+        this.outOfOrderMergeSubSeq = new MCSequence(outOfOrderMergeQueue.getCapacity());
+
         this.vectorAggregateQueue = new RingQueue<>(VectorAggregateTask::new, 1024);
         this.vectorAggregatePubSeq = new MPSequence(vectorAggregateQueue.getCapacity());
         this.vectorAggregateSubSeq = new MCSequence(vectorAggregateQueue.getCapacity());
 
+        this.pageFrameFilterQueue = new RingQueue<>(PageFrameFilterTask::new, 1024);
+        this.pageFrameFilterPubSeq = new MPSequence(pageFrameFilterQueue.getCapacity());
+        this.pageFrameFilterSubSeq = new MCSequence(pageFrameFilterQueue.getCapacity());
+
+        this.sampleByQueue = new RingQueue<>(SampleByTask::new, 1024);
+        this.sampleByPubSeq = new MPSequence(sampleByQueue.getCapacity());
+        this.sampleBySubSeq = new MCSequence(sampleByQueue.getCapacity());
+
         indexerPubSeq.then(indexerSubSeq).then(indexerPubSeq);
+        outOfOrderMergePubSeq.then(outOfOrderMergeSubSeq).then(outOfOrderMergePubSeq);
         vectorAggregatePubSeq.then(vectorAggregateSubSeq).then(vectorAggregatePubSeq);
+        pageFrameFilterPubSeq.then(pageFrameFilterSubSeq).then(pageFrameFilterPubSeq);
+        sampleByPubSeq.then(sampleBySubSeq).then(sampleByPubSeq);
+
+        this.sortQueue = new RingQueue<>(SortTask::new, 1024);
+        this.sortPubSeq = new MPSequence(sortQueue.getCapacity());
+        this.sortSubSeq = new MCSequence(sortQueue.getCapacity());
+
+        sortPubSeq.then(sortSubSeq).then(sortPubSeq);
+
+        this.hashJoinBuildQueue = new RingQueue<>(HashJoinBuildTask::new, 1024);
+        this.hashJoinBuildPubSeq = new MPSequence(hashJoinBuildQueue.getCapacity());
+        this.hashJoinBuildSubSeq = new MCSequence(hashJoinBuildQueue.getCapacity());
+
+        hashJoinBuildPubSeq.then(hashJoinBuildSubSeq).then(hashJoinBuildPubSeq);
+
+        this.latestByQueue = new RingQueue<>(LatestByTask::new, 1024);
+        this.latestByPubSeq = new MPSequence(latestByQueue.getCapacity());
+        this.latestBySubSeq = new MCSequence(latestByQueue.getCapacity());
+
+        latestByPubSeq.then(latestBySubSeq).then(latestByPubSeq);
     }
 
     @Override
@@ -80,6 +142,21 @@ public class MessageBusImpl implements MessageBus {
         return indexerSubSeq;
     }
 
+    @Override
+    public Sequence getOutOfOrderMergePubSequence() {
+        return outOfOrderMergePubSeq;
+    }
+
+    @Override
+    public RingQueue<OutOfOrderMergeTask> getOutOfOrderMergeQueue() {
+        return outOfOrderMergeQueue;
+    }
+
+    @Override
+    public Sequence getOutOfOrderMergeSubSequence() {
+        return outOfOrderMergeSubSeq;
+    }
+
     @Override
     public RingQueue<VectorAggregateTask> getVectorAggregateQueue() {
         return vectorAggregateQueue;
@@ -94,4 +171,79 @@ public class MessageBusImpl implements MessageBus {
     public Sequence getVectorAggregateSubSequence() {
         return vectorAggregateSubSeq;
     }
+
+    @Override
+    public RingQueue<PageFrameFilterTask> getPageFrameFilterQueue() {
+        return pageFrameFilterQueue;
+    }
+
+    @Override
+    public Sequence getPageFrameFilterPubSequence() {
+        return pageFrameFilterPubSeq;
+    }
+
+    @Override
+    public Sequence getPageFrameFilterSubSequence() {
+        return pageFrameFilterSubSeq;
+    }
+
+    @Override
+    public RingQueue<SampleByTask> getSampleByQueue() {
+        return sampleByQueue;
+    }
+
+    @Override
+    public Sequence getSampleByPubSequence() {
+        return sampleByPubSeq;
+    }
+
+    @Override
+    public Sequence getSampleBySubSequence() {
+        return sampleBySubSeq;
+    }
+
+    @Override
+    public RingQueue<SortTask> getSortQueue() {
+        return sortQueue;
+    }
+
+    @Override
+    public Sequence getSortPubSequence() {
+        return sortPubSeq;
+    }
+
+    @Override
+    public Sequence getSortSubSequence() {
+        return sortSubSeq;
+    }
+
+    @Override
+    public RingQueue<HashJoinBuildTask> getHashJoinBuildQueue() {
+        return hashJoinBuildQueue;
+    }
+
+    @Override
+    public Sequence getHashJoinBuildPubSequence() {
+        return hashJoinBuildPubSeq;
+    }
+
+    @Override
+    public Sequence getHashJoinBuildSubSequence() {
+        return hashJoinBuildSubSeq;
+    }
+
+    @Override
+    public RingQueue<LatestByTask> getLatestByQueue() {
+        return latestByQueue;
+    }
+
+    @Override
+    public Sequence getLatestByPubSequence() {
+        return latestByPubSeq;
+    }
+
+    @Override
+    public Sequence getLatestBySubSequence() {
+        return latestBySubSeq;
+    }
 }
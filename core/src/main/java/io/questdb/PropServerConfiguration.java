@@ -107,6 +107,32 @@ public class PropServerConfiguration implements ServerConfiguration {
     private final int sqlSortValueMaxPages;
     private final long workStealTimeoutNanos;
     private final boolean parallelIndexingEnabled;
+    private final boolean outOfOrderEnabled;
+    private final long outOfOrderPageSize;
+    private final boolean outOfOrderParallelMergeEnabled;
+    private final long walSegmentRolloverSize;
+    private final int walApplyBatchRows;
+    private final boolean walEnabled;
+    private final boolean sqlParallelFilterEnabled;
+    private final int sqlParallelFilterFrameRows;
+    private final boolean sqlParallelSampleByEnabled;
+    private final int sqlParallelSampleByTaskRows;
+    private final boolean sqlParallelSortEnabled;
+    private final int sqlParallelSortRunRows;
+    private final long sqlSortMemoryBudget;
+    private final boolean sqlParallelHashJoinEnabled;
+    private final int sqlParallelHashJoinPartitions;
+    private final long sqlHashJoinMemoryBudget;
+    private final boolean sqlJoinBloomFilterEnabled;
+    private final int sqlJoinBloomFilterMaxKeys;
+    private final boolean sqlParallelLatestByEnabled;
+    private final int sqlParallelLatestByTaskKeys;
+    private final boolean sqlSampleByCacheEnabled;
+    private final int sqlSampleByCacheCapacity;
+    private final long sqlSampleByCacheMaxRows;
+    private final int sqlParallelVectorAggregateTaskRows;
+    private final boolean sqlPlanCacheEnabled;
+    private final int sqlPlanCacheCapacity;
     private final int sqlJoinMetadataPageSize;
     private final int sqlJoinMetadataMaxResizes;
     private final int lineUdpCommitRate;
@@ -253,6 +279,9 @@ public class PropServerConfiguration implements ServerConfiguration {
     private double lineTcpMaxLoadRatio;
     private int lineTcpMaxUncommittedRows;
     private long lineTcpMaintenanceJobHysteresisInMs;
+    private long lineTcpCommitLagMicros;
+    private long lineTcpMaxUncommittedBytes;
+    private int lineTcpParserJobCount;
     private String httpVersion;
 
     public PropServerConfiguration(String root, Properties properties) throws ServerConfigurationException, JsonException {
@@ -433,6 +462,32 @@ public class PropServerConfiguration implements ServerConfiguration {
         this.sqlSortValueMaxPages = getIntSize(properties, "cairo.sql.sort.value.max.pages", Integer.MAX_VALUE);
         this.workStealTimeoutNanos = getLong(properties, "cairo.work.steal.timeout.nanos", 10_000);
         this.parallelIndexingEnabled = getBoolean(properties, "cairo.parallel.indexing.enabled", true);
+        this.outOfOrderEnabled = getBoolean(properties, "cairo.out.of.order.enabled", false);
+        this.outOfOrderPageSize = getLongSize(properties, "cairo.out.of.order.page.size", 256 * 1024);
+        this.outOfOrderParallelMergeEnabled = getBoolean(properties, "cairo.out.of.order.parallel.merge.enabled", true);
+        this.walSegmentRolloverSize = getLongSize(properties, "cairo.wal.segment.rollover.size", 16 * 1024 * 1024);
+        this.walApplyBatchRows = getInt(properties, "cairo.wal.apply.batch.rows", 500_000);
+        this.walEnabled = getBoolean(properties, "cairo.wal.enabled", false);
+        this.sqlParallelFilterEnabled = getBoolean(properties, "cairo.sql.parallel.filter.enabled", true);
+        this.sqlParallelFilterFrameRows = getInt(properties, "cairo.sql.parallel.filter.frame.rows", 1_000_000);
+        this.sqlParallelSampleByEnabled = getBoolean(properties, "cairo.sql.parallel.sample.by.enabled", true);
+        this.sqlParallelSampleByTaskRows = getInt(properties, "cairo.sql.parallel.sample.by.task.rows", 1_000_000);
+        this.sqlParallelSortEnabled = getBoolean(properties, "cairo.sql.parallel.sort.enabled", true);
+        this.sqlParallelSortRunRows = getInt(properties, "cairo.sql.parallel.sort.run.rows", 1_000_000);
+        this.sqlSortMemoryBudget = getLongSize(properties, "cairo.sql.sort.memory.budget", 512 * 1024 * 1024);
+        this.sqlParallelHashJoinEnabled = getBoolean(properties, "cairo.sql.parallel.hash.join.enabled", true);
+        this.sqlParallelHashJoinPartitions = getInt(properties, "cairo.sql.parallel.hash.join.partitions", 16);
+        this.sqlHashJoinMemoryBudget = getLongSize(properties, "cairo.sql.hash.join.memory.budget", 1024 * 1024 * 1024);
+        this.sqlJoinBloomFilterEnabled = getBoolean(properties, "cairo.sql.join.bloom.filter.enabled", true);
+        this.sqlJoinBloomFilterMaxKeys = getInt(properties, "cairo.sql.join.bloom.filter.max.keys", 1_000_000);
+        this.sqlParallelLatestByEnabled = getBoolean(properties, "cairo.sql.parallel.latest.by.enabled", true);
+        this.sqlParallelLatestByTaskKeys = getInt(properties, "cairo.sql.parallel.latest.by.task.keys", 16384);
+        this.sqlSampleByCacheEnabled = getBoolean(properties, "cairo.sql.sample.by.cache.enabled", false);
+        this.sqlSampleByCacheCapacity = getInt(properties, "cairo.sql.sample.by.cache.capacity", 64);
+        this.sqlSampleByCacheMaxRows = getLong(properties, "cairo.sql.sample.by.cache.max.rows", 1_000_000);
+        this.sqlParallelVectorAggregateTaskRows = getInt(properties, "cairo.sql.parallel.vector.aggregate.task.rows", 1_000_000);
+        this.sqlPlanCacheEnabled = getBoolean(properties, "cairo.sql.plan.cache.enabled", false);
+        this.sqlPlanCacheCapacity = getInt(properties, "cairo.sql.plan.cache.capacity", 256);
         this.sqlJoinMetadataPageSize = getIntSize(properties, "cairo.sql.join.metadata.page.size", 16384);
         this.sqlJoinMetadataMaxResizes = getIntSize(properties, "cairo.sql.join.metadata.max.resizes", Integer.MAX_VALUE);
         this.sqlAnalyticColumnPoolCapacity = getInt(properties, "cairo.sql.analytic.column.pool.capacity", 64);
@@ -529,6 +584,9 @@ public class PropServerConfiguration implements ServerConfiguration {
             this.lineTcpMaxLoadRatio = getDouble(properties, "line.tcp.max.load.ratio", 1.9);
             this.lineTcpMaxUncommittedRows = getInt(properties, "line.tcp.max.uncommitted.rows", 1000);
             this.lineTcpMaintenanceJobHysteresisInMs = getInt(properties, "line.tcp.maintenance.job.hysteresis.in.ms", 250);
+            this.lineTcpCommitLagMicros = getLong(properties, "line.tcp.commit.lag.micros", 0);
+            this.lineTcpMaxUncommittedBytes = getLong(properties, "line.tcp.max.uncommitted.bytes", 0);
+            this.lineTcpParserJobCount = getInt(properties, "line.tcp.parser.job.count", 1);
         }
     }
 
@@ -1159,6 +1217,11 @@ public class PropServerConfiguration implements ServerConfiguration {
             return mkdirMode;
         }
 
+        @Override
+        public long getOutOfOrderPageSize() {
+            return outOfOrderPageSize;
+        }
+
         @Override
         public int getParallelIndexThreshold() {
             return parallelIndexThreshold;
@@ -1329,16 +1392,141 @@ public class PropServerConfiguration implements ServerConfiguration {
             return textConfiguration;
         }
 
+        @Override
+        public int getWalApplyBatchRows() {
+            return walApplyBatchRows;
+        }
+
+        @Override
+        public long getWalSegmentRolloverSize() {
+            return walSegmentRolloverSize;
+        }
+
         @Override
         public long getWorkStealTimeoutNanos() {
             return workStealTimeoutNanos;
         }
 
+        @Override
+        public boolean isOutOfOrderEnabled() {
+            return outOfOrderEnabled;
+        }
+
+        @Override
+        public boolean isOutOfOrderParallelMergeEnabled() {
+            return outOfOrderParallelMergeEnabled;
+        }
+
         @Override
         public boolean isParallelIndexingEnabled() {
             return parallelIndexingEnabled;
         }
 
+        @Override
+        public boolean isWalEnabled() {
+            return walEnabled;
+        }
+
+        @Override
+        public boolean isSqlParallelFilterEnabled() {
+            return sqlParallelFilterEnabled;
+        }
+
+        @Override
+        public int getSqlParallelFilterFrameRows() {
+            return sqlParallelFilterFrameRows;
+        }
+
+        @Override
+        public boolean isSqlParallelSampleByEnabled() {
+            return sqlParallelSampleByEnabled;
+        }
+
+        @Override
+        public int getSqlParallelSampleByTaskRows() {
+            return sqlParallelSampleByTaskRows;
+        }
+
+        @Override
+        public boolean isSqlParallelSortEnabled() {
+            return sqlParallelSortEnabled;
+        }
+
+        @Override
+        public int getSqlParallelSortRunRows() {
+            return sqlParallelSortRunRows;
+        }
+
+        @Override
+        public long getSqlSortMemoryBudget() {
+            return sqlSortMemoryBudget;
+        }
+
+        @Override
+        public boolean isSqlParallelHashJoinEnabled() {
+            return sqlParallelHashJoinEnabled;
+        }
+
+        @Override
+        public int getSqlParallelHashJoinPartitions() {
+            return sqlParallelHashJoinPartitions;
+        }
+
+        @Override
+        public long getSqlHashJoinMemoryBudget() {
+            return sqlHashJoinMemoryBudget;
+        }
+
+        @Override
+        public boolean isSqlJoinBloomFilterEnabled() {
+            return sqlJoinBloomFilterEnabled;
+        }
+
+        @Override
+        public int getSqlJoinBloomFilterMaxKeys() {
+            return sqlJoinBloomFilterMaxKeys;
+        }
+
+        @Override
+        public boolean isSqlParallelLatestByEnabled() {
+            return sqlParallelLatestByEnabled;
+        }
+
+        @Override
+        public int getSqlParallelLatestByTaskKeys() {
+            return sqlParallelLatestByTaskKeys;
+        }
+
+        @Override
+        public boolean isSqlSampleByCacheEnabled() {
+            return sqlSampleByCacheEnabled;
+        }
+
+        @Override
+        public int getSqlSampleByCacheCapacity() {
+            return sqlSampleByCacheCapacity;
+        }
+
+        @Override
+        public long getSqlSampleByCacheMaxRows() {
+            return sqlSampleByCacheMaxRows;
+        }
+
+        @Override
+        public int getSqlParallelVectorAggregateTaskRows() {
+            return sqlParallelVectorAggregateTaskRows;
+        }
+
+        @Override
+        public boolean isSqlPlanCacheEnabled() {
+            return sqlPlanCacheEnabled;
+        }
+
+        @Override
+        public int getSqlPlanCacheCapacity() {
+            return sqlPlanCacheCapacity;
+        }
+
         @Override
         public int getSqlJoinMetadataPageSize() {
             return sqlJoinMetadataPageSize;
@@ -1678,6 +1866,21 @@ public class PropServerConfiguration implements ServerConfiguration {
         public long getMaintenanceJobHysteresisInMs() {
             return lineTcpMaintenanceJobHysteresisInMs;
         }
+
+        @Override
+        public long getCommitLagMicros() {
+            return lineTcpCommitLagMicros;
+        }
+
+        @Override
+        public long getMaxUncommittedBytes() {
+            return lineTcpMaxUncommittedBytes;
+        }
+
+        @Override
+        public int getParserJobCount() {
+            return lineTcpParserJobCount;
+        }
     }
 
     private class PropJsonQueryProcessorConfiguration implements JsonQueryProcessorConfiguration {
@@ -147,6 +147,7 @@ public class ServerMain {
         LogFactory.configureFromSystemProperties(workerPool);
         final CairoEngine cairoEngine = new CairoEngine(configuration.getCairoConfiguration());
         workerPool.assign(cairoEngine.getWriterMaintenanceJob());
+        workerPool.assign(cairoEngine.getWalApplyJob());
         // The TelemetryJob is always needed (even when telemetry is off) because it is responsible for
         // updating the telemetry_config table.
         final TelemetryJob telemetryJob = new TelemetryJob(cairoEngine, functionFactoryCache);
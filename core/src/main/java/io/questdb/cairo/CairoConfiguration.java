@@ -74,6 +74,13 @@ public interface CairoConfiguration {
 
     int getMkDirMode();
 
+    /**
+     * Size of memory page used to stage out-of-order rows before they are merged into partitions on commit.
+     *
+     * @return memory page size in bytes
+     */
+    long getOutOfOrderPageSize();
+
     int getParallelIndexThreshold();
 
     int getReaderPoolMaxSegments();
@@ -144,10 +151,196 @@ public interface CairoConfiguration {
 
     TextConfiguration getTextConfiguration();
 
+    /**
+     * Maximum number of committed rows that WAL apply job materializes into table
+     * column files in a single table commit.
+     *
+     * @return row count
+     */
+    int getWalApplyBatchRows();
+
+    /**
+     * Size after which WAL writer closes current segment and starts the next one. Segment file is
+     * mapped in pages of this size.
+     *
+     * @return segment size in bytes
+     */
+    long getWalSegmentRolloverSize();
+
     long getWorkStealTimeoutNanos();
 
+    boolean isOutOfOrderEnabled();
+
+    boolean isOutOfOrderParallelMergeEnabled();
+
     boolean isParallelIndexingEnabled();
 
+    /**
+     * When enabled, SQL INSERT statements append to write-ahead log of the table instead of taking
+     * table writer, so that they neither wait for nor fail on writer held by other ingestion. Rows
+     * become visible once {@link WalApplyJob} materializes them.
+     *
+     * @return true when SQL INSERT writes via write-ahead log
+     */
+    boolean isWalEnabled();
+
+    /**
+     * When enabled, table scans with a filter that is safe to evaluate concurrently split their
+     * data frames into tasks and evaluate the filter on worker threads.
+     *
+     * @return true when filters can be evaluated in parallel
+     */
+    boolean isSqlParallelFilterEnabled();
+
+    /**
+     * Maximum number of rows in single parallel filter task. Tasks are also cut on column
+     * page boundaries, so they can be smaller than this.
+     *
+     * @return maximum row count per task
+     */
+    int getSqlParallelFilterFrameRows();
+
+    /**
+     * When enabled, SAMPLE BY without fill over a table scan aggregates ranges of rows on worker
+     * threads. Aggregate functions and filter must be safe to evaluate concurrently.
+     *
+     * @return true when SAMPLE BY can be executed in parallel
+     */
+    boolean isSqlParallelSampleByEnabled();
+
+    /**
+     * Minimum number of rows in single parallel SAMPLE BY task. Tasks end on sample boundary,
+     * so they are usually a little larger than this.
+     *
+     * @return minimum row count per task
+     */
+    int getSqlParallelSampleByTaskRows();
+
+    /**
+     * When enabled, ORDER BY over random access cursor sorts runs of rows on worker threads
+     * and merges sorted runs.
+     *
+     * @return true when ORDER BY can be executed in parallel
+     */
+    boolean isSqlParallelSortEnabled();
+
+    /**
+     * Number of rows in single sort run. Each run is sorted by one worker.
+     *
+     * @return maximum row count per sort run
+     */
+    int getSqlParallelSortRunRows();
+
+    /**
+     * Memory in bytes parallel sort can allocate for its runs. Runs filled after this budget is
+     * exhausted are stored in memory-mapped temporary files under ".sort" directory of db root.
+     *
+     * @return sort memory budget in bytes
+     */
+    long getSqlSortMemoryBudget();
+
+    /**
+     * When enabled, inner hash join with random access slave cursor splits slave rows into
+     * partitions by join key hash and builds key maps of partitions on worker threads.
+     *
+     * @return true when hash join can build its maps in parallel
+     */
+    boolean isSqlParallelHashJoinEnabled();
+
+    /**
+     * Number of partitions of parallel hash join, rounded up to power of 2. Each partition
+     * has its own key map.
+     *
+     * @return number of hash join partitions
+     */
+    int getSqlParallelHashJoinPartitions();
+
+    /**
+     * Memory in bytes parallel hash join can use for collected slave rows. Each partition gets
+     * equal share of the budget. Rows of partition over its share are moved to memory-mapped
+     * temporary file under ".join" directory of db root.
+     *
+     * @return hash join memory budget in bytes
+     */
+    long getSqlHashJoinMemoryBudget();
+
+    /**
+     * When enabled, inner hash join builds Bloom filter of slave join keys and pushes it down
+     * into master table scan, which skips rows that cannot join.
+     *
+     * @return true when hash join can filter master rows by slave keys
+     */
+    boolean isSqlJoinBloomFilterEnabled();
+
+    /**
+     * Maximum number of slave join keys Bloom filter is built for. Filter uses 8 bits per key,
+     * joins with more slave keys are not filtered.
+     *
+     * @return maximum number of filtered join keys
+     */
+    int getSqlJoinBloomFilterMaxKeys();
+
+    /**
+     * When enabled, LATEST BY over indexed symbol column probes slices of symbol keys
+     * on worker threads.
+     *
+     * @return true when latest rows of symbol keys can be found in parallel
+     */
+    boolean isSqlParallelLatestByEnabled();
+
+    /**
+     * Minimum number of symbol keys LATEST BY hands to a worker. Partitions with fewer
+     * keys left to find than two slices are probed by query thread.
+     *
+     * @return number of symbol keys per task
+     */
+    int getSqlParallelLatestByTaskKeys();
+
+    /**
+     * When enabled, SAMPLE BY without fill over table scan keeps rows of complete samples in
+     * engine-wide cache. Repeated execution of the query reuses samples whose table rows have not
+     * changed and computes the rest, typically the most recent samples.
+     *
+     * @return true when SAMPLE BY results can be cached
+     */
+    boolean isSqlSampleByCacheEnabled();
+
+    /**
+     * @return maximum number of SAMPLE BY queries kept in the cache
+     */
+    int getSqlSampleByCacheCapacity();
+
+    /**
+     * Queries returning more rows or samples than this are not cached.
+     *
+     * @return maximum number of rows cached per query
+     */
+    long getSqlSampleByCacheMaxRows();
+
+    /**
+     * Maximum number of rows of page frame aggregated by single vector aggregate task. Larger frames
+     * are sliced, so that narrow time intervals, which hit single partition, are aggregated by
+     * several workers.
+     *
+     * @return maximum row count per task
+     */
+    int getSqlParallelVectorAggregateTaskRows();
+
+    /**
+     * When enabled, compiled SELECT plans of PostgreSQL wire connections are kept in engine-wide
+     * cache keyed by query text and bind variable types. Connection takes plan out of the cache
+     * for the duration of the query, so that short-lived connections do not compile the same
+     * query over and over again.
+     *
+     * @return true when compiled plans are shared by connections
+     */
+    boolean isSqlPlanCacheEnabled();
+
+    /**
+     * @return maximum number of compiled plans kept in the cache
+     */
+    int getSqlPlanCacheCapacity();
+
     /**
      * This holds table metadata, which is usually quite small. 16K page should be adequate.
      *
@@ -30,19 +30,19 @@ import io.questdb.cairo.pool.PoolListener;
 import io.questdb.cairo.pool.ReaderPool;
 import io.questdb.cairo.pool.WriterPool;
 import io.questdb.cairo.sql.ReaderOutOfDateException;
+import io.questdb.griffin.PlanCache;
+import io.questdb.griffin.engine.groupby.SampleByCache;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.*;
-import io.questdb.std.Files;
-import io.questdb.std.FilesFacade;
-import io.questdb.std.Misc;
-import io.questdb.std.Transient;
+import io.questdb.std.*;
 import io.questdb.std.microtime.MicrosecondClock;
 import io.questdb.std.str.Path;
 import io.questdb.tasks.TelemetryTask;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static io.questdb.cairo.ColumnType.SYMBOL;
 
@@ -57,6 +57,11 @@ public class CairoEngine implements Closeable {
     private final RingQueue<TelemetryTask> telemetryQueue;
     private final MPSequence telemetryPubSeq;
     private final SCSequence telemetrySubSeq;
+    private final ConcurrentHashMap<TableWal> walTables = new ConcurrentHashMap<>();
+    private final AtomicLong walTablesVersion = new AtomicLong();
+    private final WalApplyJob walApplyJob;
+    private final SampleByCache sampleByCache;
+    private final PlanCache planCache;
 
     public CairoEngine(CairoConfiguration configuration) {
         this.configuration = configuration;
@@ -68,12 +73,21 @@ public class CairoEngine implements Closeable {
         this.telemetryPubSeq = new MPSequence(telemetryQueue.getCapacity());
         this.telemetrySubSeq = new SCSequence();
         telemetryPubSeq.then(telemetrySubSeq).then(telemetryPubSeq);
+        this.walApplyJob = new WalApplyJob(this);
+        this.sampleByCache = new SampleByCache(configuration.getSqlSampleByCacheCapacity());
+        this.planCache = new PlanCache(configuration.getSqlPlanCacheCapacity());
     }
 
     @Override
     public void close() {
+        Misc.free(walApplyJob);
+        for (TableWal wal : walTables.values()) {
+            wal.close();
+        }
         Misc.free(writerPool);
         Misc.free(readerPool);
+        Misc.free(sampleByCache);
+        Misc.free(planCache);
     }
 
     public void creatTable(
@@ -148,6 +162,14 @@ public class CairoEngine implements Closeable {
         return reader;
     }
 
+    public PlanCache getPlanCache() {
+        return planCache;
+    }
+
+    public SampleByCache getSampleByCache() {
+        return sampleByCache;
+    }
+
     public int getStatus(
             CairoSecurityContext securityContext,
             Path path,
@@ -186,6 +208,33 @@ public class CairoEngine implements Closeable {
         return writerPool.get(tableName);
     }
 
+    /**
+     * Job that materializes write-ahead logs into tables. It has to be assigned to a worker
+     * pool for anything written via {@link #getWalWriter(CairoSecurityContext, CharSequence)}
+     * to become visible to readers.
+     *
+     * @return WAL apply job
+     */
+    public WalApplyJob getWalApplyJob() {
+        return walApplyJob;
+    }
+
+    /**
+     * Hands out write-ahead log writer. Unlike {@link #getWriter(CairoSecurityContext, CharSequence)}
+     * this does not lock the table, any number of WAL writers can be open against it at the same time.
+     *
+     * @param securityContext security context
+     * @param tableName       table name
+     * @return writer, which is released for reuse when closed
+     */
+    public WalWriter getWalWriter(
+            CairoSecurityContext securityContext,
+            CharSequence tableName
+    ) {
+        securityContext.checkWritePermission();
+        return getTableWal(tableName).getWriter();
+    }
+
     public Job getWriterMaintenanceJob() {
         return writerMaintenanceJob;
     }
@@ -218,7 +267,7 @@ public class CairoEngine implements Closeable {
                 TableWriter writer = getWriter(cairoSecurityContext, tableName);
                 TableReader reader = getReader(cairoSecurityContext, tableName)
         ) {
-            TableReaderMetadata readerMetadata = (TableReaderMetadata) reader.getMetadata();
+            TableReaderMetadata readerMetadata = reader.getMetadata();
             if (readerMetadata.getVersion() < 416) {
                 LOG.info().$("migrating null flag for symbols [table=").utf8(tableName).$(']').$();
                 for (int i = 0, count = reader.getColumnCount(); i < count; i++) {
@@ -263,6 +312,10 @@ public class CairoEngine implements Closeable {
                     LOG.error().$("remove failed [tableName='").utf8(tableName).$("', error=").$(error).$(']').$();
                     throw CairoException.instance(error).put("Table remove failed");
                 }
+                removeTableWal(tableName);
+                // table of the same name may be created again
+                sampleByCache.clear();
+                planCache.clear();
                 return;
             } finally {
                 unlock(securityContext, tableName, null);
@@ -288,6 +341,9 @@ public class CairoEngine implements Closeable {
         if (lock(securityContext, tableName)) {
             try {
                 rename0(path, tableName, otherPath, newName);
+                removeTableWal(tableName);
+                sampleByCache.clear();
+                planCache.clear();
             } finally {
                 unlock(securityContext, tableName, null);
             }
@@ -314,6 +370,46 @@ public class CairoEngine implements Closeable {
         writerPool.unlock(tableName);
     }
 
+    TableWal getTableWal(CharSequence tableName) {
+        TableWal wal = walTables.get(tableName);
+        if (wal == null) {
+            // WAL state is backed by txn log file, there must be single instance of it
+            synchronized (walTables) {
+                wal = walTables.get(tableName);
+                if (wal == null) {
+                    try (Path path = new Path()) {
+                        if (TableUtils.exists(configuration.getFilesFacade(), path, configuration.getRoot(), tableName) != TableUtils.TABLE_EXISTS) {
+                            throw CairoException.instance(0).put("table does not exist [table=").put(tableName).put(']');
+                        }
+                    }
+                    wal = new TableWal(configuration, tableName);
+                    walTables.put(wal.getTableName(), wal);
+                    walTablesVersion.incrementAndGet();
+                }
+            }
+        }
+        return wal;
+    }
+
+    void getWalTables(ObjList<TableWal> sink) {
+        sink.clear();
+        for (TableWal wal : walTables.values()) {
+            sink.add(wal);
+        }
+    }
+
+    long getWalTablesVersion() {
+        return walTablesVersion.get();
+    }
+
+    void removeTableWal(CharSequence tableName) {
+        final TableWal wal = walTables.remove(tableName);
+        if (wal != null) {
+            walTablesVersion.incrementAndGet();
+            LOG.info().$("removed WAL [table=").utf8(tableName).$(']').$();
+        }
+    }
+
     private void rename0(Path path, CharSequence tableName, Path otherPath, CharSequence to) {
         final FilesFacade ff = configuration.getFilesFacade();
         final CharSequence root = configuration.getRoot();
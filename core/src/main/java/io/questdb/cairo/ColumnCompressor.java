@@ -0,0 +1,528 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+/**
+ * Compresses column files of sealed partitions. Compressed file "&lt;column&gt;.dz" replaces "&lt;column&gt;.d" and
+ * has the following layout:
+ * <pre>
+ * int  codec
+ * int  block shift, log2 of decoded block size in bytes
+ * long decoded size
+ * long block count
+ * long block offsets, block count + 1 entries, last entry is end of last block
+ * ...  blocks
+ * </pre>
+ * Blocks are encoded independently of each other, so that reader can decode any of them on demand.
+ * Codec is chosen by column type: delta-of-delta for integer time series, XOR for doubles and
+ * bit-packing for symbol keys. Symbol table acts as dictionary for the latter.
+ */
+public class ColumnCompressor implements Closeable {
+    public static final int CODEC_NONE = 0;
+    public static final int CODEC_DELTA_OF_DELTA = 1;
+    public static final int CODEC_XOR = 2;
+    public static final int CODEC_BIT_PACK = 3;
+    public static final int DEFAULT_BLOCK_SHIFT = 20;
+    static final int HEADER_OFFSET_CODEC = 0;
+    static final int HEADER_OFFSET_BLOCK_SHIFT = 4;
+    static final int HEADER_OFFSET_DECODED_SIZE = 8;
+    static final int HEADER_OFFSET_BLOCK_COUNT = 16;
+    static final int HEADER_OFFSET_BLOCK_OFFSETS = 24;
+    // bit readers and writers access memory 8 bytes at a time, blocks are padded to make this safe
+    private static final int BLOCK_PADDING = 16;
+    private static final Log LOG = LogFactory.getLog(ColumnCompressor.class);
+    private final Path other = new Path();
+    private final int blockShift;
+    private long buf = 0;
+    private long bufSize = 0;
+
+    public ColumnCompressor() {
+        this(DEFAULT_BLOCK_SHIFT);
+    }
+
+    public ColumnCompressor(int blockShift) {
+        this.blockShift = blockShift;
+    }
+
+    public static void decodeBlock(int codec, long src, long dst, long dstSize) {
+        switch (codec) {
+            case CODEC_DELTA_OF_DELTA:
+                decodeDeltaOfDelta(src, dst, dstSize >> 3);
+                break;
+            case CODEC_XOR:
+                decodeXor(src, dst, dstSize >> 3);
+                break;
+            case CODEC_BIT_PACK:
+                decodeBitPack(src, dst, dstSize >> 2);
+                break;
+            default:
+                throw CairoException.instance(0).put("unknown codec [codec=").put(codec).put(']');
+        }
+    }
+
+    public static long encodeBlock(int codec, long src, long srcSize, long dst) {
+        switch (codec) {
+            case CODEC_DELTA_OF_DELTA:
+                return encodeDeltaOfDelta(src, srcSize >> 3, dst);
+            case CODEC_XOR:
+                return encodeXor(src, srcSize >> 3, dst);
+            case CODEC_BIT_PACK:
+                return encodeBitPack(src, srcSize >> 2, dst);
+            default:
+                throw CairoException.instance(0).put("unknown codec [codec=").put(codec).put(']');
+        }
+    }
+
+    public static int getCodec(int columnType) {
+        switch (columnType) {
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return CODEC_DELTA_OF_DELTA;
+            case ColumnType.DOUBLE:
+                return CODEC_XOR;
+            case ColumnType.SYMBOL:
+                return CODEC_BIT_PACK;
+            default:
+                return CODEC_NONE;
+        }
+    }
+
+    public static boolean isSupported(int columnType) {
+        return getCodec(columnType) != CODEC_NONE;
+    }
+
+    /**
+     * @param blockSize decoded block size in bytes
+     * @return size of buffer enough to encode block of given size with any codec
+     */
+    public static long maxEncodedBlockSize(long blockSize) {
+        // varints take up to 10 bytes per 8 byte value, XOR takes up to 78 bits per value
+        return blockSize + (blockSize >> 2) + BLOCK_PADDING + 16;
+    }
+
+    @Override
+    public void close() {
+        if (buf != 0) {
+            Unsafe.free(buf, bufSize);
+            buf = 0;
+            bufSize = 0;
+        }
+        Misc.free(other);
+    }
+
+    /**
+     * Compresses "&lt;column&gt;.d" file in partition directory into "&lt;column&gt;.dz" and removes the former.
+     * Compressed file is written under temporary name first and renamed, so that concurrent readers never
+     * see partially written file.
+     *
+     * @param ff         files facade
+     * @param path       path to partition directory, it is left trimmed to this directory
+     * @param columnName name of column
+     * @param columnType type of column, which determines codec
+     * @param size       size of column data in bytes, excluding column top
+     */
+    public void compress(FilesFacade ff, Path path, CharSequence columnName, int columnType, long size) {
+        final int codec = getCodec(columnType);
+        assert codec != CODEC_NONE;
+        final int plen = path.length();
+        final long blockSize = 1L << blockShift;
+        final long blockCount = (size + blockSize - 1) >> blockShift;
+        final long headerSize = HEADER_OFFSET_BLOCK_OFFSETS + (blockCount + 1) * Long.BYTES;
+        final long maxBlockSize = maxEncodedBlockSize(blockSize);
+        ensureBuf(Math.max(headerSize, maxBlockSize));
+
+        long srcFd = -1;
+        long srcAddr = 0;
+        long dstFd = -1;
+        try {
+            srcFd = ff.openRO(TableUtils.dFile(path.trimTo(plen), columnName));
+            if (srcFd == -1) {
+                throw CairoException.instance(ff.errno()).put("could not open [file=").put(path).put(']');
+            }
+            if (size > 0) {
+                srcAddr = ff.mmap(srcFd, size, 0, Files.MAP_RO);
+                if (srcAddr == FilesFacade.MAP_FAILED) {
+                    srcAddr = 0;
+                    throw CairoException.instance(ff.errno()).put("could not mmap [file=").put(path).put(", size=").put(size).put(']');
+                }
+            }
+
+            dstFd = ff.openRW(tmpFile(path.trimTo(plen), columnName));
+            if (dstFd == -1) {
+                throw CairoException.instance(ff.errno()).put("could not open [file=").put(path).put(']');
+            }
+            if (!ff.truncate(dstFd, 0)) {
+                throw CairoException.instance(ff.errno()).put("could not truncate [file=").put(path).put(']');
+            }
+
+            // blocks go first, header is written once block offsets are known
+            final long pOffsets = Unsafe.malloc(blockCount * Long.BYTES + Long.BYTES);
+            try {
+                long offset = headerSize;
+                for (long i = 0; i < blockCount; i++) {
+                    final long lo = i << blockShift;
+                    final long len = Math.min(blockSize, size - lo);
+                    Unsafe.getUnsafe().setMemory(buf, maxBlockSize, (byte) 0);
+                    final long encodedLen = encodeBlock(codec, srcAddr + lo, len, buf);
+                    write(ff, dstFd, buf, encodedLen, offset, path);
+                    Unsafe.getUnsafe().putLong(pOffsets + i * Long.BYTES, offset);
+                    offset += encodedLen;
+                }
+                Unsafe.getUnsafe().putLong(pOffsets + blockCount * Long.BYTES, offset);
+
+                Unsafe.getUnsafe().putInt(buf + HEADER_OFFSET_CODEC, codec);
+                Unsafe.getUnsafe().putInt(buf + HEADER_OFFSET_BLOCK_SHIFT, blockShift);
+                Unsafe.getUnsafe().putLong(buf + HEADER_OFFSET_DECODED_SIZE, size);
+                Unsafe.getUnsafe().putLong(buf + HEADER_OFFSET_BLOCK_COUNT, blockCount);
+                Unsafe.getUnsafe().copyMemory(pOffsets, buf + HEADER_OFFSET_BLOCK_OFFSETS, (blockCount + 1) * Long.BYTES);
+                write(ff, dstFd, buf, headerSize, 0, path);
+
+                LOG.info()
+                        .$("compressed [path=").$(path)
+                        .$(", codec=").$(codec)
+                        .$(", size=").$(size)
+                        .$(", compressedSize=").$(offset)
+                        .$(']').$();
+            } finally {
+                Unsafe.free(pOffsets, blockCount * Long.BYTES + Long.BYTES);
+            }
+        } finally {
+            if (srcAddr != 0) {
+                ff.munmap(srcAddr, size);
+            }
+            if (srcFd != -1) {
+                ff.close(srcFd);
+            }
+            if (dstFd != -1) {
+                ff.close(dstFd);
+            }
+            path.trimTo(plen);
+        }
+
+        try {
+            // copy partition path byte for byte
+            other.trimTo(0);
+            other.put(path);
+            TableUtils.dzFile(other, columnName);
+            if (!ff.rename(tmpFile(path, columnName), other)) {
+                throw CairoException.instance(ff.errno()).put("could not rename [from=").put(path).put(", to=").put(other).put(']');
+            }
+            // readers look for compressed file first, it is safe to remove column file now
+            if (!ff.remove(TableUtils.dFile(path.trimTo(plen), columnName))) {
+                LOG.error().$("could not remove [file=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    /**
+     * Restores "&lt;column&gt;.d" file from "&lt;column&gt;.dz" and removes the latter.
+     *
+     * @param ff         files facade
+     * @param path       path to partition directory, it is left trimmed to this directory
+     * @param columnName name of column
+     */
+    public void decompress(FilesFacade ff, Path path, CharSequence columnName) {
+        final int plen = path.length();
+        long srcFd = -1;
+        long srcAddr = 0;
+        long srcSize = 0;
+        long dstFd = -1;
+        try {
+            srcFd = ff.openRO(TableUtils.dzFile(path.trimTo(plen), columnName));
+            if (srcFd == -1) {
+                throw CairoException.instance(ff.errno()).put("could not open [file=").put(path).put(']');
+            }
+            srcSize = ff.length(srcFd);
+            srcAddr = ff.mmap(srcFd, srcSize, 0, Files.MAP_RO);
+            if (srcAddr == FilesFacade.MAP_FAILED) {
+                srcAddr = 0;
+                throw CairoException.instance(ff.errno()).put("could not mmap [file=").put(path).put(", size=").put(srcSize).put(']');
+            }
+
+            final int codec = Unsafe.getUnsafe().getInt(srcAddr + HEADER_OFFSET_CODEC);
+            final int shift = Unsafe.getUnsafe().getInt(srcAddr + HEADER_OFFSET_BLOCK_SHIFT);
+            final long size = Unsafe.getUnsafe().getLong(srcAddr + HEADER_OFFSET_DECODED_SIZE);
+            final long blockCount = Unsafe.getUnsafe().getLong(srcAddr + HEADER_OFFSET_BLOCK_COUNT);
+            final long blockSize = 1L << shift;
+            ensureBuf(blockSize);
+
+            dstFd = ff.openRW(TableUtils.dFile(path.trimTo(plen), columnName));
+            if (dstFd == -1) {
+                throw CairoException.instance(ff.errno()).put("could not open [file=").put(path).put(']');
+            }
+            if (!ff.truncate(dstFd, 0)) {
+                throw CairoException.instance(ff.errno()).put("could not truncate [file=").put(path).put(']');
+            }
+
+            for (long i = 0; i < blockCount; i++) {
+                final long lo = i << shift;
+                final long len = Math.min(blockSize, size - lo);
+                decodeBlock(codec, srcAddr + Unsafe.getUnsafe().getLong(srcAddr + HEADER_OFFSET_BLOCK_OFFSETS + i * Long.BYTES), buf, len);
+                write(ff, dstFd, buf, len, lo, path);
+            }
+            LOG.info().$("decompressed [path=").$(path).$(", size=").$(size).$(']').$();
+        } finally {
+            if (srcAddr != 0) {
+                ff.munmap(srcAddr, srcSize);
+            }
+            if (srcFd != -1) {
+                ff.close(srcFd);
+            }
+            if (dstFd != -1) {
+                ff.close(dstFd);
+            }
+            path.trimTo(plen);
+        }
+
+        try {
+            if (!ff.remove(TableUtils.dzFile(path, columnName))) {
+                throw CairoException.instance(ff.errno()).put("could not remove [file=").put(path).put(']');
+            }
+        } finally {
+            path.trimTo(plen);
+        }
+    }
+
+    private static void decodeBitPack(long src, long dst, long count) {
+        final long min = Unsafe.getUnsafe().getLong(src);
+        final int width = Unsafe.getUnsafe().getByte(src + 8);
+        final long bits = src + 9;
+        long bitPos = 0;
+        for (long i = 0; i < count; i++) {
+            final long v = min + getBits(bits, bitPos, width);
+            Unsafe.getUnsafe().putInt(dst + i * Integer.BYTES, v == 0 ? Numbers.INT_NaN : (int) (v - 1));
+            bitPos += width;
+        }
+    }
+
+    private static void decodeDeltaOfDelta(long src, long dst, long count) {
+        if (count == 0) {
+            return;
+        }
+        long value = Unsafe.getUnsafe().getLong(src);
+        Unsafe.getUnsafe().putLong(dst, value);
+        long p = src + Long.BYTES;
+        long delta = 0;
+        for (long i = 1; i < count; i++) {
+            // unsigned LEB128 varint
+            long v = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = Unsafe.getUnsafe().getByte(p++);
+                v |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            // zigzag
+            delta += (v >>> 1) ^ -(v & 1);
+            value += delta;
+            Unsafe.getUnsafe().putLong(dst + i * Long.BYTES, value);
+        }
+    }
+
+    private static void decodeXor(long src, long dst, long count) {
+        if (count == 0) {
+            return;
+        }
+        long value = Unsafe.getUnsafe().getLong(src);
+        Unsafe.getUnsafe().putLong(dst, value);
+        final long bits = src + Long.BYTES;
+        long bitPos = 0;
+        int leading = 0;
+        int meaningful = 0;
+        for (long i = 1; i < count; i++) {
+            if (getBits(bits, bitPos++, 1) != 0) {
+                if (getBits(bits, bitPos++, 1) != 0) {
+                    leading = (int) getBits(bits, bitPos, 6);
+                    meaningful = (int) getBits(bits, bitPos + 6, 6) + 1;
+                    bitPos += 12;
+                }
+                final int trailing = 64 - leading - meaningful;
+                value ^= getBits(bits, bitPos, meaningful) << trailing;
+                bitPos += meaningful;
+            }
+            Unsafe.getUnsafe().putLong(dst + i * Long.BYTES, value);
+        }
+    }
+
+    private static long encodeBitPack(long src, long count, long dst) {
+        // null symbol key is INT_NaN, keys are shifted by one to keep null close to the rest of keys
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long i = 0; i < count; i++) {
+            final long v = toBitPackValue(Unsafe.getUnsafe().getInt(src + i * Integer.BYTES));
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        if (count == 0) {
+            min = max = 0;
+        }
+        final int width = 64 - Long.numberOfLeadingZeros(max - min);
+        Unsafe.getUnsafe().putLong(dst, min);
+        Unsafe.getUnsafe().putByte(dst + 8, (byte) width);
+        final long bits = dst + 9;
+        long bitPos = 0;
+        for (long i = 0; i < count; i++) {
+            putBits(bits, bitPos, toBitPackValue(Unsafe.getUnsafe().getInt(src + i * Integer.BYTES)) - min, width);
+            bitPos += width;
+        }
+        return 9 + ((bitPos + 7) >>> 3) + BLOCK_PADDING;
+    }
+
+    private static long encodeDeltaOfDelta(long src, long count, long dst) {
+        if (count == 0) {
+            return 0;
+        }
+        long prev = Unsafe.getUnsafe().getLong(src);
+        Unsafe.getUnsafe().putLong(dst, prev);
+        long p = dst + Long.BYTES;
+        long prevDelta = 0;
+        for (long i = 1; i < count; i++) {
+            final long value = Unsafe.getUnsafe().getLong(src + i * Long.BYTES);
+            final long delta = value - prev;
+            final long dod = delta - prevDelta;
+            long v = (dod << 1) ^ (dod >> 63);
+            while ((v & ~0x7fL) != 0) {
+                Unsafe.getUnsafe().putByte(p++, (byte) ((v & 0x7f) | 0x80));
+                v >>>= 7;
+            }
+            Unsafe.getUnsafe().putByte(p++, (byte) v);
+            prev = value;
+            prevDelta = delta;
+        }
+        return p - dst;
+    }
+
+    private static long encodeXor(long src, long count, long dst) {
+        if (count == 0) {
+            return 0;
+        }
+        long prev = Unsafe.getUnsafe().getLong(src);
+        Unsafe.getUnsafe().putLong(dst, prev);
+        final long bits = dst + Long.BYTES;
+        long bitPos = 0;
+        int prevLeading = -1;
+        int prevTrailing = 0;
+        for (long i = 1; i < count; i++) {
+            final long value = Unsafe.getUnsafe().getLong(src + i * Long.BYTES);
+            final long xor = value ^ prev;
+            if (xor == 0) {
+                bitPos++;
+            } else {
+                final int leading = Math.min(Long.numberOfLeadingZeros(xor), 63);
+                final int trailing = Long.numberOfTrailingZeros(xor);
+                if (prevLeading != -1 && leading >= prevLeading && trailing >= prevTrailing) {
+                    // control bits '1', '0', meaningful bits fit into previous window
+                    putBits(bits, bitPos, 1, 2);
+                    bitPos += 2;
+                    final int meaningful = 64 - prevLeading - prevTrailing;
+                    putBits(bits, bitPos, xor >>> prevTrailing, meaningful);
+                    bitPos += meaningful;
+                } else {
+                    // control bits '1', '1', new window
+                    final int meaningful = 64 - leading - trailing;
+                    putBits(bits, bitPos, 3, 2);
+                    putBits(bits, bitPos + 2, leading, 6);
+                    putBits(bits, bitPos + 8, meaningful - 1, 6);
+                    bitPos += 14;
+                    putBits(bits, bitPos, xor >>> trailing, meaningful);
+                    bitPos += meaningful;
+                    prevLeading = leading;
+                    prevTrailing = trailing;
+                }
+            }
+            prev = value;
+        }
+        return Long.BYTES + ((bitPos + 7) >>> 3) + BLOCK_PADDING;
+    }
+
+    private static long getBits(long base, long bitPos, int count) {
+        if (count == 0) {
+            return 0;
+        }
+        final long address = base + (bitPos >>> 3);
+        final int shift = (int) (bitPos & 7);
+        long value = Unsafe.getUnsafe().getLong(address) >>> shift;
+        if (count + shift > 64) {
+            value |= (Unsafe.getUnsafe().getByte(address + 8) & 0xffL) << (64 - shift);
+        }
+        return count == 64 ? value : value & ((1L << count) - 1);
+    }
+
+    // memory must be zeroed, bits are or-ed into it
+    private static void putBits(long base, long bitPos, long value, int count) {
+        if (count == 0) {
+            return;
+        }
+        if (count < 64) {
+            value &= (1L << count) - 1;
+        }
+        final long address = base + (bitPos >>> 3);
+        final int shift = (int) (bitPos & 7);
+        Unsafe.getUnsafe().putLong(address, Unsafe.getUnsafe().getLong(address) | (value << shift));
+        if (count + shift > 64) {
+            Unsafe.getUnsafe().putByte(address + 8, (byte) (Unsafe.getUnsafe().getByte(address + 8) | (value >>> (64 - shift))));
+        }
+    }
+
+    private static long toBitPackValue(int value) {
+        return value == Numbers.INT_NaN ? 0 : (long) value + 1;
+    }
+
+    private static Path tmpFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(".dz.tmp").$();
+    }
+
+    private static void write(FilesFacade ff, long fd, long address, long len, long offset, Path path) {
+        if (ff.write(fd, address, len, offset) != len) {
+            throw CairoException.instance(ff.errno()).put("could not write [file=").put(path).put(", offset=").put(offset).put(", len=").put(len).put(']');
+        }
+    }
+
+    private void ensureBuf(long size) {
+        if (size > bufSize) {
+            if (buf != 0) {
+                Unsafe.free(buf, bufSize);
+            }
+            buf = Unsafe.malloc(size);
+            bufSize = size;
+        }
+    }
+}
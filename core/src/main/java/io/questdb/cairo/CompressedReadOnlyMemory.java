@@ -0,0 +1,165 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.LPSZ;
+
+/**
+ * Read-only view of column file compressed by {@link ColumnCompressor}. Pages of this memory are blocks
+ * of compressed file. Each block is decoded into its own buffer the first time it is accessed, buffers
+ * are kept until memory is closed. Consumers that iterate pages see the same page layout as that of
+ * uncompressed column, except for page size.
+ */
+public class CompressedReadOnlyMemory extends VirtualMemory implements ReadOnlyColumn {
+    private static final Log LOG = LogFactory.getLog(CompressedReadOnlyMemory.class);
+    private FilesFacade ff;
+    private long fd = -1;
+    private long fileAddress = 0;
+    private long fileSize = 0;
+    private int codec;
+    private long decodedSize;
+    private int blockCount;
+
+    public CompressedReadOnlyMemory(FilesFacade ff, LPSZ name) {
+        of(ff, name, 0, 0);
+    }
+
+    public CompressedReadOnlyMemory() {
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (fileAddress != 0) {
+            ff.munmap(fileAddress, fileSize);
+            fileAddress = 0;
+            fileSize = 0;
+        }
+        if (fd != -1) {
+            ff.close(fd);
+            LOG.info().$("closed [fd=").$(fd).$(']').$();
+            fd = -1;
+        }
+        decodedSize = 0;
+        blockCount = 0;
+    }
+
+    @Override
+    public void of(FilesFacade ff, LPSZ name, long pageSize, long size) {
+        // page size is determined by compressed file and size cannot change
+        close();
+        this.ff = ff;
+        fd = ff.openRO(name);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("Cannot open file: ").put(name);
+        }
+        fileSize = ff.length(fd);
+        if (fileSize < ColumnCompressor.HEADER_OFFSET_BLOCK_OFFSETS) {
+            throw CairoException.instance(0).put("Compressed file is too small: ").put(name);
+        }
+        fileAddress = ff.mmap(fd, fileSize, 0, Files.MAP_RO);
+        if (fileAddress == FilesFacade.MAP_FAILED) {
+            fileAddress = 0;
+            throw CairoException.instance(ff.errno()).put("Cannot mmap read-only fd=").put(fd).put(", size=").put(fileSize);
+        }
+        codec = Unsafe.getUnsafe().getInt(fileAddress + ColumnCompressor.HEADER_OFFSET_CODEC);
+        decodedSize = Unsafe.getUnsafe().getLong(fileAddress + ColumnCompressor.HEADER_OFFSET_DECODED_SIZE);
+        blockCount = (int) Unsafe.getUnsafe().getLong(fileAddress + ColumnCompressor.HEADER_OFFSET_BLOCK_COUNT);
+        setPageSize(1L << Unsafe.getUnsafe().getInt(fileAddress + ColumnCompressor.HEADER_OFFSET_BLOCK_SHIFT));
+        ensurePagesListCapacity(decodedSize);
+        LOG.info().$("open ").$(name).$(" [fd=").$(fd).$(", codec=").$(codec).$(", size=").$(decodedSize).$(", compressedSize=").$(fileSize).$(']').$();
+    }
+
+    @Override
+    public long getFd() {
+        return fd;
+    }
+
+    @Override
+    public void grow(long size) {
+        // sealed partitions do not grow
+    }
+
+    @Override
+    public boolean isDeleted() {
+        return !ff.exists(fd);
+    }
+
+    @Override
+    public int getPageCount() {
+        return blockCount;
+    }
+
+    @Override
+    public long getPageAddress(int page) {
+        if (page < pages.size()) {
+            final long address = pages.getQuick(page);
+            if (address != 0) {
+                return address;
+            }
+        }
+        return decodePage(page);
+    }
+
+    @Override
+    public long getPageSize(int page) {
+        if (page < blockCount - 1) {
+            return getMapPageSize();
+        }
+        return decodedSize - pageOffset(page);
+    }
+
+    public long size() {
+        return decodedSize;
+    }
+
+    @Override
+    protected long mapWritePage(int page) {
+        throw new UnsupportedOperationException("Cannot jump() read-only memory");
+    }
+
+    @Override
+    protected void release(int page, long address) {
+        if (address != 0) {
+            Unsafe.free(address, getMapPageSize());
+        }
+    }
+
+    private long decodePage(int page) {
+        if (page >= blockCount) {
+            throw CairoException.instance(0).put("Trying to read compressed page outside of file boundary. fd=").put(fd).put(", page=").put(page).put(", pageCount=").put(blockCount);
+        }
+        final long blockOffset = Unsafe.getUnsafe().getLong(fileAddress + ColumnCompressor.HEADER_OFFSET_BLOCK_OFFSETS + (long) page * Long.BYTES);
+        final long address = Unsafe.malloc(getMapPageSize());
+        ColumnCompressor.decodeBlock(codec, fileAddress + blockOffset, address, getPageSize(page));
+        return cachePageAddress(page, address);
+    }
+}
@@ -140,6 +140,11 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return 509;
     }
 
+    @Override
+    public long getOutOfOrderPageSize() {
+        return 256 * 1024;
+    }
+
     @Override
     public int getParallelIndexThreshold() {
         return 100000;
@@ -312,16 +317,141 @@ public class DefaultCairoConfiguration implements CairoConfiguration {
         return textConfiguration;
     }
 
+    @Override
+    public int getWalApplyBatchRows() {
+        return 500_000;
+    }
+
+    @Override
+    public long getWalSegmentRolloverSize() {
+        return 16 * 1024 * 1024;
+    }
+
     @Override
     public long getWorkStealTimeoutNanos() {
         return 10000;
     }
 
+    @Override
+    public boolean isOutOfOrderEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isOutOfOrderParallelMergeEnabled() {
+        return true;
+    }
+
     @Override
     public boolean isParallelIndexingEnabled() {
         return true;
     }
 
+    @Override
+    public boolean isWalEnabled() {
+        return false;
+    }
+
+    @Override
+    public boolean isSqlParallelFilterEnabled() {
+        return true;
+    }
+
+    @Override
+    public int getSqlParallelFilterFrameRows() {
+        return 1_000_000;
+    }
+
+    @Override
+    public boolean isSqlParallelSampleByEnabled() {
+        return true;
+    }
+
+    @Override
+    public int getSqlParallelSampleByTaskRows() {
+        return 1_000_000;
+    }
+
+    @Override
+    public boolean isSqlParallelSortEnabled() {
+        return true;
+    }
+
+    @Override
+    public int getSqlParallelSortRunRows() {
+        return 1_000_000;
+    }
+
+    @Override
+    public long getSqlSortMemoryBudget() {
+        return 512 * 1024 * 1024;
+    }
+
+    @Override
+    public boolean isSqlParallelHashJoinEnabled() {
+        return true;
+    }
+
+    @Override
+    public int getSqlParallelHashJoinPartitions() {
+        return 16;
+    }
+
+    @Override
+    public long getSqlHashJoinMemoryBudget() {
+        return 1024 * 1024 * 1024;
+    }
+
+    @Override
+    public boolean isSqlJoinBloomFilterEnabled() {
+        return true;
+    }
+
+    @Override
+    public int getSqlJoinBloomFilterMaxKeys() {
+        return 1_000_000;
+    }
+
+    @Override
+    public boolean isSqlParallelLatestByEnabled() {
+        return true;
+    }
+
+    @Override
+    public int getSqlParallelLatestByTaskKeys() {
+        return 16384;
+    }
+
+    @Override
+    public boolean isSqlSampleByCacheEnabled() {
+        return false;
+    }
+
+    @Override
+    public int getSqlSampleByCacheCapacity() {
+        return 64;
+    }
+
+    @Override
+    public long getSqlSampleByCacheMaxRows() {
+        return 1_000_000;
+    }
+
+    @Override
+    public int getSqlParallelVectorAggregateTaskRows() {
+        return 1_000_000;
+    }
+
+    @Override
+    public boolean isSqlPlanCacheEnabled() {
+        return false;
+    }
+
+    @Override
+    public int getSqlPlanCacheCapacity() {
+        return 256;
+    }
+
     @Override
     public int getSqlJoinMetadataPageSize() {
         return 16 * 1024;
@@ -62,6 +62,7 @@ public class OnePageMemory implements ReadOnlyColumn, Closeable {
     public void close() {
         if (page != -1) {
             ff.munmap(page, size);
+            page = -1;
         }
         if (fd != -1) {
             ff.close(fd);
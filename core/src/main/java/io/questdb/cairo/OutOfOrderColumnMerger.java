@@ -0,0 +1,363 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SOCountDownLatch;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Misc;
+import io.questdb.std.Sinkable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.*;
+
+/**
+ * Merges out-of-order rows into single column of single partition. Column files are independent of each other,
+ * which allows writer to merge all columns of all affected partitions concurrently. Merger reads out-of-order
+ * rows via {@link VirtualMemory#copyTo(long, long, long)} so that any number of mergers can share the same
+ * staging memory.
+ */
+public class OutOfOrderColumnMerger implements Closeable {
+    private static final Log LOG = LogFactory.getLog(OutOfOrderColumnMerger.class);
+    private static final long SEQUENCE_OFFSET;
+    // large enough for LONG256 value
+    private static final int TEMP_MEM_SIZE = 32;
+
+    static {
+        SEQUENCE_OFFSET = Unsafe.getFieldOffset(OutOfOrderColumnMerger.class, "sequence");
+    }
+
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final Path path = new Path();
+    private final AppendMemory partitionMem1 = new AppendMemory();
+    private final AppendMemory partitionMem2 = new AppendMemory();
+    private final SymbolColumnIndexer indexer = new SymbolColumnIndexer();
+    private final ReadOnlyMemory indexMem = new ReadOnlyMemory();
+    private final long tempMem;
+    @SuppressWarnings({"unused", "FieldCanBeLocal", "FieldMayBeFinal"})
+    private volatile long sequence = 0L;
+    private volatile boolean distressed = false;
+    private long valueMem = 0;
+    private long valueMemSize = 0;
+    private CharSequence columnName;
+    private int type;
+    private boolean indexed;
+    private boolean active;
+    private int commitMode;
+    private long partitionSize;
+    private long mergeLo;
+    private long pMergeIndex;
+    private long mergeCount;
+    private long top;
+    private long newTop;
+    private AppendMemory mem1;
+    private AppendMemory mem2;
+    private VirtualMemory src1;
+    private VirtualMemory src2;
+
+    public OutOfOrderColumnMerger(CairoConfiguration configuration) {
+        this.configuration = configuration;
+        this.ff = configuration.getFilesFacade();
+        this.tempMem = Unsafe.malloc(TEMP_MEM_SIZE);
+    }
+
+    public static void mergeAndCountDown(OutOfOrderColumnMerger merger, SOCountDownLatch latch) {
+        try {
+            merger.merge();
+        } catch (CairoException e) {
+            merger.distress();
+            LOG.error().$("merge error [path=").$(merger.path).$(", column=").$(merger.columnName).$(']').$('{').$((Sinkable) e).$('}').$();
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(path);
+        Misc.free(partitionMem1);
+        Misc.free(partitionMem2);
+        Misc.free(indexer);
+        Misc.free(indexMem);
+        Unsafe.free(tempMem, TEMP_MEM_SIZE);
+        if (valueMem != 0) {
+            Unsafe.free(valueMem, valueMemSize);
+            valueMem = 0;
+            valueMemSize = 0;
+        }
+    }
+
+    public void distress() {
+        distressed = true;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public boolean isDistressed() {
+        return distressed;
+    }
+
+    public boolean tryLock(long expectedSequence) {
+        return Unsafe.cas(this, SEQUENCE_OFFSET, expectedSequence, expectedSequence + 1);
+    }
+
+    long getNewTop() {
+        return newTop;
+    }
+
+    long getTop() {
+        return top;
+    }
+
+    void merge() {
+        final int plen = path.length();
+        final boolean variableSize = type == ColumnType.STRING || type == ColumnType.BINARY;
+        final int shift = variableSize ? 3 : ColumnType.pow2SizeOf(type);
+
+        if (!active) {
+            if (ff.exists(dFile(path.trimTo(plen), columnName))) {
+                top = readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem);
+            } else {
+                // column was added after partition had been written
+                top = partitionSize;
+            }
+            mem1 = partitionMem1;
+            mem1.of(ff, dFile(path.trimTo(plen), columnName), ff.getMapPageSize());
+            if (variableSize) {
+                mem2 = partitionMem2;
+                mem2.of(ff, iFile(path.trimTo(plen), columnName), ff.getMapPageSize());
+            } else {
+                mem2 = null;
+            }
+            path.trimTo(plen);
+        }
+
+        // rows between mergeLo and top become explicit nulls
+        newTop = Math.min(top, mergeLo);
+        final long tailLo = Math.max(mergeLo, top) - top;
+        final long tailHi = partitionSize - top;
+
+        long pTail = 0;
+        long tailSize = 0;
+        long pTailData = 0;
+        long tailDataSize = 0;
+        long tailDataLo = 0;
+        try {
+            // copy existing rows we are about to overwrite
+            if (tailHi > tailLo) {
+                tailSize = (tailHi - tailLo) << shift;
+                pTail = Unsafe.malloc(tailSize);
+                if (variableSize) {
+                    TableWriter.readFully(ff, mem2.getFd(), pTail, tailSize, tailLo << shift);
+                    tailDataLo = Unsafe.getUnsafe().getLong(pTail);
+                    final long lastOffset = Unsafe.getUnsafe().getLong(pTail + tailSize - Long.BYTES);
+                    TableWriter.readFully(ff, mem1.getFd(), tempMem, type == ColumnType.STRING ? Integer.BYTES : Long.BYTES, lastOffset);
+                    tailDataSize = lastOffset + TableWriter.getVarValueStorageLength(type, tempMem) - tailDataLo;
+                    pTailData = Unsafe.malloc(tailDataSize);
+                    TableWriter.readFully(ff, mem1.getFd(), pTailData, tailDataSize, tailDataLo);
+                } else {
+                    TableWriter.readFully(ff, mem1.getFd(), pTail, tailSize, tailLo << shift);
+                }
+            }
+
+            TableWriter.setColumnSize(ff, mem1, mem2, type, mergeLo - newTop, tempMem);
+
+            for (long m = 0; m < mergeCount; m++) {
+                final long entry = Unsafe.getUnsafe().getLong(pMergeIndex + m * Long.BYTES);
+                if (entry < 0) {
+                    final long row = ~entry;
+                    if (variableSize) {
+                        src2.copyTo(tempMem, row * Long.BYTES, Long.BYTES);
+                        final long offset = Unsafe.getUnsafe().getLong(tempMem);
+                        src1.copyTo(tempMem, offset, type == ColumnType.STRING ? Integer.BYTES : Long.BYTES);
+                        final long len = TableWriter.getVarValueStorageLength(type, tempMem);
+                        ensureValueMem(len);
+                        src1.copyTo(valueMem, offset, len);
+                        mem2.putLong(mem1.getAppendOffset());
+                        mem1.putBlockOfBytes(valueMem, len);
+                    } else {
+                        src1.copyTo(tempMem, row << shift, 1L << shift);
+                        TableWriter.copyFixedValue(tempMem, mem1, shift);
+                    }
+                } else if (mergeLo + entry < top) {
+                    TableWriter.putNull(mem1, mem2, type);
+                } else {
+                    final long k = mergeLo + entry - top - tailLo;
+                    if (variableSize) {
+                        final long address = pTailData + Unsafe.getUnsafe().getLong(pTail + k * Long.BYTES) - tailDataLo;
+                        mem2.putLong(mem1.getAppendOffset());
+                        mem1.putBlockOfBytes(address, TableWriter.getVarValueStorageLength(type, address));
+                    } else {
+                        TableWriter.copyFixedValue(pTail + (k << shift), mem1, shift);
+                    }
+                }
+            }
+
+            if (!active && commitMode != CommitMode.NOSYNC) {
+                mem1.sync(commitMode == CommitMode.ASYNC);
+                if (mem2 != null) {
+                    mem2.sync(false);
+                }
+            }
+        } finally {
+            if (pTail != 0) {
+                Unsafe.free(pTail, tailSize);
+            }
+            if (pTailData != 0) {
+                Unsafe.free(pTailData, tailDataSize);
+            }
+            if (!active) {
+                mem1.close(true);
+                if (mem2 != null) {
+                    mem2.close(true);
+                }
+            }
+        }
+
+        if (newTop != top) {
+            try {
+                if (newTop > 0) {
+                    writeLongAtOffset(ff, topFile(path.trimTo(plen), columnName), tempMem, 0, newTop);
+                } else if (ff.exists(topFile(path.trimTo(plen), columnName)) && !ff.remove(path)) {
+                    throw CairoException.instance(ff.errno()).put("Cannot remove: ").put(path);
+                }
+            } finally {
+                path.trimTo(plen);
+            }
+        }
+
+        // index of active partition belongs to writer, it is rolled back by writer once all columns are merged
+        if (indexed && !active) {
+            indexPartition(plen);
+        }
+    }
+
+    /**
+     * Prepares merger for column of partition that is currently being appended to. Column memory is
+     * owned by writer.
+     */
+    void ofActive(
+            CharSequence partitionPath,
+            CharSequence columnName,
+            int type,
+            VirtualMemory src1,
+            VirtualMemory src2,
+            long partitionSize,
+            long mergeLo,
+            long pMergeIndex,
+            long mergeCount,
+            long top,
+            AppendMemory mem1,
+            AppendMemory mem2
+    ) {
+        of(partitionPath, columnName, type, false, src1, src2, partitionSize, mergeLo, pMergeIndex, mergeCount, CommitMode.NOSYNC);
+        this.active = true;
+        this.top = top;
+        this.mem1 = mem1;
+        this.mem2 = mem2;
+    }
+
+    /**
+     * Prepares merger for column of partition other than active. Column files are opened by merger itself.
+     */
+    void ofPartition(
+            CharSequence partitionPath,
+            CharSequence columnName,
+            int type,
+            boolean indexed,
+            VirtualMemory src1,
+            VirtualMemory src2,
+            long partitionSize,
+            long mergeLo,
+            long pMergeIndex,
+            long mergeCount,
+            int commitMode
+    ) {
+        of(partitionPath, columnName, type, indexed, src1, src2, partitionSize, mergeLo, pMergeIndex, mergeCount, commitMode);
+        this.active = false;
+        this.mem1 = null;
+        this.mem2 = null;
+    }
+
+    private void ensureValueMem(long len) {
+        if (len > valueMemSize) {
+            if (valueMem != 0) {
+                Unsafe.free(valueMem, valueMemSize);
+            }
+            valueMemSize = Math.max(len, valueMemSize * 2);
+            valueMem = Unsafe.malloc(valueMemSize);
+        }
+    }
+
+    private void indexPartition(int plen) {
+        try {
+            indexer.configureWriter(configuration, path.trimTo(plen), columnName, newTop);
+            indexer.rollback(mergeLo - 1);
+            indexMem.of(ff, dFile(path.trimTo(plen), columnName), ff.getPageSize(), 0);
+            final long partitionHi = mergeLo + mergeCount;
+            indexMem.grow((partitionHi - newTop) << ColumnType.pow2SizeOf(ColumnType.INT));
+            indexer.index(indexMem, mergeLo, partitionHi);
+        } finally {
+            indexMem.close();
+            indexer.close();
+            path.trimTo(plen);
+        }
+    }
+
+    private void of(
+            CharSequence partitionPath,
+            CharSequence columnName,
+            int type,
+            boolean indexed,
+            VirtualMemory src1,
+            VirtualMemory src2,
+            long partitionSize,
+            long mergeLo,
+            long pMergeIndex,
+            long mergeCount,
+            int commitMode
+    ) {
+        this.path.of(partitionPath);
+        this.columnName = columnName;
+        this.type = type;
+        this.indexed = indexed;
+        this.src1 = src1;
+        this.src2 = src2;
+        this.partitionSize = partitionSize;
+        this.mergeLo = mergeLo;
+        this.pMergeIndex = pMergeIndex;
+        this.mergeCount = mergeCount;
+        this.commitMode = commitMode;
+        this.distressed = false;
+    }
+}
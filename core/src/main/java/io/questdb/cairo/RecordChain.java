@@ -49,7 +49,11 @@ public class RecordChain implements Closeable, RecordCursor, Mutable, RecordSink
     private RecordCursor symbolTableResolver;
 
     public RecordChain(@Transient ColumnTypes columnTypes, RecordSink recordSink, long pageSize, int maxPages) {
-        this.mem = new ContiguousVirtualMemory(pageSize, maxPages);
+        this(columnTypes, recordSink, new ContiguousVirtualMemory(pageSize, maxPages));
+    }
+
+    public RecordChain(@Transient ColumnTypes columnTypes, RecordSink recordSink, ContiguousVirtualMemory mem) {
+        this.mem = mem;
         this.recordSink = recordSink;
         int count = columnTypes.getColumnCount();
         long varOffset = 0L;
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.Path;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contiguous memory that is allocated either on heap or, once switched to spill mode, in
+ * memory mapped temporary file. Pages of the file can be written out by OS when memory is
+ * short, which lets large intermediate results outgrow RAM. Temporary file is removed when
+ * memory is released. Memory switched to spill mode while it holds data is moved to the file
+ * when it next grows. Memory that is already in the file stays there until it is released.
+ */
+public class SpillableVirtualMemory extends ContiguousVirtualMemory {
+    private static final Log LOG = LogFactory.getLog(SpillableVirtualMemory.class);
+    private static final AtomicLong FILE_ID = new AtomicLong();
+    private final FilesFacade ff;
+    private final CharSequence spillRoot;
+    private final int mkDirMode;
+    private boolean spill;
+    private long fd = -1;
+    private long fileId;
+
+    public SpillableVirtualMemory(FilesFacade ff, CharSequence spillRoot, int mkDirMode, long pageSize, int maxPages) {
+        super(pageSize, maxPages);
+        this.ff = ff;
+        this.spillRoot = spillRoot;
+        this.mkDirMode = mkDirMode;
+    }
+
+    public long getAllocatedSize() {
+        return getMemorySize();
+    }
+
+    public boolean isSpill() {
+        return spill;
+    }
+
+    public void setSpill(boolean spill) {
+        this.spill = spill;
+    }
+
+    @Override
+    protected long reallocateMemory(long currentBaseAddress, long currentSize, long newSize) {
+        if (fd == -1) {
+            if (!spill) {
+                return super.reallocateMemory(currentBaseAddress, currentSize, newSize);
+            }
+            openFile();
+            truncate(newSize);
+            final long address = mmap(newSize);
+            if (currentBaseAddress != 0) {
+                // move heap memory to the file
+                Unsafe.getUnsafe().copyMemory(currentBaseAddress, address, currentSize);
+                Unsafe.free(currentBaseAddress, currentSize);
+            }
+            return address;
+        }
+
+        truncate(newSize);
+        final long address = ff.mremap(fd, currentBaseAddress, currentSize, newSize, 0, Files.MAP_RW);
+        if (address == FilesFacade.MAP_FAILED) {
+            throw CairoException.instance(ff.errno()).put("could not remap spill file [fd=").put(fd).put(", size=").put(newSize).put(']');
+        }
+        return address;
+    }
+
+    @Override
+    protected void releaseMemory() {
+        if (fd == -1) {
+            super.releaseMemory();
+            return;
+        }
+
+        final long size = getMemorySize();
+        if (size > 0) {
+            ff.munmap(addressOf(0), size);
+        }
+        handleMemoryReleased();
+        ff.close(fd);
+        fd = -1;
+        try (Path path = spillFile(fileId)) {
+            if (!ff.remove(path)) {
+                LOG.error().$("could not remove spill file [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            }
+        }
+    }
+
+    private void truncate(long size) {
+        if (!ff.truncate(fd, size)) {
+            throw CairoException.instance(ff.errno()).put("could not resize spill file [fd=").put(fd).put(", size=").put(size).put(']');
+        }
+    }
+
+    private void openFile() {
+        fileId = FILE_ID.incrementAndGet();
+        try (Path path = spillFile(fileId)) {
+            if (ff.mkdirs(path, mkDirMode) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create spill directory [path=").put(path).put(']');
+            }
+            fd = ff.openRW(path);
+            if (fd == -1) {
+                throw CairoException.instance(ff.errno()).put("could not open spill file [path=").put(path).put(']');
+            }
+            LOG.info().$("spilling to [path=").$(path).$(", fd=").$(fd).$(']').$();
+        }
+    }
+
+    private long mmap(long size) {
+        final long address = ff.mmap(fd, size, 0, Files.MAP_RW);
+        if (address == FilesFacade.MAP_FAILED) {
+            throw CairoException.instance(ff.errno()).put("could not mmap spill file [fd=").put(fd).put(", size=").put(size).put(']');
+        }
+        return address;
+    }
+
+    private Path spillFile(long fileId) {
+        return new Path().of(spillRoot).put(Files.SEPARATOR).put(fileId).put(".s").$();
+    }
+}
@@ -76,7 +76,7 @@ class SymbolColumnIndexer implements ColumnIndexer, Closeable {
     public void index(VirtualMemory mem, long loRow, long hiRow) {
         // while we may have to read column starting with zero offset
         // index values have to be adjusted to partition-level row id
-        for (long lo = loRow - columnTop; lo < hiRow; lo++) {
+        for (long lo = Math.max(loRow, columnTop) - columnTop, hi = hiRow - columnTop; lo < hi; lo++) {
             writer.add(TableUtils.toIndexKey(mem.getInt(lo * Integer.BYTES)), lo + columnTop);
         }
     }
@@ -29,6 +29,7 @@ import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.std.*;
 import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.Path;
 import org.jetbrains.annotations.NotNull;
 
@@ -42,6 +43,8 @@ public class TableReader implements Closeable {
     private static final PartitionPathGenerator YEAR_GEN = TableReader::pathGenYear;
     private static final PartitionPathGenerator MONTH_GEN = TableReader::pathGenMonth;
     private static final PartitionPathGenerator DAY_GEN = TableReader::pathGenDay;
+    private static final PartitionPathGenerator HOUR_GEN = TableReader::pathGenHour;
+    private static final PartitionPathGenerator WEEK_GEN = TableReader::pathGenWeek;
     private static final PartitionPathGenerator DEFAULT_GEN = (reader, partitionIndex) -> reader.pathGenDefault();
     private static final ReloadMethod FIRST_TIME_PARTITIONED_RELOAD_METHOD = TableReader::reloadInitialPartitioned;
     private static final ReloadMethod FIRST_TIME_NON_PARTITIONED_RELOAD_METHOD = TableReader::reloadInitialNonPartitioned;
@@ -120,6 +123,20 @@ public class TableReader implements Closeable {
                     intervalLengthMethod = Timestamps::getYearsBetween;
                     timestampAddMethod = Timestamps::addYear;
                     break;
+                case PartitionBy.HOUR:
+                    partitionPathGenerator = HOUR_GEN;
+                    reloadMethod = FIRST_TIME_PARTITIONED_RELOAD_METHOD;
+                    timestampFloorMethod = Timestamps::floorHH;
+                    intervalLengthMethod = Timestamps::getHoursBetween;
+                    timestampAddMethod = Timestamps::addHours;
+                    break;
+                case PartitionBy.WEEK:
+                    partitionPathGenerator = WEEK_GEN;
+                    reloadMethod = FIRST_TIME_PARTITIONED_RELOAD_METHOD;
+                    timestampFloorMethod = Timestamps::floorWW;
+                    intervalLengthMethod = Timestamps::getWeeksBetween;
+                    timestampAddMethod = Timestamps::addWeeks;
+                    break;
                 default:
                     partitionPathGenerator = DEFAULT_GEN;
                     reloadMethod = FIRST_TIME_NON_PARTITIONED_RELOAD_METHOD;
@@ -257,7 +274,7 @@ public class TableReader implements Closeable {
         return maxTimestamp;
     }
 
-    public RecordMetadata getMetadata() {
+    public TableReaderMetadata getMetadata() {
         return metadata;
     }
 
@@ -291,6 +308,10 @@ public class TableReader implements Closeable {
         return (int) intervalLengthMethod.calculate(partitionTimestamp1, partitionTimestamp2);
     }
 
+    public long getPartitionTableVersion() {
+        return partitionTableVersion;
+    }
+
     public int getPartitionedBy() {
         return metadata.getPartitionBy();
     }
@@ -353,6 +374,34 @@ public class TableReader implements Closeable {
         return min;
     }
 
+    /**
+     * Opens backward index reader on index of the column in open partition. Reader is owned
+     * by the caller rather than this table reader, so it can be used by another thread.
+     *
+     * @param indexReader    reader to open, previously open index is closed
+     * @param partitionIndex index of open partition
+     * @param columnIndex    index of indexed column
+     * @return false when partition has no data for the column and reader was not opened
+     */
+    public boolean openBitmapIndexReader(BitmapIndexBwdReader indexReader, int partitionIndex, int columnIndex) {
+        if (!metadata.isColumnIndexed(columnIndex)) {
+            throw CairoException.instance(0).put("Not indexed: ").put(metadata.getColumnName(columnIndex));
+        }
+
+        final int columnBase = getColumnBase(partitionIndex);
+        if (columns.getQuick(getPrimaryColumnIndex(columnBase, columnIndex)) instanceof NullColumn) {
+            return false;
+        }
+
+        Path path = partitionPathGenerator.generate(this, partitionIndex);
+        try {
+            indexReader.of(configuration, path.chopZ(), metadata.getColumnName(columnIndex), getColumnTop(columnBase, columnIndex));
+        } finally {
+            path.trimTo(rootLen);
+        }
+        return true;
+    }
+
     public boolean reload() {
         return reloadMethod.reload(this);
     }
@@ -503,20 +552,21 @@ public class TableReader implements Closeable {
     }
 
     private void applyTruncate() {
-        LOG.info().$("truncate detected").$();
+        // data version changes when table is truncated or when out-of-order rows are merged
+        // into existing partitions. In both cases partition sizes, column tops and even
+        // partition indexes (when min timestamp moves) we have cached cannot be trusted.
+        // Close everything and let partitions re-open on demand.
+        LOG.info().$("data version changed").$();
         for (int i = 0, n = partitionCount; i < n; i++) {
-            long size = openPartition0(i);
-            if (size == -1) {
-                int base = getColumnBase(i);
-                for (int k = 0; k < columnCount; k++) {
-                    final int index = getPrimaryColumnIndex(base, k);
-                    Misc.free(columns.getAndSetQuick(index, null));
-                    Misc.free(columns.getAndSetQuick(index + 1, null));
-                    Misc.free(bitmapIndexes.getAndSetQuick(index, null));
-                    Misc.free(bitmapIndexes.getAndSetQuick(index + 1, null));
-                }
-                partitionRowCounts.setQuick(i, -1);
+            int base = getColumnBase(i);
+            for (int k = 0; k < columnCount; k++) {
+                final int index = getPrimaryColumnIndex(base, k);
+                Misc.free(columns.getAndSetQuick(index, null));
+                Misc.free(columns.getAndSetQuick(index + 1, null));
+                Misc.free(bitmapIndexes.getAndSetQuick(index, null));
+                Misc.free(bitmapIndexes.getAndSetQuick(index + 1, null));
             }
+            partitionRowCounts.setQuick(i, -1);
         }
         reloadSymbolMapCounts();
         partitionCount = calculatePartitionCount();
@@ -903,6 +953,27 @@ public class TableReader implements Closeable {
         return path.$();
     }
 
+    private Path pathGenHour(int partitionIndex) {
+        TableUtils.fmtHour.format(
+                Timestamps.addHours(minTimestamp, partitionIndex),
+                null, // this format does not need locale access
+                null,
+                path.put(Files.SEPARATOR)
+        );
+        return path.$();
+    }
+
+    private Path pathGenWeek(int partitionIndex) {
+        // weekly partition directories are named after the first day of the week
+        TableUtils.fmtDay.format(
+                Timestamps.addWeeks(minTimestamp, partitionIndex),
+                null, // this format does not need locale access
+                null,
+                path.put(Files.SEPARATOR)
+        );
+        return path.$();
+    }
+
     private Path pathGenDefault() {
         return path.concat(TableUtils.DEFAULT_PARTITION_NAME).$();
     }
@@ -1038,9 +1109,20 @@ public class TableReader implements Closeable {
             ReadOnlyColumn mem1 = columns.getQuick(primaryIndex);
             ReadOnlyColumn mem2 = columns.getQuick(secondaryIndex);
 
-            if (ff.exists(TableUtils.dFile(path.trimTo(plen), name))) {
+            boolean compressed = ff.exists(TableUtils.dzFile(path.trimTo(plen), name));
+            boolean exists = compressed || ff.exists(TableUtils.dFile(path.trimTo(plen), name));
+            if (!exists) {
+                // writer removes column file only after compressed file is in place
+                compressed = exists = ff.exists(TableUtils.dzFile(path.trimTo(plen), name));
+            }
+
+            if (exists) {
 
-                mem1 = openOrCreateMemory(path, columns, lastPartition, primaryIndex, mem1);
+                if (compressed) {
+                    mem1 = openCompressedMemory(TableUtils.dzFile(path.trimTo(plen), name), columns, primaryIndex, mem1);
+                } else {
+                    mem1 = openOrCreateMemory(TableUtils.dFile(path.trimTo(plen), name), columns, lastPartition, primaryIndex, mem1);
+                }
 
                 final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), name, plen, tempMem8b);
                 final int type = metadata.getColumnType(columnIndex);
@@ -1089,10 +1171,23 @@ public class TableReader implements Closeable {
     }
 
     @NotNull
-    private ReadOnlyColumn openOrCreateMemory(Path path, ObjList<ReadOnlyColumn> columns, boolean lastPartition, int primaryIndex, ReadOnlyColumn mem) {
-        if (mem != null && mem != NullColumn.INSTANCE) {
+    private ReadOnlyColumn openCompressedMemory(LPSZ name, ObjList<ReadOnlyColumn> columns, int primaryIndex, ReadOnlyColumn mem) {
+        if (mem instanceof CompressedReadOnlyMemory) {
+            mem.of(ff, name, 0, 0);
+        } else {
+            Misc.free(mem);
+            mem = new CompressedReadOnlyMemory(ff, name);
+            columns.setQuick(primaryIndex, mem);
+        }
+        return mem;
+    }
+
+    @NotNull
+    private ReadOnlyColumn openOrCreateMemory(LPSZ path, ObjList<ReadOnlyColumn> columns, boolean lastPartition, int primaryIndex, ReadOnlyColumn mem) {
+        if (mem != null && mem != NullColumn.INSTANCE && !(mem instanceof CompressedReadOnlyMemory)) {
             mem.of(ff, path, ff.getMapPageSize(), ff.length(path));
         } else {
+            Misc.free(mem);
             if (lastPartition) {
                 mem = new ExtendableOnePageMemory(ff, path, ff.getMapPageSize());
             } else {
@@ -225,6 +225,18 @@ public class TableReaderMetadata extends BaseRecordMetadata implements Closeable
         return columnCount;
     }
 
+    public long getCommitLag() {
+        return metaMem.getLong(TableUtils.META_OFFSET_COMMIT_LAG);
+    }
+
+    public long getMaxUncommittedBytes() {
+        return metaMem.getLong(TableUtils.META_OFFSET_MAX_UNCOMMITTED_BYTES);
+    }
+
+    public int getMaxUncommittedRows() {
+        return (int) metaMem.getLong(TableUtils.META_OFFSET_MAX_UNCOMMITTED_ROWS);
+    }
+
     public int getPartitionBy() {
         return metaMem.getInt(TableUtils.META_OFFSET_PARTITION_BY);
     }
@@ -73,6 +73,12 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
         return cursor;
     }
 
+    @Override
+    public boolean pushDownRuntimeFilter(RuntimeRecordFilter filter) {
+        cursor.setRuntimeFilter(filter);
+        return true;
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return true;
@@ -108,7 +114,9 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
         private int partitionIndex;
         private int partitionCount;
         private final LongList pageSizes = new LongList();
+        private long pageRowLo;
         private long pageValueCount;
+        private long partitionSize;
         private long partitionRemaining = 0L;
 
         public TableReaderPageFrameCursor(IntList columnIndexes, IntList columnSizes) {
@@ -127,6 +135,11 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
             return reader.getSymbolMapReader(columnIndexes.getQuick(columnIndex));
         }
 
+        @Override
+        public TableReader getTableReader() {
+            return reader;
+        }
+
         @Override
         public @Nullable PageFrame next() {
 
@@ -138,7 +151,7 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
             }
 
             while (++partitionIndex < partitionCount) {
-                partitionRemaining = reader.openPartition(partitionIndex);
+                partitionRemaining = partitionSize = reader.openPartition(partitionIndex);
                 if (partitionRemaining > 0) {
                     final int base = reader.getColumnBase(partitionIndex);
                     // copy table tops
@@ -193,6 +206,7 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
                     columnPageNextAddress.setQuick(i, addr + (min << columnSizes.getQuick(i)));
                 }
             }
+            pageRowLo = partitionSize - partitionRemaining;
             pageValueCount = min;
             partitionRemaining -= min;
             return frame;
@@ -243,6 +257,16 @@ public class TableReaderRecordCursorFactory extends AbstractRecordCursorFactory
             public long getPageValueCount(int columnIndex) {
                 return pageValueCount;
             }
+
+            @Override
+            public int getPartitionIndex() {
+                return partitionIndex;
+            }
+
+            @Override
+            public long getRowLo() {
+                return pageRowLo;
+            }
         }
     }
 }
@@ -26,6 +26,7 @@ package io.questdb.cairo;
 
 import io.questdb.cairo.sql.Record;
 import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RuntimeRecordFilter;
 import io.questdb.cairo.sql.SymbolTable;
 import io.questdb.std.IntList;
 import io.questdb.std.Misc;
@@ -44,6 +45,8 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
     private long recodLo;
     private int partitionHi;
     private long recordHi;
+    private RuntimeRecordFilter runtimeFilter;
+    private boolean filtered;
 
     public TableReaderSelectedColumnRecordCursor(IntList columnIndexes) {
         this.columnIndexes = columnIndexes;
@@ -68,6 +71,9 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
 
     @Override
     public boolean hasNext() {
+        if (filtered) {
+            return nextAccepted();
+        }
         if (recordA.getAdjustedRecordIndex() < maxRecordIndex || switchPartition()) {
             recordA.incrementRecordIndex();
             return true;
@@ -99,7 +105,7 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
 
     @Override
     public long size() {
-        return reader.size();
+        return filtered ? -1 : reader.size();
     }
 
     public void of(TableReader reader) {
@@ -120,6 +126,11 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
         of0(reader);
     }
 
+    public void setRuntimeFilter(RuntimeRecordFilter runtimeFilter) {
+        assert this.runtimeFilter == null;
+        this.runtimeFilter = runtimeFilter;
+    }
+
     public void startFrom(long rowid) {
         partitionIndex = Rows.toPartitionIndex(rowid);
         long recordIndex = Rows.toLocalRowID(rowid);
@@ -135,6 +146,20 @@ public class TableReaderSelectedColumnRecordCursor implements RecordCursor {
         this.recordA.of(reader);
         this.recordB.of(reader);
         toTop();
+        this.filtered = runtimeFilter != null && runtimeFilter.isActive();
+        if (filtered) {
+            runtimeFilter.of(this);
+        }
+    }
+
+    private boolean nextAccepted() {
+        while (recordA.getAdjustedRecordIndex() < maxRecordIndex || switchPartition()) {
+            recordA.incrementRecordIndex();
+            if (runtimeFilter.accept(recordA)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private boolean switchPartition() {
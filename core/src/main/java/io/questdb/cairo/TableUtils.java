@@ -47,6 +47,7 @@ public final class TableUtils {
     static final int MIN_INDEX_VALUE_BLOCK_SIZE = Numbers.ceilPow2(4);
     static final byte TODO_RESTORE_META = 2;
     static final byte TODO_TRUNCATE = 1;
+    static final TimestampFormat fmtHour;
     static final TimestampFormat fmtDay;
     static final TimestampFormat fmtMonth;
     static final TimestampFormat fmtYear;
@@ -88,13 +89,35 @@ public final class TableUtils {
     static final long META_OFFSET_PARTITION_BY = 4;
     static final long META_OFFSET_TIMESTAMP_INDEX = 8;
     static final long META_OFFSET_VERSION = 12;
+    // LONG - per-table commit policy, zero means "use receiver default"
+    static final long META_OFFSET_COMMIT_LAG = 16;
+    static final long META_OFFSET_MAX_UNCOMMITTED_ROWS = 24;
+    static final long META_OFFSET_MAX_UNCOMMITTED_BYTES = 32;
     static final long META_COLUMN_DATA_SIZE = 16;
     static final long META_COLUMN_DATA_RESERVED = 3;
     static final long META_OFFSET_COLUMN_TYPES = 128;
     static final int META_FLAG_BIT_INDEXED = 1;
     static final int META_FLAG_BIT_SEQUENTIAL = 1 << 1;
+    static final int META_FLAG_BIT_COMPRESSED = 1 << 2;
 
     static final String TODO_FILE_NAME = "_todo";
+    // write-ahead log, segments are named "<segment id>.wal"
+    static final String WAL_DIR_NAME = "wal";
+    static final String WAL_SEGMENT_FILE_EXT = ".wal";
+    static final String WAL_APPLIED_FILE_NAME = "_applied";
+    static final String WAL_TXN_LOG_FILE_NAME = "_txnlog";
+    static final int WAL_FORMAT_VERSION = 1;
+    // LONG - number of txn log entries materialized into column files
+    static final long WAL_APPLIED_OFFSET_TXN = 0;
+    // LONG - batch that was being committed, valid when table txn moved past pending table txn
+    static final long WAL_APPLIED_OFFSET_PENDING_TXN = 8;
+    static final long WAL_APPLIED_OFFSET_PENDING_TABLE_TXN = 16;
+    // LONG - entry count, LONG - max timestamp of committed rows, followed by entries of LONG segment id, LONG frame lo, LONG frame hi
+    static final long WAL_TXN_LOG_OFFSET_MAX_TIMESTAMP = 8;
+    static final long WAL_TXN_LOG_HEADER_SIZE = 16;
+    static final long WAL_TXN_LOG_ENTRY_SIZE = 24;
+    // INT - frame body length, INT - body checksum, LONG - row count
+    static final long WAL_FRAME_HEADER_SIZE = 16;
     private static final int MIN_SYMBOL_CAPACITY = 2;
     private static final int MAX_SYMBOL_CAPACITY = Numbers.ceilPow2(Integer.MAX_VALUE);
     private static final int MAX_SYMBOL_CAPACITY_CACHED = Numbers.ceilPow2(1_000_000);
@@ -139,6 +162,9 @@ public final class TableUtils {
             mem.putInt(structure.getPartitionBy());
             mem.putInt(structure.getTimestampIndex());
             mem.putInt(tableVersion);
+            mem.putLong(0);
+            mem.putLong(0);
+            mem.putLong(0);
             mem.jumpTo(TableUtils.META_OFFSET_COLUMN_TYPES);
 
             for (int i = 0; i < count; i++) {
@@ -152,6 +178,10 @@ public final class TableUtils {
                     flags |= META_FLAG_BIT_SEQUENTIAL;
                 }
 
+                if (structure.isCompressed(i)) {
+                    flags |= META_FLAG_BIT_COMPRESSED;
+                }
+
                 mem.putLong(flags);
                 mem.putInt(structure.getIndexBlockCapacity(i));
                 mem.skip(META_COLUMN_DATA_RESERVED); // reserved
@@ -381,6 +411,22 @@ public final class TableUtils {
         }
     }
 
+    static void writeLongAtOffset(FilesFacade ff, LPSZ path, long tempMem8b, long offset, long value) {
+        long fd = ff.openRW(path);
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("Cannot open: ").put(path);
+        }
+
+        try {
+            Unsafe.getUnsafe().putLong(tempMem8b, value);
+            if (ff.write(fd, tempMem8b, Long.BYTES, offset) != Long.BYTES) {
+                throw CairoException.instance(ff.errno()).put("Cannot write: ").put(path);
+            }
+        } finally {
+            ff.close(fd);
+        }
+    }
+
     /**
      * path member variable has to be set to location of "top" file.
      *
@@ -409,6 +455,10 @@ public final class TableUtils {
         return path.concat(columnName).put(".d").$();
     }
 
+    static LPSZ dzFile(Path path, CharSequence columnName) {
+        return path.concat(columnName).put(".dz").$();
+    }
+
     static LPSZ topFile(Path path, CharSequence columnName) {
         return path.concat(columnName).put(".top").$();
     }
@@ -417,6 +467,10 @@ public final class TableUtils {
         return path.concat(columnName).put(".i").$();
     }
 
+    static LPSZ walSegmentFile(Path path, long segmentId) {
+        return path.put(Files.SEPARATOR).put(segmentId).put(WAL_SEGMENT_FILE_EXT).$();
+    }
+
     static int getColumnType(ReadOnlyColumn metaMem, int columnIndex) {
         return metaMem.getByte(META_OFFSET_COLUMN_TYPES + columnIndex * META_COLUMN_DATA_SIZE);
     }
@@ -429,6 +483,10 @@ public final class TableUtils {
         return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_INDEXED) != 0;
     }
 
+    static boolean isColumnCompressed(ReadOnlyColumn metaMem, int columnIndex) {
+        return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_COMPRESSED) != 0;
+    }
+
     static boolean isSequential(ReadOnlyColumn metaMem, int columnIndex) {
         return (getColumnFlags(metaMem, columnIndex) & META_FLAG_BIT_SEQUENTIAL) != 0;
     }
@@ -492,6 +550,10 @@ public final class TableUtils {
                 return Timestamps.floorMM(timestampA) == Timestamps.floorMM(timestampB);
             case PartitionBy.YEAR:
                 return Timestamps.floorYYYY(timestampA) == Timestamps.floorYYYY(timestampB);
+            case PartitionBy.HOUR:
+                return Timestamps.floorHH(timestampA) == Timestamps.floorHH(timestampB);
+            case PartitionBy.WEEK:
+                return Timestamps.floorWW(timestampA) == Timestamps.floorWW(timestampB);
             default:
                 throw CairoException.instance(0).put("Cannot compare timestamps for unsupported partition type: [").put(partitionBy).put(']');
         }
@@ -524,6 +586,7 @@ public final class TableUtils {
 
     static {
         DateFormatCompiler compiler = new DateFormatCompiler();
+        fmtHour = compiler.compile("yyyy-MM-ddTHH");
         fmtDay = compiler.compile("yyyy-MM-dd");
         fmtMonth = compiler.compile("yyyy-MM");
         fmtYear = compiler.compile("yyyy");
@@ -0,0 +1,457 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.*;
+
+/**
+ * Write-ahead log state of single table. Any number of {@link WalWriter} sessions can write to the
+ * table at the same time, each of them appends to its own log segment. Commits of all sessions are
+ * sequenced by "_txnlog" file, which lists committed frames as (segment id, frame lo, frame hi) in
+ * the order they are applied by {@link WalApplyJob}. The job keeps track of how many txn log entries
+ * have been materialized into table column files.
+ * <p>
+ * Txn log also keeps max timestamp of committed rows. Unless out-of-order inserts are enabled, commit
+ * of rows older than that is rejected, rows of an acknowledged commit are always accepted by table writer.
+ * <p>
+ * Session that is done with a segment logs entry with frame hi of -1. Nothing is appended to the
+ * segment afterwards and it is removed once apply job gets to that entry. Txn log is truncated
+ * whenever all of its entries are applied.
+ * <p>
+ * Released writers are kept for reuse, so that short sessions, such as single INSERT, do not start
+ * segment each.
+ */
+final class TableWal implements Closeable {
+    private static final Log LOG = LogFactory.getLog(TableWal.class);
+    private static final long WAL_APPLIED_SIZE = WAL_APPLIED_OFFSET_PENDING_TABLE_TXN + Long.BYTES;
+    private static final int MAX_IDLE_WRITERS = 4;
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final String tableName;
+    private final ObjList<WalWriter> idleWriters = new ObjList<>();
+    private final ReadWriteMemory appliedMem = new ReadWriteMemory();
+    private final ObjList<WalSegmentReader> segmentReaders = new ObjList<>();
+    private final Path path = new Path();
+    private final int walDirLen;
+    private final long tempMem8b = Unsafe.malloc(Long.BYTES);
+    // txn log, guarded by "this"
+    private long txnLogFd = -1;
+    private long txnLogAddress = 0;
+    private long txnLogSize = 0;
+    private volatile long txnCount = 0;
+    private long maxTimestamp = Long.MIN_VALUE;
+    private long nextSegmentId;
+    private boolean closed = false;
+    // apply progress, accessed by apply job only
+    private final long recoveredTxnCount;
+    private boolean applyStateOpen = false;
+    private boolean applySuspended = false;
+    private long appliedTxn;
+
+    TableWal(CairoConfiguration configuration, CharSequence tableName) {
+        this.configuration = configuration;
+        this.ff = configuration.getFilesFacade();
+        this.tableName = Chars.toString(tableName);
+        try {
+            path.of(configuration.getRoot()).concat(tableName).concat(WAL_DIR_NAME);
+            this.walDirLen = path.length();
+            if (!ff.exists(path.$()) && ff.mkdirs(path.trimTo(walDirLen).put(Files.SEPARATOR).$(), configuration.getMkDirMode()) != 0) {
+                throw CairoException.instance(ff.errno()).put("could not create [dir=").put(path).put(']');
+            }
+            openTxnLog();
+            this.recoveredTxnCount = txnCount;
+
+            long maxSegmentId = -1;
+            for (long i = 0; i < recoveredTxnCount; i++) {
+                maxSegmentId = Math.max(maxSegmentId, Unsafe.getUnsafe().getLong(txnLogAddress + WAL_TXN_LOG_HEADER_SIZE + i * WAL_TXN_LOG_ENTRY_SIZE));
+            }
+
+            // segments left behind by previous run are not going to be appended to
+            final LongList segmentIds = new LongList();
+            final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+            ff.iterateDir(path.trimTo(walDirLen).$(), (file, type) -> {
+                if (type != Files.DT_DIR) {
+                    nativeLPSZ.of(file);
+                    if (Chars.endsWith(nativeLPSZ, WAL_SEGMENT_FILE_EXT)) {
+                        try {
+                            segmentIds.add(Numbers.parseLong(nativeLPSZ, 0, nativeLPSZ.length() - WAL_SEGMENT_FILE_EXT.length()));
+                        } catch (NumericException ignore) {
+                            // not a segment
+                        }
+                    }
+                }
+            });
+            segmentIds.sort();
+            for (int i = 0, n = segmentIds.size(); i < n; i++) {
+                final long segmentId = segmentIds.getQuick(i);
+                appendTxn(segmentId, 0, -1);
+                maxSegmentId = Math.max(maxSegmentId, segmentId);
+            }
+            this.nextSegmentId = maxSegmentId + 1;
+
+            // table could have been written to directly before WAL was enabled
+            path.of(configuration.getRoot()).concat(tableName).concat(TXN_FILE_NAME).$();
+            setMaxTimestamp(Math.max(maxTimestamp, readLongAtOffset(ff, path, tempMem8b, TX_OFFSET_MAX_TIMESTAMP)));
+        } catch (Throwable e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        for (int i = 0, n = idleWriters.size(); i < n; i++) {
+            idleWriters.getQuick(i).free();
+        }
+        idleWriters.clear();
+        closed = true;
+        Misc.freeObjList(segmentReaders);
+        segmentReaders.clear();
+        appliedMem.close();
+        applyStateOpen = false;
+        if (txnLogAddress != 0) {
+            ff.munmap(txnLogAddress, txnLogSize);
+            txnLogAddress = 0;
+        }
+        if (txnLogFd != -1) {
+            ff.close(txnLogFd);
+            txnLogFd = -1;
+        }
+        path.close();
+        Unsafe.free(tempMem8b, Long.BYTES);
+    }
+
+    /**
+     * Logs segment as complete. Apply job removes segment when it reaches this entry.
+     *
+     * @param segmentId id of segment nothing is going to be appended to
+     */
+    synchronized void closeSegment(long segmentId) {
+        if (!closed) {
+            appendTxn(segmentId, 0, -1);
+        }
+    }
+
+    /**
+     * Sequences frame that has been appended to segment. Frame is rejected when out-of-order inserts
+     * are disabled and it has rows older than those already committed.
+     *
+     * @param segmentId    segment frame is in
+     * @param lo           offset of frame in segment
+     * @param hi           offset of frame end in segment
+     * @param minTimestamp min timestamp of frame rows, Long.MAX_VALUE when table has no designated timestamp
+     * @param maxTimestamp max timestamp of frame rows, Long.MIN_VALUE when table has no designated timestamp
+     * @param commitMode   anything other than {@link CommitMode#NOSYNC} msyncs txn log
+     */
+    synchronized void commit(long segmentId, long lo, long hi, long minTimestamp, long maxTimestamp, int commitMode) {
+        if (closed) {
+            throw CairoException.instance(0).put("WAL is closed [table=").put(tableName).put(']');
+        }
+        if (minTimestamp < this.maxTimestamp && !configuration.isOutOfOrderEnabled()) {
+            throw CairoException.instance(0).put("Cannot insert rows out of order [table=").put(tableName)
+                    .put(", timestamp=").put(minTimestamp)
+                    .put(", maxTimestamp=").put(this.maxTimestamp)
+                    .put(']');
+        }
+        if (maxTimestamp > this.maxTimestamp) {
+            // header is synced together with the entry
+            setMaxTimestamp(maxTimestamp);
+        }
+        final long offset = appendTxn(segmentId, lo, hi);
+        if (commitMode != CommitMode.NOSYNC) {
+            final boolean async = commitMode == CommitMode.ASYNC;
+            final long pageSize = ff.getPageSize();
+            final long alignedOffset = offset - offset % pageSize;
+            sync(0, Math.min(pageSize, txnLogSize), async);
+            if (alignedOffset > 0) {
+                sync(alignedOffset, offset + WAL_TXN_LOG_ENTRY_SIZE - alignedOffset, async);
+            }
+        }
+    }
+
+    /**
+     * Copies txn log entries, three longs each, to sink.
+     *
+     * @param lo   index of first entry to copy
+     * @param max  maximum number of entries to copy
+     * @param sink list entries are copied to, it is cleared first
+     * @return index of entry after last copied one
+     */
+    synchronized long copyTxns(long lo, long max, LongList sink) {
+        sink.clear();
+        if (closed) {
+            return lo;
+        }
+        final long hi = Math.min(txnCount, lo + max);
+        for (long i = lo; i < hi; i++) {
+            final long p = txnLogAddress + WAL_TXN_LOG_HEADER_SIZE + i * WAL_TXN_LOG_ENTRY_SIZE;
+            sink.add(Unsafe.getUnsafe().getLong(p));
+            sink.add(Unsafe.getUnsafe().getLong(p + Long.BYTES));
+            sink.add(Unsafe.getUnsafe().getLong(p + Long.BYTES * 2));
+        }
+        return hi;
+    }
+
+    long getAppliedTxn() {
+        return appliedTxn;
+    }
+
+    ObjList<WalSegmentReader> getSegmentReaders() {
+        return segmentReaders;
+    }
+
+    String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * Hands out writer session, either one that was released earlier or new one. Released writers
+     * that were created for older table structure are discarded.
+     *
+     * @return writer, which has to be closed to be released
+     */
+    WalWriter getWriter() {
+        final long structureVersion = readStructureVersion();
+        while (true) {
+            final WalWriter writer;
+            synchronized (this) {
+                final int n = idleWriters.size();
+                if (n == 0) {
+                    break;
+                }
+                writer = idleWriters.getQuick(n - 1);
+                idleWriters.remove(n - 1);
+            }
+            if (writer.getStructureVersion() == structureVersion) {
+                writer.reuse();
+                return writer;
+            }
+            writer.free();
+        }
+        return new WalWriter(configuration, this);
+    }
+
+    long getTxnCount() {
+        return txnCount;
+    }
+
+    boolean hasUnappliedData() {
+        if (applySuspended) {
+            return false;
+        }
+        if (!applyStateOpen) {
+            // state has not been read from disk yet
+            return txnCount > 0;
+        }
+        return txnCount > appliedTxn;
+    }
+
+    boolean isApplyStateOpen() {
+        return applyStateOpen;
+    }
+
+    boolean isApplySuspended() {
+        return applySuspended;
+    }
+
+    synchronized long nextSegmentId() {
+        if (closed) {
+            throw CairoException.instance(0).put("WAL is closed [table=").put(tableName).put(']');
+        }
+        return nextSegmentId++;
+    }
+
+    /**
+     * Reads apply progress from disk and resolves batch that could have been interrupted half way
+     * through. When table transaction moved past the one recorded for pending batch, that batch
+     * made it into column files.
+     *
+     * @param path     path to WAL directory, it will be modified
+     * @param tableTxn current transaction of the table
+     */
+    void openApplyState(Path path, long tableTxn) {
+        appliedMem.of(ff, path.concat(WAL_APPLIED_FILE_NAME).$(), ff.getPageSize());
+        if (appliedMem.getAppendOffset() < WAL_APPLIED_SIZE) {
+            appliedTxn = 0;
+            appliedMem.jumpTo(WAL_APPLIED_SIZE);
+            clearPending();
+        } else {
+            appliedTxn = appliedMem.getLong(WAL_APPLIED_OFFSET_TXN);
+            final long pendingTxn = appliedMem.getLong(WAL_APPLIED_OFFSET_PENDING_TXN);
+            if (pendingTxn > -1) {
+                if (tableTxn > appliedMem.getLong(WAL_APPLIED_OFFSET_PENDING_TABLE_TXN)) {
+                    LOG.info().$("recovered WAL batch [table=").$(tableName).$(", txn=").$(pendingTxn).$(']').$();
+                    appliedTxn = pendingTxn;
+                }
+                clearPending();
+            }
+            // txn log could have been truncated without apply progress making it to disk
+            appliedTxn = Math.min(appliedTxn, recoveredTxnCount);
+        }
+        appliedMem.putLong(WAL_APPLIED_OFFSET_TXN, appliedTxn);
+        applyStateOpen = true;
+    }
+
+    synchronized long readStructureVersion() {
+        if (closed) {
+            throw CairoException.instance(0).put("WAL is closed [table=").put(tableName).put(']');
+        }
+        path.of(configuration.getRoot()).concat(tableName).concat(TXN_FILE_NAME).$();
+        return readLongAtOffset(ff, path, tempMem8b, TX_OFFSET_STRUCT_VERSION);
+    }
+
+    /**
+     * Takes writer back for reuse.
+     *
+     * @param writer writer without pending transaction
+     * @return false when writer has to be freed by caller
+     */
+    synchronized boolean release(WalWriter writer) {
+        if (closed || idleWriters.size() >= MAX_IDLE_WRITERS) {
+            return false;
+        }
+        idleWriters.add(writer);
+        return true;
+    }
+
+    void setApplied(long txn) {
+        clearPending();
+        appliedTxn = txn;
+        appliedMem.putLong(WAL_APPLIED_OFFSET_TXN, txn);
+    }
+
+    void setPending(long txn, long tableTxn) {
+        appliedMem.putLong(WAL_APPLIED_OFFSET_PENDING_TXN, txn);
+        appliedMem.putLong(WAL_APPLIED_OFFSET_PENDING_TABLE_TXN, tableTxn);
+    }
+
+    /**
+     * Stops apply job from applying txn log. Log is kept intact, so that committed rows are not lost.
+     */
+    void suspendApply() {
+        applySuspended = true;
+    }
+
+    /**
+     * Empties txn log when all of its entries have been applied. Txn log is truncated ahead of
+     * apply progress, recovery of apply state relies on that.
+     *
+     * @return true when txn log has been truncated
+     */
+    synchronized boolean truncateTxnLog() {
+        if (closed || txnCount == 0 || txnCount != appliedTxn) {
+            return false;
+        }
+        Unsafe.getUnsafe().putLong(txnLogAddress, 0);
+        txnCount = 0;
+        if (configuration.getCommitMode() != CommitMode.NOSYNC) {
+            sync(0, Math.min(ff.getPageSize(), txnLogSize), false);
+        }
+        appliedTxn = 0;
+        appliedMem.putLong(WAL_APPLIED_OFFSET_TXN, 0);
+        return true;
+    }
+
+    private long appendTxn(long segmentId, long lo, long hi) {
+        final long count = txnCount;
+        final long offset = WAL_TXN_LOG_HEADER_SIZE + count * WAL_TXN_LOG_ENTRY_SIZE;
+        if (offset + WAL_TXN_LOG_ENTRY_SIZE > txnLogSize) {
+            mapTxnLog(Math.max(txnLogSize * 2, offset + WAL_TXN_LOG_ENTRY_SIZE));
+        }
+        final long p = txnLogAddress + offset;
+        Unsafe.getUnsafe().putLong(p, segmentId);
+        Unsafe.getUnsafe().putLong(p + Long.BYTES, lo);
+        Unsafe.getUnsafe().putLong(p + Long.BYTES * 2, hi);
+        // entry is complete before it is counted
+        Unsafe.getUnsafe().storeFence();
+        Unsafe.getUnsafe().putLong(txnLogAddress, count + 1);
+        txnCount = count + 1;
+        return offset;
+    }
+
+    private void clearPending() {
+        appliedMem.putLong(WAL_APPLIED_OFFSET_PENDING_TXN, -1);
+        appliedMem.putLong(WAL_APPLIED_OFFSET_PENDING_TABLE_TXN, -1);
+    }
+
+    private void mapTxnLog(long size) {
+        final long pageSize = ff.getMapPageSize();
+        size = (size + pageSize - 1) / pageSize * pageSize;
+        if (!ff.truncate(txnLogFd, size)) {
+            throw CairoException.instance(ff.errno()).put("could not resize WAL txn log [table=").put(tableName).put(", size=").put(size).put(']');
+        }
+        final long address = txnLogAddress == 0
+                ? ff.mmap(txnLogFd, size, 0, Files.MAP_RW)
+                : ff.mremap(txnLogFd, txnLogAddress, txnLogSize, size, 0, Files.MAP_RW);
+        if (address == FilesFacade.MAP_FAILED) {
+            throw CairoException.instance(ff.errno()).put("could not mmap WAL txn log [table=").put(tableName).put(", size=").put(size).put(']');
+        }
+        txnLogAddress = address;
+        txnLogSize = size;
+    }
+
+    private void openTxnLog() {
+        txnLogFd = ff.openRW(path.trimTo(walDirLen).concat(WAL_TXN_LOG_FILE_NAME).$());
+        if (txnLogFd == -1) {
+            throw CairoException.instance(ff.errno()).put("could not open WAL txn log [path=").put(path).put(']');
+        }
+        final long len = ff.length(txnLogFd);
+        mapTxnLog(Math.max(len, WAL_TXN_LOG_HEADER_SIZE));
+        long count = len < WAL_TXN_LOG_HEADER_SIZE ? 0 : Unsafe.getUnsafe().getLong(txnLogAddress);
+        final long maxCount = (txnLogSize - WAL_TXN_LOG_HEADER_SIZE) / WAL_TXN_LOG_ENTRY_SIZE;
+        if (count < 0 || count > maxCount) {
+            LOG.error().$("invalid WAL txn log, truncating [table=").$(tableName).$(", count=").$(count).$(']').$();
+            count = 0;
+        }
+        Unsafe.getUnsafe().putLong(txnLogAddress, count);
+        txnCount = count;
+        if (len >= WAL_TXN_LOG_HEADER_SIZE) {
+            maxTimestamp = Unsafe.getUnsafe().getLong(txnLogAddress + WAL_TXN_LOG_OFFSET_MAX_TIMESTAMP);
+        }
+    }
+
+    private void setMaxTimestamp(long timestamp) {
+        Unsafe.getUnsafe().putLong(txnLogAddress + WAL_TXN_LOG_OFFSET_MAX_TIMESTAMP, timestamp);
+        maxTimestamp = timestamp;
+    }
+
+    private void sync(long offset, long len, boolean async) {
+        if (ff.msync(txnLogAddress + offset, len, async) != 0) {
+            LOG.error().$("could not msync WAL txn log [table=").$(tableName).$(", errno=").$(ff.errno()).$(']').$();
+        }
+    }
+}
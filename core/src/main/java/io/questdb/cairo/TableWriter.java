@@ -40,6 +40,7 @@ import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.NativeLPSZ;
 import io.questdb.std.str.Path;
 import io.questdb.tasks.ColumnIndexerTask;
+import io.questdb.tasks.OutOfOrderMergeTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -52,6 +53,15 @@ public class TableWriter implements Closeable {
 
     private static final Log LOG = LogFactory.getLog(TableWriter.class);
     private static final CharSequenceHashSet IGNORED_FILES = new CharSequenceHashSet();
+    // layout of out-of-order partition entry, see prepareOutOfOrderPartition()
+    private static final int OOO_PARTITION_ACTIVE = 1;
+    private static final int OOO_PARTITION_PENDING_INDEX = 2;
+    private static final int OOO_PARTITION_SIZE = 3;
+    private static final int OOO_PARTITION_MERGE_LO = 4;
+    private static final int OOO_PARTITION_MERGE_INDEX = 5;
+    private static final int OOO_PARTITION_MERGE_COUNT = 6;
+    private static final int OOO_PARTITION_MERGER_LO = 7;
+    private static final int OOO_PARTITION_ENTRY_SIZE = 8;
     private static final Runnable NOOP = () -> {
     };
     private final static RemoveFileLambda REMOVE_OR_LOG = TableWriter::removeFileAndOrLog;
@@ -95,6 +105,20 @@ public class TableWriter implements Closeable {
     private final int defaultCommitMode;
     private final FindVisitor removePartitionDirectories = this::removePartitionDirectories0;
     private final ObjList<Runnable> nullers;
+    private final ObjList<VirtualMemory> oooColumns;
+    private final ObjList<Runnable> oooNullers;
+    private final boolean outOfOrderEnabled;
+    private final ObjList<OutOfOrderColumnMerger> oooMergers = new ObjList<>();
+    private final LongList oooPartitions = new LongList();
+    private final ColumnCompressor columnCompressor = new ColumnCompressor();
+    private final SOCountDownLatch oooMergeLatch = new SOCountDownLatch();
+    private final LongList oooMergeSequences = new LongList();
+    private final boolean parallelOutOfOrderMergeEnabled;
+    private int oooMergerCount = 0;
+    private ObjList<? extends VirtualMemory> activeColumns;
+    private ObjList<Runnable> activeNullers;
+    private long oooRowCount = 0;
+    private boolean partitionTableChanged = false;
     private int txPartitionCount = 0;
     private long lockFd;
     private LongConsumer timestampSetter;
@@ -157,6 +181,8 @@ public class TableWriter implements Closeable {
         this.defaultCommitMode = configuration.getCommitMode();
         this.lifecycleManager = lifecycleManager;
         this.parallelIndexerEnabled = messageBus != null && configuration.isParallelIndexingEnabled();
+        this.outOfOrderEnabled = configuration.isOutOfOrderEnabled();
+        this.parallelOutOfOrderMergeEnabled = messageBus != null && configuration.isOutOfOrderParallelMergeEnabled();
         this.ff = configuration.getFilesFacade();
         this.mkDirMode = configuration.getMkDirMode();
         this.fileOperationRetryCount = configuration.getFileOperationRetryCount();
@@ -203,6 +229,10 @@ public class TableWriter implements Closeable {
             this.indexers = new ObjList<>(columnCount);
             this.denseSymbolMapWriters = new ObjList<>(metadata.getSymbolMapCount());
             this.nullers = new ObjList<>(columnCount);
+            this.oooColumns = new ObjList<>(columnCount * 2);
+            this.oooNullers = new ObjList<>(columnCount);
+            this.activeColumns = columns;
+            this.activeNullers = nullers;
             this.columnTops = new LongList(columnCount);
             switch (partitionBy) {
                 case PartitionBy.DAY:
@@ -221,6 +251,16 @@ public class TableWriter implements Closeable {
                     timestampAddMethod = Timestamps.ADD_YYYY;
                     partitionDirFmt = fmtYear;
                     break;
+                case PartitionBy.HOUR:
+                    timestampFloorMethod = Timestamps.FLOOR_HH;
+                    timestampAddMethod = Timestamps.ADD_HH;
+                    partitionDirFmt = fmtHour;
+                    break;
+                case PartitionBy.WEEK:
+                    timestampFloorMethod = Timestamps.FLOOR_WW;
+                    timestampAddMethod = Timestamps.ADD_WW;
+                    partitionDirFmt = fmtDay;
+                    break;
                 default:
                     timestampFloorMethod = null;
                     timestampAddMethod = null;
@@ -248,6 +288,10 @@ public class TableWriter implements Closeable {
                 return fmtMonth;
             case PartitionBy.YEAR:
                 return fmtYear;
+            case PartitionBy.HOUR:
+                return fmtHour;
+            case PartitionBy.WEEK:
+                return fmtDay;
             default:
                 return null;
         }
@@ -524,6 +568,11 @@ public class TableWriter implements Closeable {
 
         if (inTransaction()) {
 
+            final boolean outOfOrder = oooRowCount > 0;
+            if (outOfOrder) {
+                mergeOutOfOrderRows(commitMode);
+            }
+
             if (commitMode != CommitMode.NOSYNC) {
                 syncColumns(commitMode);
             }
@@ -538,13 +587,25 @@ public class TableWriter implements Closeable {
             if (txPartitionCount > 1) {
                 commitPendingPartitions();
                 txMem.putLong(TX_OFFSET_FIXED_ROW_COUNT, fixedRowCount);
+                compressPendingPartitions();
                 txPendingPartitionSizes.jumpTo(0);
                 txPartitionCount = 1;
+            } else if (outOfOrder) {
+                txMem.putLong(TX_OFFSET_FIXED_ROW_COUNT, fixedRowCount);
             }
 
             txMem.putLong(TX_OFFSET_MIN_TIMESTAMP, minTimestamp);
             txMem.putLong(TX_OFFSET_MAX_TIMESTAMP, maxTimestamp);
 
+            if (outOfOrder) {
+                // merge has rewritten data in existing partitions, readers must not trust
+                // partition sizes and column mappings they already have
+                txMem.putLong(TX_OFFSET_DATA_VERSION, ++dataVersion);
+                if (partitionTableChanged) {
+                    writePartitionTable();
+                }
+            }
+
             // store symbol counts
             for (int i = 0, n = denseSymbolMapWriters.size(); i < n; i++) {
                 txMem.putInt(getSymbolWriterIndexOffset(i), denseSymbolMapWriters.getQuick(i).getSymbolCount());
@@ -571,7 +632,7 @@ public class TableWriter implements Closeable {
         return maxTimestamp;
     }
 
-    public RecordMetadata getMetadata() {
+    public TableWriterMetadata getMetadata() {
         return metadata;
     }
 
@@ -587,8 +648,12 @@ public class TableWriter implements Closeable {
         return structureVersion;
     }
 
+    public long getTxn() {
+        return txn;
+    }
+
     public boolean inTransaction() {
-        return txPartitionCount > 1 || transientRowCount != txPrevTransientRowCount;
+        return txPartitionCount > 1 || transientRowCount != txPrevTransientRowCount || oooRowCount > 0;
     }
 
     public boolean isOpen() {
@@ -612,7 +677,11 @@ public class TableWriter implements Closeable {
         } catch (NumericException e) {
             final CairoException ee = CairoException.instance(0);
             switch (partitionBy) {
+                case PartitionBy.HOUR:
+                    ee.put("'YYYY-MM-DDTHH'");
+                    break;
                 case PartitionBy.DAY:
+                case PartitionBy.WEEK:
                     ee.put("'YYYY-MM-DD'");
                     break;
                 case PartitionBy.MONTH:
@@ -763,6 +832,7 @@ public class TableWriter implements Closeable {
                     other.concat(nativeLPSZ);
                     int plen = path.length();
                     renameFileOrLog(ff, dFile(path.trimTo(plen), columnName), dFile(other.trimTo(plen), newName));
+                    renameFileOrLog(ff, dzFile(path.trimTo(plen), columnName), dzFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, iFile(path.trimTo(plen), columnName), iFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, topFile(path.trimTo(plen), columnName), topFile(other.trimTo(plen), newName));
                     renameFileOrLog(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName), BitmapIndexUtils.keyFileName(other.trimTo(plen), newName));
@@ -877,6 +947,7 @@ public class TableWriter implements Closeable {
         checkDistressed();
         if (inTransaction()) {
             LOG.info().$("tx rollback [name=").$(name).$(']').$();
+            resetOutOfOrderColumns();
             freeColumns(false);
             txPendingPartitionSizes.jumpTo(0);
             configureAppendPosition();
@@ -886,10 +957,31 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Sets table commit lag, which is stored in table metadata and consulted by
+     * ingestion paths that defer commits, such as ILP TCP receiver.
+     *
+     * @param commitLag lag in microseconds, 0 to use receiver default
+     */
+    public void setCommitLag(long commitLag) {
+        writeCommitParam(META_OFFSET_COMMIT_LAG, commitLag);
+        metadata.setCommitLag(commitLag);
+    }
+
     public void setLifecycleManager(LifecycleManager lifecycleManager) {
         this.lifecycleManager = lifecycleManager;
     }
 
+    public void setMaxUncommittedBytes(long maxUncommittedBytes) {
+        writeCommitParam(META_OFFSET_MAX_UNCOMMITTED_BYTES, maxUncommittedBytes);
+        metadata.setMaxUncommittedBytes(maxUncommittedBytes);
+    }
+
+    public void setMaxUncommittedRows(int maxUncommittedRows) {
+        writeCommitParam(META_OFFSET_MAX_UNCOMMITTED_ROWS, maxUncommittedRows);
+        metadata.setMaxUncommittedRows(maxUncommittedRows);
+    }
+
     public long size() {
         return fixedRowCount + transientRowCount;
     }
@@ -918,6 +1010,7 @@ public class TableWriter implements Closeable {
         }
 
         writeTodo(TODO_TRUNCATE);
+        resetOutOfOrderColumns();
         for (int i = 0; i < columnCount; i++) {
             getPrimaryColumn(i).truncate();
             AppendMemory mem = getSecondaryColumn(i);
@@ -1014,7 +1107,7 @@ public class TableWriter implements Closeable {
         return getPrimaryColumnIndex(index) + 1;
     }
 
-    private static void setColumnSize(FilesFacade ff, AppendMemory mem1, AppendMemory mem2, int type, long actualPosition, long buf) {
+    static void setColumnSize(FilesFacade ff, AppendMemory mem1, AppendMemory mem2, int type, long actualPosition, long buf) {
         long offset;
         long len;
         if (actualPosition > 0) {
@@ -1050,6 +1143,104 @@ public class TableWriter implements Closeable {
         }
     }
 
+    static void copyFixedValue(long address, VirtualMemory mem, int shift) {
+        switch (shift) {
+            case 0:
+                mem.putByte(Unsafe.getUnsafe().getByte(address));
+                break;
+            case 1:
+                mem.putShort(Unsafe.getUnsafe().getShort(address));
+                break;
+            case 2:
+                mem.putInt(Unsafe.getUnsafe().getInt(address));
+                break;
+            case 3:
+                mem.putLong(Unsafe.getUnsafe().getLong(address));
+                break;
+            default:
+                mem.putBlockOfBytes(address, 1L << shift);
+                break;
+        }
+    }
+
+    static long getVarValueStorageLength(int type, long address) {
+        if (type == ColumnType.STRING) {
+            final int len = Unsafe.getUnsafe().getInt(address);
+            return len == TableUtils.NULL_LEN ? Integer.BYTES : Integer.BYTES + len * 2L;
+        }
+        final long len = Unsafe.getUnsafe().getLong(address);
+        return len == TableUtils.NULL_LEN ? Long.BYTES : Long.BYTES + len;
+    }
+
+    static void putNull(VirtualMemory mem1, VirtualMemory mem2, int type) {
+        switch (type) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+                mem1.putByte((byte) 0);
+                break;
+            case ColumnType.DOUBLE:
+                mem1.putDouble(Double.NaN);
+                break;
+            case ColumnType.FLOAT:
+                mem1.putFloat(Float.NaN);
+                break;
+            case ColumnType.INT:
+                mem1.putInt(Numbers.INT_NaN);
+                break;
+            case ColumnType.LONG:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                mem1.putLong(Numbers.LONG_NaN);
+                break;
+            case ColumnType.LONG256:
+                mem1.putLong256(Numbers.LONG_NaN, Numbers.LONG_NaN, Numbers.LONG_NaN, Numbers.LONG_NaN);
+                break;
+            case ColumnType.SHORT:
+                mem1.putShort((short) 0);
+                break;
+            case ColumnType.CHAR:
+                mem1.putChar((char) 0);
+                break;
+            case ColumnType.STRING:
+                mem2.putLong(mem1.putNullStr());
+                break;
+            case ColumnType.SYMBOL:
+                mem1.putInt(SymbolTable.VALUE_IS_NULL);
+                break;
+            case ColumnType.BINARY:
+                mem2.putLong(mem1.putNullBin());
+                break;
+            default:
+                break;
+        }
+    }
+
+    static void readFully(FilesFacade ff, long fd, long buf, long len, long offset) {
+        if (ff.read(fd, buf, len, offset) != len) {
+            throw CairoException.instance(ff.errno()).put("Cannot read column data, fd=").put(fd).put(", offset=").put(offset).put(", len=").put(len);
+        }
+    }
+
+    /**
+     * Binary searches timestamp column file for first row that is strictly greater than given timestamp.
+     *
+     * @return row number, which is equal to rowCount when all rows are less or equal to timestamp
+     */
+    private static long searchTimestamp(FilesFacade ff, long fd, long rowCount, long timestamp, long buf) {
+        long low = 0;
+        long high = rowCount - 1;
+        while (low <= high) {
+            final long mid = (low + high) >>> 1;
+            readFully(ff, fd, buf, Long.BYTES, mid * Long.BYTES);
+            if (Unsafe.getUnsafe().getLong(buf) > timestamp) {
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
     private static void readOffsetBytes(FilesFacade ff, AppendMemory mem, long position, long buf) {
         readBytes(ff, mem, buf, 8, (position - 1) * 8, "Cannot read offset, fd=");
     }
@@ -1126,6 +1317,7 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(metaMem.getInt(META_OFFSET_PARTITION_BY));
             ddlMem.putInt(metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX));
             ddlMem.putInt(ColumnType.VERSION);
+            copyCommitParams();
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
             for (int i = 0; i < columnCount; i++) {
                 writeColumnEntry(i);
@@ -1201,6 +1393,11 @@ public class TableWriter implements Closeable {
             return;
         }
 
+        if (activeColumns != columns) {
+            cancelRowOutOfOrder();
+            return;
+        }
+
         if (transientRowCount == 0) {
             if (partitionBy != PartitionBy.NONE) {
                 // we have to undo creation of partition
@@ -1272,6 +1469,34 @@ public class TableWriter implements Closeable {
         refs.fill(0, columnCount, --masterRef);
     }
 
+    private void cancelRowOutOfOrder() {
+        // out-of-order row does not touch partitions, rewind out-of-order columns to last appended row
+        for (int i = 0; i < columnCount; i++) {
+            final VirtualMemory mem1 = oooColumns.getQuick(getPrimaryColumnIndex(i));
+            final VirtualMemory mem2 = oooColumns.getQuick(getSecondaryColumnIndex(i));
+            if (mem2 != null) {
+                if (oooRowCount > 0) {
+                    final long offset = mem2.getLong((oooRowCount - 1) * Long.BYTES);
+                    if (metadata.getColumnType(i) == ColumnType.STRING) {
+                        final int len = mem1.getStrLen(offset);
+                        mem1.jumpTo(offset + (len == TableUtils.NULL_LEN ? Integer.BYTES : Integer.BYTES + len * 2L));
+                    } else {
+                        final long len = mem1.getBinLen(offset);
+                        mem1.jumpTo(offset + (len == TableUtils.NULL_LEN ? Long.BYTES : Long.BYTES + len));
+                    }
+                } else {
+                    mem1.jumpTo(0);
+                }
+                mem2.jumpTo(oooRowCount * Long.BYTES);
+            } else {
+                mem1.jumpTo(oooRowCount << ColumnType.pow2SizeOf(metadata.getColumnType(i)));
+            }
+        }
+        activeColumns = columns;
+        activeNullers = nullers;
+        refs.fill(0, columnCount, --masterRef);
+    }
+
     private void cancelRowAndBump() {
         cancelRow();
         masterRef++;
@@ -1312,6 +1537,75 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Compresses flagged columns of partitions that have been sealed by this transaction.
+     */
+    private void compressPendingPartitions() {
+        for (int i = 0; i < txPartitionCount - 1; i++) {
+            final long partitionTimestamp = txPendingPartitionSizes.getLong(i * 16L + 8);
+            final long partitionSize = txPendingPartitionSizes.getLong(i * 16L);
+            try {
+                setStateForTimestamp(partitionTimestamp, false);
+                compressPartitionColumns(path.length(), partitionSize);
+            } finally {
+                path.trimTo(rootLen);
+            }
+        }
+    }
+
+    /**
+     * Replaces column files of sealed partition with their compressed versions. Compression is
+     * an optimisation, failure to compress is logged and leaves column file as is.
+     *
+     * @param plen          length of partition path
+     * @param partitionSize number of rows in partition
+     */
+    private void compressPartitionColumns(int plen, long partitionSize) {
+        for (int i = 0; i < columnCount; i++) {
+            final int type = metadata.getColumnType(i);
+            if (isColumnCompressed(metaMem, i) && ColumnCompressor.isSupported(type)) {
+                final CharSequence columnName = metadata.getColumnName(i);
+                try {
+                    if (ff.exists(dFile(path.trimTo(plen), columnName))) {
+                        final long columnTop = readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem8b);
+                        columnCompressor.compress(
+                                ff,
+                                path.trimTo(plen),
+                                columnName,
+                                type,
+                                Math.max(0, partitionSize - columnTop) << ColumnType.pow2SizeOf(type)
+                        );
+                    }
+                } catch (CairoException e) {
+                    LOG.error()
+                            .$("could not compress [path=").$(path.trimTo(plen).$())
+                            .$(", column=").utf8(columnName)
+                            .$(", e=").$((Sinkable) e)
+                            .$(']').$();
+                }
+            }
+        }
+        path.trimTo(plen);
+    }
+
+    /**
+     * Restores column files of partition from their compressed versions, so that partition
+     * can be appended to or rewritten.
+     *
+     * @param plen length of partition path
+     */
+    private void decompressPartitionColumns(int plen) {
+        for (int i = 0; i < columnCount; i++) {
+            if (isColumnCompressed(metaMem, i)) {
+                final CharSequence columnName = metadata.getColumnName(i);
+                if (ff.exists(dzFile(path.trimTo(plen), columnName))) {
+                    columnCompressor.decompress(ff, path.trimTo(plen), columnName);
+                }
+            }
+        }
+        path.trimTo(plen);
+    }
+
     private void configureAppendPosition() {
         this.txn = txMem.getLong(TX_OFFSET_TXN);
         this.transientRowCount = txMem.getLong(TX_OFFSET_TRANSIENT_ROW_COUNT);
@@ -1338,18 +1632,25 @@ public class TableWriter implements Closeable {
     private void configureColumn(int type, boolean indexFlag) {
         final AppendMemory primary = new AppendMemory();
         final AppendMemory secondary;
+        final VirtualMemory oooPrimary = new VirtualMemory(configuration.getOutOfOrderPageSize(), Integer.MAX_VALUE);
+        final VirtualMemory oooSecondary;
         switch (type) {
             case ColumnType.BINARY:
             case ColumnType.STRING:
                 secondary = new AppendMemory();
+                oooSecondary = new VirtualMemory(configuration.getOutOfOrderPageSize(), Integer.MAX_VALUE);
                 break;
             default:
                 secondary = null;
+                oooSecondary = null;
                 break;
         }
         columns.add(primary);
         columns.add(secondary);
-        configureNuller(type, primary, secondary);
+        configureNuller(type, primary, secondary, nullers);
+        oooColumns.add(oooPrimary);
+        oooColumns.add(oooSecondary);
+        configureNuller(type, oooPrimary, oooSecondary, oooNullers);
         if (indexFlag) {
             indexers.extendAndSet((columns.size() - 1) / 2, new SymbolColumnIndexer());
             populateDenseIndexerList();
@@ -1381,7 +1682,7 @@ public class TableWriter implements Closeable {
         populateDenseIndexerList();
     }
 
-    private void configureNuller(int type, AppendMemory mem1, AppendMemory mem2) {
+    private static void configureNuller(int type, VirtualMemory mem1, VirtualMemory mem2, ObjList<Runnable> nullers) {
         switch (type) {
             case ColumnType.BOOLEAN:
             case ColumnType.BYTE:
@@ -1431,6 +1732,7 @@ public class TableWriter implements Closeable {
             };
         } else {
             nullers.setQuick(index, NOOP);
+            oooNullers.setQuick(index, NOOP);
             return getPrimaryColumn(index)::putLong;
         }
     }
@@ -1443,6 +1745,7 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(metaMem.getInt(META_OFFSET_PARTITION_BY));
             ddlMem.putInt(metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX));
             ddlMem.putInt(ColumnType.VERSION);
+            copyCommitParams();
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
             for (int i = 0; i < columnCount; i++) {
                 if (i != columnIndex) {
@@ -1453,6 +1756,9 @@ public class TableWriter implements Closeable {
                     if (isSequential(metaMem, i)) {
                         flags |= META_FLAG_BIT_SEQUENTIAL;
                     }
+                    if (isColumnCompressed(metaMem, i)) {
+                        flags |= META_FLAG_BIT_COMPRESSED;
+                    }
                     ddlMem.putLong(flags);
                     ddlMem.putInt(indexValueBlockSize);
                     ddlMem.skip(META_COLUMN_DATA_RESERVED);
@@ -1481,6 +1787,7 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(metaMem.getInt(META_OFFSET_PARTITION_BY));
             ddlMem.putInt(metaMem.getInt(META_OFFSET_TIMESTAMP_INDEX));
             ddlMem.putInt(ColumnType.VERSION);
+            copyCommitParams();
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
             for (int i = 0; i < columnCount; i++) {
                 writeColumnEntry(i);
@@ -1498,6 +1805,12 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void copyCommitParams() {
+        ddlMem.putLong(metaMem.getLong(META_OFFSET_COMMIT_LAG));
+        ddlMem.putLong(metaMem.getLong(META_OFFSET_MAX_UNCOMMITTED_ROWS));
+        ddlMem.putLong(metaMem.getLong(META_OFFSET_MAX_UNCOMMITTED_BYTES));
+    }
+
     /**
      * Creates bitmap index files for a column. This method uses primary column instance as temporary tool to
      * append index data. Therefore it must be called before primary column is initialized.
@@ -1548,6 +1861,7 @@ public class TableWriter implements Closeable {
     private void doClose(boolean truncate) {
         boolean tx = inTransaction();
         freeColumns(truncate);
+        freeOutOfOrderColumns();
         freeSymbolMapWriters();
         freeIndexers();
         try {
@@ -1555,6 +1869,7 @@ public class TableWriter implements Closeable {
         } finally {
             Misc.free(metaMem);
             Misc.free(txPendingPartitionSizes);
+            Misc.free(columnCompressor);
             Misc.free(ddlMem);
             Misc.free(other);
             try {
@@ -1578,6 +1893,27 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private int findPendingPartition(long partitionTimestamp) {
+        for (int i = 0, n = txPartitionCount - 1; i < n; i++) {
+            if (timestampFloorMethod.floor(txPendingPartitionSizes.getLong(i * 16L + 8)) == partitionTimestamp) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void freeOutOfOrderColumns() {
+        if (oooColumns != null) {
+            for (int i = 0, n = oooColumns.size(); i < n; i++) {
+                Misc.free(oooColumns.getQuick(i));
+            }
+        }
+        for (int i = 0, n = oooMergers.size(); i < n; i++) {
+            Misc.free(oooMergers.getQuick(i));
+        }
+        oooMergers.clear();
+    }
+
     private void freeIndexers() {
         if (indexers != null) {
             for (int i = 0, n = indexers.size(); i < n; i++) {
@@ -1627,8 +1963,13 @@ public class TableWriter implements Closeable {
             long nextTimestamp = timestampFloorMethod.floor(timestampAddMethod.calculate(nextMinTimestamp, 1));
             setStateForTimestamp(nextTimestamp, false);
             try {
-                dFile(path, metadata.getColumnName(metadata.getTimestampIndex()));
-                if (ff.exists(path)) {
+                final int plen = path.length();
+                if (ff.exists(dzFile(path, metadata.getColumnName(metadata.getTimestampIndex())))) {
+                    try (CompressedReadOnlyMemory mem = new CompressedReadOnlyMemory(ff, path)) {
+                        nextMinTimestamp = mem.getLong(0);
+                    }
+                    break;
+                } else if (ff.exists(dFile(path.trimTo(plen), metadata.getColumnName(metadata.getTimestampIndex())))) {
                     // read min timestamp value
                     long fd = ff.openRO(path);
                     if (fd == -1) {
@@ -1690,7 +2031,7 @@ public class TableWriter implements Closeable {
         final long maxTimestamp = timestampFloorMethod.floor(this.maxTimestamp);
         long timestamp = minTimestamp;
 
-        try (indexer; final ReadOnlyMemory roMem = new ReadOnlyMemory()) {
+        try (indexer; final ReadOnlyMemory roMem = new ReadOnlyMemory(); final CompressedReadOnlyMemory compressedMem = new CompressedReadOnlyMemory()) {
 
             while (timestamp < maxTimestamp) {
 
@@ -1702,9 +2043,9 @@ public class TableWriter implements Closeable {
 
                     final int plen = path.length();
 
-                    TableUtils.dFile(path.trimTo(plen), columnName);
+                    final boolean compressed = ff.exists(TableUtils.dzFile(path.trimTo(plen), columnName));
 
-                    if (ff.exists(path)) {
+                    if (compressed || ff.exists(TableUtils.dFile(path.trimTo(plen), columnName))) {
 
                         path.trimTo(plen);
 
@@ -1716,13 +2057,19 @@ public class TableWriter implements Closeable {
                         final long columnTop = TableUtils.readColumnTop(ff, path.trimTo(plen), columnName, plen, tempMem8b);
 
                         if (partitionSize > columnTop) {
-                            TableUtils.dFile(path.trimTo(plen), columnName);
-
-                            roMem.of(ff, path, ff.getPageSize(), 0);
-                            roMem.grow((partitionSize - columnTop) << ColumnType.pow2SizeOf(ColumnType.INT));
+                            final VirtualMemory mem;
+                            if (compressed) {
+                                compressedMem.of(ff, TableUtils.dzFile(path.trimTo(plen), columnName), 0, 0);
+                                mem = compressedMem;
+                            } else {
+                                TableUtils.dFile(path.trimTo(plen), columnName);
+                                roMem.of(ff, path, ff.getPageSize(), 0);
+                                roMem.grow((partitionSize - columnTop) << ColumnType.pow2SizeOf(ColumnType.INT));
+                                mem = roMem;
+                            }
 
                             indexer.configureWriter(configuration, path.trimTo(plen), columnName, columnTop);
-                            indexer.index(roMem, columnTop, partitionSize);
+                            indexer.index(mem, columnTop, partitionSize);
                         }
                     }
                 }
@@ -1773,6 +2120,405 @@ public class TableWriter implements Closeable {
         }
     }
 
+    /**
+     * Merges rows that arrived out of timestamp order into partitions they belong to. Out-of-order rows are
+     * sorted by timestamp and split into partition groups. Existing rows of each affected partition, starting from
+     * first row with timestamp greater than group minimum, are re-written together with out-of-order rows so that
+     * partition remains sorted. Rows that precede group minimum are left intact.
+     * <p>
+     * Every column of every affected partition is merged independently by {@link OutOfOrderColumnMerger}. When
+     * writer has message bus these merges are published on the queue and picked up by worker pool.
+     *
+     * @param commitMode commit durability mode, partitions other than active are synced according to this mode
+     */
+    private void mergeOutOfOrderRows(int commitMode) {
+        final VirtualMemory oooTimestamps = oooColumns.getQuick(getPrimaryColumnIndex(metadata.getTimestampIndex()));
+        final long indexSize = oooRowCount * 16;
+        final long pIndex = Unsafe.malloc(indexSize);
+        try {
+            final long pTemp = Unsafe.malloc(indexSize);
+            try {
+                for (long i = 0; i < oooRowCount; i++) {
+                    Unsafe.getUnsafe().putLong(pIndex + i * 16, oooTimestamps.getLong(i * Long.BYTES));
+                    Unsafe.getUnsafe().putLong(pIndex + i * 16 + 8, i);
+                }
+                LongSort.sortLongIndexAsc(pIndex, oooRowCount, pTemp);
+            } finally {
+                Unsafe.free(pTemp, indexSize);
+            }
+
+            final long oooMinTimestamp = Unsafe.getUnsafe().getLong(pIndex);
+            LOG.info()
+                    .$("merging out-of-order rows [table=").$(name)
+                    .$(", rowCount=").$(oooRowCount)
+                    .$(", minTimestamp=").$ts(oooMinTimestamp)
+                    .$(']').$();
+
+            oooMergerCount = 0;
+            try {
+                long lo = 0;
+                while (lo < oooRowCount) {
+                    final long partitionTimestamp;
+                    long hi = lo + 1;
+                    if (partitionBy == PartitionBy.NONE) {
+                        partitionTimestamp = Long.MIN_VALUE;
+                        hi = oooRowCount;
+                    } else {
+                        partitionTimestamp = timestampFloorMethod.floor(Unsafe.getUnsafe().getLong(pIndex + lo * 16));
+                        final long nextPartitionTimestamp = timestampAddMethod.calculate(partitionTimestamp, 1);
+                        while (hi < oooRowCount && Unsafe.getUnsafe().getLong(pIndex + hi * 16) < nextPartitionTimestamp) {
+                            hi++;
+                        }
+                    }
+                    prepareOutOfOrderPartition(partitionTimestamp, pIndex, lo, hi, commitMode);
+                    lo = hi;
+                }
+
+                if (parallelOutOfOrderMergeEnabled && oooMergerCount > 1) {
+                    mergeOutOfOrderColumnsParallel();
+                } else {
+                    for (int i = 0; i < oooMergerCount; i++) {
+                        oooMergers.getQuick(i).merge();
+                    }
+                }
+
+                for (int i = 0, n = oooPartitions.size(); i < n; i += OOO_PARTITION_ENTRY_SIZE) {
+                    applyOutOfOrderPartition(i);
+                }
+            } finally {
+                for (int i = 0, n = oooPartitions.size(); i < n; i += OOO_PARTITION_ENTRY_SIZE) {
+                    Unsafe.free(oooPartitions.getQuick(i + OOO_PARTITION_MERGE_INDEX), oooPartitions.getQuick(i + OOO_PARTITION_MERGE_COUNT) * Long.BYTES);
+                }
+                oooPartitions.clear();
+            }
+
+            if (oooMinTimestamp < minTimestamp) {
+                minTimestamp = oooMinTimestamp;
+            }
+            prevMinTimestamp = minTimestamp;
+        } catch (CairoException e) {
+            LOG.error().$("could not merge out-of-order rows [table=").$(name).$(", e=").$((Sinkable) e).$(']').$();
+            throwDistressException(e);
+        } finally {
+            Unsafe.free(pIndex, indexSize);
+            resetOutOfOrderColumns();
+        }
+    }
+
+    /**
+     * Locates partition rows affected by out-of-order rows, builds merge index and sets up column mergers.
+     * Partition directory is created when necessary. Partition files are not modified.
+     */
+    private void prepareOutOfOrderPartition(long partitionTimestamp, long pIndex, long lo, long hi, int commitMode) {
+        final boolean active = partitionBy == PartitionBy.NONE || partitionTimestamp == timestampFloorMethod.floor(maxTimestamp);
+        final int timestampIndex = metadata.getTimestampIndex();
+        final long oooCount = hi - lo;
+        try {
+            setStateForTimestamp(partitionTimestamp, false);
+            final int plen = path.length();
+
+            int pendingIndex = -1;
+            final long partitionSize;
+            if (active) {
+                partitionSize = transientRowCount;
+            } else if ((pendingIndex = findPendingPartition(partitionTimestamp)) > -1) {
+                partitionSize = txPendingPartitionSizes.getLong(pendingIndex * 16L);
+            } else if (removedPartitions.excludes(partitionTimestamp) && ff.exists(path.concat(ARCHIVE_FILE_NAME).$())) {
+                partitionSize = readPartitionSize(ff, path.trimTo(plen), tempMem8b);
+                // merge rewrites column files, partition is compressed again once merge is applied
+                decompressPartitionColumns(plen);
+            } else {
+                // partition either does not exist or has been removed,
+                // directory may still be on disk when its removal was postponed
+                path.trimTo(plen);
+                if (removedPartitions.remove(partitionTimestamp) > -1) {
+                    partitionTableChanged = true;
+                }
+                if (ff.exists(path.put(Files.SEPARATOR).$()) && !ff.rmdir(path)) {
+                    throw CairoException.instance(ff.errno()).put("Cannot remove directory: ").put(path);
+                }
+                if (ff.mkdirs(path, mkDirMode) != 0) {
+                    throw CairoException.instance(ff.errno()).put("Cannot create directory: ").put(path);
+                }
+                partitionSize = 0;
+            }
+            path.trimTo(plen);
+
+            // find first partition row that sorts after out-of-order rows start,
+            // rows before it stay where they are
+            long mergeLo = 0;
+            long tailCount = 0;
+            long pTailTimestamps = 0;
+            if (partitionSize > 0) {
+                final long fd;
+                if (active) {
+                    fd = getPrimaryColumn(timestampIndex).getFd();
+                } else {
+                    fd = ff.openRO(dFile(path.trimTo(plen), metadata.getColumnName(timestampIndex)));
+                    if (fd == -1) {
+                        throw CairoException.instance(ff.errno()).put("Cannot open: ").put(path);
+                    }
+                    path.trimTo(plen);
+                }
+                try {
+                    mergeLo = searchTimestamp(ff, fd, partitionSize, Unsafe.getUnsafe().getLong(pIndex + lo * 16), tempMem8b);
+                    tailCount = partitionSize - mergeLo;
+                    if (tailCount > 0) {
+                        pTailTimestamps = Unsafe.malloc(tailCount * Long.BYTES);
+                        readFully(ff, fd, pTailTimestamps, tailCount * Long.BYTES, mergeLo * Long.BYTES);
+                    }
+                } finally {
+                    if (!active) {
+                        ff.close(fd);
+                    }
+                }
+            }
+
+            // merge index entries are either positive offset of existing row relative to mergeLo
+            // or inverted out-of-order row number; existing rows go first when timestamps are equal
+            final long mergeCount = tailCount + oooCount;
+            final long pMergeIndex = Unsafe.malloc(mergeCount * Long.BYTES);
+            // merge index is freed once all partitions are merged
+            oooPartitions.add(partitionTimestamp);
+            oooPartitions.add(active ? 1 : 0);
+            oooPartitions.add(pendingIndex);
+            oooPartitions.add(partitionSize);
+            oooPartitions.add(mergeLo);
+            oooPartitions.add(pMergeIndex);
+            oooPartitions.add(mergeCount);
+            oooPartitions.add(oooMergerCount);
+            try {
+                long t = 0;
+                long o = lo;
+                long p = pMergeIndex;
+                while (t < tailCount && o < hi) {
+                    if (Unsafe.getUnsafe().getLong(pTailTimestamps + t * Long.BYTES) <= Unsafe.getUnsafe().getLong(pIndex + o * 16)) {
+                        Unsafe.getUnsafe().putLong(p, t++);
+                    } else {
+                        Unsafe.getUnsafe().putLong(p, ~Unsafe.getUnsafe().getLong(pIndex + o++ * 16 + 8));
+                    }
+                    p += Long.BYTES;
+                }
+                while (t < tailCount) {
+                    Unsafe.getUnsafe().putLong(p, t++);
+                    p += Long.BYTES;
+                }
+                while (o < hi) {
+                    Unsafe.getUnsafe().putLong(p, ~Unsafe.getUnsafe().getLong(pIndex + o++ * 16 + 8));
+                    p += Long.BYTES;
+                }
+            } finally {
+                if (pTailTimestamps != 0) {
+                    Unsafe.free(pTailTimestamps, tailCount * Long.BYTES);
+                }
+            }
+
+            for (int i = 0; i < columnCount; i++) {
+                final OutOfOrderColumnMerger merger = nextOutOfOrderMerger();
+                final CharSequence columnName = metadata.getColumnName(i);
+                final int type = metadata.getColumnType(i);
+                final VirtualMemory src1 = oooColumns.getQuick(getPrimaryColumnIndex(i));
+                final VirtualMemory src2 = oooColumns.getQuick(getSecondaryColumnIndex(i));
+                if (active) {
+                    merger.ofActive(
+                            path.trimTo(plen),
+                            columnName,
+                            type,
+                            src1,
+                            src2,
+                            partitionSize,
+                            mergeLo,
+                            pMergeIndex,
+                            mergeCount,
+                            columnTops.getQuick(i),
+                            getPrimaryColumn(i),
+                            getSecondaryColumn(i)
+                    );
+                } else {
+                    final boolean indexed = metadata.isColumnIndexed(i);
+                    if (indexed) {
+                        createIndexFiles(columnName, metadata.getIndexValueBlockCapacity(i), plen, partitionSize == 0);
+                    }
+                    merger.ofPartition(
+                            path.trimTo(plen),
+                            columnName,
+                            type,
+                            indexed,
+                            src1,
+                            src2,
+                            partitionSize,
+                            mergeLo,
+                            pMergeIndex,
+                            mergeCount,
+                            commitMode
+                    );
+                }
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    /**
+     * Updates writer state once all columns of partition have been merged.
+     *
+     * @param offset offset of partition entry in oooPartitions list
+     */
+    private void applyOutOfOrderPartition(int offset) {
+        final long partitionTimestamp = oooPartitions.getQuick(offset);
+        final boolean active = oooPartitions.getQuick(offset + OOO_PARTITION_ACTIVE) == 1;
+        final int pendingIndex = (int) oooPartitions.getQuick(offset + OOO_PARTITION_PENDING_INDEX);
+        final long partitionSize = oooPartitions.getQuick(offset + OOO_PARTITION_SIZE);
+        final long mergeLo = oooPartitions.getQuick(offset + OOO_PARTITION_MERGE_LO);
+        final long mergeCount = oooPartitions.getQuick(offset + OOO_PARTITION_MERGE_COUNT);
+        final int mergerLo = (int) oooPartitions.getQuick(offset + OOO_PARTITION_MERGER_LO);
+        final long newPartitionSize = mergeLo + mergeCount;
+        final long oooCount = newPartitionSize - partitionSize;
+        try {
+            setStateForTimestamp(partitionTimestamp, false);
+            final int plen = path.length();
+
+            LOG.info()
+                    .$("merged out-of-order rows [path=").$(path.$())
+                    .$(", rowCount=").$(oooCount)
+                    .$(", mergeLo=").$(mergeLo)
+                    .$(", partitionSize=").$(partitionSize)
+                    .$(']').$();
+            path.trimTo(plen);
+
+            if (active) {
+                for (int i = 0; i < columnCount; i++) {
+                    final OutOfOrderColumnMerger merger = oooMergers.getQuick(mergerLo + i);
+                    final long newTop = merger.getNewTop();
+                    final boolean topChanged = newTop != merger.getTop();
+                    if (topChanged) {
+                        columnTops.setQuick(i, newTop);
+                    }
+                    if (metadata.isColumnIndexed(i)) {
+                        final ColumnIndexer indexer = indexers.getQuick(i);
+                        if (topChanged) {
+                            indexer.configureFollowerAndWriter(configuration, path.trimTo(plen), metadata.getColumnName(i), getPrimaryColumn(i), newTop);
+                        }
+                        // commit will index rows from mergeLo onwards
+                        if (mergeLo < (txPartitionCount == 1 ? txPrevTransientRowCount : 0)) {
+                            indexer.rollback(mergeLo - 1);
+                        }
+                    }
+                }
+
+                transientRowCount = newPartitionSize;
+                // indexes of active partition are rolled back to mergeLo, make sure commit re-indexes merged rows
+                if (txPartitionCount == 1 && mergeLo < txPrevTransientRowCount) {
+                    txPrevTransientRowCount = mergeLo;
+                }
+            } else {
+                if (pendingIndex > -1) {
+                    txPendingPartitionSizes.putLong(pendingIndex * 16L, newPartitionSize);
+                } else {
+                    writeLongAtOffset(ff, path.trimTo(plen).concat(ARCHIVE_FILE_NAME).$(), tempMem8b, 0, newPartitionSize);
+                    // pending partitions are compressed on commit
+                    compressPartitionColumns(plen, newPartitionSize);
+                }
+                fixedRowCount += oooCount;
+            }
+        } finally {
+            path.trimTo(rootLen);
+        }
+    }
+
+    private void mergeOutOfOrderColumnsParallel() {
+        oooMergeSequences.clear();
+        oooMergeLatch.setCount(oooMergerCount);
+        final int nParallelMerges = oooMergerCount - 1;
+        final Sequence mergePubSequence = messageBus.getOutOfOrderMergePubSequence();
+        final RingQueue<OutOfOrderMergeTask> mergeQueue = messageBus.getOutOfOrderMergeQueue();
+
+        LOG.info().$("parallel out-of-order merge [mergeCount=").$(oooMergerCount).$(']').$();
+        int serialMergeCount = 0;
+
+        // we are going to merge last column in this thread while other columns are on the queue
+        OUT:
+        for (int i = 0; i < nParallelMerges; i++) {
+            final OutOfOrderColumnMerger merger = oooMergers.getQuick(i);
+            long cursor = mergePubSequence.next();
+            if (cursor == -1) {
+                // queue is full, merge column in the current thread
+                OutOfOrderColumnMerger.mergeAndCountDown(merger, oooMergeLatch);
+                oooMergeSequences.add(-1);
+                serialMergeCount++;
+                continue;
+            }
+
+            if (cursor == -2) {
+                // CAS issue, retry
+                do {
+                    cursor = mergePubSequence.next();
+                    if (cursor == -1) {
+                        OutOfOrderColumnMerger.mergeAndCountDown(merger, oooMergeLatch);
+                        oooMergeSequences.add(-1);
+                        serialMergeCount++;
+                        continue OUT;
+                    }
+                } while (cursor < 0);
+            }
+
+            final OutOfOrderMergeTask queueItem = mergeQueue.get(cursor);
+            final long sequence = merger.getSequence();
+            queueItem.merger = merger;
+            queueItem.countDownLatch = oooMergeLatch;
+            queueItem.sequence = sequence;
+            oooMergeSequences.add(sequence);
+            mergePubSequence.done(cursor);
+        }
+
+        // merge last column while other columns are brewing on the queue
+        OutOfOrderColumnMerger.mergeAndCountDown(oooMergers.getQuick(nParallelMerges), oooMergeLatch);
+        serialMergeCount++;
+
+        if (!oooMergeLatch.await(configuration.getWorkStealTimeoutNanos())) {
+            // other columns are still in-flight, steal work nobody has picked up yet
+            for (int i = 0; i < nParallelMerges; i++) {
+                final long sequence = oooMergeSequences.getQuick(i);
+                final OutOfOrderColumnMerger merger = oooMergers.getQuick(i);
+                if (sequence > -1 && merger.tryLock(sequence)) {
+                    OutOfOrderColumnMerger.mergeAndCountDown(merger, oooMergeLatch);
+                    serialMergeCount++;
+                }
+            }
+            // wait for the ones we cannot steal
+            oooMergeLatch.await();
+        }
+
+        boolean distressed = false;
+        for (int i = 0; i < oooMergerCount; i++) {
+            distressed = distressed | oooMergers.getQuick(i).isDistressed();
+        }
+
+        if (distressed) {
+            throwDistressException(null);
+        }
+
+        LOG.info().$("parallel out-of-order merge done [serialCount=").$(serialMergeCount).$(']').$();
+    }
+
+    private OutOfOrderColumnMerger nextOutOfOrderMerger() {
+        if (oooMergerCount == oooMergers.size()) {
+            oooMergers.add(new OutOfOrderColumnMerger(configuration));
+        }
+        return oooMergers.getQuick(oooMergerCount++);
+    }
+
+    private Row newRowOutOfOrder(long timestamp) {
+        final int timestampIndex = metadata.getTimestampIndex();
+        if (!outOfOrderEnabled || timestampIndex == -1) {
+            throw CairoException.instance(ff.errno()).put("Cannot insert rows out of order. Table=").put(path);
+        }
+        activeColumns = oooColumns;
+        activeNullers = oooNullers;
+        oooColumns.getQuick(getPrimaryColumnIndex(timestampIndex)).putLong(timestamp);
+        return row;
+    }
+
     private long openAppend(LPSZ name) {
         long fd = ff.openAppend(name);
         if (fd == -1) {
@@ -1852,6 +2598,10 @@ public class TableWriter implements Closeable {
 
             assert columnCount > 0;
 
+            // active partition cannot be compressed, this is the case when
+            // sealed partition becomes active again
+            decompressPartitionColumns(plen);
+
             for (int i = 0; i < columnCount; i++) {
                 final CharSequence name = metadata.getColumnName(i);
                 final boolean indexed = metadata.isColumnIndexed(i);
@@ -1985,8 +2735,13 @@ public class TableWriter implements Closeable {
         Misc.free(getSecondaryColumn(columnIndex));
         columns.remove(getSecondaryColumnIndex(columnIndex));
         columns.remove(getPrimaryColumnIndex(columnIndex));
+        Misc.free(oooColumns.getQuick(getPrimaryColumnIndex(columnIndex)));
+        Misc.free(oooColumns.getQuick(getSecondaryColumnIndex(columnIndex)));
+        oooColumns.remove(getSecondaryColumnIndex(columnIndex));
+        oooColumns.remove(getPrimaryColumnIndex(columnIndex));
         columnTops.removeIndex(columnIndex);
         nullers.remove(columnIndex);
+        oooNullers.remove(columnIndex);
         if (columnIndex < indexers.size()) {
             Misc.free(indexers.getQuick(columnIndex));
             indexers.remove(columnIndex);
@@ -2003,6 +2758,7 @@ public class TableWriter implements Closeable {
                     path.concat(nativeLPSZ);
                     int plen = path.length();
                     removeLambda.remove(ff, dFile(path, columnName));
+                    removeLambda.remove(ff, dzFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, iFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, topFile(path.trimTo(plen), columnName));
                     removeLambda.remove(ff, BitmapIndexUtils.keyFileName(path.trimTo(plen), columnName));
@@ -2036,6 +2792,7 @@ public class TableWriter implements Closeable {
                 ddlMem.putInt(timestampIndex);
             }
             ddlMem.putInt(ColumnType.VERSION);
+            copyCommitParams();
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
 
             for (int i = 0; i < columnCount; i++) {
@@ -2067,6 +2824,7 @@ public class TableWriter implements Closeable {
             ddlMem.putInt(partitionBy);
             ddlMem.putInt(timestampIndex);
             ddlMem.putInt(ColumnType.VERSION);
+            copyCommitParams();
             ddlMem.jumpTo(META_OFFSET_COLUMN_TYPES);
 
             for (int i = 0; i < columnCount; i++) {
@@ -2291,6 +3049,7 @@ public class TableWriter implements Closeable {
                         setStateForTimestamp(lastTimestamp, false);
                         int p = path.length();
                         transientRowCount = TableUtils.readLongAtOffset(ff, path.concat(ARCHIVE_FILE_NAME).$(), tempMem8b, 0);
+                        decompressPartitionColumns(p);
 
                         // 2. read max timestamp
                         TableUtils.dFile(path.trimTo(p), metadata.getColumnName(metadata.getTimestampIndex()));
@@ -2397,6 +3156,18 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void resetOutOfOrderColumns() {
+        for (int i = 0, n = oooColumns.size(); i < n; i++) {
+            final VirtualMemory mem = oooColumns.getQuick(i);
+            if (mem != null) {
+                mem.jumpTo(0);
+            }
+        }
+        oooRowCount = 0;
+        activeColumns = columns;
+        activeNullers = nullers;
+    }
+
     private void rollbackIndexes() {
         final long maxRow = transientRowCount - 1;
         for (int i = 0, n = denseIndexers.size(); i < n; i++) {
@@ -2490,6 +3261,20 @@ public class TableWriter implements Closeable {
                     partitionHi = Timestamps.addYear(Timestamps.yearMicros(y, leap), 1) - 1;
                 }
                 break;
+            case PartitionBy.HOUR:
+                timestamp = Timestamps.floorHH(timestamp);
+                fmtHour.format(timestamp, null, null, path);
+                if (updatePartitionInterval) {
+                    partitionHi = timestamp + Timestamps.HOUR_MICROS - 1;
+                }
+                break;
+            case PartitionBy.WEEK:
+                timestamp = Timestamps.floorWW(timestamp);
+                fmtDay.format(timestamp, null, null, path);
+                if (updatePartitionInterval) {
+                    partitionHi = timestamp + Timestamps.WEEK_MICROS - 1;
+                }
+                break;
             default:
                 path.put(DEFAULT_PARTITION_NAME);
                 partitionHi = Long.MAX_VALUE;
@@ -2680,6 +3465,10 @@ public class TableWriter implements Closeable {
         if (isSequential(metaMem, i)) {
             flags |= META_FLAG_BIT_SEQUENTIAL;
         }
+
+        if (isColumnCompressed(metaMem, i)) {
+            flags |= META_FLAG_BIT_COMPRESSED;
+        }
         ddlMem.putLong(flags);
         ddlMem.putInt(getIndexBlockCapacity(metaMem, i));
         ddlMem.skip(META_COLUMN_DATA_RESERVED);
@@ -2697,6 +3486,27 @@ public class TableWriter implements Closeable {
         }
     }
 
+    private void writeCommitParam(long offset, long value) {
+        checkDistressed();
+        try {
+            writeLongAtOffset(ff, path.concat(META_FILE_NAME).$(), tempMem8b, offset, value);
+        } finally {
+            path.trimTo(rootLen);
+        }
+        LOG.info().$("set commit param [table=").$(name).$(", offset=").$(offset).$(", value=").$(value).$(']').$();
+    }
+
+    private void writePartitionTable() {
+        final int symbolWriterCount = denseSymbolMapWriters.size();
+        final int n = removedPartitions.size();
+        txMem.putInt(getPartitionTableSizeOffset(symbolWriterCount), n);
+        for (int i = 0; i < n; i++) {
+            txMem.putLong(getPartitionTableIndexOffset(symbolWriterCount, i), removedPartitions.get(i));
+        }
+        txMem.putLong(TX_OFFSET_PARTITION_TABLE_VERSION, txMem.getLong(TX_OFFSET_PARTITION_TABLE_VERSION) + 1);
+        partitionTableChanged = false;
+    }
+
     private void writeRestoreMetaTodo(CharSequence columnName) {
         try {
             writeTodo(((long) metaPrevIndex << 8) | TODO_RESTORE_META);
@@ -2755,7 +3565,7 @@ public class TableWriter implements Closeable {
                 updateMaxTimestamp(timestamp);
                 return row;
             }
-            throw CairoException.instance(ff.errno()).put("Cannot insert rows out of order. Table=").put(path);
+            return newRowOutOfOrder(timestamp);
         }
     }
 
@@ -2773,7 +3583,7 @@ public class TableWriter implements Closeable {
         @NotNull
         private Row newRow0(long timestamp) {
             if (timestamp < maxTimestamp) {
-                throw CairoException.instance(ff.errno()).put("Cannot insert rows out of order. Table=").put(path);
+                return newRowOutOfOrder(timestamp);
             }
 
             if (timestamp > partitionHi && partitionBy != PartitionBy.NONE) {
@@ -2790,10 +3600,16 @@ public class TableWriter implements Closeable {
             if ((masterRef & 1) != 0) {
                 for (int i = 0; i < columnCount; i++) {
                     if (refs.getQuick(i) < masterRef) {
-                        nullers.getQuick(i).run();
+                        activeNullers.getQuick(i).run();
                     }
                 }
-                transientRowCount++;
+                if (activeColumns == columns) {
+                    transientRowCount++;
+                } else {
+                    oooRowCount++;
+                    activeColumns = columns;
+                    activeNullers = nullers;
+                }
                 masterRef++;
                 if (prevMinTimestamp == Long.MAX_VALUE) {
                     prevMinTimestamp = minTimestamp;
@@ -2908,6 +3724,14 @@ public class TableWriter implements Closeable {
             putLong(index, value);
         }
 
+        private VirtualMemory getPrimaryColumn(int columnIndex) {
+            return activeColumns.getQuick(getPrimaryColumnIndex(columnIndex));
+        }
+
+        private VirtualMemory getSecondaryColumn(int columnIndex) {
+            return activeColumns.getQuick(getSecondaryColumnIndex(columnIndex));
+        }
+
         private void notNull(int index) {
             refs.setQuick(index, masterRef);
         }
@@ -2934,5 +3758,6 @@ public class TableWriter implements Closeable {
         IGNORED_FILES.add(META_FILE_NAME);
         IGNORED_FILES.add(TXN_FILE_NAME);
         IGNORED_FILES.add(TODO_FILE_NAME);
+        IGNORED_FILES.add(WAL_DIR_NAME);
     }
 }
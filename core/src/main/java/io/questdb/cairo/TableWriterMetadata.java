@@ -32,6 +32,9 @@ import io.questdb.std.ObjList;
 public class TableWriterMetadata extends BaseRecordMetadata {
     private int symbolMapCount;
     private int version;
+    private long commitLag;
+    private int maxUncommittedRows;
+    private long maxUncommittedBytes;
 
     public TableWriterMetadata(FilesFacade ff, ReadOnlyMemory metaMem) {
         this.columnCount = metaMem.getInt(TableUtils.META_OFFSET_COUNT);
@@ -39,6 +42,9 @@ public class TableWriterMetadata extends BaseRecordMetadata {
         this.version = metaMem.getInt(TableUtils.META_OFFSET_VERSION);
         TableUtils.validate(ff, metaMem, columnNameIndexMap);
         this.timestampIndex = metaMem.getInt(TableUtils.META_OFFSET_TIMESTAMP_INDEX);
+        this.commitLag = metaMem.getLong(TableUtils.META_OFFSET_COMMIT_LAG);
+        this.maxUncommittedRows = (int) metaMem.getLong(TableUtils.META_OFFSET_MAX_UNCOMMITTED_ROWS);
+        this.maxUncommittedBytes = metaMem.getLong(TableUtils.META_OFFSET_MAX_UNCOMMITTED_BYTES);
         this.columnMetadata = new ObjList<>(this.columnCount);
 
         long offset = TableUtils.getColumnNameOffset(columnCount);
@@ -64,6 +70,21 @@ public class TableWriterMetadata extends BaseRecordMetadata {
         }
     }
 
+    /**
+     * @return commit lag in microseconds, 0 when table does not override receiver default
+     */
+    public long getCommitLag() {
+        return commitLag;
+    }
+
+    public long getMaxUncommittedBytes() {
+        return maxUncommittedBytes;
+    }
+
+    public int getMaxUncommittedRows() {
+        return maxUncommittedRows;
+    }
+
     public int getSymbolMapCount() {
         return symbolMapCount;
     }
@@ -112,6 +133,18 @@ public class TableWriterMetadata extends BaseRecordMetadata {
         oldColumnMetadata.setName(Chars.toString(newName));
     }
 
+    void setCommitLag(long commitLag) {
+        this.commitLag = commitLag;
+    }
+
+    void setMaxUncommittedBytes(long maxUncommittedBytes) {
+        this.maxUncommittedBytes = maxUncommittedBytes;
+    }
+
+    void setMaxUncommittedRows(int maxUncommittedRows) {
+        this.maxUncommittedRows = maxUncommittedRows;
+    }
+
     void setTimestampIndex(int index) {
         this.timestampIndex = index;
     }
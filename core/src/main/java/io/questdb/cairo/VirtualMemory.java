@@ -111,6 +111,26 @@ public class VirtualMemory implements Closeable {
         clearHotPage();
     }
 
+    /**
+     * Copies bytes to native memory. Unlike getters this method does not move hot page and
+     * can be used by several threads concurrently as long as nobody is writing to this memory.
+     *
+     * @param address native address to copy bytes to
+     * @param offset  offset in this memory to copy bytes from
+     * @param len     number of bytes
+     */
+    public final void copyTo(long address, long offset, long len) {
+        while (len > 0) {
+            final int page = pageIndex(offset);
+            final long pageOffset = offsetInPage(offset);
+            final long n = Math.min(len, getPageSize(page) - pageOffset);
+            Unsafe.getUnsafe().copyMemory(getPageAddress(page) + pageOffset, address, n);
+            address += n;
+            offset += n;
+            len -= n;
+        }
+    }
+
     public final long getAppendOffset() {
         return baseOffset + appendPointer;
     }
@@ -320,6 +340,21 @@ public class VirtualMemory implements Closeable {
         return offset;
     }
 
+    /**
+     * Appends raw bytes without length prefix.
+     *
+     * @param from address of bytes to copy
+     * @param len  number of bytes
+     */
+    public final void putBlockOfBytes(long from, long len) {
+        if (len < pageHi - appendPointer) {
+            Unsafe.getUnsafe().copyMemory(from, appendPointer, len);
+            appendPointer += len;
+        } else {
+            putBinSlit(from, len);
+        }
+    }
+
     public void putBool(boolean value) {
         putByte((byte) (value ? 1 : 0));
     }
@@ -0,0 +1,434 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.pool.ex.EntryUnavailableException;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.SynchronizedJob;
+import io.questdb.std.*;
+import io.questdb.std.str.NativeLPSZ;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.*;
+
+/**
+ * Materializes committed write-ahead log frames into table column files. Frames of all writer
+ * sessions are applied in the order they were sequenced in txn log of the table, in batches of up
+ * to {@link CairoConfiguration#getWalApplyBatchRows()} rows. Each batch is a single table commit.
+ * Progress is kept in "_applied" file next to txn log. Before table commit the job records pending
+ * txn log position together with table txn, which allows it to tell whether the batch made it into
+ * the table should the process die before progress is updated.
+ * <p>
+ * Rows are expected to be accepted by table writer, commit of out-of-order rows is rejected by
+ * {@link WalWriter} unless table writer takes them. Should table writer reject a row anyway, apply
+ * of that table is suspended rather than row dropped, its batch is rolled back and txn log is kept.
+ * <p>
+ * Segments are removed once the batch that contains their final txn log entry is committed. Batch
+ * is also cut short ahead of segment that adds column to the table, adding column commits table.
+ */
+public class WalApplyJob extends SynchronizedJob implements Closeable {
+    private static final Log LOG = LogFactory.getLog(WalApplyJob.class);
+    // txn log entries copied per lock acquisition
+    private static final long TXN_COPY_SIZE = 1024;
+    private final CairoEngine engine;
+    private final FilesFacade ff;
+    private final CharSequence root;
+    private final int batchRows;
+    private final ObjList<TableWal> tables = new ObjList<>();
+    private final ObjList<TableWal> tmpTables = new ObjList<>();
+    private final LongList txns = new LongList();
+    private final LongList removedSegments = new LongList();
+    private final Path path = new Path();
+    private final NativeLPSZ nativeLPSZ = new NativeLPSZ();
+    private final FindVisitor walTableOnFind = this::onFindTable;
+    private long tablesVersion = -1;
+    private boolean recovered = false;
+
+    WalApplyJob(CairoEngine engine) {
+        final CairoConfiguration configuration = engine.getConfiguration();
+        this.engine = engine;
+        this.ff = configuration.getFilesFacade();
+        this.root = configuration.getRoot();
+        this.batchRows = configuration.getWalApplyBatchRows();
+    }
+
+    @Override
+    public void close() {
+        path.close();
+    }
+
+    @Override
+    protected boolean runSerially() {
+        if (!recovered) {
+            recoverTables();
+            recovered = true;
+        }
+
+        final long version = engine.getWalTablesVersion();
+        if (version != tablesVersion) {
+            refreshTables();
+            tablesVersion = version;
+        }
+
+        boolean useful = false;
+        for (int i = 0, n = tables.size(); i < n; i++) {
+            useful |= applyTable(tables.getQuick(i));
+        }
+        return useful;
+    }
+
+    private long applyFrame(TableWal wal, TableWriter writer, WalSegmentReader reader, long lo, long hi) {
+        final OnePageMemory mem = reader.getMemory();
+        final int bodyLen = mem.getInt(lo);
+        final long bodyLo = lo + WAL_FRAME_HEADER_SIZE;
+        if (bodyLen <= 0 || bodyLo + bodyLen != hi || Hash.hashMem(mem.addressOf(bodyLo), bodyLen) != mem.getInt(lo + Integer.BYTES)) {
+            LOG.error().$("corrupt WAL frame [table=").$(wal.getTableName())
+                    .$(", segment=").$(reader.getSegmentId())
+                    .$(", position=").$(lo)
+                    .$(']').$();
+            return 0;
+        }
+        applyRows(wal, writer, reader, bodyLo, hi);
+        return mem.getLong(lo + Long.BYTES);
+    }
+
+    private void applyRows(TableWal wal, TableWriter writer, WalSegmentReader reader, long lo, long hi) {
+        final OnePageMemory segmentMem = reader.getMemory();
+        long p = lo;
+        while (p < hi) {
+            final long timestamp = segmentMem.getLong(p);
+            p += Long.BYTES;
+            final TableWriter.Row row;
+            try {
+                row = writer.newRow(timestamp);
+            } catch (CairoException e) {
+                // row belongs to acknowledged commit, WAL is kept until the table is fixed up
+                LOG.error().$("could not apply WAL row, suspending apply [table=").$(writer.getName())
+                        .$(", segment=").$(reader.getSegmentId())
+                        .$(", timestamp=").$(timestamp)
+                        .$(", ex=").$(e.getFlyweightMessage())
+                        .$(']').$();
+                wal.suspendApply();
+                throw e;
+            }
+
+            while (true) {
+                final int walIndex = segmentMem.getInt(p);
+                p += Integer.BYTES;
+                if (walIndex < 0) {
+                    break;
+                }
+                final int index = reader.getColumnIndex(walIndex);
+                switch (reader.getColumnType(walIndex)) {
+                    case ColumnType.BOOLEAN:
+                        if (index > -1) {
+                            row.putBool(index, segmentMem.getBool(p));
+                        }
+                        p += Byte.BYTES;
+                        break;
+                    case ColumnType.BYTE:
+                        if (index > -1) {
+                            row.putByte(index, segmentMem.getByte(p));
+                        }
+                        p += Byte.BYTES;
+                        break;
+                    case ColumnType.SHORT:
+                        if (index > -1) {
+                            row.putShort(index, segmentMem.getShort(p));
+                        }
+                        p += Short.BYTES;
+                        break;
+                    case ColumnType.CHAR:
+                        if (index > -1) {
+                            row.putChar(index, segmentMem.getChar(p));
+                        }
+                        p += Character.BYTES;
+                        break;
+                    case ColumnType.INT:
+                        if (index > -1) {
+                            row.putInt(index, segmentMem.getInt(p));
+                        }
+                        p += Integer.BYTES;
+                        break;
+                    case ColumnType.FLOAT:
+                        if (index > -1) {
+                            row.putFloat(index, segmentMem.getFloat(p));
+                        }
+                        p += Float.BYTES;
+                        break;
+                    case ColumnType.LONG:
+                    case ColumnType.DATE:
+                    case ColumnType.TIMESTAMP:
+                        if (index > -1) {
+                            row.putLong(index, segmentMem.getLong(p));
+                        }
+                        p += Long.BYTES;
+                        break;
+                    case ColumnType.DOUBLE:
+                        if (index > -1) {
+                            row.putDouble(index, segmentMem.getDouble(p));
+                        }
+                        p += Double.BYTES;
+                        break;
+                    case ColumnType.LONG256:
+                        if (index > -1) {
+                            row.putLong256(
+                                    index,
+                                    segmentMem.getLong(p),
+                                    segmentMem.getLong(p + Long.BYTES),
+                                    segmentMem.getLong(p + Long.BYTES * 2),
+                                    segmentMem.getLong(p + Long.BYTES * 3)
+                            );
+                        }
+                        p += Long256.BYTES;
+                        break;
+                    case ColumnType.STRING:
+                    case ColumnType.SYMBOL: {
+                        final CharSequence value = segmentMem.getStr(p);
+                        if (index > -1) {
+                            if (reader.getColumnType(walIndex) == ColumnType.SYMBOL) {
+                                row.putSym(index, value);
+                            } else {
+                                row.putStr(index, value);
+                            }
+                        }
+                        p += VirtualMemory.getStorageLength(value);
+                        break;
+                    }
+                    case ColumnType.BINARY: {
+                        final BinarySequence value = segmentMem.getBin(p);
+                        if (index > -1) {
+                            row.putBin(index, value);
+                        }
+                        p += Long.BYTES + (value != null ? value.length() : 0);
+                        break;
+                    }
+                    default:
+                        throw CairoException.instance(0).put("unsupported WAL column type [table=").put(writer.getName())
+                                .put(", type=").put(ColumnType.nameOf(reader.getColumnType(walIndex))).put(']');
+                }
+            }
+
+            row.append();
+        }
+    }
+
+    private boolean applyTable(TableWal wal) {
+        if (!wal.hasUnappliedData()) {
+            return false;
+        }
+
+        final TableWriter writer;
+        try {
+            writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, wal.getTableName());
+        } catch (EntryUnavailableException e) {
+            // writer is busy, try again later
+            return false;
+        } catch (CairoException e) {
+            if (TableUtils.exists(ff, path, root, wal.getTableName()) != TableUtils.TABLE_EXISTS) {
+                LOG.info().$("table is gone, dropping WAL [table=").$(wal.getTableName()).$(']').$();
+                engine.removeTableWal(wal.getTableName());
+            } else {
+                LOG.error().$("could not open writer to apply WAL [table=").$(wal.getTableName()).$(", ex=").$(e.getFlyweightMessage()).$(']').$();
+            }
+            return false;
+        }
+
+        try {
+            if (!wal.isApplyStateOpen()) {
+                wal.openApplyState(walPath(wal), writer.getTxn());
+            }
+            return applyTxns(wal, writer);
+        } catch (CairoException e) {
+            LOG.error().$("could not apply WAL [table=").$(wal.getTableName()).$(", ex=").$(e.getFlyweightMessage()).$(']').$();
+            writer.rollback();
+            return false;
+        } finally {
+            writer.close();
+        }
+    }
+
+    private boolean applyTxns(TableWal wal, TableWriter writer) {
+        final long lo = wal.getAppliedTxn();
+        long txn = lo;
+        long rowCount = 0;
+        boolean batchComplete = false;
+        removedSegments.clear();
+        while (!batchComplete && wal.copyTxns(txn, TXN_COPY_SIZE, txns) > txn) {
+            for (int i = 0, n = txns.size(); i < n; i += 3) {
+                final long segmentId = txns.getQuick(i);
+                final long frameLo = txns.getQuick(i + 1);
+                final long frameHi = txns.getQuick(i + 2);
+                if (frameHi == -1) {
+                    // segment is complete, it is removed once batch is committed
+                    closeSegmentReader(wal, segmentId);
+                    removedSegments.add(segmentId);
+                } else {
+                    final WalSegmentReader reader = openSegmentReader(wal, segmentId, frameHi);
+                    if (reader != null) {
+                        if (!reader.mapColumns(writer)) {
+                            batchComplete = true;
+                            break;
+                        }
+                        rowCount += applyFrame(wal, writer, reader, frameLo, frameHi);
+                    }
+                }
+                txn++;
+                if (rowCount >= batchRows) {
+                    batchComplete = true;
+                    break;
+                }
+            }
+        }
+
+        if (txn == lo) {
+            return false;
+        }
+
+        if (writer.inTransaction()) {
+            wal.setPending(txn, writer.getTxn());
+            writer.commit();
+        }
+        wal.setApplied(txn);
+
+        for (int i = 0, n = removedSegments.size(); i < n; i++) {
+            final long segmentId = removedSegments.getQuick(i);
+            walPath(wal);
+            if (ff.exists(walSegmentFile(path, segmentId)) && !ff.remove(path)) {
+                LOG.error().$("could not remove WAL segment [path=").$(path).$(", errno=").$(ff.errno()).$(']').$();
+            } else {
+                LOG.info().$("applied WAL segment [table=").$(wal.getTableName()).$(", segment=").$(segmentId).$(']').$();
+            }
+        }
+        wal.truncateTxnLog();
+        return true;
+    }
+
+    private void closeSegmentReader(TableWal wal, long segmentId) {
+        final ObjList<WalSegmentReader> readers = wal.getSegmentReaders();
+        for (int i = 0, n = readers.size(); i < n; i++) {
+            final WalSegmentReader reader = readers.getQuick(i);
+            if (reader.getSegmentId() == segmentId) {
+                reader.close();
+                break;
+            }
+        }
+    }
+
+    private void onFindTable(long name, int type) {
+        nativeLPSZ.of(name);
+        if (type == Files.DT_DIR && nativeLPSZ.charAt(0) != '.') {
+            path.of(root).concat(nativeLPSZ).concat(WAL_DIR_NAME).$();
+            if (ff.exists(path)) {
+                try {
+                    engine.getTableWal(nativeLPSZ);
+                } catch (CairoException e) {
+                    LOG.error().$("could not open WAL [path=").$(path).$(", ex=").$(e.getFlyweightMessage()).$(']').$();
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds reader of segment, which is mapped at least up to given offset. Segments that are missing
+     * or cannot be read are logged and their frames are skipped, so that they do not hold up the table.
+     *
+     * @return segment reader or null
+     */
+    private WalSegmentReader openSegmentReader(TableWal wal, long segmentId, long hi) {
+        final ObjList<WalSegmentReader> readers = wal.getSegmentReaders();
+        WalSegmentReader reader = null;
+        WalSegmentReader freeReader = null;
+        for (int i = 0, n = readers.size(); i < n; i++) {
+            final WalSegmentReader r = readers.getQuick(i);
+            if (r.getSegmentId() == segmentId) {
+                reader = r;
+                break;
+            }
+            if (r.getSegmentId() == -1) {
+                freeReader = r;
+            }
+        }
+
+        if (reader != null && reader.size() >= hi) {
+            return reader;
+        }
+
+        walPath(wal);
+        walSegmentFile(path, segmentId);
+        final long size = ff.exists(path) ? ff.length(path) : -1;
+        if (size < hi) {
+            LOG.error().$("WAL segment is missing or short, frame is skipped [path=").$(path).$(", size=").$(size).$(", frameHi=").$(hi).$(']').$();
+            return null;
+        }
+
+        try {
+            if (reader != null) {
+                reader.remap(ff, path, size);
+            } else {
+                if (freeReader == null) {
+                    freeReader = new WalSegmentReader();
+                    readers.add(freeReader);
+                }
+                reader = freeReader;
+                reader.of(ff, path, segmentId, size);
+            }
+            return reader;
+        } catch (CairoException e) {
+            LOG.error().$("could not read WAL segment, frame is skipped [path=").$(path).$(", ex=").$(e.getFlyweightMessage()).$(']').$();
+            if (reader != null) {
+                reader.close();
+            }
+            return null;
+        }
+    }
+
+    private void recoverTables() {
+        ff.iterateDir(path.of(root).$(), walTableOnFind);
+    }
+
+    private void refreshTables() {
+        tmpTables.clear();
+        engine.getWalTables(tmpTables);
+        // tables dropped from registry will not be seen again
+        for (int i = 0, n = tables.size(); i < n; i++) {
+            final TableWal wal = tables.getQuick(i);
+            if (tmpTables.indexOf(wal) < 0) {
+                wal.close();
+            }
+        }
+        tables.clear();
+        tables.addAll(tmpTables);
+    }
+
+    private Path walPath(TableWal wal) {
+        return path.of(root).concat(wal.getTableName()).concat(WAL_DIR_NAME);
+    }
+}
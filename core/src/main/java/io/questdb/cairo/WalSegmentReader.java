@@ -0,0 +1,163 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.Chars;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.IntList;
+import io.questdb.std.ObjList;
+import io.questdb.std.str.LPSZ;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.WAL_FORMAT_VERSION;
+
+/**
+ * Read side of single WAL segment, used by {@link WalApplyJob}. Frames of concurrent writer sessions
+ * are interleaved in txn log, so segment stays mapped in between frames. Segment columns are mapped
+ * to table columns by name and the mapping is refreshed whenever table structure changes.
+ */
+final class WalSegmentReader implements Closeable {
+    private static final Log LOG = LogFactory.getLog(WalSegmentReader.class);
+    private final OnePageMemory mem = new OnePageMemory();
+    private final ObjList<String> columnNames = new ObjList<>();
+    private final IntList columnTypes = new IntList();
+    private final IntList columnIndexes = new IntList();
+    private long segmentId = -1;
+    private long structureVersion = -1;
+
+    @Override
+    public void close() {
+        mem.close();
+        segmentId = -1;
+    }
+
+    int getColumnIndex(int walIndex) {
+        return columnIndexes.getQuick(walIndex);
+    }
+
+    int getColumnType(int walIndex) {
+        return columnTypes.getQuick(walIndex);
+    }
+
+    OnePageMemory getMemory() {
+        return mem;
+    }
+
+    long getSegmentId() {
+        return segmentId;
+    }
+
+    /**
+     * Maps segment columns to table columns. Columns that table does not have yet are added to the
+     * table, columns of different type are not applied.
+     *
+     * @param writer writer of the table
+     * @return false when column has to be added to the table while writer has uncommitted rows
+     */
+    boolean mapColumns(TableWriter writer) {
+        if (structureVersion == writer.getStructureVersion()) {
+            return true;
+        }
+
+        if (writer.inTransaction()) {
+            // adding column commits writer, which must not happen half way through batch
+            for (int i = 0, n = columnNames.size(); i < n; i++) {
+                if (writer.getMetadata().getColumnIndexQuiet(columnNames.getQuick(i)) == -1) {
+                    return false;
+                }
+            }
+        }
+
+        columnIndexes.clear();
+        for (int i = 0, n = columnNames.size(); i < n; i++) {
+            final String name = columnNames.getQuick(i);
+            final int type = columnTypes.getQuick(i);
+            RecordMetadata metadata = writer.getMetadata();
+            int index = metadata.getColumnIndexQuiet(name);
+            if (index == -1) {
+                writer.addColumn(name, type);
+                metadata = writer.getMetadata();
+                index = metadata.getColumnIndexQuiet(name);
+            } else if (metadata.getColumnType(index) != type) {
+                LOG.error().$("WAL column type mismatch, values are skipped [table=").$(writer.getName())
+                        .$(", segment=").$(segmentId)
+                        .$(", column=").utf8(name)
+                        .$(", walType=").$(ColumnType.nameOf(type))
+                        .$(", tableType=").$(ColumnType.nameOf(metadata.getColumnType(index)))
+                        .$(']').$();
+                index = -1;
+            }
+            columnIndexes.add(index);
+        }
+        structureVersion = writer.getStructureVersion();
+        return true;
+    }
+
+    void of(FilesFacade ff, LPSZ path, long segmentId, long size) {
+        mem.of(ff, path, 0, size);
+        this.segmentId = segmentId;
+        this.structureVersion = -1;
+        readHeader(path);
+    }
+
+    void remap(FilesFacade ff, LPSZ path, long size) {
+        mem.of(ff, path, 0, size);
+    }
+
+    long size() {
+        return mem.size();
+    }
+
+    private void readHeader(LPSZ path) {
+        final long size = mem.size();
+        if (size < Integer.BYTES * 3) {
+            throw CairoException.instance(0).put("WAL segment header is incomplete [path=").put(path).put(']');
+        }
+        final int version = mem.getInt(0);
+        if (version != WAL_FORMAT_VERSION) {
+            throw CairoException.instance(0).put("unsupported WAL version [path=").put(path).put(", version=").put(version).put(']');
+        }
+        final int columnCount = mem.getInt(Integer.BYTES * 2);
+        long p = Integer.BYTES * 3;
+        columnNames.clear();
+        columnTypes.clear();
+        columnIndexes.clear();
+        for (int i = 0; i < columnCount; i++) {
+            if (p + Integer.BYTES * 2 > size) {
+                throw CairoException.instance(0).put("WAL segment header is incomplete [path=").put(path).put(']');
+            }
+            final int type = mem.getInt(p);
+            final CharSequence name = mem.getStr(p + Integer.BYTES);
+            p += Integer.BYTES + VirtualMemory.getStorageLength(name);
+            columnNames.add(Chars.toString(name));
+            columnTypes.add(type);
+        }
+    }
+}
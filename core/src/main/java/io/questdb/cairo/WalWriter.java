@@ -0,0 +1,462 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.std.*;
+import io.questdb.std.microtime.TimestampFormatUtils;
+import io.questdb.std.str.Path;
+
+import java.io.Closeable;
+
+import static io.questdb.cairo.TableUtils.*;
+
+/**
+ * Appends rows to write-ahead log of a table instead of table column files. Any number of writers can be
+ * open against the same table, each of them appends to its own log segment. Rows of a transaction are
+ * staged in memory and on commit are copied to the log segment as single frame:
+ * <pre>
+ * int  body length
+ * int  body checksum
+ * long row count
+ * rows: long timestamp, (int column index, value)*, int -1
+ * </pre>
+ * Frame is then sequenced in txn log of the table. Durable commit therefore costs msync of the segment
+ * and of the txn log rather than one msync per column file. Committed frames are materialized into the
+ * table asynchronously by {@link WalApplyJob} in the order they were sequenced, readers see them once
+ * the job commits table writer.
+ * <p>
+ * Segment starts with header that describes columns rows are encoded against. Adding column commits
+ * pending transaction and starts new segment, so column list of a segment never changes. Segment
+ * is also rolled over once it grows past configured size.
+ * <p>
+ * Values are encoded by the type of the column, e.g. putInt() must be used for INT columns. SYMBOL
+ * values are logged as strings.
+ * <p>
+ * Unless out-of-order inserts are enabled, rows of a table with designated timestamp have to be appended
+ * in timestamp order, both within transaction and across transactions of all writers. Commit of rows
+ * older than those committed already fails and the transaction is rolled back.
+ * <p>
+ * Closing writer releases it for reuse by the next session on the same table.
+ */
+public class WalWriter implements Closeable {
+    private static final Log LOG = LogFactory.getLog(WalWriter.class);
+    private static final long TXN_BUFFER_PAGE_SIZE = 64 * 1024;
+    private final CairoConfiguration configuration;
+    private final FilesFacade ff;
+    private final TableWal wal;
+    private final GenericRecordMetadata metadata;
+    private final long structureVersion;
+    private final ContiguousVirtualMemory txnMem = new ContiguousVirtualMemory(TXN_BUFFER_PAGE_SIZE, Integer.MAX_VALUE);
+    private final Path path = new Path();
+    private final int rootLen;
+    private final long rolloverSize;
+    private final int defaultCommitMode;
+    private final boolean outOfOrderEnabled;
+    private final Row row = new Row();
+    private long segmentId = -1;
+    private long fd = -1;
+    private long mapAddress = 0;
+    private long mapSize = 0;
+    private long segmentPosition = 0;
+    private long rowStart = -1;
+    private long txnRowCount = 0;
+    private long rowTimestamp;
+    private long txnMinTimestamp = Long.MAX_VALUE;
+    private long txnMaxTimestamp = Long.MIN_VALUE;
+    private boolean open;
+    private boolean idle = false;
+
+    WalWriter(CairoConfiguration configuration, TableWal wal) {
+        this.configuration = configuration;
+        this.ff = configuration.getFilesFacade();
+        this.wal = wal;
+        this.rolloverSize = configuration.getWalSegmentRolloverSize();
+        this.defaultCommitMode = configuration.getCommitMode();
+        this.outOfOrderEnabled = configuration.isOutOfOrderEnabled();
+        try {
+            path.of(configuration.getRoot()).concat(wal.getTableName());
+            final int tableLen = path.length();
+            // column indexes of rows are those of table structure version writer is created for
+            long version;
+            GenericRecordMetadata metadata;
+            do {
+                version = wal.readStructureVersion();
+                try (TableReaderMetadata tableMetadata = new TableReaderMetadata(ff, path.trimTo(tableLen).concat(META_FILE_NAME).$())) {
+                    metadata = GenericRecordMetadata.copyOf(tableMetadata);
+                }
+            } while (version != wal.readStructureVersion());
+            this.metadata = metadata;
+            this.structureVersion = version;
+            this.rootLen = path.trimTo(tableLen).concat(WAL_DIR_NAME).length();
+            this.open = true;
+            openSegment();
+        } catch (Throwable e) {
+            free();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds column to the log. Pending transaction is committed and new segment is started, new
+     * column is created in the table when apply job reaches that segment.
+     *
+     * @param name column name
+     * @param type {@link ColumnType}
+     */
+    public void addColumn(CharSequence name, int type) {
+        if (metadata.getColumnIndexQuiet(name) != -1) {
+            throw CairoException.instance(0).put("Duplicate column name: ").put(name);
+        }
+        commit();
+        metadata.add(new TableColumnMetadata(Chars.toString(name), type));
+        closeSegment();
+        openSegment();
+        LOG.info().$("added column to WAL '").utf8(name).$('[').$(ColumnType.nameOf(type)).$("]' [table=").$(wal.getTableName()).$(", segment=").$(segmentId).$(']').$();
+    }
+
+    @Override
+    public void close() {
+        if (open && !idle) {
+            rollback();
+            idle = true;
+            if (!wal.release(this)) {
+                free();
+            }
+        }
+    }
+
+    public void commit() {
+        commit(defaultCommitMode);
+    }
+
+    /**
+     * Appends rows of current transaction to the log segment. Pending row, if any, is cancelled.
+     * Transaction is rolled back when it cannot be committed.
+     *
+     * @param commitMode commit durability mode, anything other than {@link CommitMode#NOSYNC} msyncs log segment
+     */
+    public void commit(int commitMode) {
+        if (rowStart > -1) {
+            row.cancel();
+        }
+
+        if (txnRowCount == 0) {
+            return;
+        }
+
+        final long bodyLen = txnMem.getAppendOffset() - WAL_FRAME_HEADER_SIZE;
+        if (bodyLen > Integer.MAX_VALUE) {
+            rollback();
+            throw CairoException.instance(0).put("WAL transaction is too large [table=").put(wal.getTableName()).put(", size=").put(bodyLen).put(']');
+        }
+        txnMem.putInt(0, (int) bodyLen);
+        txnMem.putInt(Integer.BYTES, Hash.hashMem(txnMem.addressOf(WAL_FRAME_HEADER_SIZE), (int) bodyLen));
+        txnMem.putLong(Long.BYTES, txnRowCount);
+
+        final long lo = segmentPosition;
+        append(txnMem.addressOf(0), txnMem.getAppendOffset());
+        if (commitMode != CommitMode.NOSYNC) {
+            sync(lo, commitMode == CommitMode.ASYNC);
+        }
+        try {
+            wal.commit(segmentId, lo, segmentPosition, txnMinTimestamp, txnMaxTimestamp, commitMode);
+        } catch (CairoException e) {
+            // frame has not been sequenced, next one overwrites it
+            segmentPosition = lo;
+            rollback();
+            throw e;
+        }
+
+        txnMem.jumpTo(WAL_FRAME_HEADER_SIZE);
+        txnRowCount = 0;
+        txnMinTimestamp = Long.MAX_VALUE;
+        txnMaxTimestamp = Long.MIN_VALUE;
+
+        if (segmentPosition >= rolloverSize) {
+            closeSegment();
+            openSegment();
+        }
+    }
+
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    public CharSequence getName() {
+        return wal.getTableName();
+    }
+
+    public long getSegmentId() {
+        return segmentId;
+    }
+
+    /**
+     * @return version of table structure column indexes of this writer correspond to
+     */
+    public long getStructureVersion() {
+        return structureVersion;
+    }
+
+    public boolean inTransaction() {
+        return txnRowCount > 0;
+    }
+
+    public Row newRow(long timestamp) {
+        if (rowStart > -1) {
+            row.cancel();
+        }
+        if (timestamp < txnMaxTimestamp && !outOfOrderEnabled) {
+            throw CairoException.instance(0).put("Cannot insert rows out of order [table=").put(wal.getTableName())
+                    .put(", timestamp=").put(timestamp)
+                    .put(", maxTimestamp=").put(txnMaxTimestamp)
+                    .put(']');
+        }
+        rowTimestamp = timestamp;
+        rowStart = txnMem.getAppendOffset();
+        txnMem.putLong(timestamp);
+        return row;
+    }
+
+    public Row newRow() {
+        return newRow(0L);
+    }
+
+    public void rollback() {
+        rowStart = -1;
+        txnRowCount = 0;
+        txnMinTimestamp = Long.MAX_VALUE;
+        txnMaxTimestamp = Long.MIN_VALUE;
+        txnMem.jumpTo(WAL_FRAME_HEADER_SIZE);
+    }
+
+    void free() {
+        closeSegment();
+        txnMem.close();
+        path.close();
+        open = false;
+    }
+
+    void reuse() {
+        idle = false;
+    }
+
+    private void append(long address, long len) {
+        final long hi = segmentPosition + len;
+        if (hi > mapSize) {
+            final long size = (hi / rolloverSize + 1) * rolloverSize;
+            if (!ff.truncate(fd, size)) {
+                throw CairoException.instance(ff.errno()).put("could not resize WAL segment [table=").put(wal.getTableName()).put(", segment=").put(segmentId).put(", size=").put(size).put(']');
+            }
+            final long address1 = ff.mremap(fd, mapAddress, mapSize, size, 0, Files.MAP_RW);
+            if (address1 == FilesFacade.MAP_FAILED) {
+                throw CairoException.instance(ff.errno()).put("could not remap WAL segment [table=").put(wal.getTableName()).put(", segment=").put(segmentId).put(", size=").put(size).put(']');
+            }
+            mapAddress = address1;
+            mapSize = size;
+        }
+        Unsafe.getUnsafe().copyMemory(address, mapAddress + segmentPosition, len);
+        segmentPosition = hi;
+    }
+
+    private void closeSegment() {
+        if (mapAddress != 0) {
+            ff.munmap(mapAddress, mapSize);
+            mapAddress = 0;
+            mapSize = 0;
+        }
+        if (fd != -1) {
+            AppendMemory.bestEffortClose(ff, LOG, fd, true, segmentPosition, ff.getMapPageSize());
+            fd = -1;
+        }
+        if (segmentId > -1) {
+            // segment is complete on disk before apply job is allowed to remove it
+            wal.closeSegment(segmentId);
+            segmentId = -1;
+        }
+    }
+
+    private void openSegment() {
+        segmentId = wal.nextSegmentId();
+        fd = ff.openRW(walSegmentFile(path.trimTo(rootLen), segmentId));
+        if (fd == -1) {
+            throw CairoException.instance(ff.errno()).put("could not open WAL segment [path=").put(path).put(']');
+        }
+        if (!ff.truncate(fd, rolloverSize)) {
+            throw CairoException.instance(ff.errno()).put("could not resize WAL segment [path=").put(path).put(", size=").put(rolloverSize).put(']');
+        }
+        mapAddress = ff.mmap(fd, rolloverSize, 0, Files.MAP_RW);
+        if (mapAddress == FilesFacade.MAP_FAILED) {
+            mapAddress = 0;
+            throw CairoException.instance(ff.errno()).put("could not mmap WAL segment [path=").put(path).put(", size=").put(rolloverSize).put(']');
+        }
+        mapSize = rolloverSize;
+        segmentPosition = 0;
+
+        // header is staged in transaction buffer, which is empty in between transactions
+        txnMem.jumpTo(0);
+        txnMem.putInt(WAL_FORMAT_VERSION);
+        txnMem.putInt(metadata.getTimestampIndex());
+        txnMem.putInt(metadata.getColumnCount());
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            txnMem.putInt(metadata.getColumnType(i));
+            txnMem.putStr(metadata.getColumnName(i));
+        }
+        append(txnMem.addressOf(0), txnMem.getAppendOffset());
+        txnMem.jumpTo(WAL_FRAME_HEADER_SIZE);
+        LOG.info().$("open WAL segment [table=").$(wal.getTableName()).$(", segment=").$(segmentId).$(", fd=").$(fd).$(']').$();
+    }
+
+    private void sync(long lo, boolean async) {
+        final long pageSize = ff.getPageSize();
+        final long alignedLo = lo - lo % pageSize;
+        if (ff.msync(mapAddress + alignedLo, segmentPosition - alignedLo, async) != 0) {
+            LOG.error().$("could not msync [table=").$(wal.getTableName()).$(", segment=").$(segmentId).$(", errno=").$(ff.errno()).$(']').$();
+        }
+    }
+
+    public class Row {
+        public void append() {
+            txnMem.putInt(-1);
+            rowStart = -1;
+            txnRowCount++;
+            if (metadata.getTimestampIndex() > -1) {
+                txnMinTimestamp = Math.min(txnMinTimestamp, rowTimestamp);
+                txnMaxTimestamp = Math.max(txnMaxTimestamp, rowTimestamp);
+            }
+        }
+
+        public void cancel() {
+            txnMem.jumpTo(rowStart);
+            rowStart = -1;
+        }
+
+        public void putBin(int index, long address, long len) {
+            txnMem.putInt(index);
+            txnMem.putBin(address, len);
+        }
+
+        public void putBin(int index, BinarySequence sequence) {
+            txnMem.putInt(index);
+            txnMem.putBin(sequence);
+        }
+
+        public void putBool(int index, boolean value) {
+            txnMem.putInt(index);
+            txnMem.putBool(value);
+        }
+
+        public void putByte(int index, byte value) {
+            txnMem.putInt(index);
+            txnMem.putByte(value);
+        }
+
+        public void putChar(int index, char value) {
+            txnMem.putInt(index);
+            txnMem.putChar(value);
+        }
+
+        public void putDate(int index, long value) {
+            putLong(index, value);
+        }
+
+        public void putDouble(int index, double value) {
+            txnMem.putInt(index);
+            txnMem.putDouble(value);
+        }
+
+        public void putFloat(int index, float value) {
+            txnMem.putInt(index);
+            txnMem.putFloat(value);
+        }
+
+        public void putInt(int index, int value) {
+            txnMem.putInt(index);
+            txnMem.putInt(value);
+        }
+
+        public void putLong(int index, long value) {
+            txnMem.putInt(index);
+            txnMem.putLong(value);
+        }
+
+        public void putLong256(int index, long l0, long l1, long l2, long l3) {
+            txnMem.putInt(index);
+            txnMem.putLong256(l0, l1, l2, l3);
+        }
+
+        public void putLong256(int index, Long256 value) {
+            txnMem.putInt(index);
+            txnMem.putLong256(value);
+        }
+
+        public void putShort(int index, short value) {
+            txnMem.putInt(index);
+            txnMem.putShort(value);
+        }
+
+        public void putStr(int index, CharSequence value) {
+            txnMem.putInt(index);
+            txnMem.putStr(value);
+        }
+
+        public void putStr(int index, char value) {
+            txnMem.putInt(index);
+            txnMem.putStr(value);
+        }
+
+        public void putSym(int index, CharSequence value) {
+            txnMem.putInt(index);
+            txnMem.putStr(value);
+        }
+
+        public void putSym(int index, char value) {
+            txnMem.putInt(index);
+            txnMem.putStr(value);
+        }
+
+        public void putTimestamp(int index, long value) {
+            putLong(index, value);
+        }
+
+        public void putTimestamp(int index, CharSequence value) {
+            // try UTC timestamp first (micro)
+            long l;
+            try {
+                l = TimestampFormatUtils.parseTimestamp(value);
+            } catch (NumericException e) {
+                try {
+                    l = TimestampFormatUtils.parseDateTime(value);
+                } catch (NumericException numericException) {
+                    throw CairoException.instance(0).put("could not convert to timestamp [value=").put(value).put(']');
+                }
+            }
+            putTimestamp(index, l);
+        }
+    }
+}
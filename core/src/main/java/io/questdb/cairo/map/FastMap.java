@@ -238,6 +238,21 @@ public class FastMap implements Map {
         return size;
     }
 
+    /**
+     * Copies key from the record and calculates its hash the same way map does
+     * when it looks the key up. Key is not added to the map.
+     *
+     * @param record record to copy key from
+     * @param sink   copies key columns of the record
+     * @return non-negative hash of the key
+     */
+    public int hashOf(Record record, RecordSink sink) {
+        key.init();
+        sink.copy(record, key);
+        key.commit();
+        return hashFunction.hash(key.startAddress + keyDataOffset, key.len - keyDataOffset);
+    }
+
     @Override
     public MapValue valueAt(long address) {
         value.of(address, false);
@@ -29,9 +29,5 @@ import io.questdb.cairo.BitmapIndexReader;
 public interface DataFrame extends PageFrame {
     BitmapIndexReader getBitmapIndexReader(int columnIndex, int direction);
 
-    int getPartitionIndex();
-
     long getRowHi();
-
-    long getRowLo();
 }
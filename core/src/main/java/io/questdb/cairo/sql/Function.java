@@ -92,6 +92,17 @@ public interface Function extends Closeable {
         return false;
     }
 
+    /**
+     * Functions that return true can be evaluated by several threads at the same time, each against
+     * its own record. Such functions must not keep mutable state between calls to getXXX() methods
+     * and must only read primitive values from the record.
+     *
+     * @return true when function can be shared between threads evaluating different records
+     */
+    default boolean isReadThreadSafe() {
+        return false;
+    }
+
     default void toTop() {
     }
 }
@@ -30,4 +30,8 @@ public interface PageFrame {
 
     long getPageValueCount(int columnIndex);
 
+    int getPartitionIndex();
+
+    // first row of the frame in its partition
+    long getRowLo();
 }
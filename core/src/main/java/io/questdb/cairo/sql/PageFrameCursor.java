@@ -24,6 +24,7 @@
 
 package io.questdb.cairo.sql;
 
+import io.questdb.cairo.TableReader;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
@@ -32,6 +33,8 @@ public interface PageFrameCursor extends Closeable, SymbolTableSource {
     @Override
     void close(); // we don't throw IOException
 
+    TableReader getTableReader();
+
     @Nullable PageFrame next();
 
     void toTop();
@@ -41,10 +41,28 @@ public interface RecordCursorFactory extends Closeable {
 
     RecordMetadata getMetadata();
 
+    /**
+     * @return true when cursor applies LIMIT clause of the query model it was created for
+     */
+    default boolean implementsLimit() {
+        return false;
+    }
+
     default PageFrameCursor getPageFrameCursor(SqlExecutionContext executionContext) {
         return null;
     }
 
+    /**
+     * Asks factory to apply filter to every row of its cursors. Filter evaluates columns
+     * of this factory's metadata, factory may be asked at most once.
+     *
+     * @param filter filter, which may be inactive for some executions
+     * @return true when factory applies the filter, false when filter is left to the caller
+     */
+    default boolean pushDownRuntimeFilter(RuntimeRecordFilter filter) {
+        return false;
+    }
+
     boolean recordCursorSupportsRandomAccess();
 
     default boolean supportPageFrameCursor() {
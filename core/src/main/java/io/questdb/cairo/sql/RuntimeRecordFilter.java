@@ -0,0 +1,54 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cairo.sql;
+
+/**
+ * Row filter, which is only known once query is running, such as filter of join keys
+ * built from the other side of a join. Factories, which accept it, reject rows before
+ * they are passed up the cursor chain.
+ *
+ * @see RecordCursorFactory#pushDownRuntimeFilter(RuntimeRecordFilter)
+ */
+public interface RuntimeRecordFilter {
+
+    /**
+     * @param record current record of cursor filter was initialised with
+     * @return false when record can be skipped
+     */
+    boolean accept(Record record);
+
+    /**
+     * @return false when filter has not been built for current execution and must not be applied
+     */
+    boolean isActive();
+
+    /**
+     * Binds filter to cursor, which rows it filters. Called before first row of the cursor
+     * is evaluated.
+     *
+     * @param cursor cursor to resolve symbol tables from
+     */
+    void of(RecordCursor cursor);
+}
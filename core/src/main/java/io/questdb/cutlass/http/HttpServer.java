@@ -28,9 +28,15 @@ import io.questdb.MessageBus;
 import io.questdb.WorkerPoolAwareConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.ColumnIndexerJob;
+import io.questdb.cairo.OutOfOrderMergeJob;
 import io.questdb.cutlass.http.processors.*;
 import io.questdb.griffin.FunctionFactoryCache;
+import io.questdb.griffin.engine.groupby.SampleByJob;
 import io.questdb.griffin.engine.groupby.vect.GroupByJob;
+import io.questdb.griffin.engine.join.HashJoinBuildJob;
+import io.questdb.griffin.engine.orderby.SortJob;
+import io.questdb.griffin.engine.table.LatestByAllIndexedJob;
+import io.questdb.griffin.engine.table.PageFrameFilterJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.EagerThreadSetup;
@@ -219,7 +225,13 @@ public class HttpServer implements Closeable {
 
         // jobs that help parallel execution of queries
         workerPool.assign(new ColumnIndexerJob(messageBus));
+        workerPool.assign(new OutOfOrderMergeJob(messageBus));
         workerPool.assign(new GroupByJob(messageBus));
+        workerPool.assign(new PageFrameFilterJob(messageBus));
+        workerPool.assign(new SampleByJob(messageBus));
+        workerPool.assign(new SortJob(messageBus));
+        workerPool.assign(new HashJoinBuildJob(messageBus));
+        workerPool.assign(new LatestByAllIndexedJob(messageBus));
         return s;
 
     }
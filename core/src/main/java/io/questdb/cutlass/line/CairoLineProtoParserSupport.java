@@ -29,7 +29,7 @@ public class CairoLineProtoParserSupport {
     }
 
     public static class BadCastException extends Exception {
-        private static final BadCastException INSTANCE = new BadCastException();
+        public static final BadCastException INSTANCE = new BadCastException();
     }
 
     public static int getValueType(CharSequence token) {
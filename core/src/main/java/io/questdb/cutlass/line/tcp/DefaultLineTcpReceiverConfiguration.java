@@ -113,4 +113,19 @@ public class DefaultLineTcpReceiverConfiguration implements LineTcpReceiverConfi
     public long getMaintenanceJobHysteresisInMs() {
         return 100;
     }
+
+    @Override
+    public long getCommitLagMicros() {
+        return 0;
+    }
+
+    @Override
+    public long getMaxUncommittedBytes() {
+        return 0;
+    }
+
+    @Override
+    public int getParserJobCount() {
+        return 1;
+    }
 }
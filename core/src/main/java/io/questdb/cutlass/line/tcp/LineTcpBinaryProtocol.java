@@ -0,0 +1,56 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.cutlass.line.tcp;
+
+/**
+ * Binary variant of line protocol, accepted on the same TCP port as text protocol.
+ * Connection switches to binary protocol when its first byte is {@link #MAGIC}, text
+ * protocol measurement cannot start with this byte.
+ * <p>
+ * Binary connection is a sequence of frames, all numbers are little-endian:
+ * <pre>
+ * int    frame length, excluding this field
+ * short  table name length, followed by UTF8 table name
+ * long   timestamp in microseconds, {@link #TIMESTAMP_SERVER} to use server time
+ * short  tag count, followed by tags:
+ *        short name length, UTF8 name, short value length, UTF8 value
+ * short  field count, followed by fields:
+ *        short name length, UTF8 name, byte field type, value
+ * </pre>
+ * Field value layout depends on field type: {@link #TYPE_DOUBLE} and {@link #TYPE_LONG}
+ * are 8 bytes, {@link #TYPE_BOOLEAN} is 1 byte, {@link #TYPE_STRING} is short length followed by UTF8 bytes.
+ * Field values are appended to table without text conversion.
+ */
+public final class LineTcpBinaryProtocol {
+    public static final byte MAGIC = 0x01;
+    public static final long TIMESTAMP_SERVER = Long.MIN_VALUE;
+    public static final byte TYPE_DOUBLE = 'd';
+    public static final byte TYPE_LONG = 'l';
+    public static final byte TYPE_BOOLEAN = 'b';
+    public static final byte TYPE_STRING = 's';
+
+    private LineTcpBinaryProtocol() {
+    }
+}
@@ -39,6 +39,9 @@ import io.questdb.std.time.MillisecondClock;
 class LineTcpConnectionContext implements IOContext, Mutable {
     private static final Log LOG = LogFactory.getLog(LineTcpConnectionContext.class);
     private static final long QUEUE_FULL_LOG_HYSTERESIS_IN_MS = 10_000;
+    private static final int PROTOCOL_UNKNOWN = 0;
+    private static final int PROTOCOL_TEXT = 1;
+    private static final int PROTOCOL_BINARY = 2;
     private final NetworkFacade nf;
     private final LineTcpMeasurementScheduler scheduler;
     private final MillisecondClock milliClock;
@@ -50,6 +53,7 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     private boolean peerDisconnected;
     private final DirectByteCharSequence byteCharSequence = new DirectByteCharSequence();
     private long lastQueueFullLogMillis = 0;
+    private int protocol;
 
     LineTcpConnectionContext(LineTcpReceiverConfiguration configuration, LineTcpMeasurementScheduler scheduler, MillisecondClock clock) {
         nf = configuration.getNetworkFacade();
@@ -85,8 +89,18 @@ class LineTcpConnectionContext implements IOContext, Mutable {
 
             // Process as much data as possible
             long recvBufLineStart = recvBufStart;
+            if (protocol == PROTOCOL_UNKNOWN && recvBufPos > recvBufStart) {
+                // first byte of connection selects the protocol
+                if (Unsafe.getUnsafe().getByte(recvBufStart) == LineTcpBinaryProtocol.MAGIC) {
+                    protocol = PROTOCOL_BINARY;
+                    recvBufLineStart++;
+                    LOG.info().$('[').$(fd).$("] binary protocol").$();
+                } else {
+                    protocol = PROTOCOL_TEXT;
+                }
+            }
             boolean queueFull = false;
-            do {
+            while (recvBufLineStart != recvBufPos) {
                 LineTcpMeasurementEvent event = scheduler.getNewEvent();
                 if (null == event) {
                     // Waiting for writer threads to drain queue, request callback as soon as possible
@@ -98,21 +112,27 @@ class LineTcpConnectionContext implements IOContext, Mutable {
                 }
                 boolean complete = false;
                 try {
-                    long recvBufLineNext = event.parseLine(recvBufLineStart, recvBufPos);
+                    long recvBufLineNext = protocol == PROTOCOL_BINARY ?
+                            event.parseBinary(recvBufLineStart, recvBufPos) :
+                            event.parseLine(recvBufLineStart, recvBufPos);
                     if (recvBufLineNext == -1) {
                         break;
                     }
                     if (event.isComplete()) {
                         complete = true;
                     } else {
-                        LOG.error().$('[').$(fd).$("] could not parse measurement, code ").$(event.getErrorCode()).$(" at ").$(event.getErrorPosition()).$(" in ")
-                                .$(byteCharSequence.of(recvBufLineStart, recvBufLineNext - 1)).$();
+                        if (protocol == PROTOCOL_BINARY) {
+                            LOG.error().$('[').$(fd).$("] could not parse binary measurement, code ").$(event.getErrorCode()).$(" at ").$(event.getErrorPosition()).$();
+                        } else {
+                            LOG.error().$('[').$(fd).$("] could not parse measurement, code ").$(event.getErrorCode()).$(" at ").$(event.getErrorPosition()).$(" in ")
+                                    .$(byteCharSequence.of(recvBufLineStart, recvBufLineNext - 1)).$();
+                        }
                     }
                     recvBufLineStart = recvBufLineNext;
                 } finally {
                     scheduler.commitNewEvent(event, complete);
                 }
-            } while (recvBufLineStart != recvBufPos);
+            }
 
             // Compact input buffer
             if (recvBufLineStart != recvBufStart) {
@@ -162,6 +182,7 @@ class LineTcpConnectionContext implements IOContext, Mutable {
     public void clear() {
         recvBufPos = recvBufStart;
         peerDisconnected = false;
+        protocol = PROTOCOL_UNKNOWN;
     }
 
     @Override
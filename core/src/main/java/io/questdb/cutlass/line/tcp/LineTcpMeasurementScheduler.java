@@ -34,6 +34,9 @@ import io.questdb.log.LogFactory;
 import io.questdb.mp.*;
 import io.questdb.std.*;
 import io.questdb.std.microtime.MicrosecondClock;
+import io.questdb.std.str.AbstractCharSequence;
+import io.questdb.std.str.CharSink;
+import io.questdb.std.str.DirectCharSink;
 import io.questdb.std.str.Path;
 import io.questdb.std.time.MillisecondClock;
 
@@ -58,8 +61,14 @@ class LineTcpMeasurementScheduler implements Closeable {
     private final double maxLoadRatio;
     private final int maxUncommittedRows;
     private final long maintenanceJobHysteresisInMs;
+    private final long commitLagMicros;
+    private final long maxUncommittedBytes;
+    private final MicrosecondClock microClock;
+    // commit size metrics, each slot is written only by its writer thread
+    private final long[] commitCountByThread;
+    private final long[] committedRowCountByThread;
+    private final long[] maxCommitRowCountByThread;
     private Sequence pubSeq;
-    private long nextEventCursor = -1;
     private int nLoadCheckCycles = 0;
     private int nRebalances = 0;
 
@@ -70,10 +79,15 @@ class LineTcpMeasurementScheduler implements Closeable {
         this.milliClock = cairoConfiguration.getMillisecondClock();
         tableUpdateDetailsByTableName = new CharSequenceObjHashMap<>();
         loadByThread = new int[writerWorkerPool.getWorkerCount()];
+        commitCountByThread = new long[writerWorkerPool.getWorkerCount()];
+        committedRowCountByThread = new long[writerWorkerPool.getWorkerCount()];
+        maxCommitRowCountByThread = new long[writerWorkerPool.getWorkerCount()];
+        this.microClock = lineConfiguration.getMicrosecondClock();
         int maxMeasurementSize = lineConfiguration.getMaxMeasurementSize();
         int queueSize = lineConfiguration.getWriterQueueSize();
         queue = new RingQueue<>(() -> new LineTcpMeasurementEvent(maxMeasurementSize, lineConfiguration.getMicrosecondClock(), lineConfiguration.getTimestampAdapter()), queueSize);
-        pubSeq = new SPSequence(queueSize);
+        // with concurrent parser jobs events are claimed and published out of order
+        pubSeq = lineConfiguration.getParserJobCount() > 1 ? new MPSequence(queueSize) : new SPSequence(queueSize);
 
         int nWriterThreads = writerWorkerPool.getWorkerCount();
         if (nWriterThreads > 1) {
@@ -98,6 +112,8 @@ class LineTcpMeasurementScheduler implements Closeable {
         maxLoadRatio = lineConfiguration.getMaxLoadRatio();
         maxUncommittedRows = lineConfiguration.getMaxUncommittedRows();
         maintenanceJobHysteresisInMs = lineConfiguration.getMaintenanceJobHysteresisInMs();
+        commitLagMicros = lineConfiguration.getCommitLagMicros();
+        maxUncommittedBytes = lineConfiguration.getMaxUncommittedBytes();
     }
 
     @Override
@@ -112,67 +128,129 @@ class LineTcpMeasurementScheduler implements Closeable {
         }
     }
 
+    /**
+     * Prints table to writer thread assignment as tab separated table. Loads are
+     * row and byte counts over the sliding window used for load balancing.
+     *
+     * @param sink to print to
+     */
+    void appendWriterAssignment(CharSink sink) {
+        sink.put("table\tthread\trowLoad\tbyteLoad\thot\n");
+        synchronized (tableUpdateDetailsByTableName) {
+            ObjList<CharSequence> tableNames = tableUpdateDetailsByTableName.keys();
+            for (int n = 0, sz = tableNames.size(); n < sz; n++) {
+                TableUpdateDetails stats = tableUpdateDetailsByTableName.get(tableNames.get(n));
+                sink.put(stats.tableName).put('\t')
+                        .put(stats.threadId).put('\t')
+                        .put(stats.getLoad()).put('\t')
+                        .put(stats.byteLoad + stats.nBytes).put('\t')
+                        .put(stats.hot).put('\n');
+            }
+        }
+    }
+
     private void calcThreadLoad() {
         Arrays.fill(loadByThread, 0);
         ObjList<CharSequence> tableNames = tableUpdateDetailsByTableName.keys();
         for (int n = 0, sz = tableNames.size(); n < sz; n++) {
             TableUpdateDetails stats = tableUpdateDetailsByTableName.get(tableNames.get(n));
-            loadByThread[stats.threadId] += stats.nUpdates;
+            loadByThread[stats.threadId] += stats.getLoad();
         }
     }
 
     void commitNewEvent(LineTcpMeasurementEvent event, boolean complete) {
         assert isOpen();
-        if (nextEventCursor == -1) {
+        final long cursor = event.cursor;
+        if (cursor == -1) {
             throw new IllegalStateException("Cannot commit without prior call to getNewEvent()");
         }
 
-        assert queue.get(nextEventCursor) == event;
-
-        TableUpdateDetails tableUpdateDetails;
-        if (complete) {
-            int keyIndex = tableUpdateDetailsByTableName.keyIndex(event.getTableName());
-            if (keyIndex > -1) {
-                String tableName = Chars.toString(event.getTableName());
-                calcThreadLoad();
-                int leastLoad = Integer.MAX_VALUE;
-                int threadId = 0;
-                for (int n = 0; n < loadByThread.length; n++) {
-                    if (loadByThread[n] < leastLoad) {
-                        leastLoad = loadByThread[n];
-                        threadId = n;
+        assert queue.get(cursor) == event;
+
+        final boolean hot;
+        final boolean rebalance;
+        TableUpdateDetails tableUpdateDetails = null;
+        // table to thread assignment and load rebalancing are shared by all parser jobs
+        synchronized (tableUpdateDetailsByTableName) {
+            if (complete) {
+                int keyIndex = tableUpdateDetailsByTableName.keyIndex(event.getTableName());
+                if (keyIndex > -1) {
+                    String tableName = Chars.toString(event.getTableName());
+                    calcThreadLoad();
+                    int leastLoad = Integer.MAX_VALUE;
+                    int threadId = 0;
+                    for (int n = 0; n < loadByThread.length; n++) {
+                        if (loadByThread[n] < leastLoad) {
+                            leastLoad = loadByThread[n];
+                            threadId = n;
+                        }
                     }
+                    tableUpdateDetails = new TableUpdateDetails(tableName, threadId);
+                    tableUpdateDetailsByTableName.putAt(keyIndex, tableName, tableUpdateDetails);
+                    LOG.info().$("assigned ").$(tableName).$(" to thread ").$(threadId).$();
+                } else {
+                    tableUpdateDetails = tableUpdateDetailsByTableName.valueAt(keyIndex);
                 }
-                tableUpdateDetails = new TableUpdateDetails(tableName, threadId);
-                tableUpdateDetailsByTableName.putAt(keyIndex, tableName, tableUpdateDetails);
-                LOG.info().$("assigned ").$(tableName).$(" to thread ").$(threadId).$();
+
+                // events claimed before the table was moved must be processed by the thread
+                // that owned the table at that time, it releases the table when it reaches the rebalance event
+                event.threadId = cursor > tableUpdateDetails.rebalanceCursor ? tableUpdateDetails.threadId : tableUpdateDetails.previousThreadId;
+                tableUpdateDetails.nBytes += event.getSize();
+                hot = tableUpdateDetails.hot;
+                rebalance = tableUpdateDetails.nUpdates++ > nUpdatesPerLoadRebalance;
             } else {
-                tableUpdateDetails = tableUpdateDetailsByTableName.valueAt(keyIndex);
+                event.threadId = INCOMPLETE_EVENT_ID;
+                hot = false;
+                rebalance = false;
             }
-
-            event.threadId = tableUpdateDetails.threadId;
-        } else {
-            tableUpdateDetails = null;
-            event.threadId = INCOMPLETE_EVENT_ID;
         }
-        pubSeq.done(nextEventCursor);
-        nextEventCursor = -1;
 
-        if (null != tableUpdateDetails && tableUpdateDetails.nUpdates++ > nUpdatesPerLoadRebalance) {
-            loadRebalance();
+        if (hot && !event.isStaged()) {
+            // owner thread of a hot table is the ingest bottleneck, take value
+            // parsing off that thread and do it here on the parser job
+            event.stageValues();
+        }
+        event.cursor = -1;
+        pubSeq.done(cursor);
+
+        if (rebalance) {
+            // event has to be published before rebalance event claims next cursor
+            synchronized (tableUpdateDetailsByTableName) {
+                // another parser job may have done the load check in the meantime
+                if (tableUpdateDetails.nUpdates > nUpdatesPerLoadRebalance) {
+                    loadRebalance();
+                }
+            }
         }
     }
 
     void commitRebalanceEvent(LineTcpMeasurementEvent event, int fromThreadId, int toThreadId, String tableName) {
         assert isOpen();
-        if (nextEventCursor == -1) {
+        final long cursor = event.cursor;
+        if (cursor == -1) {
             throw new IllegalStateException("Cannot commit without prior call to getNewEvent()");
         }
 
-        assert queue.get(nextEventCursor) == event;
+        assert queue.get(cursor) == event;
         event.createRebalanceEvent(fromThreadId, toThreadId, tableName);
-        pubSeq.done(nextEventCursor);
-        nextEventCursor = -1;
+        event.cursor = -1;
+        pubSeq.done(cursor);
+    }
+
+    long getCommitCount() {
+        long count = 0;
+        for (int i = 0, n = commitCountByThread.length; i < n; i++) {
+            count += commitCountByThread[i];
+        }
+        return count;
+    }
+
+    long getCommittedRowCount() {
+        long count = 0;
+        for (int i = 0, n = committedRowCountByThread.length; i < n; i++) {
+            count += committedRowCountByThread[i];
+        }
+        return count;
     }
 
     int[] getLoadByThread() {
@@ -181,20 +259,26 @@ class LineTcpMeasurementScheduler implements Closeable {
 
     LineTcpMeasurementEvent getNewEvent() {
         assert isOpen();
-        if (nextEventCursor != -1 || (nextEventCursor = pubSeq.next()) > -1) {
-            return queue.get(nextEventCursor);
+        long cursor;
+        while ((cursor = pubSeq.next()) == -2) {
+            // another parser job claimed the slot, retry
         }
 
-        while (nextEventCursor == -2) {
-            nextEventCursor = pubSeq.next();
-        }
-
-        if (nextEventCursor < 0) {
-            nextEventCursor = -1;
+        if (cursor < 0) {
             return null;
         }
 
-        return queue.get(nextEventCursor);
+        LineTcpMeasurementEvent event = queue.get(cursor);
+        event.cursor = cursor;
+        return event;
+    }
+
+    long getMaxCommitRowCount() {
+        long max = 0;
+        for (int i = 0, n = maxCommitRowCountByThread.length; i < n; i++) {
+            max = Math.max(max, maxCommitRowCountByThread[i]);
+        }
+        return max;
     }
 
     int getnLoadCheckCycles() {
@@ -211,8 +295,26 @@ class LineTcpMeasurementScheduler implements Closeable {
 
     private void loadRebalance() {
         LOG.info().$("load check cycle ").$(++nLoadCheckCycles).$();
-        calcThreadLoad();
         ObjList<CharSequence> tableNames = tableUpdateDetailsByTableName.keys();
+        long totalLoad = 0;
+        for (int n = 0, sz = tableNames.size(); n < sz; n++) {
+            TableUpdateDetails stats = tableUpdateDetailsByTableName.get(tableNames.get(n));
+            stats.slideWindow();
+            totalLoad += stats.rowLoad;
+        }
+        calcThreadLoad();
+
+        // a table is hot when it alone exceeds fair share of a writer thread, moving
+        // it cannot balance the load, so value parsing for it is staged on parser jobs instead
+        for (int n = 0, sz = tableNames.size(); n < sz; n++) {
+            TableUpdateDetails stats = tableUpdateDetailsByTableName.get(tableNames.get(n));
+            boolean hot = loadByThread.length > 1 && (long) stats.rowLoad * loadByThread.length > totalLoad;
+            if (hot != stats.hot) {
+                stats.hot = hot;
+                LOG.info().$("table ").$(stats.tableName).$(hot ? " is hot" : " is no longer hot").$(" [rowLoad=").$(stats.rowLoad).$(", byteLoad=").$(stats.byteLoad).$(']').$();
+            }
+        }
+
         int fromThreadId = -1;
         int toThreadId = -1;
         String tableNameToMove = null;
@@ -253,10 +355,10 @@ class LineTcpMeasurementScheduler implements Closeable {
             String leastLoadedTableName = null;
             for (int n = 0, sz = tableNames.size(); n < sz; n++) {
                 TableUpdateDetails stats = tableUpdateDetailsByTableName.get(tableNames.get(n));
-                if (stats.threadId == highestLoadedThreadId && stats.nUpdates > 0) {
+                if (stats.threadId == highestLoadedThreadId && stats.rowLoad > 0) {
                     nTables++;
-                    if (stats.nUpdates < lowestLoad) {
-                        lowestLoad = stats.nUpdates;
+                    if (stats.rowLoad < lowestLoad) {
+                        lowestLoad = stats.rowLoad;
                         leastLoadedTableName = stats.tableName;
                     }
                 }
@@ -274,28 +376,46 @@ class LineTcpMeasurementScheduler implements Closeable {
             break;
         }
 
-        for (int n = 0, sz = tableNames.size(); n < sz; n++) {
-            TableUpdateDetails stats = tableUpdateDetailsByTableName.get(tableNames.get(n));
-            stats.nUpdates = 0;
-        }
-
         if (null != tableNameToMove) {
             LineTcpMeasurementEvent event = getNewEvent();
             if (null == event) {
                 return;
             }
+            TableUpdateDetails stats = tableUpdateDetailsByTableName.get(tableNameToMove);
+            final long cursor = event.cursor;
+            if (stats.rebalanceCursor != -1 && cursor - stats.rebalanceCursor <= queue.getCapacity()) {
+                // events claimed before previous move of this table may still be in flight,
+                // we cannot tell which thread they belong to if the table moves again
+                event.threadId = INCOMPLETE_EVENT_ID;
+                event.cursor = -1;
+                pubSeq.done(cursor);
+                return;
+            }
             LOG.info().$("rebalance cycle ").$(++nRebalances).$(" moving ").$(tableNameToMove).$(" from ").$(fromThreadId).$(" to ").$(toThreadId).$();
             commitRebalanceEvent(event, fromThreadId, toThreadId, tableNameToMove);
-            TableUpdateDetails stats = tableUpdateDetailsByTableName.get(tableNameToMove);
+            stats.previousThreadId = fromThreadId;
+            stats.rebalanceCursor = cursor;
             stats.threadId = toThreadId;
         }
     }
 
     static class LineTcpMeasurementEvent implements Closeable {
-        private final CharSequenceCache cache;
+        private static final int MIN_BINARY_FRAME_SIZE = Short.BYTES + Long.BYTES + Short.BYTES + Short.BYTES;
+        private final CharSequenceCache lexerCache;
+        // names and text values of binary protocol measurements are decoded into this sink
+        private final DirectCharSink binarySink;
+        private final BinarySinkSequence binarySinkSequence = new BinarySinkSequence();
+        private final CharSequenceCache binaryCache;
+        private CharSequenceCache cache;
+        private boolean binary;
+        private long binaryAddress;
         private final MicrosecondClock clock;
         private final LineProtoTimestampAdapter timestampAdapter;
         private final LongList addresses = new LongList();
+        // values pre-parsed by parser job, doubles are kept as raw long bits
+        private final IntList stagedTypes = new IntList();
+        private final LongList stagedValues = new LongList();
+        private boolean staged;
         private TruncatedLineProtoLexer lexer;
         private long measurementNameAddress;
         private int firstFieldIndex;
@@ -304,6 +424,8 @@ class LineTcpMeasurementScheduler implements Closeable {
         private int errorCode;
         private int threadId;
         private long timestamp;
+        private int size;
+        private long cursor = -1;
 
         private int rebalanceFromThreadId;
         private int rebalanceToThreadId;
@@ -312,7 +434,9 @@ class LineTcpMeasurementScheduler implements Closeable {
 
         private LineTcpMeasurementEvent(int maxMeasurementSize, MicrosecondClock clock, LineProtoTimestampAdapter timestampAdapter) {
             lexer = new TruncatedLineProtoLexer(maxMeasurementSize);
-            cache = lexer.getCharSequenceCache();
+            lexerCache = cache = lexer.getCharSequenceCache();
+            binarySink = new DirectCharSink(maxMeasurementSize * 2);
+            binaryCache = address -> binarySinkSequence.of(binarySink, Numbers.decodeHighInt(address), Numbers.decodeLowInt(address));
             this.clock = clock;
             this.timestampAdapter = timestampAdapter;
             lexer.withParser(new LineProtoParser() {
@@ -364,14 +488,18 @@ class LineTcpMeasurementScheduler implements Closeable {
         public void close() {
             lexer.close();
             lexer = null;
+            binarySink.close();
         }
 
         private void clear() {
+            cache = lexerCache;
+            binary = false;
             measurementNameAddress = 0;
             addresses.clear();
             firstFieldIndex = -1;
             timestampAddress = 0;
             errorPosition = -1;
+            staged = false;
         }
 
         void createRebalanceEvent(int fromThreadId, int toThreadId, String tableName) {
@@ -406,6 +534,18 @@ class LineTcpMeasurementScheduler implements Closeable {
             return cache.get(measurementNameAddress);
         }
 
+        int getStagedType(int i) {
+            return stagedTypes.getQuick(i);
+        }
+
+        long getStagedValue(int i) {
+            return stagedValues.getQuick(i);
+        }
+
+        int getSize() {
+            return size;
+        }
+
         long getTimestamp() throws NumericException {
             if (timestampAddress != 0) {
                 try {
@@ -428,14 +568,207 @@ class LineTcpMeasurementScheduler implements Closeable {
             return errorPosition == -1;
         }
 
+        boolean isBinary() {
+            return binary;
+        }
+
+        boolean isStaged() {
+            return staged;
+        }
+
         boolean isRebalanceEvent() {
             return threadId == REBALANCE_EVENT_ID;
         }
 
+        /**
+         * Decodes one frame of {@link LineTcpBinaryProtocol}. Field values are staged as they are,
+         * without text conversion.
+         *
+         * @param bytesPtr frame start
+         * @param hi       high watermark of received bytes
+         * @return address of next frame or -1 when frame is not fully received yet
+         */
+        long parseBinary(long bytesPtr, long hi) {
+            clear();
+            if (hi - bytesPtr < Integer.BYTES) {
+                return -1;
+            }
+
+            final int frameSize = Unsafe.getUnsafe().getInt(bytesPtr);
+            if (frameSize < MIN_BINARY_FRAME_SIZE) {
+                // cannot find next frame once frame size is corrupt
+                throw LineProtoException.INSTANCE;
+            }
+
+            final long frameHi = bytesPtr + Integer.BYTES + frameSize;
+            if (frameHi > hi) {
+                return -1;
+            }
+
+            cache = binaryCache;
+            binary = true;
+            size = (int) (frameHi - bytesPtr);
+            binarySink.clear();
+            stagedTypes.clear();
+            stagedValues.clear();
+
+            long p = decodeBinaryString(bytesPtr + Integer.BYTES, frameHi, false);
+            if (p == -1 || p + Long.BYTES + Short.BYTES > frameHi) {
+                return binaryFrameError(bytesPtr, frameHi);
+            }
+            measurementNameAddress = binaryAddress;
+
+            final long ts = Unsafe.getUnsafe().getLong(p);
+            timestamp = ts == LineTcpBinaryProtocol.TIMESTAMP_SERVER ? clock.getTicks() : ts;
+            p += Long.BYTES;
+
+            final int nTags = Unsafe.getUnsafe().getShort(p);
+            p += Short.BYTES;
+            for (int i = 0; i < nTags; i++) {
+                if ((p = decodeBinaryString(p, frameHi, false)) == -1) {
+                    return binaryFrameError(bytesPtr, frameHi);
+                }
+                addresses.add(binaryAddress);
+                if ((p = decodeBinaryString(p, frameHi, false)) == -1) {
+                    return binaryFrameError(bytesPtr, frameHi);
+                }
+                addresses.add(binaryAddress);
+                stagedTypes.add(ColumnType.SYMBOL);
+                stagedValues.add(0);
+            }
+
+            if (p + Short.BYTES > frameHi) {
+                return binaryFrameError(bytesPtr, frameHi);
+            }
+            final int nFields = Unsafe.getUnsafe().getShort(p);
+            p += Short.BYTES;
+            if (nFields < 1) {
+                errorPosition = (int) (p - bytesPtr);
+                errorCode = LineProtoParser.ERROR_EMPTY;
+                return frameHi;
+            }
+
+            firstFieldIndex = nTags;
+            for (int i = 0; i < nFields; i++) {
+                if ((p = decodeBinaryString(p, frameHi, false)) == -1 || p >= frameHi) {
+                    return binaryFrameError(bytesPtr, frameHi);
+                }
+                addresses.add(binaryAddress);
+                final byte type = Unsafe.getUnsafe().getByte(p++);
+                switch (type) {
+                    case LineTcpBinaryProtocol.TYPE_DOUBLE:
+                    case LineTcpBinaryProtocol.TYPE_LONG:
+                        if (p + Long.BYTES > frameHi) {
+                            return binaryFrameError(bytesPtr, frameHi);
+                        }
+                        stagedTypes.add(type == LineTcpBinaryProtocol.TYPE_DOUBLE ? ColumnType.DOUBLE : ColumnType.LONG);
+                        stagedValues.add(Unsafe.getUnsafe().getLong(p));
+                        // numeric values have no text form
+                        addresses.add(0);
+                        p += Long.BYTES;
+                        break;
+                    case LineTcpBinaryProtocol.TYPE_BOOLEAN:
+                        if (p + 1 > frameHi) {
+                            return binaryFrameError(bytesPtr, frameHi);
+                        }
+                        stagedTypes.add(ColumnType.BOOLEAN);
+                        stagedValues.add(Unsafe.getUnsafe().getByte(p) != 0 ? 1 : 0);
+                        addresses.add(0);
+                        p++;
+                        break;
+                    case LineTcpBinaryProtocol.TYPE_STRING:
+                        // string column writer expects quoted value, same as text protocol
+                        if ((p = decodeBinaryString(p, frameHi, true)) == -1) {
+                            return binaryFrameError(bytesPtr, frameHi);
+                        }
+                        stagedTypes.add(ColumnType.STRING);
+                        stagedValues.add(0);
+                        addresses.add(binaryAddress);
+                        break;
+                    default:
+                        return binaryFrameError(bytesPtr, frameHi);
+                }
+            }
+
+            if (p != frameHi) {
+                return binaryFrameError(bytesPtr, frameHi);
+            }
+            staged = true;
+            return frameHi;
+        }
+
+        private long binaryFrameError(long bytesPtr, long frameHi) {
+            errorPosition = (int) (frameHi - bytesPtr);
+            errorCode = LineProtoParser.ERROR_EXPECTED;
+            return frameHi;
+        }
+
+        private long decodeBinaryString(long p, long hi, boolean quote) {
+            if (p + Short.BYTES > hi) {
+                return -1;
+            }
+            final int len = Unsafe.getUnsafe().getShort(p);
+            p += Short.BYTES;
+            if (len < 0 || p + len > hi) {
+                return -1;
+            }
+            final int lo = binarySink.length();
+            if (quote) {
+                binarySink.put('"');
+            }
+            if (!Chars.utf8Decode(p, p + len, binarySink)) {
+                return -1;
+            }
+            if (quote) {
+                binarySink.put('"');
+            }
+            binaryAddress = Numbers.encodeLowHighInts(binarySink.length(), lo);
+            return p + len;
+        }
+
+        void stageValues() {
+            final int nValues = getNValues();
+            stagedTypes.clear();
+            stagedValues.clear();
+            for (int i = 0; i < nValues; i++) {
+                if (i < firstFieldIndex) {
+                    stagedTypes.add(ColumnType.SYMBOL);
+                    stagedValues.add(0);
+                    continue;
+                }
+
+                CharSequence value = getValue(i);
+                int type = CairoLineProtoParserSupport.getValueType(value);
+                long stagedValue = 0;
+                try {
+                    switch (type) {
+                        case ColumnType.LONG:
+                            stagedValue = Numbers.parseLong(value, 0, value.length() - 1);
+                            break;
+                        case ColumnType.DOUBLE:
+                            stagedValue = Double.doubleToRawLongBits(Numbers.parseDouble(value));
+                            break;
+                        case ColumnType.BOOLEAN:
+                            stagedValue = (value.charAt(0) | 32) == 't' ? 1 : 0;
+                            break;
+                        default:
+                            break;
+                    }
+                } catch (NumericException e) {
+                    // leave it to the writer to report bad value
+                    return;
+                }
+                stagedTypes.add(type);
+                stagedValues.add(stagedValue);
+            }
+            staged = true;
+        }
+
         long parseLine(long bytesPtr, long hi) {
             clear();
             long recvBufLineNext = lexer.parseLine(bytesPtr, hi);
             if (recvBufLineNext != -1) {
+                size = (int) (recvBufLineNext - bytesPtr);
                 if (isComplete() && firstFieldIndex == -1) {
                     errorPosition = (int) (recvBufLineNext - bytesPtr);
                     errorCode = LineProtoParser.ERROR_EMPTY;
@@ -451,16 +784,57 @@ class LineTcpMeasurementScheduler implements Closeable {
         }
     }
 
+    private static class BinarySinkSequence extends AbstractCharSequence {
+        private DirectCharSink sink;
+        private int lo;
+        private int hi;
+
+        @Override
+        public char charAt(int index) {
+            return sink.charAt(lo + index);
+        }
+
+        @Override
+        public int length() {
+            return hi - lo;
+        }
+
+        private BinarySinkSequence of(DirectCharSink sink, int lo, int hi) {
+            this.sink = sink;
+            this.lo = lo;
+            this.hi = hi;
+            return this;
+        }
+    }
+
     private static class TableUpdateDetails {
         private final String tableName;
         private int threadId;
         private int nUpdates; // Number of updates since the last load rebalance
+        private long nBytes; // Number of bytes since the last load rebalance
+        // Loads over a sliding window where each load check halves the weight of older updates
+        private int rowLoad;
+        private long byteLoad;
+        private boolean hot;
+        private int previousThreadId = -1;
+        private long rebalanceCursor = -1; // Queue cursor of the event that moved table to threadId
 
         private TableUpdateDetails(String tableName, int threadId) {
             super();
             this.tableName = tableName;
             this.threadId = threadId;
         }
+
+        private int getLoad() {
+            return rowLoad + nUpdates;
+        }
+
+        private void slideWindow() {
+            rowLoad = (rowLoad >>> 1) + nUpdates;
+            byteLoad = (byteLoad >>> 1) + nBytes;
+            nUpdates = 0;
+            nBytes = 0;
+        }
     }
 
     private class WriterJob implements Job {
@@ -585,6 +959,8 @@ class LineTcpMeasurementScheduler implements Closeable {
             private final IntList colIndexMappings = new IntList();
             private TableWriter writer;
             private int nUncommitted = 0;
+            private long uncommittedBytes = 0;
+            private long firstUncommittedMicros;
 
             private transient int nMeasurementValues;
             private transient boolean error;
@@ -592,7 +968,9 @@ class LineTcpMeasurementScheduler implements Closeable {
             @Override
             public void close() {
                 if (null != writer) {
-                    doMaintenance();
+                    if (nUncommitted > 0) {
+                        commit();
+                    }
                     LOG.info().$("closed parser [jobName=").$(jobName).$(" name=").$(writer.getName()).$(']').$();
                     writer.close();
                     writer = null;
@@ -607,10 +985,13 @@ class LineTcpMeasurementScheduler implements Closeable {
                 try {
                     long timestamp = event.getTimestamp();
                     row = writer.newRow(timestamp);
+                    final boolean staged = event.isStaged();
                     for (int i = 0; i < nMeasurementValues; i++) {
                         int columnType = colTypes.getQuick(i);
                         int columnIndex = colIndexMappings.getQuick(i);
-                        CairoLineProtoParserSupport.writers.getQuick(columnType).write(row, columnIndex, event.getValue(i));
+                        if (!staged || !putStagedValue(row, event, i, columnType, columnIndex)) {
+                            CairoLineProtoParserSupport.writers.getQuick(columnType).write(row, columnIndex, event.getValue(i));
+                        }
                     }
                     row.append();
                 } catch (NumericException | CairoException | BadCastException ignore) {
@@ -620,22 +1001,44 @@ class LineTcpMeasurementScheduler implements Closeable {
                     }
                     return;
                 }
-                nUncommitted++;
-                if (nUncommitted > maxUncommittedRows) {
+                if (nUncommitted++ == 0) {
+                    firstUncommittedMicros = microClock.getTicks();
+                }
+                uncommittedBytes += event.getSize();
+
+                final TableWriterMetadata metadata = writer.getMetadata();
+                final int maxRows = metadata.getMaxUncommittedRows() > 0 ? metadata.getMaxUncommittedRows() : maxUncommittedRows;
+                final long maxBytes = metadata.getMaxUncommittedBytes() > 0 ? metadata.getMaxUncommittedBytes() : maxUncommittedBytes;
+                if (nUncommitted > maxRows || (maxBytes > 0 && uncommittedBytes > maxBytes)) {
                     commit();
                 }
             }
 
             private void commit() {
                 writer.commit();
+                commitCountByThread[id]++;
+                committedRowCountByThread[id] += nUncommitted;
+                if (nUncommitted > maxCommitRowCountByThread[id]) {
+                    maxCommitRowCountByThread[id] = nUncommitted;
+                }
+                LOG.debug().$("committed [jobName=").$(jobName)
+                        .$(", name=").$(writer.getName())
+                        .$(", rows=").$(nUncommitted)
+                        .$(", bytes=").$(uncommittedBytes)
+                        .$(']').$();
                 nUncommitted = 0;
+                uncommittedBytes = 0;
             }
 
             void doMaintenance() {
                 if (nUncommitted == 0) {
                     return;
                 }
-                commit();
+                final long tableCommitLag = writer.getMetadata().getCommitLag();
+                final long lag = tableCommitLag > 0 ? tableCommitLag : commitLagMicros;
+                if (lag == 0 || microClock.getTicks() - firstUncommittedMicros >= lag) {
+                    commit();
+                }
             }
 
             private int getColumnType(int i) {
@@ -673,7 +1076,9 @@ class LineTcpMeasurementScheduler implements Closeable {
             private void parseTypes(LineTcpMeasurementEvent event) {
                 for (int n = 0; n < nMeasurementValues; n++) {
                     int colType;
-                    if (n < event.getFirstFieldIndex()) {
+                    if (event.isStaged()) {
+                        colType = event.getStagedType(n);
+                    } else if (n < event.getFirstFieldIndex()) {
                         colType = ColumnType.SYMBOL;
                     } else {
                         colType = CairoLineProtoParserSupport.getValueType(event.getValue(n));
@@ -690,6 +1095,41 @@ class LineTcpMeasurementScheduler implements Closeable {
                 parseTypes(event);
             }
 
+            private boolean putStagedValue(Row row, LineTcpMeasurementEvent event, int i, int columnType, int columnIndex) throws BadCastException {
+                final long value = event.getStagedValue(i);
+                switch (columnType) {
+                    case ColumnType.SHORT:
+                        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+                            LOG.error().$("not a short INT: ").$(value).$();
+                            throw BadCastException.INSTANCE;
+                        }
+                        row.putShort(columnIndex, (short) value);
+                        return true;
+                    case ColumnType.LONG256:
+                        if (event.isBinary()) {
+                            row.putLong256(columnIndex, value, 0, 0, 0);
+                            return true;
+                        }
+                        // text protocol expects hex literal
+                        return false;
+                    case ColumnType.LONG:
+                        row.putLong(columnIndex, value);
+                        return true;
+                    case ColumnType.TIMESTAMP:
+                        row.putTimestamp(columnIndex, value);
+                        return true;
+                    case ColumnType.DOUBLE:
+                        row.putDouble(columnIndex, Double.longBitsToDouble(value));
+                        return true;
+                    case ColumnType.BOOLEAN:
+                        row.putBool(columnIndex, value == 1);
+                        return true;
+                    default:
+                        // symbols need writer's symbol table, strings are copied as they are
+                        return false;
+                }
+            }
+
             private void processEvent(LineTcpMeasurementEvent event) {
                 assert event.getTableName().equals(writer.getName());
                 preprocessEvent(event);
@@ -764,6 +1204,11 @@ class LineTcpMeasurementScheduler implements Closeable {
                 return false;
             }
 
+            @Override
+            public boolean isCompressed(int columnIndex) {
+                return false;
+            }
+
             @Override
             public int getPartitionBy() {
                 return PartitionBy.NONE;
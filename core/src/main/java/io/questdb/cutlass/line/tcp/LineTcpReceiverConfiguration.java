@@ -62,4 +62,25 @@ public interface LineTcpReceiverConfiguration {
     int getMaxUncommittedRows();
 
     long getMaintenanceJobHysteresisInMs();
+
+    /**
+     * Maximum time uncommitted rows are kept invisible before they are committed. Zero
+     * commits on every maintenance cycle. Tables may override this value in their metadata.
+     *
+     * @return commit lag in microseconds
+     */
+    long getCommitLagMicros();
+
+    /**
+     * @return maximum size of uncommitted ILP input per table before commit is forced, 0 is unbounded
+     */
+    long getMaxUncommittedBytes();
+
+    /**
+     * Number of jobs that read and parse line protocol input concurrently. Each connection is
+     * handled by one job at a time, different connections are parsed in parallel.
+     *
+     * @return number of parser jobs, 1 parses all connections serially
+     */
+    int getParserJobCount();
 }
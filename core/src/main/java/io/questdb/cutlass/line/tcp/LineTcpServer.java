@@ -41,6 +41,7 @@ import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
 import io.questdb.std.ThreadLocal;
 import io.questdb.std.WeakObjectPool;
+import io.questdb.std.str.CharSink;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.Closeable;
@@ -50,7 +51,6 @@ public class LineTcpServer implements Closeable {
     private final IODispatcher<LineTcpConnectionContext> dispatcher;
     private final LineTcpConnectionContextFactory contextFactory;
     private final LineTcpMeasurementScheduler scheduler;
-    private final ObjList<LineTcpConnectionContext> busyContexts = new ObjList<>();
 
     public LineTcpServer(
             LineTcpReceiverConfiguration lineConfiguration,
@@ -65,32 +65,11 @@ public class LineTcpServer implements Closeable {
                 contextFactory);
         workerPool.assign(dispatcher);
         scheduler = new LineTcpMeasurementScheduler(lineConfiguration, engine, workerPool);
-        final IORequestProcessor<LineTcpConnectionContext> processor = (operation, context) -> {
-            if (context.handleIO()) {
-                busyContexts.add(context);
-            }
-        };
-        workerPool.assign(new SynchronizedJob() {
-            @Override
-            protected boolean runSerially() {
-                int n = busyContexts.size();
-                while (n > 0) {
-                    n--;
-                    if (!busyContexts.getQuick(n).handleIO()) {
-                        busyContexts.remove(n);
-                    } else {
-                        n++;
-                        break;
-                    }
-                }
-
-                if (n == 0) {
-                    return dispatcher.processIOQueue(processor);
-                }
-
-                return true;
-            }
-        });
+        // each parser job is run by one worker at a time, but different jobs run concurrently,
+        // which lets line parsing scale independently of the number of tables being written
+        for (int i = 0, n = lineConfiguration.getParserJobCount(); i < n; i++) {
+            workerPool.assign(new ParserJob());
+        }
 
         final Closeable cleaner = contextFactory::closeContextPool;
         for (int i = 0, n = workerPool.getWorkerCount(); i < n; i++) {
@@ -120,6 +99,16 @@ public class LineTcpServer implements Closeable {
         return WorkerPoolAwareConfiguration.create(lineConfiguration.getWorkerPoolConfiguration(), sharedWorkerPool, log, cairoEngine, factory, null);
     }
 
+    /**
+     * Prints current table to writer thread assignment and per table load, see
+     * {@link LineTcpMeasurementScheduler#appendWriterAssignment(CharSink)}.
+     *
+     * @param sink to print to
+     */
+    public void appendWriterAssignment(CharSink sink) {
+        scheduler.appendWriterAssignment(sink);
+    }
+
     @Override
     public void close() {
         Misc.free(scheduler);
@@ -127,6 +116,35 @@ public class LineTcpServer implements Closeable {
         Misc.free(dispatcher);
     }
 
+    private class ParserJob extends SynchronizedJob {
+        private final ObjList<LineTcpConnectionContext> busyContexts = new ObjList<>();
+        private final IORequestProcessor<LineTcpConnectionContext> processor = (operation, context) -> {
+            if (context.handleIO()) {
+                busyContexts.add(context);
+            }
+        };
+
+        @Override
+        protected boolean runSerially() {
+            int n = busyContexts.size();
+            while (n > 0) {
+                n--;
+                if (!busyContexts.getQuick(n).handleIO()) {
+                    busyContexts.remove(n);
+                } else {
+                    n++;
+                    break;
+                }
+            }
+
+            if (n == 0) {
+                return dispatcher.processIOQueue(processor);
+            }
+
+            return true;
+        }
+    }
+
     private class LineTcpConnectionContextFactory implements IOContextFactory<LineTcpConnectionContext>, Closeable, EagerThreadSetup {
         private final ThreadLocal<WeakObjectPool<LineTcpConnectionContext>> contextPool;
         private boolean closed = false;
@@ -29,6 +29,8 @@ import io.questdb.TelemetryOrigin;
 import io.questdb.cairo.*;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.*;
+import io.questdb.cutlass.text.Atomicity;
+import io.questdb.cutlass.text.TextException;
 import io.questdb.cutlass.text.TextLoader;
 import io.questdb.cutlass.text.types.TypeAdapter;
 import io.questdb.cutlass.text.types.TypeManager;
@@ -66,6 +68,8 @@ public class PGConnectionContext implements IOContext, Mutable {
     private final static Log LOG = LogFactory.getLog(PGConnectionContext.class);
     private static final IntList typeOids = new IntList();
     private static final int PREFIXED_MESSAGE_HEADER_LEN = 5;
+    // difference between Unix epoch and PostgreSQL epoch (2000-01-01) in micros
+    private static final long PG_EPOCH_MICROS = 946684800000000L;
     private static final byte MESSAGE_TYPE_LOGIN_RESPONSE = 'R';
     private static final byte MESSAGE_TYPE_PARAMETER_STATUS = 'S';
     private static final byte MESSAGE_TYPE_ROW_DESCRIPTION = 'T';
@@ -74,6 +78,7 @@ public class PGConnectionContext implements IOContext, Mutable {
     private static final byte MESSAGE_TYPE_CLOSE_COMPLETE = '3';
     private static final byte MESSAGE_TYPE_NO_DATA = 'n';
     private static final byte MESSAGE_TYPE_COPY_IN_RESPONSE = 'G';
+    private static final byte MESSAGE_TYPE_PORTAL_SUSPENDED = 's';
     public static final String TAG_SELECT = "SELECT";
     public static final String TAG_OK = "OK";
     public static final String TAG_COPY = "COPY";
@@ -86,6 +91,8 @@ public class PGConnectionContext implements IOContext, Mutable {
     private final CharacterStore portalCharacterStore;
     private final BindVariableService bindVariableService = new BindVariableService();
     private final long sendBufferLimit;
+    // responses to pipelined messages are flushed once buffer fills past this address
+    private final long sendBufferFlushLimit;
     private final int sendBufferSize;
     private final ResponseAsciiSink responseAsciiSink = new ResponseAsciiSink();
     private final DirectByteCharSequence dbcs = new DirectByteCharSequence();
@@ -112,7 +119,10 @@ public class PGConnectionContext implements IOContext, Mutable {
     private final BindVariableSetter charSetter = this::setCharBindVariable;
     private final BindVariableSetter strSetter = this::setStrBindVariable;
     private final BindVariableSetter noopSetter = this::setNoopBindVariable;
+    private final ResumeCallback resumeCursorExecuteRef = this::resumeCursorExecute;
+    private final ResumeCallback resumeCursorQueryRef = this::resumeCursorQuery;
     private final ObjList<ColumnAppender> columnAppenders = new ObjList<>();
+    private final ObjList<ColumnAppender> binaryColumnAppenders = new ObjList<>();
     private final WeakObjectPool<IntList> bindVarTypesPool = new WeakObjectPool<>(IntList::new, 16);
     private final WeakObjectPool<NamedStatementWrapper> namedStatementWrapperPool = new WeakObjectPool<>(NamedStatementWrapper::new, 16);
     private final DateLocale dateLocale;
@@ -128,21 +138,45 @@ public class PGConnectionContext implements IOContext, Mutable {
     private RecordCursor currentCursor = null;
     private RecordCursorFactory currentFactory = null;
     private InsertStatement currentInsertStatement = null;
+    // inserts executed by extended query append to one writer until Sync commits them
+    private InsertStatement batchInsertStatement = null;
+    private InsertMethod batchInsertMethod = null;
     private long fd;
     private CharSequence queryText;
     private CharSequence queryTag;
     private CharSequence username;
     private boolean authenticationRequired = true;
-    private long transientCopyBuffer = 0;
+    private final int copyBufferSize;
+    // copy buffer is allocated only while COPY FROM STDIN is in progress
+    private long copyBuffer = 0;
+    private long copyBufferPos;
+    private TextLoader copyTextLoader;
     private IODispatcher<PGConnectionContext> dispatcher;
     private Rnd rnd;
-    private int rowCount;
+    private long rowCount;
     private boolean isEmptyQuery;
     //    private final ObjList<TypeAdapter> probes = new ObjList<>();
     private final DirectByteCharSequence parameterHolder = new DirectByteCharSequence();
     private final IntList parameterFormats = new IntList();
+    private final IntList resultFormats = new IntList();
     private final DirectCharSink utf8Sink;
     private final TypeManager typeManager;
+    private final PlanCache planCache;
+    private final boolean planCacheEnabled;
+    private final StringSink planCacheKey = new StringSink();
+    // current factory is taken out of plan cache or is to be put there when query is complete
+    private boolean currentFactoryCached = false;
+    private long planCacheGeneration;
+    // factory cache of the worker, which current factory is taken out of while its cursor stays open
+    private AssociativeCache<Object> detachedFactoryCache;
+    // name of the portal current cursor belongs to, null for unnamed portal
+    private CharSequence currentPortalName;
+    // row limit of Execute message, portal is suspended when limit is reached
+    private long maxRows;
+    // sending cursor rows to slow client is resumed by this callback once send buffer is flushed
+    private ResumeCallback resumeCallback;
+    // set when extended query fails, messages are then discarded until Sync
+    private boolean skipUntilSync;
 
     public PGConnectionContext(
             CairoEngine engine,
@@ -159,6 +193,7 @@ public class PGConnectionContext implements IOContext, Mutable {
         this.sendBuffer = Unsafe.malloc(this.sendBufferSize);
         this.sendBufferPtr = sendBuffer;
         this.sendBufferLimit = sendBuffer + sendBufferSize;
+        this.sendBufferFlushLimit = sendBuffer + sendBufferSize / 2;
         this.queryCharacterStore = new CharacterStore(
                 configuration.getCharacterStoreCapacity(),
                 configuration.getCharacterStorePoolCapacity()
@@ -177,6 +212,9 @@ public class PGConnectionContext implements IOContext, Mutable {
         this.dateLocale = configuration.getDefaultDateLocale();
         this.timestampLocale = configuration.getDefaultTimestampLocale();
         this.sqlExecutionContext = new SqlExecutionContextImpl(engine, workerCount, messageBus);
+        this.planCache = engine.getPlanCache();
+        this.planCacheEnabled = engine.getConfiguration().isSqlPlanCacheEnabled();
+        this.copyBufferSize = engine.getConfiguration().getSqlCopyBufferSize();
         populateAppender();
     }
 
@@ -224,6 +262,11 @@ public class PGConnectionContext implements IOContext, Mutable {
         Unsafe.getUnsafe().putByte(address + 3, (byte) (value));
     }
 
+    public static void putLong(long address, long value) {
+        putInt(address, (int) (value >>> 32));
+        putInt(address + Integer.BYTES, (int) value);
+    }
+
     public static void putShort(long address, short value) {
         Unsafe.getUnsafe().putByte(address, (byte) (value >>> 8));
         Unsafe.getUnsafe().putByte(address + 1, (byte) (value));
@@ -239,7 +282,12 @@ public class PGConnectionContext implements IOContext, Mutable {
         bufferRemainingOffset = 0;
         bufferRemainingSize = 0;
         responseAsciiSink.reset();
+        resumeCallback = null;
+        skipUntilSync = false;
+        // client went away before Sync
+        rollbackBatchInsert();
         prepareForNewQuery();
+        abortCopyIn();
         // todo: test that both of these are cleared (unit test)
         authenticationRequired = true;
         username = null;
@@ -255,6 +303,7 @@ public class PGConnectionContext implements IOContext, Mutable {
         Unsafe.free(recvBuffer, recvBufferSize);
         Misc.free(path);
         Misc.free(utf8Sink);
+        copyTextLoader = Misc.free(copyTextLoader);
     }
 
     @Override
@@ -282,10 +331,37 @@ public class PGConnectionContext implements IOContext, Mutable {
             PeerIsSlowToWriteException,
             BadProtocolException {
 
+        try {
+            handleClientOperation0(compiler, factoryCache, namedStatementMap, binsVariableSetters);
+        } finally {
+            if (currentCursor != null) {
+                // cursor stays open until next call, worker's other connections must not reuse its factory
+                detachFactory(factoryCache);
+            }
+        }
+    }
+
+    private void handleClientOperation0(
+            @Transient SqlCompiler compiler,
+            @Transient AssociativeCache<Object> factoryCache,
+            @Transient CharSequenceObjHashMap<NamedStatementWrapper> namedStatementMap,
+            @Transient ObjList<BindVariableSetter> binsVariableSetters
+    ) throws PeerDisconnectedException,
+            PeerIsSlowToReadException,
+            PeerIsSlowToWriteException,
+            BadProtocolException {
+
         if (bufferRemainingSize > 0) {
             doSend(bufferRemainingOffset, bufferRemainingSize);
         }
 
+        // rows of cursor that did not fit send buffer go out before any new input is parsed
+        if (resumeCallback != null) {
+            final ResumeCallback callback = resumeCallback;
+            resumeCallback = null;
+            callback.resume();
+        }
+
         // If we have empty buffer we need to try to read something from socket
         // however the opposite  is a little tricky. If buffer is non-empty
         // we still may need to read from socket if contents of this buffer
@@ -508,6 +584,16 @@ public class PGConnectionContext implements IOContext, Mutable {
         responseAsciiSink.put('I');
     }
 
+    private void abortCopyIn() {
+        if (copyBuffer != 0) {
+            // rows that were not committed yet must not be left behind in pooled writer
+            copyTextLoader.rollback();
+            copyTextLoader.clear();
+            Unsafe.free(copyBuffer, copyBufferSize);
+            copyBuffer = 0;
+        }
+    }
+
     private void appendBinColumn(Record record, int i) throws SqlException {
         BinarySequence sequence = record.getBin(i);
         if (sequence == null) {
@@ -527,6 +613,81 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
+    private void appendBinaryBooleanColumn(Record record, int columnIndex) {
+        responseAsciiSink.putNetworkInt(Byte.BYTES);
+        responseAsciiSink.put(record.getBool(columnIndex) ? (byte) 1 : (byte) 0);
+    }
+
+    private void appendBinaryByteColumn(Record record, int columnIndex) {
+        responseAsciiSink.putNetworkInt(Short.BYTES);
+        responseAsciiSink.putNetworkShort(record.getByte(columnIndex));
+    }
+
+    private void appendBinaryDateColumn(Record record, int columnIndex) {
+        final long longValue = record.getDate(columnIndex);
+        if (longValue == Numbers.LONG_NaN) {
+            responseAsciiSink.setNullValue();
+        } else {
+            responseAsciiSink.putNetworkInt(Long.BYTES);
+            responseAsciiSink.putNetworkLong(longValue * 1000 - PG_EPOCH_MICROS);
+        }
+    }
+
+    private void appendBinaryDoubleColumn(Record record, int columnIndex) {
+        final double doubleValue = record.getDouble(columnIndex);
+        if (Double.isNaN(doubleValue)) {
+            responseAsciiSink.setNullValue();
+        } else {
+            responseAsciiSink.putNetworkInt(Long.BYTES);
+            responseAsciiSink.putNetworkLong(Double.doubleToRawLongBits(doubleValue));
+        }
+    }
+
+    private void appendBinaryFloatColumn(Record record, int columnIndex) {
+        final float floatValue = record.getFloat(columnIndex);
+        if (Float.isNaN(floatValue)) {
+            responseAsciiSink.setNullValue();
+        } else {
+            responseAsciiSink.putNetworkInt(Integer.BYTES);
+            responseAsciiSink.putNetworkInt(Float.floatToRawIntBits(floatValue));
+        }
+    }
+
+    private void appendBinaryIntColumn(Record record, int columnIndex) {
+        final int intValue = record.getInt(columnIndex);
+        if (intValue == Numbers.INT_NaN) {
+            responseAsciiSink.setNullValue();
+        } else {
+            responseAsciiSink.putNetworkInt(Integer.BYTES);
+            responseAsciiSink.putNetworkInt(intValue);
+        }
+    }
+
+    private void appendBinaryLongColumn(Record record, int columnIndex) {
+        final long longValue = record.getLong(columnIndex);
+        if (longValue == Numbers.LONG_NaN) {
+            responseAsciiSink.setNullValue();
+        } else {
+            responseAsciiSink.putNetworkInt(Long.BYTES);
+            responseAsciiSink.putNetworkLong(longValue);
+        }
+    }
+
+    private void appendBinaryShortColumn(Record record, int columnIndex) {
+        responseAsciiSink.putNetworkInt(Short.BYTES);
+        responseAsciiSink.putNetworkShort(record.getShort(columnIndex));
+    }
+
+    private void appendBinaryTimestampColumn(Record record, int columnIndex) {
+        final long longValue = record.getTimestamp(columnIndex);
+        if (longValue == Numbers.LONG_NaN) {
+            responseAsciiSink.setNullValue();
+        } else {
+            responseAsciiSink.putNetworkInt(Long.BYTES);
+            responseAsciiSink.putNetworkLong(longValue - PG_EPOCH_MICROS);
+        }
+    }
+
     private void appendBooleanColumn(Record record, int columnIndex) {
         responseAsciiSink.putNetworkInt(Byte.BYTES);
         responseAsciiSink.put(record.getBool(columnIndex) ? 't' : 'f');
@@ -602,7 +763,11 @@ public class PGConnectionContext implements IOContext, Mutable {
         final long offset = responseAsciiSink.skip();
         responseAsciiSink.putNetworkShort((short) columnCount);
         for (int i = 0; i < columnCount; i++) {
-            columnAppenders.getQuick(metadata.getColumnType(i)).append(record, i);
+            if (getResultFormat(i) == 1) {
+                binaryColumnAppenders.getQuick(metadata.getColumnType(i)).append(record, i);
+            } else {
+                columnAppenders.getQuick(metadata.getColumnType(i)).append(record, i);
+            }
         }
         responseAsciiSink.putLen(offset);
     }
@@ -661,7 +826,7 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
-    private void bindParameterValues(
+    private long bindParameterValues(
             long lo,
             long msgLimit,
             short parameterValueCount,
@@ -711,9 +876,97 @@ public class PGConnectionContext implements IOContext, Mutable {
             bindVariableSetters.getQuick(j * 2).set(j, lo, valueLen);
             lo += valueLen;
         }
+        return lo;
     }
 
-    private void compileQuery(SqlCompiler compiler, AssociativeCache<Object> factoryCache) throws SqlException, PeerDisconnectedException, PeerIsSlowToReadException {
+    private void bindResultFormats(long lo, long msgLimit) throws BadProtocolException {
+        checkNotTrue(lo + Short.BYTES > msgLimit, "could not read result format code count");
+        final short resultFormatCount = getShort(lo);
+        lo += Short.BYTES;
+        if (lo + Short.BYTES * resultFormatCount > msgLimit) {
+            LOG.error().$("invalid result format code count [value=").$(resultFormatCount).$(']').$();
+            throw BadProtocolException.INSTANCE;
+        }
+
+        for (int i = 0; i < resultFormatCount; i++) {
+            resultFormats.add(getShort(lo + i * Short.BYTES));
+        }
+    }
+
+    private boolean checkOutPlan() {
+        planCacheKey.clear();
+        PlanCache.normalize(queryText, planCacheKey);
+        for (int i = 0, n = bindVariableService.getIndexedVariableCount(); i < n; i++) {
+            final Function function = bindVariableService.getFunction(i);
+            planCacheKey.put((char) 0).put(function != null ? function.getType() : -1);
+        }
+        // plans compiled before table is dropped must not be put back
+        planCacheGeneration = planCache.getGeneration();
+        final RecordCursorFactory factory = planCache.poll(planCacheKey);
+        if (factory != null) {
+            currentFactory = factory;
+            currentFactoryCached = true;
+            queryTag = TAG_SELECT;
+            LOG.debug().$("plan cache hit [q=").utf8(queryText).$(']').$();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isUncompiledNamedStatement() {
+        return currentFactory == null
+                && currentInsertStatement == null
+                && queryText != null
+                && queryText.length() > 0;
+    }
+
+    private void checkInPlan() {
+        if (currentFactoryCached) {
+            currentFactoryCached = false;
+            planCache.put(planCacheKey, currentFactory, planCacheGeneration);
+        }
+    }
+
+    private void attachFactory() {
+        if (detachedFactoryCache != null) {
+            if (detachedFactoryCache.peek(queryText) == null) {
+                detachedFactoryCache.put(queryText, currentFactory);
+            } else {
+                // same query was compiled and cached while our factory was out
+                Misc.free(currentFactory);
+            }
+            detachedFactoryCache = null;
+        }
+    }
+
+    private void closePortal() {
+        currentCursor = Misc.free(currentCursor);
+        checkInPlan();
+        attachFactory();
+        currentFactory = null;
+        currentPortalName = null;
+    }
+
+    private void detachFactory(AssociativeCache<Object> factoryCache) {
+        // factories taken out of plan cache are not shared already
+        if (!currentFactoryCached && detachedFactoryCache == null && factoryCache.peek(queryText) == currentFactory) {
+            factoryCache.poll(queryText);
+            detachedFactoryCache = factoryCache;
+        }
+    }
+
+    private void compileQuery(SqlCompiler compiler, AssociativeCache<Object> factoryCache) throws SqlException {
+        // DDL would not get the writer while batch holds it
+        commitBatchInsert();
+        if (planCacheEnabled) {
+            // rebinding unnamed statement replaces its plan
+            currentCursor = Misc.free(currentCursor);
+            checkInPlan();
+            if (checkOutPlan()) {
+                return;
+            }
+        }
+
         final CompiledQuery cc = compiler.compile(queryText, sqlExecutionContext);
         sqlExecutionContext.storeTelemetry(cc.getType(), TelemetryOrigin.PG_WIRE);
 
@@ -721,7 +974,11 @@ public class PGConnectionContext implements IOContext, Mutable {
             case CompiledQuery.SELECT:
                 currentFactory = cc.getRecordCursorFactory();
                 queryTag = TAG_SELECT;
-                factoryCache.put(queryText, currentFactory);
+                if (planCacheEnabled) {
+                    currentFactoryCached = true;
+                } else {
+                    factoryCache.put(queryText, currentFactory);
+                }
                 break;
             case CompiledQuery.INSERT:
                 currentInsertStatement = cc.getInsertStatement();
@@ -730,8 +987,9 @@ public class PGConnectionContext implements IOContext, Mutable {
                 break;
             case CompiledQuery.COPY_LOCAL:
                 queryTag = TAG_COPY;
-                sendCopyInResponse(compiler.getEngine(), cc.getTextLoader());
                 break;
+            case CompiledQuery.COPY_REMOTE:
+                throw SqlException.$(0, "COPY FROM STDIN is supported by simple query protocol only");
             case CompiledQuery.SET:
                 queryTag = TAG_SET;
                 break;
@@ -770,7 +1028,7 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
 
         if (n < size) {
-            doSendWithRetries(n, size - n);
+            doSendWithRetries(offset + n, size - n);
         }
         sendBufferPtr = sendBuffer;
         bufferRemainingSize = 0;
@@ -816,6 +1074,51 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
+    private void failCopyIn(CharSequence message) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        LOG.error().$("copy failed [table=").$(copyTextLoader.getTableName()).$(", msg=").$(message).$(']').$();
+        prepareError(SqlException.$(0, "COPY from stdin failed: ").put(message));
+        abortCopyIn();
+        prepareReadyForQuery(responseAsciiSink);
+        send();
+    }
+
+    private void flushCopyBuffer() throws TextException {
+        if (copyBufferPos > 0) {
+            parseCopyData(copyBuffer, copyBuffer + copyBufferPos);
+            copyBufferPos = 0;
+        }
+    }
+
+    private void commitBatchInsert() throws SqlException {
+        if (batchInsertMethod != null) {
+            try {
+                batchInsertMethod.commit();
+            } catch (CairoException e) {
+                rollbackBatchInsert();
+                throw SqlException.position(0).put(e.getFlyweightMessage());
+            }
+            batchInsertMethod = Misc.free(batchInsertMethod);
+            batchInsertStatement = null;
+        }
+    }
+
+    private void executeBatchInsert() throws SqlException {
+        try {
+            if (batchInsertStatement != currentInsertStatement) {
+                commitBatchInsert();
+                batchInsertMethod = currentInsertStatement.createMethod(sqlExecutionContext);
+                batchInsertStatement = currentInsertStatement;
+            }
+            batchInsertMethod.execute();
+        } catch (CairoException e) {
+            // rows of the failed batch are discarded, as is PostgreSQL implicit transaction
+            rollbackBatchInsert();
+            throw SqlException.position(0).put(e.getFlyweightMessage());
+        }
+        sendCurrentCursorTail = TAIL_SUCCESS;
+        prepareExecuteTail(false);
+    }
+
     private void executeInsert() {
         try (final InsertMethod m = currentInsertStatement.createMethod(sqlExecutionContext)) {
             m.execute();
@@ -839,16 +1142,40 @@ public class PGConnectionContext implements IOContext, Mutable {
     }
 
     private void executeSelect(
+            @Transient SqlCompiler compiler,
             @NotNull RecordCursorFactory factory
-    ) throws PeerDisconnectedException, PeerIsSlowToReadException {
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException {
         this.currentFactory = factory;
-        currentCursor = factory.getCursor(sqlExecutionContext);
+        currentCursor = getCursor(compiler);
         prepareRowDescription();
-        sendCursor();
+        rowCount = 0;
+        maxRows = 0;
+        sendCursor(resumeCursorQueryRef);
         prepareReadyForQuery(responseAsciiSink);
         send();
     }
 
+    private RecordCursor getCursor(@Transient SqlCompiler compiler) throws SqlException {
+        try {
+            return currentFactory.getCursor(sqlExecutionContext);
+        } catch (ReaderOutOfDateException e) {
+            if (!currentFactoryCached) {
+                throw e;
+            }
+            // table structure changed since cached plan was compiled
+            LOG.info().$("plan is out of date [q=").utf8(queryText).$(']').$();
+            currentFactory = Misc.free(currentFactory);
+            currentFactoryCached = false;
+            final CompiledQuery cc = compiler.compile(queryText, sqlExecutionContext);
+            currentFactory = cc.getRecordCursorFactory();
+            if (currentFactory == null) {
+                throw e;
+            }
+            currentFactoryCached = true;
+            return currentFactory.getCursor(sqlExecutionContext);
+        }
+    }
+
     @Nullable
     private CharSequence getStatementName(long lo, long hi) throws BadProtocolException {
         CharacterStoreEntry e = portalCharacterStore.newEntry();
@@ -918,6 +1245,14 @@ public class PGConnectionContext implements IOContext, Mutable {
             // just exit.
             return;
         }
+
+        // responses to pipelined messages accumulate until Sync, we send them
+        // early when buffer is running out of space. Message is not consumed yet
+        // and is parsed again should client be slow to read.
+        if (sendBufferPtr > sendBufferFlushLimit) {
+            send();
+        }
+
         // we have enough to read entire message
         recvBufferReadOffset += msgLen + 1;
         final long msgLimit = address + msgLen + 1;
@@ -941,43 +1276,81 @@ public class PGConnectionContext implements IOContext, Mutable {
             }
             return;
         }
+
+        if (skipUntilSync && type != 'S' && type != 'X') {
+            LOG.debug().$("skipped msg [type=").$((char) type).$(']').$();
+            return;
+        }
+
+        try {
+            switch (type) {
+                case 'P':
+                    processParse(address, lo, msgLimit, factoryCache, namedStatementMap, bindVariableSetters);
+                    return;
+                case 'C':
+                    // close
+                    processClose(lo, msgLimit, namedStatementMap);
+                    return;
+                case 'B': // bind
+                    processBind(bindVariableSetters, compiler, factoryCache, msgLimit, lo, namedStatementMap);
+                    return;
+                case 'E': // execute
+                    processExecute(lo, msgLimit, compiler);
+                    return;
+                case 'D': // describe
+                    processDescribe(bindVariableSetters, lo, msgLimit, namedStatementMap);
+                    return;
+                default:
+                    break;
+            }
+        } catch (SqlException e) {
+            // error ends extended query, client is told about it on Sync
+            sendCurrentCursorTail = TAIL_ERROR;
+            prepareExecuteTail(false);
+            prepareForNewQuery();
+            skipUntilSync = true;
+            return;
+        }
+
         switch (type) {
-            case 'P':
-                processParse(address, lo, msgLimit, factoryCache, namedStatementMap, bindVariableSetters);
-                break;
             case 'X':
                 // 'Terminate'
                 throw PeerDisconnectedException.INSTANCE;
-            case 'C':
-                // close
-                processClose(lo, msgLimit, namedStatementMap);
-                break;
-            case 'B': // bind
-                processBind(bindVariableSetters, compiler, factoryCache, msgLimit, lo, namedStatementMap);
-                break;
-            case 'E': // execute
-                processExecute();
-                break;
             case 'H': // flush
+                // query state is kept, flush may be followed by more messages of the same query
                 send();
-                responseAsciiSink.reset();
-                prepareForNewQuery();
                 break;
             case 'S': // sync
+                // batch is all or nothing, error in any of its messages discards it
+                if (skipUntilSync) {
+                    rollbackBatchInsert();
+                } else {
+                    try {
+                        commitBatchInsert();
+                    } catch (SqlException e) {
+                        sendCurrentCursorTail = TAIL_ERROR;
+                        prepareExecuteTail(false);
+                    }
+                }
+                skipUntilSync = false;
+                // portal suspended by row limit of Execute remains open after Sync
+                if (currentCursor == null) {
+                    prepareForNewQuery();
+                }
                 prepareReadyForQuery(responseAsciiSink);
                 send();
-                responseAsciiSink.reset();
-                prepareForNewQuery();
-                break;
-            case 'D': // describe
-                processDescribe(bindVariableSetters, lo, msgLimit, namedStatementMap);
                 break;
             case 'Q':
                 processQuery(lo, limit, compiler, factoryCache);
                 break;
-            case 'd':
-                System.out.println("data " + msgLen);
-                // msgLen includes 4 bytes of self
+            case 'd': // copy data
+                processCopyData(lo, msgLimit);
+                break;
+            case 'c': // copy done
+                processCopyDone();
+                break;
+            case 'f': // copy fail
+                processCopyFail(lo, msgLimit);
                 break;
             default:
                 LOG.error().$("unknown message [type=").$(type).$(']').$();
@@ -985,6 +1358,12 @@ public class PGConnectionContext implements IOContext, Mutable {
         }
     }
 
+    private void parseCopyData(long lo, long hi) throws TextException {
+        copyTextLoader.parse(lo, hi, sqlExecutionContext.getCairoSecurityContext());
+        // rows are committed in batches, one per buffer of data
+        copyTextLoader.commit();
+    }
+
     private void parseQueryText(long lo, long hi) throws BadProtocolException {
         CharacterStoreEntry e = queryCharacterStore.newEntry();
         if (Chars.utf8Decode(lo, hi, e)) {
@@ -1072,12 +1451,43 @@ public class PGConnectionContext implements IOContext, Mutable {
 
     private void prepareForNewQuery() {
         isEmptyQuery = false;
+        // factory is put back into cache by query text, close portal before text is gone
+        closePortal();
         queryCharacterStore.clear();
         portalCharacterStore.clear();
         bindVariableService.clear();
-        currentCursor = Misc.free(currentCursor);
-        currentFactory = null;
         currentInsertStatement = null;
+        resultFormats.clear();
+    }
+
+    private void rollbackBatchInsert() {
+        if (batchInsertMethod != null) {
+            try {
+                batchInsertMethod.rollback();
+            } catch (CairoException e) {
+                LOG.error().$("could not rollback insert batch [msg=").$(e.getFlyweightMessage()).$(']').$();
+            } finally {
+                batchInsertMethod = Misc.free(batchInsertMethod);
+                batchInsertStatement = null;
+            }
+        }
+    }
+
+    private void preparePortalSuspended() {
+        responseAsciiSink.put(MESSAGE_TYPE_PORTAL_SUSPENDED);
+        responseAsciiSink.putNetworkInt(Integer.BYTES);
+    }
+
+    private int getResultFormat(int columnIndex) {
+        // no codes means text for all columns, single code applies to all columns
+        switch (resultFormats.size()) {
+            case 0:
+                return 0;
+            case 1:
+                return resultFormats.getQuick(0);
+            default:
+                return columnIndex < resultFormats.size() ? resultFormats.getQuick(columnIndex) : 0;
+        }
     }
 
     private void populateAppender() {
@@ -1093,6 +1503,19 @@ public class PGConnectionContext implements IOContext, Mutable {
         columnAppenders.extendAndSet(ColumnType.BOOLEAN, this::appendBooleanColumn);
         columnAppenders.extendAndSet(ColumnType.BYTE, this::appendByteColumn);
         columnAppenders.extendAndSet(ColumnType.BINARY, this::appendBinColumn);
+
+        binaryColumnAppenders.extendAndSet(ColumnType.INT, this::appendBinaryIntColumn);
+        binaryColumnAppenders.extendAndSet(ColumnType.STRING, this::appendStrColumn);
+        binaryColumnAppenders.extendAndSet(ColumnType.SYMBOL, this::appendSymbolColumn);
+        binaryColumnAppenders.extendAndSet(ColumnType.LONG, this::appendBinaryLongColumn);
+        binaryColumnAppenders.extendAndSet(ColumnType.SHORT, this::appendBinaryShortColumn);
+        binaryColumnAppenders.extendAndSet(ColumnType.DOUBLE, this::appendBinaryDoubleColumn);
+        binaryColumnAppenders.extendAndSet(ColumnType.FLOAT, this::appendBinaryFloatColumn);
+        binaryColumnAppenders.extendAndSet(ColumnType.TIMESTAMP, this::appendBinaryTimestampColumn);
+        binaryColumnAppenders.extendAndSet(ColumnType.DATE, this::appendBinaryDateColumn);
+        binaryColumnAppenders.extendAndSet(ColumnType.BOOLEAN, this::appendBinaryBooleanColumn);
+        binaryColumnAppenders.extendAndSet(ColumnType.BYTE, this::appendBinaryByteColumn);
+        binaryColumnAppenders.extendAndSet(ColumnType.BINARY, this::appendBinColumn);
     }
 
     private void processClose(long lo, long msgLimit, CharSequenceObjHashMap<NamedStatementWrapper> namedStatementMap) throws BadProtocolException {
@@ -1116,7 +1539,12 @@ public class PGConnectionContext implements IOContext, Mutable {
                 }
             }
         } else if (type == 'P') {
-            LOG.info().$("close message for portal - ignoring").$();
+            lo = lo + 1;
+            final long hi = getStringLength(lo, msgLimit);
+            checkNotTrue(hi == -1, "bad portal name length");
+            if (hi > lo ? Chars.equalsNc(dbcs.of(lo, hi), currentPortalName) : currentPortalName == null) {
+                closePortal();
+            }
         } else {
             LOG.error().$("invalid type for close message [type=").$(type).$(']').$();
             throw BadProtocolException.INSTANCE;
@@ -1124,19 +1552,80 @@ public class PGConnectionContext implements IOContext, Mutable {
         prepareCloseComplete();
     }
 
+    private void processCopyData(long lo, long msgLimit) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        // once copy is failed client may still be sending data, which we drop
+        if (copyBuffer == 0) {
+            return;
+        }
+        final long len = msgLimit - lo;
+        try {
+            if (copyBufferPos + len > copyBufferSize) {
+                flushCopyBuffer();
+            }
+            if (len > copyBufferSize) {
+                parseCopyData(lo, msgLimit);
+            } else {
+                Unsafe.getUnsafe().copyMemory(lo, copyBuffer + copyBufferPos, len);
+                copyBufferPos += len;
+            }
+        } catch (TextException | CairoException e) {
+            failCopyIn(e.getFlyweightMessage());
+        }
+    }
+
+    private void processCopyDone() throws PeerDisconnectedException, PeerIsSlowToReadException {
+        if (copyBuffer == 0) {
+            return;
+        }
+        try {
+            flushCopyBuffer();
+            copyTextLoader.wrapUp();
+        } catch (TextException | CairoException e) {
+            failCopyIn(e.getFlyweightMessage());
+            return;
+        }
+        rowCount = copyTextLoader.getWrittenLineCount();
+        LOG.info()
+                .$("copied [table=").$(copyTextLoader.getTableName())
+                .$(", rows=").$(rowCount)
+                .$(", errors=").$(copyTextLoader.getErrorLineCount())
+                .$(']').$();
+        abortCopyIn();
+        queryTag = TAG_COPY;
+        sendCurrentCursorTail = TAIL_SUCCESS;
+        prepareExecuteTail(true);
+        prepareReadyForQuery(responseAsciiSink);
+        sendNoTail();
+    }
+
+    private void processCopyFail(long lo, long msgLimit) throws PeerDisconnectedException, PeerIsSlowToReadException {
+        if (copyBuffer == 0) {
+            return;
+        }
+        final long hi = getStringLength(lo, msgLimit);
+        failCopyIn(dbcs.of(lo, hi == -1 ? msgLimit : hi));
+    }
+
     private void processDescribe(@Transient ObjList<BindVariableSetter> bindVariableSetters,
                                  long lo,
                                  long msgLimit,
                                  @Transient CharSequenceObjHashMap<NamedStatementWrapper> namedStatementMap) throws SqlException, BadProtocolException {
+        final boolean portal = Unsafe.getUnsafe().getByte(lo) == 'P';
         lo = lo + 1;
         long hi = getStringLength(lo, msgLimit);
         checkNotTrue(hi == -1, "bad portal name length [msgType='D']");
 
-        CharSequence statementName = getStatementName(lo, hi);
+        // portal is described by the statement it is bound to
+        CharSequence statementName = portal ? null : getStatementName(lo, hi);
         if (statementName != null) {
             setupNamedStatement(bindVariableSetters, namedStatementMap, statementName);
         }
 
+        if (planCacheEnabled && statementName != null && isUncompiledNamedStatement()) {
+            // describe statement before bind, it is known only if it has been compiled before
+            checkOutPlan();
+        }
+
         if (currentFactory != null) {
             prepareRowDescription();
             LOG.info().$("described").$();
@@ -1156,6 +1645,12 @@ public class PGConnectionContext implements IOContext, Mutable {
         hi = getStringLength(lo, msgLimit);
         checkNotTrue(hi == -1, "bad portal name length [msgType='B']");
 
+        if (currentCursor != null) {
+            // portal suspended by previous Execute is replaced
+            closePortal();
+        }
+        currentPortalName = getStatementName(lo, hi);
+
         lo = hi + 1;
         hi = getStringLength(lo, msgLimit);
         checkNotTrue(hi == -1, "bad prepared statement name length [msgType='B']");
@@ -1179,12 +1674,28 @@ public class PGConnectionContext implements IOContext, Mutable {
         checkNotTrue(lo + Short.BYTES > msgLimit, "could not read parameter value count");
         parameterValueCount = getShort(lo);
 
+        lo += Short.BYTES;
         if (parameterValueCount > 0) {
-            lo += Short.BYTES;
-            bindParameterValues(lo, msgLimit, parameterValueCount, bindVariableSetters);
+            lo = bindParameterValues(lo, msgLimit, parameterValueCount, bindVariableSetters);
         }
+
+        resultFormats.clear();
+        bindResultFormats(lo, msgLimit);
+
         if (statementName == null && queryText.length() > 0) {
+            // insert re-bound within the batch keeps its plan, compiling again would end the batch
+            if (currentInsertStatement == null || currentInsertStatement != batchInsertStatement) {
+                compileQuery(compiler, factoryCache);
+            }
+        } else if (statementName != null && isUncompiledNamedStatement()) {
             compileQuery(compiler, factoryCache);
+            // statement was not in cache when parsed, following binds reuse what is compiled now
+            final NamedStatementWrapper wrapper = namedStatementMap.get(statementName);
+            if (currentInsertStatement != null) {
+                wrapper.insertStatement = currentInsertStatement;
+            } else if (!planCacheEnabled) {
+                wrapper.selectFactory = currentFactory;
+            }
         }
         prepareBindComplete();
     }
@@ -1274,20 +1785,46 @@ public class PGConnectionContext implements IOContext, Mutable {
                 wrapper.insertStatement = currentInsertStatement;
             }
             wrapper.bindVariableTypes = bindVariableTypes;
+            // select plans are taken from plan cache by query text when statement is bound,
+            // text is also the key factory is put back into worker's cache by
+            wrapper.queryText = Chars.toString(queryText);
             namedStatementMap.put(statementName, wrapper);
         }
         prepareParseComplete();
     }
 
-    private void processExecute() throws PeerDisconnectedException, PeerIsSlowToReadException {
+    private void processExecute(
+            long lo,
+            long msgLimit,
+            @Transient SqlCompiler compiler
+    ) throws PeerDisconnectedException, PeerIsSlowToReadException, SqlException, BadProtocolException {
+        final long hi = getStringLength(lo, msgLimit);
+        checkNotTrue(hi == -1, "bad portal name length [msgType='E']");
+        checkNotTrue(hi + 1 + Integer.BYTES > msgLimit, "could not read max rows [msgType='E']");
+        if (hi > lo ? !Chars.equalsNc(dbcs.of(lo, hi), currentPortalName) : currentPortalName != null) {
+            // portal is closed by the next query
+            throw SqlException.$(0, "portal does not exist [name=").put(dbcs.of(lo, hi)).put(']');
+        }
+        maxRows = getInt(hi + 1);
+
+        if (currentInsertStatement == null) {
+            // query sees rows inserted earlier in the batch
+            commitBatchInsert();
+        }
+
         if (currentFactory != null) {
-            LOG.info().$("executing query").$();
-            currentCursor = currentFactory.getCursor(sqlExecutionContext);
-            // cache random if it was replaced
-            this.rnd = sqlExecutionContext.getRandom();
-            sendCursor();
+            if (currentCursor == null) {
+                LOG.info().$("executing query").$();
+                currentCursor = getCursor(compiler);
+                // cache random if it was replaced
+                this.rnd = sqlExecutionContext.getRandom();
+            } else {
+                LOG.debug().$("resuming portal").$();
+            }
+            rowCount = 0;
+            sendCursor(resumeCursorExecuteRef);
         } else if (currentInsertStatement != null) {
-            executeInsert();
+            executeBatchInsert();
         } else { //this must be a SET operation or empty query
             if (isEmptyQuery) {
                 responseAsciiSink.put(MESSAGE_TYPE_NO_DATA);
@@ -1400,6 +1937,7 @@ public class PGConnectionContext implements IOContext, Mutable {
             @Transient AssociativeCache<Object> factoryCache
     ) throws BadProtocolException, SqlException, PeerDisconnectedException, PeerIsSlowToReadException {
         // vanilla query
+        commitBatchInsert();
         prepareForNewQuery();
         parseQueryText(lo, limit - 1);
 
@@ -1409,6 +1947,11 @@ public class PGConnectionContext implements IOContext, Mutable {
             return;
         }
 
+        if (planCacheEnabled && checkOutPlan()) {
+            executeSelect(compiler, currentFactory);
+            return;
+        }
+
         final Object statement = factoryCache.peek(queryText);
         if (statement == null) {
             final CompiledQuery cc = compiler.compile(queryText, sqlExecutionContext);
@@ -1417,11 +1960,19 @@ public class PGConnectionContext implements IOContext, Mutable {
             switch (cc.getType()) {
                 case CompiledQuery.SELECT:
                     final RecordCursorFactory factory = cc.getRecordCursorFactory();
-                    factoryCache.put(queryText, factory);
+                    if (planCacheEnabled) {
+                        currentFactoryCached = true;
+                    } else {
+                        factoryCache.put(queryText, factory);
+                    }
                     queryTag = TAG_SELECT;
-                    executeSelect(factory);
+                    executeSelect(compiler, factory);
                     break;
                 case CompiledQuery.COPY_LOCAL:
+                    queryTag = TAG_COPY;
+                    sendExecuteTail(TAIL_SUCCESS);
+                    break;
+                case CompiledQuery.COPY_REMOTE:
                     queryTag = TAG_COPY;
                     sendCopyInResponse(compiler.getEngine(), cc.getTextLoader());
                     break;
@@ -1444,50 +1995,88 @@ public class PGConnectionContext implements IOContext, Mutable {
         } else {
             if (statement instanceof RecordCursorFactory) {
                 queryTag = TAG_SELECT;
-                executeSelect((RecordCursorFactory) statement);
+                executeSelect(compiler, (RecordCursorFactory) statement);
             }
         }
     }
 
-    private void sendCursor() throws PeerDisconnectedException, PeerIsSlowToReadException {
+    private void prepareCursorError(SqlException e) {
+        responseAsciiSink.resetToBookmark();
+        LOG.error().$(e.getFlyweightMessage()).$();
+        prepareForNewQuery();
+        sendCurrentCursorTail = TAIL_ERROR;
+        prepareExecuteTail(true);
+    }
+
+    private boolean resumeCursor() {
+        // send buffer is flushed, append the record that did not fit
+        final RecordMetadata metadata = currentFactory.getMetadata();
+        responseAsciiSink.bookmark();
+        try {
+            appendRecord(currentCursor.getRecord(), metadata, metadata.getColumnCount());
+            rowCount++;
+            return true;
+        } catch (SqlException e) {
+            prepareCursorError(e);
+            return false;
+        }
+    }
+
+    private void resumeCursorExecute() throws PeerDisconnectedException, PeerIsSlowToReadException {
+        if (resumeCursor()) {
+            sendCursor(resumeCursorExecuteRef);
+        }
+    }
+
+    private void resumeCursorQuery() throws PeerDisconnectedException, PeerIsSlowToReadException {
+        if (resumeCursor()) {
+            sendCursor(resumeCursorQueryRef);
+        }
+        prepareReadyForQuery(responseAsciiSink);
+        send();
+    }
+
+    private void sendCursor(ResumeCallback cursorResumeCallback) throws PeerDisconnectedException, PeerIsSlowToReadException {
         // the assumption for now is that any  will fit into response buffer. This of course precludes us from
         // streaming large BLOBs, but, and its a big one, PostgreSQL protocol for DataRow does not allow for
         // streaming anyway. On top of that Java PostgreSQL driver downloads data row fully. This simplifies our
-        // approach for general queries. For streaming protocol we will code something else. PostgeSQL Java driver is
-        // slow anyway.
+        // approach for general queries. Rows of large results are streamed buffer by buffer and portal with
+        // row limit is suspended until client executes it again.
 
         final Record record = currentCursor.getRecord();
         final RecordMetadata metadata = currentFactory.getMetadata();
         final int columnCount = metadata.getColumnCount();
-        rowCount = 0;
-        while (currentCursor.hasNext()) {
+        while (maxRows < 1 || rowCount < maxRows) {
+            if (!currentCursor.hasNext()) {
+                prepareForNewQuery();
+                sendCurrentCursorTail = TAIL_SUCCESS;
+                prepareExecuteTail(true);
+                return;
+            }
             // create checkpoint to which we can undo the buffer in case
             // current DataRow will does not fit fully.
             responseAsciiSink.bookmark();
             try {
                 try {
                     appendRecord(record, metadata, columnCount);
-                    rowCount++;
                 } catch (NoSpaceLeftInResponseBufferException e) {
                     responseAsciiSink.resetToBookmark();
+                    // when client is slow to read we carry on with this record once buffer is sent
+                    resumeCallback = cursorResumeCallback;
                     send();
+                    resumeCallback = null;
                     // this is now start of send buffer, when this fails we need to log and disconnect
+                    responseAsciiSink.bookmark();
                     appendRecord(record, metadata, columnCount);
                 }
+                rowCount++;
             } catch (SqlException e) {
-                responseAsciiSink.resetToBookmark();
-                LOG.error().$(e.getFlyweightMessage()).$();
-                prepareForNewQuery();
-                sendCurrentCursorTail = TAIL_ERROR;
-                prepareExecuteTail(true);
-                prepareReadyForQuery(responseAsciiSink);
+                prepareCursorError(e);
                 return;
             }
         }
-
-        prepareForNewQuery();
-        sendCurrentCursorTail = TAIL_SUCCESS;
-        prepareExecuteTail(true);
+        // cursor stays open until portal is executed again, closed or replaced by another query
+        preparePortalSuspended();
     }
 
     void recv() throws PeerDisconnectedException, PeerIsSlowToWriteException, BadProtocolException {
@@ -1552,18 +2141,25 @@ public class PGConnectionContext implements IOContext, Mutable {
                 path,
                 textLoader.getTableName()
         )) {
+            final int columnCount;
+            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), textLoader.getTableName())) {
+                columnCount = writer.getMetadata().getColumnCount();
+            } catch (CairoException e) {
+                prepareError(SqlException.$(0, e.getFlyweightMessage()));
+                prepareReadyForQuery(responseAsciiSink);
+                send();
+                return;
+            }
             responseAsciiSink.put(MESSAGE_TYPE_COPY_IN_RESPONSE);
             long addr = responseAsciiSink.skip();
             responseAsciiSink.put((byte) 0); // TEXT (1=BINARY, which we do not support yet)
-            try (TableWriter writer = engine.getWriter(sqlExecutionContext.getCairoSecurityContext(), textLoader.getTableName())) {
-                RecordMetadata metadata = writer.getMetadata();
-                responseAsciiSink.putNetworkShort((short) metadata.getColumnCount());
-                for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
-                    responseAsciiSink.putNetworkShort((short) typeOids.get(metadata.getColumnType(i)));
-                }
+            responseAsciiSink.putNetworkShort((short) columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                // column format codes, text format requires all of them to be 0
+                responseAsciiSink.putNetworkShort((short) 0);
             }
             responseAsciiSink.putLen(addr);
-            transientCopyBuffer = Unsafe.malloc(1024 * 1024);
+            setupCopyIn(engine, textLoader);
         } else {
             prepareError(SqlException.$(0, "table '").put(textLoader.getTableName()).put("' does not exist"));
             prepareReadyForQuery(responseAsciiSink);
@@ -1571,6 +2167,32 @@ public class PGConnectionContext implements IOContext, Mutable {
         send();
     }
 
+    private void setupCopyIn(CairoEngine engine, TextLoader textLoader) {
+        if (copyTextLoader == null) {
+            copyTextLoader = new TextLoader(engine);
+        }
+        // compiler's text loader is shared by all connections of the worker,
+        // our own loader keeps state between CopyData messages
+        copyTextLoader.clear();
+        copyTextLoader.setState(TextLoader.ANALYZE_STRUCTURE);
+        copyTextLoader.configureDestination(
+                Chars.toString(textLoader.getTableName()),
+                false,
+                false,
+                Atomicity.SKIP_ROW,
+                PartitionBy.NONE,
+                null
+        );
+        copyTextLoader.setForceHeaders(textLoader.isForceHeaders());
+        copyTextLoader.setSkipRowsWithExtraValues(false);
+        if (textLoader.getColumnDelimiter() > 0) {
+            copyTextLoader.configureColumnDelimiter(textLoader.getColumnDelimiter());
+        }
+        copyTextLoader.configureNullValue(Chars.toString(textLoader.getNullValue()));
+        copyBuffer = Unsafe.malloc(copyBufferSize);
+        copyBufferPos = 0;
+    }
+
     private void prepareRowDescription() {
         final RecordMetadata metadata = currentFactory.getMetadata();
         ResponseAsciiSink sink = responseAsciiSink;
@@ -1600,7 +2222,7 @@ public class PGConnectionContext implements IOContext, Mutable {
                 sink.putNetworkInt(0);
             }
             // this is special behaviour for binary fields to prevent binary data being hex encoded on the wire
-            sink.putNetworkShort((short) (columnType == ColumnType.BINARY ? 1 : 0)); // format code
+            sink.putNetworkShort((short) (columnType == ColumnType.BINARY || getResultFormat(i) == 1 ? 1 : 0)); // format code
         }
         sink.putLen(addr);
     }
@@ -1624,6 +2246,9 @@ public class PGConnectionContext implements IOContext, Mutable {
             queryTag = TAG_INSERT;
             currentInsertStatement = wrapper.insertStatement;
         }
+        if (wrapper.queryText != null) {
+            queryText = wrapper.queryText;
+        }
         if (wrapper.bindVariableTypes != null) {
             bindVariableSetters.clear();
             setupCachedBindVariables(bindVariableSetters, wrapper.bindVariableTypes);
@@ -1719,6 +2344,11 @@ public class PGConnectionContext implements IOContext, Mutable {
         void append(Record record, int columnIndex) throws SqlException;
     }
 
+    @FunctionalInterface
+    private interface ResumeCallback {
+        void resume() throws PeerDisconnectedException, PeerIsSlowToReadException;
+    }
+
     class ResponseAsciiSink extends AbstractCharSink {
 
         private long bookmarkPtr = -1;
@@ -1799,6 +2429,12 @@ public class PGConnectionContext implements IOContext, Mutable {
             sendBufferPtr += Integer.BYTES;
         }
 
+        public void putNetworkLong(long value) {
+            ensureCapacity(Long.BYTES);
+            putLong(sendBufferPtr, value);
+            sendBufferPtr += Long.BYTES;
+        }
+
         public void putNetworkShort(short value) {
             ensureCapacity(Short.BYTES);
             putShort(sendBufferPtr, value);
@@ -1860,11 +2496,13 @@ public class PGConnectionContext implements IOContext, Mutable {
         public RecordCursorFactory selectFactory = null;
         public InsertStatement insertStatement = null;
         public IntList bindVariableTypes = null;
+        public CharSequence queryText = null;
 
         public void clear() {
             selectFactory = null;
             insertStatement = null;
             bindVariableTypes = null;
+            queryText = null;
         }
     }
 }
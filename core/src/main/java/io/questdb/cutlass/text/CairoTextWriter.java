@@ -76,6 +76,7 @@ public class CairoTextWriter implements Closeable, Mutable {
         dateToTimestampAdapterPool.clear();
         writer = Misc.free(writer);
         columnErrorCounts.clear();
+        timestampAdapter = null;
         _size = 0;
     }
 
@@ -188,6 +189,12 @@ public class CairoTextWriter implements Closeable, Mutable {
         }
     }
 
+    public void rollback() {
+        if (writer != null) {
+            writer.rollback();
+        }
+    }
+
     private void createTable(
             ObjList<CharSequence> names,
             ObjList<TypeAdapter> detectedTypes,
@@ -296,6 +303,10 @@ public class CairoTextWriter implements Closeable, Mutable {
                 } else {
                     writer = openWriterAndOverrideImportTypes(cairoSecurityContext, detectedTypes);
                     tableStructureAdapter.of(names, detectedTypes);
+                    if (timestampIndexCol == null) {
+                        // rows of table with designated timestamp have to be appended with their timestamps
+                        timestampIndex = writer.getMetadata().getTimestampIndex();
+                    }
                 }
                 break;
             default:
@@ -303,8 +314,14 @@ public class CairoTextWriter implements Closeable, Mutable {
         }
         _size = writer.size();
         columnErrorCounts.seed(writer.getMetadata().getColumnCount(), 0);
-        if (timestampIndex != -1 && types.getQuick(timestampIndex).getType() == ColumnType.TIMESTAMP) {
-            timestampAdapter = (TimestampAdapter) types.getQuick(timestampIndex);
+        if (timestampIndex != -1 && timestampIndex < types.size()) {
+            final TypeAdapter adapter = types.getQuick(timestampIndex);
+            if (adapter instanceof TimestampAdapter) {
+                timestampAdapter = (TimestampAdapter) adapter;
+            } else if (adapter.getType() == ColumnType.TIMESTAMP) {
+                writer = Misc.free(writer);
+                throw CairoException.instance(0).put("unsupported timestamp format [table=").put(tableName).put(", column=").put(timestampIndex).put(']');
+            }
         }
     }
 
@@ -342,6 +359,11 @@ public class CairoTextWriter implements Closeable, Mutable {
             return false;
         }
 
+        @Override
+        public boolean isCompressed(int columnIndex) {
+            return false;
+        }
+
         @Override
         public int getPartitionBy() {
             return partitionBy;
@@ -29,6 +29,7 @@ import io.questdb.cutlass.text.types.TypeManager;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.log.LogRecord;
+import io.questdb.std.Chars;
 import io.questdb.std.Mutable;
 import io.questdb.std.ObjList;
 import io.questdb.std.ObjectPool;
@@ -66,6 +67,7 @@ public class TextLexer implements Closeable, Mutable {
     private long fieldLo;
     private long fieldHi;
     private boolean skipLinesWithExtraValues;
+    private CharSequence nullValue;
 
     public TextLexer(TextConfiguration textConfiguration, TypeManager typeManager) {
         this.metadataDetector = new TextMetadataDetector(typeManager, textConfiguration);
@@ -124,6 +126,16 @@ public class TextLexer implements Closeable, Mutable {
         this.skipLinesWithExtraValues = skipLinesWithExtraValues;
     }
 
+    /**
+     * Fields that match null value are passed on as blanks, which both metadata
+     * detector and table writer treat as nulls.
+     *
+     * @param nullValue text that stands for null, or null when only blank fields are nulls
+     */
+    public void setNullValue(CharSequence nullValue) {
+        this.nullValue = nullValue;
+    }
+
     public void of(byte columnDelimiter) {
         clear();
         this.columnDelimiter = columnDelimiter;
@@ -410,11 +422,16 @@ public class TextLexer implements Closeable, Mutable {
             return;
         }
 
+        final DirectByteCharSequence field = fields.getQuick(fieldIndex);
         if (lastQuotePos > -1) {
-            fields.getQuick(fieldIndex).of(this.fieldLo, lastQuotePos - 1);
+            field.of(this.fieldLo, lastQuotePos - 1);
             lastQuotePos = -1;
         } else {
-            fields.getQuick(fieldIndex).of(this.fieldLo, this.fieldHi - 1);
+            field.of(this.fieldLo, this.fieldHi - 1);
+        }
+
+        if (nullValue != null && Chars.equals(nullValue, field)) {
+            field.of(this.fieldLo, this.fieldLo);
         }
 
         this.fieldLo = this.fieldHi;
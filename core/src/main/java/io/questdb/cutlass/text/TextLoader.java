@@ -59,6 +59,7 @@ public class TextLoader implements Closeable, Mutable {
     private int state;
     private boolean forceHeaders = false;
     private byte columnDelimiter = -1;
+    private CharSequence nullValue;
 
     public TextLoader(CairoEngine engine) {
         final TextConfiguration textConfiguration = engine.getConfiguration().getTextConfiguration();
@@ -87,6 +88,7 @@ public class TextLoader implements Closeable, Mutable {
         jsonLexer.clear();
         forceHeaders = false;
         columnDelimiter = -1;
+        configureNullValue(null);
         typeManager.clear();
     }
 
@@ -101,6 +103,10 @@ public class TextLoader implements Closeable, Mutable {
         Misc.free(utf8Sink);
     }
 
+    public void commit() {
+        textWriter.commit();
+    }
+
     public void configureColumnDelimiter(byte columnDelimiter) {
         this.columnDelimiter = columnDelimiter;
         assert this.columnDelimiter > 0;
@@ -120,6 +126,11 @@ public class TextLoader implements Closeable, Mutable {
                 .$(']').$();
     }
 
+    public void configureNullValue(CharSequence nullValue) {
+        this.nullValue = nullValue;
+        textLexer.setNullValue(nullValue);
+    }
+
     public byte getColumnDelimiter() {
         return columnDelimiter;
     }
@@ -136,6 +147,10 @@ public class TextLoader implements Closeable, Mutable {
         return textLexer.getLineCount();
     }
 
+    public CharSequence getNullValue() {
+        return nullValue;
+    }
+
     public long getErrorLineCount() {
         return textLexer.getErrorCount();
     }
@@ -160,6 +175,10 @@ public class TextLoader implements Closeable, Mutable {
         return forceHeaders;
     }
 
+    public void rollback() {
+        textWriter.rollback();
+    }
+
     public void setForceHeaders(boolean forceHeaders) {
         this.forceHeaders = forceHeaders;
     }
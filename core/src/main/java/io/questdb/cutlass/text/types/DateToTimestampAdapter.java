@@ -26,11 +26,10 @@ package io.questdb.cutlass.text.types;
 
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.TableWriter;
-import io.questdb.std.Mutable;
 import io.questdb.std.NumericException;
 import io.questdb.std.str.DirectByteCharSequence;
 
-public class DateToTimestampAdapter extends AbstractTypeAdapter implements Mutable {
+public class DateToTimestampAdapter extends TimestampAdapter {
     private DateAdapter dateAdapter;
 
     @Override
@@ -53,6 +52,7 @@ public class DateToTimestampAdapter extends AbstractTypeAdapter implements Mutab
         row.putDate(column, getTimestamp(value));
     }
 
+    @Override
     public long getTimestamp(DirectByteCharSequence value) throws NumericException {
         return dateAdapter.getDate(value) * 1000 ;
     }
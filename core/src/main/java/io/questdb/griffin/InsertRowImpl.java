@@ -0,0 +1,93 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.WalWriter;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.VirtualRecord;
+import io.questdb.std.ObjList;
+
+public class InsertRowImpl {
+    private final VirtualRecord virtualRecord;
+    private final SqlCompiler.RecordToRowCopier copier;
+    private final SqlCompiler.RecordToWalRowCopier walCopier;
+    private final Function timestampFunction;
+
+    public InsertRowImpl(
+            VirtualRecord virtualRecord,
+            SqlCompiler.RecordToRowCopier copier,
+            SqlCompiler.RecordToWalRowCopier walCopier,
+            Function timestampFunction
+    ) {
+        this.virtualRecord = virtualRecord;
+        this.copier = copier;
+        this.walCopier = walCopier;
+        this.timestampFunction = timestampFunction;
+    }
+
+    public void append(TableWriter writer) {
+        final TableWriter.Row row = timestampFunction != null ? writer.newRow(timestampFunction.getTimestamp(null)) : writer.newRow();
+        copier.copy(virtualRecord, row);
+        row.append();
+    }
+
+    public void append(WalWriter writer) {
+        final WalWriter.Row row = timestampFunction != null ? writer.newRow(timestampFunction.getTimestamp(null)) : writer.newRow();
+        walCopier.copy(virtualRecord, row);
+        row.append();
+    }
+
+    public SqlCompiler.RecordToRowCopier getCopier() {
+        return copier;
+    }
+
+    public SqlCompiler.RecordToWalRowCopier getWalCopier() {
+        return walCopier;
+    }
+
+    public boolean hasSameColumnTypes(VirtualRecord record) {
+        final int n = virtualRecord.getColumnCount();
+        if (n != record.getColumnCount()) {
+            return false;
+        }
+        for (int i = 0; i < n; i++) {
+            if (virtualRecord.getColumnType(i) != record.getColumnType(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void initContext(SqlExecutionContext executionContext) {
+        final ObjList<? extends Function> functions = virtualRecord.getFunctions();
+        for (int i = 0, n = functions.size(); i < n; i++) {
+            functions.getQuick(i).init(null, executionContext);
+        }
+        if (timestampFunction != null) {
+            timestampFunction.init(null, executionContext);
+        }
+    }
+}
@@ -26,42 +26,36 @@ package io.questdb.griffin;
 
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.WalWriter;
 import io.questdb.cairo.sql.*;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
 
 public class InsertStatementImpl implements InsertStatement {
-    private final VirtualRecord virtualRecord;
-    private final SqlCompiler.RecordToRowCopier copier;
-    private final Function timestampFunction;
-    private final RowFactory rowFactory;
+    private final ObjList<InsertRowImpl> insertRows = new ObjList<>();
     private final long structureVersion;
     private final String tableName;
     private final InsertMethodImpl insertMethod = new InsertMethodImpl();
+    private final WalInsertMethodImpl walInsertMethod = new WalInsertMethodImpl();
     private final CairoEngine engine;
+    private boolean walEnabled;
 
     // todo: recycle these
     public InsertStatementImpl(
             CairoEngine engine,
             String tableName,
-            VirtualRecord virtualRecord,
-            SqlCompiler.RecordToRowCopier copier,
-            Function timestampFunction,
             long structureVersion
     ) {
         this.engine = engine;
         this.tableName = tableName;
-        this.virtualRecord = virtualRecord;
-        this.copier = copier;
-        this.timestampFunction = timestampFunction;
-        if (timestampFunction != null) {
-            rowFactory = this::getRowWithTimestamp;
-        } else {
-            rowFactory = this::getRowWithoutTimestamp;
-        }
         this.structureVersion = structureVersion;
     }
 
+    public void addInsertRow(InsertRowImpl row) {
+        insertRows.add(row);
+        walEnabled = row.getWalCopier() != null;
+    }
+
     @Override
     public String getTableName() {
         return tableName;
@@ -76,46 +70,86 @@ public class InsertStatementImpl implements InsertStatement {
     public InsertMethod createMethod(SqlExecutionContext executionContext) {
         initContext(executionContext);
 
+        if (walEnabled) {
+            // write-ahead log does not lock the table, concurrent inserts do not fail on busy writer
+            final WalWriter walWriter = engine.getWalWriter(executionContext.getCairoSecurityContext(), tableName);
+            if (walWriter.getStructureVersion() != getStructureVersion()) {
+                walWriter.close();
+                throw WriterOutOfDateException.INSTANCE;
+            }
+            // method can be held open across executions, e.g. by PG wire batch, do not hijack its writer
+            final WalInsertMethodImpl method = walInsertMethod.writer == null ? walInsertMethod : new WalInsertMethodImpl();
+            method.writer = walWriter;
+            method.executionContext = executionContext;
+            return method;
+        }
+
         final TableWriter writer = engine.getWriter(executionContext.getCairoSecurityContext(), tableName);
         if (writer.getStructureVersion() != getStructureVersion()) {
             writer.close();
             throw WriterOutOfDateException.INSTANCE;
         }
-        insertMethod.writer = writer;
-        return insertMethod;
+        final InsertMethodImpl method = insertMethod.writer == null ? insertMethod : new InsertMethodImpl();
+        method.writer = writer;
+        method.executionContext = executionContext;
+        return method;
     }
 
-    private TableWriter.Row getRowWithTimestamp(TableWriter tableWriter) {
-        return tableWriter.newRow(timestampFunction.getTimestamp(null));
+    private void initContext(SqlExecutionContext executionContext) {
+        for (int i = 0, n = insertRows.size(); i < n; i++) {
+            insertRows.getQuick(i).initContext(executionContext);
+        }
     }
 
-    private TableWriter.Row getRowWithoutTimestamp(TableWriter tableWriter) {
-        return tableWriter.newRow();
-    }
+    private class InsertMethodImpl implements InsertMethod {
+        private TableWriter writer = null;
+        private SqlExecutionContext executionContext = null;
+        private boolean initialized;
 
-    private void initContext(SqlExecutionContext executionContext) {
-        final ObjList<? extends Function> functions = virtualRecord.getFunctions();
-        for (int i = 0, n = functions.size(); i < n; i++) {
-            functions.getQuick(i).init(null, executionContext);
+        @Override
+        public void execute() {
+            // bind variables may have been redefined since the previous execution
+            if (initialized) {
+                initContext(executionContext);
+            }
+            initialized = true;
+            for (int i = 0, n = insertRows.size(); i < n; i++) {
+                insertRows.getQuick(i).append(writer);
+            }
+        }
+
+        @Override
+        public void commit() {
+            writer.commit();
         }
-        if (timestampFunction != null) {
-            timestampFunction.init(null, executionContext);
+
+        @Override
+        public void rollback() {
+            writer.rollback();
         }
-    }
 
-    @FunctionalInterface
-    private interface RowFactory {
-        TableWriter.Row getRow(TableWriter tableWriter);
+        @Override
+        public void close() {
+            writer = Misc.free(writer);
+            executionContext = null;
+            initialized = false;
+        }
     }
 
-    private class InsertMethodImpl implements InsertMethod {
-        private TableWriter writer = null;
+    private class WalInsertMethodImpl implements InsertMethod {
+        private WalWriter writer = null;
+        private SqlExecutionContext executionContext = null;
+        private boolean initialized;
 
         @Override
         public void execute() {
-            final TableWriter.Row row = rowFactory.getRow(writer);
-            copier.copy(virtualRecord, row);
-            row.append();
+            if (initialized) {
+                initContext(executionContext);
+            }
+            initialized = true;
+            for (int i = 0, n = insertRows.size(); i < n; i++) {
+                insertRows.getQuick(i).append(writer);
+            }
         }
 
         @Override
@@ -123,9 +157,16 @@ public class InsertStatementImpl implements InsertStatement {
             writer.commit();
         }
 
+        @Override
+        public void rollback() {
+            writer.rollback();
+        }
+
         @Override
         public void close() {
             writer = Misc.free(writer);
+            executionContext = null;
+            initialized = false;
         }
     }
 }
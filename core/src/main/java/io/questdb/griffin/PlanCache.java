@@ -0,0 +1,109 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.AssociativeCache;
+import io.questdb.std.Misc;
+import io.questdb.std.str.CharSink;
+
+import java.io.Closeable;
+
+/**
+ * Compiled SELECT plans shared by all connections of the engine. Plan is taken out of the cache
+ * for the duration of the query and is put back when query is complete, concurrent executions of
+ * the same query compile their own plans. Cache is cleared when tables are dropped or renamed,
+ * plans taken out before that are discarded when they are put back.
+ */
+public class PlanCache implements Closeable {
+    private final AssociativeCache<RecordCursorFactory> cache;
+    private long generation;
+
+    public PlanCache(int capacity) {
+        // least recently added of 4 plans sharing hash bucket is evicted
+        this.cache = new AssociativeCache<>(4, Math.max(1, capacity / 4));
+    }
+
+    /**
+     * Copies query text to sink with runs of whitespace outside of quotes replaced by single space,
+     * so that queries differing only in formatting share plan.
+     *
+     * @param sql  query text
+     * @param sink receives normalized text
+     */
+    public static void normalize(CharSequence sql, CharSink sink) {
+        char quote = 0;
+        boolean space = false;
+        boolean empty = true;
+        for (int i = 0, n = sql.length(); i < n; i++) {
+            final char c = sql.charAt(i);
+            if (quote == 0 && Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space && !empty) {
+                sink.put(' ');
+            }
+            space = false;
+            empty = false;
+            if (quote == 0) {
+                if (c == '\'' || c == '"') {
+                    quote = c;
+                }
+            } else if (c == quote) {
+                quote = 0;
+            }
+            sink.put(c);
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        cache.clear();
+    }
+
+    @Override
+    public synchronized void close() {
+        cache.close();
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized RecordCursorFactory poll(CharSequence key) {
+        return cache.poll(key);
+    }
+
+    public synchronized void put(CharSequence key, RecordCursorFactory factory, long generation) {
+        if (generation != this.generation) {
+            Misc.free(factory);
+            return;
+        }
+        // concurrent execution of the same query could have put its plan back first
+        Misc.free(cache.poll(key));
+        cache.put(key, factory);
+    }
+}
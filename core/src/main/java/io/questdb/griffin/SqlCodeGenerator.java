@@ -37,6 +37,8 @@ import io.questdb.griffin.engine.groupby.*;
 import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.griffin.engine.groupby.vect.*;
 import io.questdb.griffin.engine.join.*;
+import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
+import io.questdb.griffin.engine.orderby.ParallelSortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.RecordComparatorCompiler;
 import io.questdb.griffin.engine.orderby.SortedLightRecordCursorFactory;
 import io.questdb.griffin.engine.orderby.SortedRecordCursorFactory;
@@ -45,6 +47,7 @@ import io.questdb.griffin.engine.union.*;
 import io.questdb.griffin.model.*;
 import io.questdb.std.*;
 import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.StringSink;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -150,6 +153,73 @@ public class SqlCodeGenerator implements Mutable {
         return new LtJoinRecordCursorFactory(configuration, metadata, masterFactory, slaveFactory, mapKeyTypes, mapValueTypes, slaveColumnTypes, masterKeySink, slaveKeySink, columnSplit, slaveValueSink, columnIndex);
     }
 
+    // intervals are left out of the key, rows of cached samples are checked against table partitions instead
+    private static String getSampleByCacheKey(QueryModel model) {
+        QueryModel tableModel = model;
+        while (tableModel.getNestedModel() != null) {
+            tableModel = tableModel.getNestedModel();
+        }
+        final ExpressionNode whereClause = tableModel.getWhereClause();
+        tableModel.setWhereClause(null);
+        try {
+            final StringSink sink = Misc.getThreadLocalBuilder();
+            model.toSink(sink);
+            return sink.toString();
+        } finally {
+            tableModel.setWhereClause(whereClause);
+        }
+    }
+
+    private static boolean hasBindVariables(ExpressionNode node) {
+        if (node == null) {
+            return false;
+        }
+        if (node.type == LITERAL && (Chars.startsWith(node.token, ':') || Chars.startsWith(node.token, '$'))) {
+            return true;
+        }
+        if (hasBindVariables(node.lhs) || hasBindVariables(node.rhs)) {
+            return true;
+        }
+        for (int i = 0, n = node.args.size(); i < n; i++) {
+            if (hasBindVariables(node.args.getQuick(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasBindVariables(ObjList<QueryColumn> columns) {
+        for (int i = 0, n = columns.size(); i < n; i++) {
+            if (hasBindVariables(columns.getQuick(i).getAst())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFixedSize(ArrayColumnTypes keyTypes) {
+        for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
+            switch (keyTypes.getColumnType(i)) {
+                case ColumnType.STRING:
+                case ColumnType.BINARY:
+                case ColumnType.LONG256:
+                    return false;
+                default:
+                    break;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isReadThreadSafe(ObjList<GroupByFunction> groupByFunctions) {
+        for (int i = 0, n = groupByFunctions.size(); i < n; i++) {
+            if (!groupByFunctions.getQuick(i).isReadThreadSafe()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private VectorAggregateFunctionConstructor assembleFunctionReference(RecordMetadata metadata, ExpressionNode ast) {
         int columnIndex;
         if (isSingleColumnFunction(ast, "sum")) {
@@ -394,7 +464,8 @@ public class SqlCodeGenerator implements Mutable {
             RecordMetadata metadata,
             RecordCursorFactory master,
             RecordCursorFactory slave,
-            int joinType
+            int joinType,
+            SqlExecutionContext executionContext
     ) {
         /*
          * JoinContext provides the following information:
@@ -429,6 +500,23 @@ public class SqlCodeGenerator implements Mutable {
 
         if (slave.recordCursorSupportsRandomAccess() && !fullFatJoins) {
             if (joinType == QueryModel.JOIN_INNER) {
+                final JoinKeyFilter masterKeyFilter = createMasterKeyFilter(master, masterKeySink);
+                if (configuration.isSqlParallelHashJoinEnabled() && executionContext.getWorkerCount() > 1) {
+                    // partitions of slave rows are hashed on worker threads
+                    return new ParallelHashJoinLightRecordCursorFactory(
+                            configuration,
+                            metadata,
+                            master,
+                            slave,
+                            keyTypes,
+                            valueTypes,
+                            masterKeySink,
+                            slaveKeySink,
+                            masterKeyFilter,
+                            asm,
+                            masterMetadata.getColumnCount()
+                    );
+                }
                 return new HashJoinLightRecordCursorFactory(
                         configuration,
                         metadata,
@@ -438,6 +526,7 @@ public class SqlCodeGenerator implements Mutable {
                         valueTypes,
                         masterKeySink,
                         slaveKeySink,
+                        masterKeyFilter,
                         masterMetadata.getColumnCount()
                 );
             }
@@ -556,6 +645,25 @@ public class SqlCodeGenerator implements Mutable {
         );
     }
 
+    @Nullable
+    private JoinKeyFilter createMasterKeyFilter(RecordCursorFactory master, RecordSink masterKeySink) {
+        if (!configuration.isSqlJoinBloomFilterEnabled()) {
+            return null;
+        }
+
+        // single symbol key is filtered by symbol keys rather than values
+        final int symbolColumnIndex = listColumnFilterB.getColumnCount() == 1
+                && master.getMetadata().getColumnType(listColumnFilterB.getColumnIndex(0)) == ColumnType.SYMBOL
+                ? listColumnFilterB.getColumnIndex(0) : -1;
+        final JoinKeyFilter filter = new JoinKeyFilter(configuration, keyTypes, masterKeySink, symbolColumnIndex);
+        if (master.pushDownRuntimeFilter(filter)) {
+            return filter;
+        }
+        // there is no table scan to reject rows in
+        filter.close();
+        return null;
+    }
+
     private RecordCursorFactory createSpliceJoin(
             RecordMetadata metadata,
             RecordCursorFactory master,
@@ -605,6 +713,12 @@ public class SqlCodeGenerator implements Mutable {
                 return new EmptyTableRecordCursorFactory(factory.getMetadata());
             }
         }
+        if (configuration.isSqlParallelFilterEnabled()
+                && f.isReadThreadSafe()
+                && factory instanceof DataFrameRecordCursorFactory
+                && ((DataFrameRecordCursorFactory) factory).supportsParallelFilter()) {
+            return new ParallelFilteredRecordCursorFactory(configuration, (DataFrameRecordCursorFactory) factory, f);
+        }
         return new FilteredRecordCursorFactory(factory, f);
     }
 
@@ -782,7 +896,8 @@ public class SqlCodeGenerator implements Mutable {
                                     createJoinMetadata(masterAlias, masterMetadata, slaveModel.getName(), slaveMetadata),
                                     master,
                                     slave,
-                                    joinType
+                                    joinType,
+                                    executionContext
                             );
                             masterAlias = null;
                             break;
@@ -987,36 +1102,41 @@ public class SqlCodeGenerator implements Mutable {
     }
 
     private RecordCursorFactory generateLimit(RecordCursorFactory factory, QueryModel model, SqlExecutionContext executionContext) throws SqlException {
-        ExpressionNode limitLo = model.getLimitLo();
-        ExpressionNode limitHi = model.getLimitHi();
-
-        if (limitLo == null && limitHi == null) {
+        if (factory.implementsLimit() || (model.getLimitLo() == null && model.getLimitHi() == null)) {
             return factory;
         }
+        return new LimitRecordCursorFactory(
+                factory,
+                generateLimitLo(model, executionContext),
+                generateLimitHi(model, executionContext)
+        );
+    }
 
-        final Function loFunc;
-        final Function hiFunc;
+    @Nullable
+    private Function generateLimitHi(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
+        final ExpressionNode limitHi = model.getLimitHi();
+        if (limitHi == null) {
+            return null;
+        }
+        final Function hiFunc = functionParser.parseFunction(limitHi, EmptyRecordMetadata.INSTANCE, executionContext);
+        final int type = hiFunc.getType();
+        if (limitTypes.excludes(type)) {
+            throw SqlException.$(limitHi.position, "invalid type: ").put(ColumnType.nameOf(type));
+        }
+        return hiFunc;
+    }
 
+    private Function generateLimitLo(QueryModel model, SqlExecutionContext executionContext) throws SqlException {
+        final ExpressionNode limitLo = model.getLimitLo();
         if (limitLo == null) {
-            loFunc = new LongConstant(0, 0L);
-        } else {
-            loFunc = functionParser.parseFunction(limitLo, EmptyRecordMetadata.INSTANCE, executionContext);
-            final int type = loFunc.getType();
-            if (limitTypes.excludes(type)) {
-                throw SqlException.$(limitLo.position, "invalid type: ").put(ColumnType.nameOf(type));
-            }
+            return new LongConstant(0, 0L);
         }
-
-        if (limitHi != null) {
-            hiFunc = functionParser.parseFunction(limitHi, EmptyRecordMetadata.INSTANCE, executionContext);
-            final int type = hiFunc.getType();
-            if (limitTypes.excludes(type)) {
-                throw SqlException.$(limitHi.position, "invalid type: ").put(ColumnType.nameOf(type));
-            }
-        } else {
-            hiFunc = null;
+        final Function loFunc = functionParser.parseFunction(limitLo, EmptyRecordMetadata.INSTANCE, executionContext);
+        final int type = loFunc.getType();
+        if (limitTypes.excludes(type)) {
+            throw SqlException.$(limitLo.position, "invalid type: ").put(ColumnType.nameOf(type));
         }
-        return new LimitRecordCursorFactory(factory, loFunc, hiFunc);
+        return loFunc;
     }
 
     private RecordCursorFactory generateNoSelect(
@@ -1034,7 +1154,7 @@ public class SqlCodeGenerator implements Mutable {
         return generateSubQuery(model, executionContext);
     }
 
-    private RecordCursorFactory generateOrderBy(RecordCursorFactory recordCursorFactory, QueryModel model) throws SqlException {
+    private RecordCursorFactory generateOrderBy(RecordCursorFactory recordCursorFactory, QueryModel model, SqlExecutionContext executionContext) throws SqlException {
         if (recordCursorFactory.followedOrderByAdvice()) {
             return recordCursorFactory;
         }
@@ -1099,6 +1219,27 @@ public class SqlCodeGenerator implements Mutable {
                 orderedMetadata = GenericRecordMetadata.copyOfSansTimestamp(metadata);
 
                 if (recordCursorFactory.recordCursorSupportsRandomAccess()) {
+                    if (model.getLimitLo() != null || model.getLimitHi() != null) {
+                        // sort only as many row ids as the limit can return
+                        return new LimitedSizeSortedLightRecordCursorFactory(
+                                orderedMetadata,
+                                recordCursorFactory,
+                                recordComparatorCompiler.compile(metadata, listColumnFilterA),
+                                generateLimitLo(model, executionContext),
+                                generateLimitHi(model, executionContext)
+                        );
+                    }
+                    if (configuration.isSqlParallelSortEnabled() && executionContext.getWorkerCount() > 1) {
+                        // sort runs on worker threads within memory budget
+                        return new ParallelSortedLightRecordCursorFactory(
+                                configuration,
+                                orderedMetadata,
+                                recordCursorFactory,
+                                listColumnFilterA,
+                                asm,
+                                recordComparatorCompiler
+                        );
+                    }
                     return new SortedLightRecordCursorFactory(
                             configuration,
                             orderedMetadata,
@@ -1154,7 +1295,8 @@ public class SqlCodeGenerator implements Mutable {
                                 model,
                                 executionContext
                         ),
-                        model
+                        model,
+                        executionContext
                 ),
                 model,
                 executionContext
@@ -1261,6 +1403,46 @@ public class SqlCodeGenerator implements Mutable {
 
                 if (fillCount == 0 || fillCount == 1 && Chars.equalsLowerCaseAscii(sampleByFill.getQuick(0).token, "none")) {
 
+                    // samples rarely straddle partitions, table scans can be aggregated
+                    // in sample aligned ranges on worker threads
+                    final boolean parallel = configuration.isSqlParallelSampleByEnabled()
+                            && executionContext.getWorkerCount() > 1
+                            && isReadThreadSafe(groupByFunctions);
+                    // table scans without filter can reuse samples of previous execution
+                    final boolean cached = configuration.isSqlSampleByCacheEnabled()
+                            && factory.supportPageFrameCursor()
+                            && !hasBindVariables(model.getColumns());
+                    if ((parallel || cached) && isFixedSize(keyTypes)) {
+                        RecordCursorFactory frameFactory = null;
+                        Function frameFilter = null;
+                        if (factory.supportPageFrameCursor()) {
+                            frameFactory = factory;
+                        } else if (factory instanceof ParallelFilteredRecordCursorFactory
+                                && ((ParallelFilteredRecordCursorFactory) factory).getBase().supportPageFrameCursor()) {
+                            frameFactory = ((ParallelFilteredRecordCursorFactory) factory).getBase();
+                            frameFilter = ((ParallelFilteredRecordCursorFactory) factory).getFilter();
+                        }
+
+                        if (frameFactory != null) {
+                            return new ParallelSampleByFillNoneRecordCursorFactory(
+                                    configuration,
+                                    frameFactory,
+                                    frameFilter,
+                                    groupByMetadata,
+                                    groupByFunctions,
+                                    recordFunctions,
+                                    timestampSampler,
+                                    listColumnFilterA,
+                                    asm,
+                                    keyTypes,
+                                    valueTypes,
+                                    timestampIndex,
+                                    parallel,
+                                    cached ? getSampleByCacheKey(model) : null
+                            );
+                        }
+                    }
+
                     if (keyTypes.getColumnCount() == 0) {
                         // this sample by is not keyed
                         return new SampleByFillNoneNotKeyedRecordCursorFactory(
@@ -1477,7 +1659,7 @@ public class SqlCodeGenerator implements Mutable {
             CharSequence tableName = tableNameEn.token;
             try (TableReader reader = engine.getReader(executionContext.getCairoSecurityContext(), tableName)) {
                 CharSequence columnName = model.getBottomUpColumnNames().get(0);
-                TableReaderMetadata readerMetadata = (TableReaderMetadata) reader.getMetadata();
+                TableReaderMetadata readerMetadata = reader.getMetadata();
                 int columnIndex = readerMetadata.getColumnIndex(columnName);
                 int columnType = readerMetadata.getColumnType(columnIndex);
                 if (readerMetadata.getVersion() >= 416 && columnType == ColumnType.SYMBOL) {
@@ -1601,6 +1783,19 @@ public class SqlCodeGenerator implements Mutable {
 
             RecordMetadata metadata = factory.getMetadata();
 
+            // table scan with thread-safe filter can be aggregated straight from page frames,
+            // vector aggregate tasks evaluate the filter and compact rows before aggregation
+            RecordCursorFactory frameFactory = factory;
+            Function frameFilter = null;
+            if (!pageFramingSupported && factory instanceof ParallelFilteredRecordCursorFactory) {
+                final ParallelFilteredRecordCursorFactory filteredFactory = (ParallelFilteredRecordCursorFactory) factory;
+                if (filteredFactory.getBase().supportPageFrameCursor()) {
+                    frameFactory = filteredFactory.getBase();
+                    frameFilter = filteredFactory.getFilter();
+                    pageFramingSupported = true;
+                }
+            }
+
             // inspect model for possibility of vector aggregate intrinsics
             if (pageFramingSupported && assembleKeysAndFunctionReferences(columns, metadata, !specialCaseKeys)) {
                 // create metadata from everything we've gathered
@@ -1641,9 +1836,11 @@ public class SqlCodeGenerator implements Mutable {
                 if (tempKeyIndexesInBase.size() == 0) {
                     return new GroupByNotKeyedVectorRecordCursorFactory(
                             configuration,
-                            factory,
+                            frameFactory,
                             meta,
-                            tempVaf
+                            tempVaf,
+                            executionContext.getWorkerCount(),
+                            frameFilter
                     );
                 }
 
@@ -1656,14 +1853,15 @@ public class SqlCodeGenerator implements Mutable {
 
                     return new GroupByRecordCursorFactory(
                             configuration,
-                            factory,
+                            frameFactory,
                             meta,
                             arrayColumnTypes,
                             executionContext.getWorkerCount(),
                             tempVaf,
                             tempKeyIndexesInBase.getQuick(0),
                             tempKeyIndex.getQuick(0),
-                            tempSymbolSkewIndexes
+                            tempSymbolSkewIndexes,
+                            frameFilter
                     );
                 }
             }
@@ -2003,6 +2201,12 @@ public class SqlCodeGenerator implements Mutable {
                         case PartitionBy.YEAR:
                             intervalHitsOnlyOnePartition = isFocused(intrinsicModel.intervals, Timestamps.FLOOR_YYYY);
                             break;
+                        case PartitionBy.HOUR:
+                            intervalHitsOnlyOnePartition = isFocused(intrinsicModel.intervals, Timestamps.FLOOR_HH);
+                            break;
+                        case PartitionBy.WEEK:
+                            intervalHitsOnlyOnePartition = isFocused(intrinsicModel.intervals, Timestamps.FLOOR_WW);
+                            break;
                         default:
                             intervalHitsOnlyOnePartition = true;
                             break;
@@ -219,14 +219,30 @@ public class SqlCompiler implements Closeable {
                 || (from == ColumnType.STRING && to == ColumnType.TIMESTAMP);
     }
 
+    private static RecordToRowCopier assembleRecordToRowCopier(BytecodeAssembler asm, ColumnTypes from, RecordMetadata to, ColumnFilter toColumnFilter) {
+        return assembleCopier(asm, from, to, toColumnFilter, RecordToRowCopier.class, TableWriter.Row.class);
+    }
+
+    private static RecordToWalRowCopier assembleRecordToWalRowCopier(BytecodeAssembler asm, ColumnTypes from, RecordMetadata to, ColumnFilter toColumnFilter) {
+        return assembleCopier(asm, from, to, toColumnFilter, RecordToWalRowCopier.class, WalWriter.Row.class);
+    }
+
     // Creates data type converter.
     // INT and LONG NaN values are cast to their representation rather than Double or Float NaN.
-    private static RecordToRowCopier assembleRecordToRowCopier(BytecodeAssembler asm, ColumnTypes from, RecordMetadata to, ColumnFilter toColumnFilter) {
+    // Row class has to have put methods of TableWriter.Row.
+    private static <T> T assembleCopier(
+            BytecodeAssembler asm,
+            ColumnTypes from,
+            RecordMetadata to,
+            ColumnFilter toColumnFilter,
+            Class<T> copierClass,
+            Class<?> rowClass
+    ) {
         int timestampIndex = to.getTimestampIndex();
-        asm.init(RecordToRowCopier.class);
+        asm.init(copierClass);
         asm.setupPool();
         int thisClassIndex = asm.poolClass(asm.poolUtf8("io/questdb/griffin/rowcopier"));
-        int interfaceClassIndex = asm.poolClass(RecordToRowCopier.class);
+        int interfaceClassIndex = asm.poolClass(copierClass);
 
         int rGetInt = asm.poolInterfaceMethod(Record.class, "getInt", "(I)I");
         int rGetLong = asm.poolInterfaceMethod(Record.class, "getLong", "(I)J");
@@ -244,27 +260,27 @@ public class SqlCompiler implements Closeable {
         int rGetStr = asm.poolInterfaceMethod(Record.class, "getStr", "(I)Ljava/lang/CharSequence;");
         int rGetBin = asm.poolInterfaceMethod(Record.class, "getBin", "(I)Lio/questdb/std/BinarySequence;");
         //
-        int wPutInt = asm.poolMethod(TableWriter.Row.class, "putInt", "(II)V");
-        int wPutLong = asm.poolMethod(TableWriter.Row.class, "putLong", "(IJ)V");
-        int wPutLong256 = asm.poolMethod(TableWriter.Row.class, "putLong256", "(ILio/questdb/std/Long256;)V");
-        int wPutDate = asm.poolMethod(TableWriter.Row.class, "putDate", "(IJ)V");
-        int wPutTimestamp = asm.poolMethod(TableWriter.Row.class, "putTimestamp", "(IJ)V");
+        int wPutInt = asm.poolMethod(rowClass, "putInt", "(II)V");
+        int wPutLong = asm.poolMethod(rowClass, "putLong", "(IJ)V");
+        int wPutLong256 = asm.poolMethod(rowClass, "putLong256", "(ILio/questdb/std/Long256;)V");
+        int wPutDate = asm.poolMethod(rowClass, "putDate", "(IJ)V");
+        int wPutTimestamp = asm.poolMethod(rowClass, "putTimestamp", "(IJ)V");
         //
-        int wPutByte = asm.poolMethod(TableWriter.Row.class, "putByte", "(IB)V");
-        int wPutShort = asm.poolMethod(TableWriter.Row.class, "putShort", "(IS)V");
-        int wPutBool = asm.poolMethod(TableWriter.Row.class, "putBool", "(IZ)V");
-        int wPutFloat = asm.poolMethod(TableWriter.Row.class, "putFloat", "(IF)V");
-        int wPutDouble = asm.poolMethod(TableWriter.Row.class, "putDouble", "(ID)V");
-        int wPutSym = asm.poolMethod(TableWriter.Row.class, "putSym", "(ILjava/lang/CharSequence;)V");
-        int wPutSymChar = asm.poolMethod(TableWriter.Row.class, "putSym", "(IC)V");
-        int wPutStr = asm.poolMethod(TableWriter.Row.class, "putStr", "(ILjava/lang/CharSequence;)V");
-        int wPutTimestampStr = asm.poolMethod(TableWriter.Row.class, "putTimestamp", "(ILjava/lang/CharSequence;)V");
-        int wPutStrChar = asm.poolMethod(TableWriter.Row.class, "putStr", "(IC)V");
-        int wPutChar = asm.poolMethod(TableWriter.Row.class, "putChar", "(IC)V");
-        int wPutBin = asm.poolMethod(TableWriter.Row.class, "putBin", "(ILio/questdb/std/BinarySequence;)V");
+        int wPutByte = asm.poolMethod(rowClass, "putByte", "(IB)V");
+        int wPutShort = asm.poolMethod(rowClass, "putShort", "(IS)V");
+        int wPutBool = asm.poolMethod(rowClass, "putBool", "(IZ)V");
+        int wPutFloat = asm.poolMethod(rowClass, "putFloat", "(IF)V");
+        int wPutDouble = asm.poolMethod(rowClass, "putDouble", "(ID)V");
+        int wPutSym = asm.poolMethod(rowClass, "putSym", "(ILjava/lang/CharSequence;)V");
+        int wPutSymChar = asm.poolMethod(rowClass, "putSym", "(IC)V");
+        int wPutStr = asm.poolMethod(rowClass, "putStr", "(ILjava/lang/CharSequence;)V");
+        int wPutTimestampStr = asm.poolMethod(rowClass, "putTimestamp", "(ILjava/lang/CharSequence;)V");
+        int wPutStrChar = asm.poolMethod(rowClass, "putStr", "(IC)V");
+        int wPutChar = asm.poolMethod(rowClass, "putChar", "(IC)V");
+        int wPutBin = asm.poolMethod(rowClass, "putBin", "(ILio/questdb/std/BinarySequence;)V");
 
         int copyNameIndex = asm.poolUtf8("copy");
-        int copySigIndex = asm.poolUtf8("(Lio/questdb/cairo/sql/Record;Lio/questdb/cairo/TableWriter$Row;)V");
+        int copySigIndex = asm.poolUtf8("(Lio/questdb/cairo/sql/Record;L" + rowClass.getName().replace('.', '/') + ";)V");
 
         asm.finishPool();
         asm.defineClass(thisClassIndex);
@@ -797,6 +813,13 @@ public class SqlCompiler implements Closeable {
                         throw SqlException.$(lexer.lastTokenPosition(), "'column' or 'partition' expected");
                     }
 
+                } else if (SqlKeywords.isSetKeyword(tok)) {
+                    tok = expectToken(lexer, "'param'");
+                    if (SqlKeywords.isParamKeyword(tok)) {
+                        alterTableSetParam(writer);
+                    } else {
+                        throw SqlException.$(lexer.lastTokenPosition(), "'param' expected");
+                    }
                 } else {
                     throw SqlException.$(lexer.lastTokenPosition(), "'add' or 'drop' or 'rename' expected");
                 }
@@ -1091,6 +1114,35 @@ public class SqlCompiler implements Closeable {
         } while (true);
     }
 
+    private void alterTableSetParam(TableWriter writer) throws SqlException {
+        final CharSequence paramName = GenericLexer.immutableOf(expectToken(lexer, "param name"));
+        final int paramNamePosition = lexer.lastTokenPosition();
+        expectKeyword(lexer, "=");
+        CharSequence tok = expectToken(lexer, "param value");
+        final long value;
+        try {
+            value = Numbers.parseLong(tok);
+        } catch (NumericException e) {
+            throw SqlException.$(lexer.lastTokenPosition(), "numeric value expected");
+        }
+        if (value < 0) {
+            throw SqlException.$(lexer.lastTokenPosition(), "non-negative value expected");
+        }
+
+        if (Chars.equalsLowerCaseAscii(paramName, "commitlag")) {
+            writer.setCommitLag(value);
+        } else if (Chars.equalsLowerCaseAscii(paramName, "maxuncommittedrows")) {
+            if (value > Integer.MAX_VALUE) {
+                throw SqlException.$(lexer.lastTokenPosition(), "value is too large");
+            }
+            writer.setMaxUncommittedRows((int) value);
+        } else if (Chars.equalsLowerCaseAscii(paramName, "maxuncommittedbytes")) {
+            writer.setMaxUncommittedBytes(value);
+        } else {
+            throw SqlException.$(paramNamePosition, "unknown param '").put(paramName).put('\'');
+        }
+    }
+
     private void backupTable(@NotNull CharSequence tableName, @NotNull SqlExecutionContext executionContext) {
         LOG.info().$("Starting backup of ").$(tableName).$();
         if (null == cachedTmpBackupRoot) {
@@ -1163,7 +1215,7 @@ public class SqlCompiler implements Closeable {
             throw CairoException.instance(ff.errno()).put("Could not create [dir=").put(path).put(']');
         }
 
-        TableReaderMetadata sourceMetaData = (TableReaderMetadata) reader.getMetadata();
+        TableReaderMetadata sourceMetaData = reader.getMetadata();
         int rootLen = path.length();
         try {
             mem.of(ff, path.trimTo(rootLen).concat(TableUtils.META_FILE_NAME).$(), ff.getPageSize());
@@ -1272,7 +1324,6 @@ public class SqlCompiler implements Closeable {
                     long fileLen = ff.length(fd);
                     long n = ff.read(fd, buf, len, 0);
                     if (n > 0) {
-                        textLoader.setForceHeaders(model.isHeader());
                         textLoader.setSkipRowsWithExtraValues(false);
                         textLoader.parse(buf, buf + n, executionContext.getCairoSecurityContext());
                         textLoader.setState(TextLoader.LOAD_DATA);
@@ -1440,7 +1491,7 @@ public class SqlCompiler implements Closeable {
     @NotNull
     private CompiledQuery executeCopy(SqlExecutionContext executionContext, CopyModel executionModel) throws SqlException {
         setupTextLoaderFromModel(executionModel);
-        if (Chars.equalsLowerCaseAscii(executionModel.getFileName().token, "stdin")) {
+        if (isStdinKeyword(executionModel.getFileName().token)) {
             return compiledQuery.ofCopyRemote(textLoader);
         }
         copyTable(executionContext, executionModel);
@@ -1469,7 +1520,7 @@ public class SqlCompiler implements Closeable {
     }
 
     private boolean functionIsTimestamp(
-            InsertModel model,
+            ObjList<ExpressionNode> values,
             ObjList<Function> valueFunctions,
             RecordMetadata metadata,
             int writerTimestampIndex,
@@ -1489,7 +1540,7 @@ public class SqlCompiler implements Closeable {
         throw SqlException.inconvertibleTypes(
                 function.getPosition(),
                 function.getType(),
-                model.getColumnValues().getQuick(bottomUpColumnIndex).token,
+                values.getQuick(bottomUpColumnIndex).token,
                 metadata.getColumnType(metadataColumnIndex),
                 metadata.getColumnName(metadataColumnIndex)
         );
@@ -1511,55 +1562,75 @@ public class SqlCompiler implements Closeable {
             final int writerTimestampIndex = metadata.getTimestampIndex();
             final CharSequenceHashSet columnSet = model.getColumnSet();
             final int columnSetSize = columnSet.size();
-            Function timestampFunction = null;
-            listColumnFilter.clear();
-            if (columnSetSize > 0) {
+            final InsertStatementImpl insertStatement = new InsertStatementImpl(engine, Chars.toString(name.token), structureVersion);
+            // rows with distinct value types, each owns a copier
+            final ObjList<InsertRowImpl> copierRows = new ObjList<>();
+            for (int t = 0, rowCount = model.getRowTupleCount(); t < rowCount; t++) {
+                final ObjList<ExpressionNode> values = model.getRowTupleValues(t);
+                Function timestampFunction = null;
                 listColumnFilter.clear();
-                valueFunctions = new ObjList<>(columnSetSize);
-                for (int i = 0; i < columnSetSize; i++) {
-                    int index = metadata.getColumnIndexQuiet(columnSet.get(i));
-                    if (index < 0) {
-                        // todo: write test that used invalid column in insert statement
-                        throw SqlException.invalidColumn(model.getColumnPosition(i), columnSet.get(i));
-                    }
+                if (columnSetSize > 0) {
+                    valueFunctions = new ObjList<>(columnSetSize);
+                    for (int i = 0; i < columnSetSize; i++) {
+                        int index = metadata.getColumnIndexQuiet(columnSet.get(i));
+                        if (index < 0) {
+                            // todo: write test that used invalid column in insert statement
+                            throw SqlException.invalidColumn(model.getColumnPosition(i), columnSet.get(i));
+                        }
 
-                    final Function function = functionParser.parseFunction(model.getColumnValues().getQuick(i), GenericRecordMetadata.EMPTY, executionContext);
-                    if (functionIsTimestamp(model, valueFunctions, metadata, writerTimestampIndex, i, index, function)) {
-                        timestampFunction = function;
+                        final Function function = functionParser.parseFunction(values.getQuick(i), GenericRecordMetadata.EMPTY, executionContext);
+                        if (functionIsTimestamp(values, valueFunctions, metadata, writerTimestampIndex, i, index, function)) {
+                            timestampFunction = function;
+                        }
+                    }
+                } else {
+                    final int columnCount = metadata.getColumnCount();
+                    final int valueCount = values.size();
+                    if (columnCount != valueCount) {
+                        throw SqlException.$(model.getEndOfRowTupleValuesPosition(t), "not enough values [expected=").put(columnCount).put(", actual=").put(valueCount).put(']');
+                    }
+                    valueFunctions = new ObjList<>(columnCount);
+                    for (int i = 0; i < columnCount; i++) {
+                        Function function = functionParser.parseFunction(values.getQuick(i), EmptyRecordMetadata.INSTANCE, executionContext);
+                        if (functionIsTimestamp(
+                                values,
+                                valueFunctions,
+                                metadata,
+                                writerTimestampIndex,
+                                i,
+                                i,
+                                function
+                        )) {
+                            timestampFunction = function;
+                        }
                     }
                 }
-            } else {
-                final int columnCount = metadata.getColumnCount();
-                final ObjList<ExpressionNode> values = model.getColumnValues();
-                final int valueCount = values.size();
-                if (columnCount != valueCount) {
-                    throw SqlException.$(model.getEndOfValuesPosition(), "not enough values [expected=").put(columnCount).put(", actual=").put(values.size()).put(']');
+
+                // validate timestamp
+                if (writerTimestampIndex > -1 && timestampFunction == null) {
+                    throw SqlException.$(0, "insert statement must populate timestamp");
                 }
-                valueFunctions = new ObjList<>(columnCount);
-                for (int i = 0; i < columnCount; i++) {
-                    Function function = functionParser.parseFunction(values.getQuick(i), EmptyRecordMetadata.INSTANCE, executionContext);
-                    if (functionIsTimestamp(
-                            model,
-                            valueFunctions,
-                            metadata,
-                            writerTimestampIndex,
-                            i,
-                            i,
-                            function
-                    )) {
-                        timestampFunction = function;
+
+                final VirtualRecord record = new VirtualRecord(valueFunctions);
+                InsertRowImpl row = null;
+                // row tuples of the same value types share copier, generating one is expensive
+                for (int i = 0, n = copierRows.size(); i < n; i++) {
+                    final InsertRowImpl copierRow = copierRows.getQuick(i);
+                    if (copierRow.hasSameColumnTypes(record)) {
+                        row = new InsertRowImpl(record, copierRow.getCopier(), copierRow.getWalCopier(), timestampFunction);
+                        break;
                     }
                 }
+                if (row == null) {
+                    final RecordToRowCopier copier = assembleRecordToRowCopier(asm, record, metadata, listColumnFilter);
+                    final RecordToWalRowCopier walCopier = configuration.isWalEnabled() ? assembleRecordToWalRowCopier(asm, record, metadata, listColumnFilter) : null;
+                    row = new InsertRowImpl(record, copier, walCopier, timestampFunction);
+                    copierRows.add(row);
+                }
+                insertStatement.addInsertRow(row);
+                valueFunctions = null;
             }
-
-            // validate timestamp
-            if (writerTimestampIndex > -1 && timestampFunction == null) {
-                throw SqlException.$(0, "insert statement must populate timestamp");
-            }
-
-            VirtualRecord record = new VirtualRecord(valueFunctions);
-            RecordToRowCopier copier = assembleRecordToRowCopier(asm, record, metadata, listColumnFilter);
-            return compiledQuery.ofInsert(new InsertStatementImpl(engine, Chars.toString(name.token), record, copier, timestampFunction, structureVersion));
+            return compiledQuery.ofInsert(insertStatement);
         } catch (SqlException e) {
             Misc.freeObjList(valueFunctions);
             throw e;
@@ -1680,8 +1751,13 @@ public class SqlCompiler implements Closeable {
             throw SqlException.$(tableName.position, "literal expected");
         }
 
-        if (model.getColumnSet().size() > 0 && model.getColumnSet().size() != model.getColumnValues().size()) {
-            throw SqlException.$(model.getColumnPosition(0), "value count does not match column count");
+        final int columnSetSize = model.getColumnSet().size();
+        if (columnSetSize > 0) {
+            for (int i = 0, n = model.getRowTupleCount(); i < n; i++) {
+                if (columnSetSize != model.getRowTupleValues(i).size()) {
+                    throw SqlException.$(model.getColumnPosition(0), "value count does not match column count");
+                }
+            }
         }
 
         return model;
@@ -1763,6 +1839,11 @@ public class SqlCompiler implements Closeable {
         //   - when happens when data row errors out, max errors may be?
         //   - we should be able to skip X rows from top, dodgy headers etc.
         textLoader.configureDestination(model.getTableName().token, false, false, Atomicity.SKIP_ROW, PartitionBy.NONE, null);
+        textLoader.setForceHeaders(model.isHeader());
+        if (model.getDelimiter() > 0) {
+            textLoader.configureColumnDelimiter(model.getDelimiter());
+        }
+        textLoader.configureNullValue(model.getNullValue());
     }
 
     private CompiledQuery sqlBackup(SqlExecutionContext executionContext) throws SqlException {
@@ -2052,6 +2133,10 @@ public class SqlCompiler implements Closeable {
         void copy(Record record, TableWriter.Row row);
     }
 
+    public interface RecordToWalRowCopier {
+        void copy(Record record, WalWriter.Row row);
+    }
+
     private static class TableStructureAdapter implements TableStructure {
         private CreateTableModel model;
         private RecordMetadata metadata;
@@ -2092,6 +2177,11 @@ public class SqlCompiler implements Closeable {
             return model.isSequential(columnIndex);
         }
 
+        @Override
+        public boolean isCompressed(int columnIndex) {
+            return model.isCompressed(columnIndex);
+        }
+
         @Override
         public int getPartitionBy() {
             return model.getPartitionBy();
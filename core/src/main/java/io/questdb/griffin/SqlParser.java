@@ -25,6 +25,7 @@
 package io.questdb.griffin;
 
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnCompressor;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.PartitionBy;
 import io.questdb.cairo.TableUtils;
@@ -177,6 +178,11 @@ public final class SqlParser {
         );
     }
 
+    private CharSequence expectCopyOptionValue(GenericLexer lexer, String expectedValue) throws SqlException {
+        final CharSequence tok = tok(lexer, expectedValue);
+        return isAsKeyword(tok) ? tok(lexer, expectedValue) : tok;
+    }
+
     private ExpressionNode expectExpr(GenericLexer lexer) throws SqlException {
         ExpressionNode n = expr(lexer, (QueryModel) null);
         if (n == null) {
@@ -345,9 +351,7 @@ public final class SqlParser {
     }
 
     private ExecutionModel parseCopy(GenericLexer lexer) throws SqlException {
-        if (configuration.getInputRoot() == null) {
-            throw SqlException.$(lexer.lastTokenPosition(), "COPY is disabled ['cairo.sql.copy.root' is not set?]");
-        }
+        final int copyPosition = lexer.lastTokenPosition();
         ExpressionNode tableName = expectExpr(lexer);
         CharSequence tok = tok(lexer, "'from' or 'to'");
 
@@ -356,20 +360,24 @@ public final class SqlParser {
             if (fileName.token.length() < 3 && Chars.startsWith(fileName.token, '\'')) {
                 throw SqlException.$(fileName.position, "file name expected");
             }
+            // data sent by client does not need server side input root
+            if (configuration.getInputRoot() == null && !isStdinKeyword(fileName.token)) {
+                throw SqlException.$(copyPosition, "COPY is disabled ['cairo.sql.copy.root' is not set?]");
+            }
             CopyModel model = copyModelPool.next();
             model.setTableName(tableName);
             model.setFileName(fileName);
 
             tok = optTok(lexer);
             if (tok != null && isWithKeyword(tok)) {
-                tok = tok(lexer, "copy option");
-                while (tok != null) {
-                    if (isHeaderKeyword(tok)) {
-                        model.setHeader(isTrueKeyword(tok(lexer, "'true' or 'false'")));
-                        tok = optTok(lexer);
-                    } else {
-                        throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
-                    }
+                parseCopyOptions(lexer, model);
+            }
+
+            // data from client is in PostgreSQL text format unless told otherwise
+            if (model.getDelimiter() == -1 && isStdinKeyword(fileName.token)) {
+                model.setDelimiter((byte) '\t');
+                if (model.getNullValue() == null) {
+                    model.setNullValue("\\N");
                 }
             }
             return model;
@@ -377,6 +385,77 @@ public final class SqlParser {
         throw SqlException.$(lexer.lastTokenPosition(), "'from' expected");
     }
 
+    private void parseCopyOptions(GenericLexer lexer, CopyModel model) throws SqlException {
+        // both "with (format csv, header true)" and "with csv header" forms are accepted
+        CharSequence tok = tok(lexer, "copy option");
+        boolean parenthesised = Chars.equals(tok, '(');
+        if (parenthesised) {
+            tok = tok(lexer, "copy option");
+        }
+        byte defaultDelimiter = -1;
+        boolean nullValueSet = false;
+        while (tok != null && !isSemicolon(tok)) {
+            if (isHeaderKeyword(tok)) {
+                tok = optTok(lexer);
+                if (tok != null && (isTrueKeyword(tok) || isFalseKeyword(tok))) {
+                    model.setHeader(isTrueKeyword(tok));
+                    tok = optTok(lexer);
+                } else {
+                    model.setHeader(true);
+                }
+            } else if (isFormatKeyword(tok)) {
+                tok = tok(lexer, "'text' or 'csv'");
+                if (isTextKeyword(tok)) {
+                    defaultDelimiter = '\t';
+                } else if (isCsvKeyword(tok)) {
+                    defaultDelimiter = ',';
+                } else if (isBinaryKeyword(tok)) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "binary COPY format is not supported");
+                } else {
+                    throw SqlException.$(lexer.lastTokenPosition(), "'text' or 'csv' expected");
+                }
+                tok = optTok(lexer);
+            } else if (isCsvKeyword(tok)) {
+                defaultDelimiter = ',';
+                tok = optTok(lexer);
+            } else if (isBinaryKeyword(tok)) {
+                throw SqlException.$(lexer.lastTokenPosition(), "binary COPY format is not supported");
+            } else if (isDelimiterKeyword(tok)) {
+                final CharSequence delimiter = GenericLexer.unquote(expectCopyOptionValue(lexer, "delimiter"));
+                if (delimiter.length() != 1 || delimiter.charAt(0) > 127) {
+                    throw SqlException.$(lexer.lastTokenPosition(), "single character delimiter expected");
+                }
+                model.setDelimiter((byte) delimiter.charAt(0));
+                tok = optTok(lexer);
+            } else if (isNullKeyword(tok)) {
+                final CharSequence nullValue = GenericLexer.unquote(expectCopyOptionValue(lexer, "null value"));
+                model.setNullValue(nullValue.length() > 0 ? GenericLexer.immutableOf(nullValue) : null);
+                nullValueSet = true;
+                tok = optTok(lexer);
+            } else if (parenthesised && Chars.equals(tok, ',')) {
+                tok = tok(lexer, "copy option");
+            } else if (parenthesised && Chars.equals(tok, ')')) {
+                parenthesised = false;
+                tok = optTok(lexer);
+            } else {
+                throw SqlException.$(lexer.lastTokenPosition(), "unexpected option");
+            }
+        }
+
+        if (parenthesised) {
+            throw SqlException.$(lexer.getPosition(), "')' expected");
+        }
+
+        if (model.getDelimiter() == -1) {
+            model.setDelimiter(defaultDelimiter);
+        }
+
+        // PostgreSQL text format marks nulls with \N
+        if (defaultDelimiter == '\t' && !nullValueSet) {
+            model.setNullValue("\\N");
+        }
+    }
+
     private ExecutionModel parseCreateStatement(GenericLexer lexer, SqlExecutionContext executionContext) throws SqlException {
         expectTok(lexer, "table");
         return parseCreateTable(lexer, executionContext);
@@ -399,9 +478,11 @@ public final class SqlParser {
         }
 
         while ((tok = optTok(lexer)) != null && Chars.equals(tok, ',')) {
-            tok = tok(lexer, "'index' or 'cast'");
+            tok = tok(lexer, "'index', 'compress' or 'cast'");
             if (isIndexKeyword(tok)) {
                 parseCreateTableIndexDef(lexer, model);
+            } else if (isCompressKeyword(tok)) {
+                parseCreateTableCompressDef(lexer, model);
             } else if (isCastKeyword(tok)) {
                 parseCreateTableCastDef(lexer, model);
             } else {
@@ -420,7 +501,7 @@ public final class SqlParser {
         ExpressionNode partitionBy = parseCreateTablePartition(lexer, tok);
         if (partitionBy != null) {
             if (PartitionBy.fromString(partitionBy.token) == -1) {
-                throw SqlException.$(partitionBy.position, "'NONE', 'DAY', 'MONTH' or 'YEAR' expected");
+                throw SqlException.$(partitionBy.position, "'NONE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected");
             }
             model.setPartitionBy(partitionBy);
             tok = optTok(lexer);
@@ -585,6 +666,19 @@ public final class SqlParser {
         }
     }
 
+    private void parseCreateTableCompressDef(GenericLexer lexer, CreateTableModel model) throws SqlException {
+        expectTok(lexer, '(');
+        final ExpressionNode column = expectLiteral(lexer);
+        final int columnIndex = getCreateTableColumnIndex(model, column.token, column.position);
+        final int type = model.getColumnType(columnIndex);
+        // types of 'create table as select' columns are not known yet, writer skips columns it cannot compress
+        if (type != -1 && !ColumnCompressor.isSupported(type)) {
+            throw SqlException.$(column.position, "compression is not supported for ").put(ColumnType.nameOf(type));
+        }
+        model.setCompressed(columnIndex);
+        expectTok(lexer, ')');
+    }
+
     private void parseCreateTableIndexDef(GenericLexer lexer, CreateTableModel model) throws SqlException {
         expectTok(lexer, '(');
         final int columnIndex = getCreateTableColumnIndex(model, expectLiteral(lexer).token, lexer.lastTokenPosition());
@@ -1069,19 +1163,30 @@ public final class SqlParser {
         }
 
         if (isValuesKeyword(tok)) {
-            expectTok(lexer, '(');
-
             do {
-                ExpressionNode expr = expectExpr(lexer);
-                if (Chars.equals(expr.token, ')')) {
-                    throw err(lexer, "missing column value");
-                }
+                expectTok(lexer, '(');
 
-                model.addColumnValue(expr);
-            } while (Chars.equals((tok = tok(lexer, "','")), ','));
+                final ObjList<ExpressionNode> rowValues = new ObjList<>();
+                do {
+                    ExpressionNode expr = expectExpr(lexer);
+                    if (Chars.equals(expr.token, ')')) {
+                        throw err(lexer, "missing column value");
+                    }
 
-            expectTok(tok, lexer.lastTokenPosition(), ')');
-            model.setEndOfValuesPosition(lexer.lastTokenPosition());
+                    rowValues.add(expr);
+                } while (Chars.equals((tok = tok(lexer, "','")), ','));
+
+                expectTok(tok, lexer.lastTokenPosition(), ')');
+                model.addRowTupleValues(rowValues);
+                model.addEndOfRowTupleValuesPosition(lexer.lastTokenPosition());
+
+                // more row tuples are separated by comma
+                tok = optTok(lexer);
+                if (tok != null && !Chars.equals(tok, ',')) {
+                    lexer.unparse();
+                    break;
+                }
+            } while (tok != null);
 
             return model;
         }
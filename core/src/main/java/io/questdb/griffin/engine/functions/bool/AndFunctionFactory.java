@@ -90,5 +90,10 @@ public class AndFunctionFactory implements FunctionFactory {
         public Function getRight() {
             return right;
         }
+
+        @Override
+        public boolean isReadThreadSafe() {
+            return left.isReadThreadSafe() && right.isReadThreadSafe();
+        }
     }
 }
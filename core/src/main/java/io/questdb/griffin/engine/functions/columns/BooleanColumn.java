@@ -40,4 +40,9 @@ public class BooleanColumn extends BooleanFunction implements Function {
     public boolean getBool(Record rec) {
         return rec.getBool(columnIndex);
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return true;
+    }
 }
@@ -40,4 +40,9 @@ public class ByteColumn extends ByteFunction implements Function {
     public byte getByte(Record rec) {
         return rec.getByte(columnIndex);
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return true;
+    }
 }
@@ -40,4 +40,9 @@ public class CharColumn extends CharFunction implements Function {
     public char getChar(Record rec) {
         return rec.getChar(columnIndex);
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return true;
+    }
 }
@@ -40,4 +40,9 @@ public class DateColumn extends DateFunction implements Function {
     public long getDate(Record rec) {
         return rec.getDate(columnIndex);
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return true;
+    }
 }
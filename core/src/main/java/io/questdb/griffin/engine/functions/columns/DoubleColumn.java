@@ -40,4 +40,9 @@ public class DoubleColumn extends DoubleFunction implements Function {
     public double getDouble(Record rec) {
         return rec.getDouble(columnIndex);
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return true;
+    }
 }
@@ -40,4 +40,9 @@ public class FloatColumn extends FloatFunction implements Function {
     public float getFloat(Record rec) {
         return rec.getFloat(columnIndex);
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return true;
+    }
 }
@@ -40,4 +40,9 @@ public class IntColumn extends IntFunction implements Function {
     public int getInt(Record rec) {
         return rec.getInt(columnIndex);
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return true;
+    }
 }
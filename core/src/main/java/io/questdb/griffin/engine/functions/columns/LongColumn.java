@@ -40,4 +40,9 @@ public class LongColumn extends LongFunction implements Function {
     public long getLong(Record rec) {
         return rec.getLong(columnIndex);
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return true;
+    }
 }
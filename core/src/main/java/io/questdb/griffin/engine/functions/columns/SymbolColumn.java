@@ -73,4 +73,10 @@ public class SymbolColumn extends SymbolFunction implements Function {
     public boolean isSymbolTableStatic() {
         return symbolTableStatic;
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        // symbol keys are read directly from column, getSymbol() uses symbol table and is not safe
+        return true;
+    }
 }
@@ -40,4 +40,9 @@ public class TimestampColumn extends TimestampFunction implements Function {
     public long getTimestamp(Record rec) {
         return rec.getTimestamp(columnIndex);
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return true;
+    }
 }
@@ -117,6 +117,11 @@ public class EqDoubleFunctionFactory extends AbstractBooleanFunctionFactory impl
         public Function getRight() {
             return right;
         }
+
+        @Override
+        public boolean isReadThreadSafe() {
+            return left.isReadThreadSafe() && right.isReadThreadSafe();
+        }
     }
 
     protected static class FuncIntIsNaN extends BooleanFunction implements UnaryFunction {
@@ -138,6 +143,11 @@ public class EqDoubleFunctionFactory extends AbstractBooleanFunctionFactory impl
         public Function getArg() {
             return arg;
         }
+
+        @Override
+        public boolean isReadThreadSafe() {
+            return arg.isReadThreadSafe();
+        }
     }
 
     protected static class FuncLongIsNaN extends BooleanFunction implements UnaryFunction {
@@ -159,6 +169,11 @@ public class EqDoubleFunctionFactory extends AbstractBooleanFunctionFactory impl
         public Function getArg() {
             return arg;
         }
+
+        @Override
+        public boolean isReadThreadSafe() {
+            return arg.isReadThreadSafe();
+        }
     }
 
     protected static class FuncDateIsNaN extends BooleanFunction implements UnaryFunction {
@@ -180,6 +195,11 @@ public class EqDoubleFunctionFactory extends AbstractBooleanFunctionFactory impl
         public Function getArg() {
             return arg;
         }
+
+        @Override
+        public boolean isReadThreadSafe() {
+            return arg.isReadThreadSafe();
+        }
     }
 
     protected static class FuncTimestampIsNaN extends BooleanFunction implements UnaryFunction {
@@ -201,6 +221,11 @@ public class EqDoubleFunctionFactory extends AbstractBooleanFunctionFactory impl
         public Function getArg() {
             return arg;
         }
+
+        @Override
+        public boolean isReadThreadSafe() {
+            return arg.isReadThreadSafe();
+        }
     }
 
     protected static class FuncFloatIsNaN extends BooleanFunction implements UnaryFunction {
@@ -222,6 +247,11 @@ public class EqDoubleFunctionFactory extends AbstractBooleanFunctionFactory impl
         public Function getArg() {
             return arg;
         }
+
+        @Override
+        public boolean isReadThreadSafe() {
+            return arg.isReadThreadSafe();
+        }
     }
 
     protected static class FuncDoubleIsNaN extends BooleanFunction implements UnaryFunction {
@@ -243,5 +273,10 @@ public class EqDoubleFunctionFactory extends AbstractBooleanFunctionFactory impl
         public Function getArg() {
             return arg;
         }
+
+        @Override
+        public boolean isReadThreadSafe() {
+            return arg.isReadThreadSafe();
+        }
     }
 }
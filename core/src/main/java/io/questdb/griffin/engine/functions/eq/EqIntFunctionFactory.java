@@ -70,5 +70,10 @@ public class EqIntFunctionFactory extends AbstractBooleanFunctionFactory impleme
         public Function getRight() {
             return right;
         }
+
+        @Override
+        public boolean isReadThreadSafe() {
+            return left.isReadThreadSafe() && right.isReadThreadSafe();
+        }
     }
 }
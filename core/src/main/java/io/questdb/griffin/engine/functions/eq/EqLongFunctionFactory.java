@@ -70,5 +70,10 @@ public class EqLongFunctionFactory extends AbstractBooleanFunctionFactory implem
         public Function getRight() {
             return right;
         }
+
+        @Override
+        public boolean isReadThreadSafe() {
+            return left.isReadThreadSafe() && right.isReadThreadSafe();
+        }
     }
 }
@@ -36,6 +36,7 @@ import io.questdb.griffin.engine.functions.BinaryFunction;
 import io.questdb.griffin.engine.functions.BooleanFunction;
 import io.questdb.griffin.engine.functions.SymbolFunction;
 import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.columns.SymbolColumn;
 import io.questdb.std.Chars;
 import io.questdb.std.ObjList;
 import io.questdb.std.str.SingleCharCharSequence;
@@ -61,7 +62,9 @@ public class EqSymCharFunctionFactory extends AbstractBooleanFunctionFactory imp
 
         if (chrFunc.isConstant()) {
             final char constValue = chrFunc.getChar(null);
-            if (symFunc.getStaticSymbolTable() != null) {
+            // symbol table of column is only known after init(), rely on metadata to
+            // compare symbol keys instead of strings
+            if (symFunc.getStaticSymbolTable() != null || (symFunc instanceof SymbolColumn && symFunc.isSymbolTableStatic())) {
                 return new ConstCheckColumnFunc(position, symFunc, constValue, isNegated);
             } else {
                 return new ConstCheckFunc(position, symFunc, constValue, isNegated);
@@ -124,6 +127,12 @@ public class EqSymCharFunctionFactory extends AbstractBooleanFunctionFactory imp
             assert symbolTable != null;
             valueIndex = symbolTable.keyOf(SingleCharCharSequence.get(constant));
         }
+
+        @Override
+        public boolean isReadThreadSafe() {
+            // compares symbol keys, value index is resolved once in init()
+            return arg.isReadThreadSafe();
+        }
     }
 
     private static class Func extends BooleanFunction implements BinaryFunction {
@@ -33,6 +33,7 @@ import io.questdb.griffin.engine.functions.BinaryFunction;
 import io.questdb.griffin.engine.functions.BooleanFunction;
 import io.questdb.griffin.engine.functions.SymbolFunction;
 import io.questdb.griffin.engine.functions.UnaryFunction;
+import io.questdb.griffin.engine.functions.columns.SymbolColumn;
 import io.questdb.std.Chars;
 import io.questdb.std.ObjList;
 
@@ -62,7 +63,9 @@ public class EqSymStrFunctionFactory extends AbstractBooleanFunctionFactory impl
     private Function createHalfConstantFunc(int position, Function constFunc, Function varFunc, boolean isNegated) {
         CharSequence constValue = constFunc.getStr(null);
         SymbolFunction func = (SymbolFunction) varFunc;
-        if (func.getStaticSymbolTable() != null) {
+        // symbol table of column is only known after init(), rely on metadata to
+        // compare symbol keys instead of strings
+        if (func.getStaticSymbolTable() != null || (func instanceof SymbolColumn && func.isSymbolTableStatic())) {
             return new ConstCheckColumnFunc(position, func, constValue, isNegated);
         } else {
             if (constValue == null) {
@@ -151,6 +154,12 @@ public class EqSymStrFunctionFactory extends AbstractBooleanFunctionFactory impl
         public boolean isConstant() {
             return valueIndex == SymbolTable.VALUE_NOT_FOUND;
         }
+
+        @Override
+        public boolean isReadThreadSafe() {
+            // compares symbol keys, value index is resolved once in init()
+            return arg.isReadThreadSafe();
+        }
     }
 
     private static class Func extends BooleanFunction implements BinaryFunction {
@@ -96,4 +96,9 @@ public class AvgDoubleGroupByFunction extends DoubleFunction implements GroupByF
     public boolean isConstant() {
         return false;
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return arg.isReadThreadSafe();
+    }
 }
@@ -75,4 +75,9 @@ public class FirstDateGroupByFunction extends DateFunction implements GroupByFun
     public void setNull(MapValue mapValue) {
         mapValue.putTimestamp(this.valueIndex, Numbers.LONG_NaN);
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return this.arg.isReadThreadSafe();
+    }
 }
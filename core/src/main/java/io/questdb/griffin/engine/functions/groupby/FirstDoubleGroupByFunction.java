@@ -78,4 +78,9 @@ public class FirstDoubleGroupByFunction extends DoubleFunction implements GroupB
     public double getDouble(Record rec) {
         return rec.getDouble(this.valueIndex);
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return this.arg.isReadThreadSafe();
+    }
 }
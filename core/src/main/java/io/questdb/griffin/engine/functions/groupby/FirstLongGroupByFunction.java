@@ -79,4 +79,9 @@ public class FirstLongGroupByFunction extends LongFunction implements GroupByFun
     public void setLong(MapValue mapValue, long value) {
         mapValue.putTimestamp(this.valueIndex, value);
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return this.arg.isReadThreadSafe();
+    }
 }
@@ -88,4 +88,9 @@ public class FirstSymbolGroupByFunction extends SymbolFunction implements GroupB
     public CharSequence valueOf(int key) {
         return arg.valueOf(key);
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return this.arg.isReadThreadSafe();
+    }
+}
@@ -78,4 +78,9 @@ public class MaxDateGroupByFunction extends DateFunction implements GroupByFunct
     public long getDate(Record rec) {
         return rec.getDate(valueIndex);
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return arg.isReadThreadSafe();
+    }
 }
@@ -82,4 +82,9 @@ public class MinByteGroupByFunction extends ByteFunction implements GroupByFunct
     public Function getArg() {
         return arg;
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return arg.isReadThreadSafe();
+    }
 }
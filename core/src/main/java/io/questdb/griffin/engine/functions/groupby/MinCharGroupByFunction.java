@@ -77,4 +77,9 @@ public class MinCharGroupByFunction extends CharFunction implements GroupByFunct
     public Function getArg() {
         return arg;
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return arg.isReadThreadSafe();
+    }
 }
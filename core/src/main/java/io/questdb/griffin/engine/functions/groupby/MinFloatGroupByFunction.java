@@ -82,4 +82,9 @@ public class MinFloatGroupByFunction extends FloatFunction implements GroupByFun
     public Function getArg() {
         return arg;
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return arg.isReadThreadSafe();
+    }
 }
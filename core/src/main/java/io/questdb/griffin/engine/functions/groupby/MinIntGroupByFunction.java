@@ -83,4 +83,9 @@ public class MinIntGroupByFunction extends IntFunction implements GroupByFunctio
     public Function getArg() {
         return arg;
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return arg.isReadThreadSafe();
+    }
 }
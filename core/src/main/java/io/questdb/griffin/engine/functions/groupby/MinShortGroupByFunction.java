@@ -82,4 +82,9 @@ public class MinShortGroupByFunction extends ShortFunction implements GroupByFun
     public short getShort(Record rec) {
         return rec.getShort(valueIndex);
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return arg.isReadThreadSafe();
+    }
 }
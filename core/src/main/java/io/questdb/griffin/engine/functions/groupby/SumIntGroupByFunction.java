@@ -98,4 +98,9 @@ public class SumIntGroupByFunction extends LongFunction implements GroupByFuncti
     public boolean isConstant() {
         return false;
     }
+
+    @Override
+    public boolean isReadThreadSafe() {
+        return arg.isReadThreadSafe();
+    }
 }
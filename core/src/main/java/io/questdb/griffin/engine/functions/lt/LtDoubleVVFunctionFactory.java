@@ -72,5 +72,10 @@ public class LtDoubleVVFunctionFactory extends AbstractBooleanFunctionFactory im
         public Function getRight() {
             return right;
         }
+
+        @Override
+        public boolean isReadThreadSafe() {
+            return left.isReadThreadSafe() && right.isReadThreadSafe();
+        }
     }
 }
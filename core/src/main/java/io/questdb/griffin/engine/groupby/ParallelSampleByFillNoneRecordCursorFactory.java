@@ -0,0 +1,166 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.MapFactory;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.ObjectFactory;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * SAMPLE BY without fill, which aggregates page frames of the base factory on worker threads.
+ * Group by functions and filter must be read thread-safe, see {@link Function#isReadThreadSafe()}.
+ * Factory is also used without worker threads to cache samples, see {@link SampleByCache}.
+ */
+public class ParallelSampleByFillNoneRecordCursorFactory implements RecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final Function filter;
+    private final ObjList<SampleByEntry> entries = new ObjList<>();
+    private final ParallelSampleByRecordCursor cursor;
+    private final ObjList<Function> recordFunctions;
+    private final RecordMetadata metadata;
+
+    public ParallelSampleByFillNoneRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordCursorFactory base,
+            // rows of base page frames that do not pass the filter are excluded from aggregation
+            @Nullable Function filter,
+            RecordMetadata groupByMetadata,
+            @NotNull ObjList<GroupByFunction> groupByFunctions,
+            @NotNull ObjList<Function> recordFunctions,
+            @NotNull TimestampSampler timestampSampler,
+            @Transient @NotNull ListColumnFilter listColumnFilter,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull ArrayColumnTypes keyTypes,
+            @Transient @NotNull ArrayColumnTypes valueTypes,
+            int timestampIndex,
+            boolean parallel,
+            // key of cached samples, null when samples are not cached
+            @Nullable String cacheKey
+    ) {
+        this.base = base;
+        this.filter = filter;
+        this.metadata = groupByMetadata;
+        this.recordFunctions = recordFunctions;
+
+        final RecordMetadata baseMetadata = base.getMetadata();
+        final RecordSink keySink = RecordSinkFactory.getInstance(asm, baseMetadata, listColumnFilter, false);
+        // sample is the last key, it does not shift key column indexes of record functions
+        final ArrayColumnTypes mapKeyTypes = new ArrayColumnTypes();
+        for (int i = 0, n = keyTypes.getColumnCount(); i < n; i++) {
+            mapKeyTypes.add(keyTypes.getColumnType(i));
+        }
+        mapKeyTypes.add(ColumnType.LONG);
+        final ArrayColumnTypes mapValueTypes = new ArrayColumnTypes();
+        for (int i = 0, n = valueTypes.getColumnCount(); i < n; i++) {
+            mapValueTypes.add(valueTypes.getColumnType(i));
+        }
+
+        final ObjectFactory<SampleByCacheEntry> cacheEntryFactory;
+        if (cacheKey != null) {
+            // cached rows have the layout of map records, values followed by keys
+            final ArrayColumnTypes cacheColumnTypes = new ArrayColumnTypes();
+            for (int i = 0, n = mapValueTypes.getColumnCount(); i < n; i++) {
+                cacheColumnTypes.add(mapValueTypes.getColumnType(i));
+            }
+            for (int i = 0, n = mapKeyTypes.getColumnCount(); i < n; i++) {
+                cacheColumnTypes.add(mapKeyTypes.getColumnType(i));
+            }
+            final EntityColumnFilter cacheColumnFilter = new EntityColumnFilter();
+            cacheColumnFilter.of(cacheColumnTypes.getColumnCount());
+            final RecordSink cacheSink = RecordSinkFactory.getInstance(asm, cacheColumnTypes, cacheColumnFilter, false);
+            cacheEntryFactory = () -> new SampleByCacheEntry(configuration, cacheColumnTypes, cacheSink);
+        } else {
+            cacheEntryFactory = null;
+        }
+
+        final int columnCount = baseMetadata.getColumnCount();
+        this.cursor = new ParallelSampleByRecordCursor(
+                entries,
+                () -> new SampleByEntry(
+                        MapFactory.createMap(configuration, mapKeyTypes, mapValueTypes),
+                        keySink,
+                        groupByFunctions,
+                        timestampSampler,
+                        timestampIndex,
+                        columnCount
+                ),
+                recordFunctions,
+                timestampSampler,
+                timestampIndex,
+                columnCount,
+                configuration.getSqlParallelSampleByTaskRows(),
+                parallel,
+                cacheKey,
+                cacheEntryFactory
+        );
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(recordFunctions);
+        Misc.freeObjList(entries);
+        Misc.free(filter);
+        Misc.free(base);
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        final PageFrameCursor pageFrameCursor = base.getPageFrameCursor(executionContext);
+        try {
+            cursor.of(pageFrameCursor, filter, executionContext);
+            if (filter != null) {
+                filter.init(pageFrameCursor, executionContext);
+            }
+            // init all record function for this cursor, in case functions require metadata and/or symbol tables
+            for (int i = 0, m = recordFunctions.size(); i < m; i++) {
+                recordFunctions.getQuick(i).init(pageFrameCursor, executionContext);
+            }
+            return cursor;
+        } catch (CairoException ex) {
+            cursor.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+}
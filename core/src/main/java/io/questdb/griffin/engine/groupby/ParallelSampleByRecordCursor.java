@@ -0,0 +1,419 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.functions.columns.TimestampColumn;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.ObjectFactory;
+import io.questdb.std.Unsafe;
+import io.questdb.tasks.SampleByTask;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Cuts page frames into tasks of at least "taskRows" rows, which end on sample boundary.
+ * Tasks are published in batches, each task is aggregated by worker thread into its own map
+ * and maps are returned in the order of tasks. Samples do not span tasks, which is why
+ * there is nothing to merge.
+ * <p>
+ * When samples are cached, table rows of each sample are found upfront and compared to rows of
+ * cached samples. First run of unchanged samples is returned from the cache, rows before and after
+ * it are aggregated as usual.
+ */
+class ParallelSampleByRecordCursor implements NoRandomAccessRecordCursor {
+    // rows before cached samples
+    private static final int STATE_HEAD = 0;
+    private static final int STATE_CACHED = 1;
+    // rows after cached samples
+    private static final int STATE_TAIL = 2;
+    private final ObjList<SampleByEntry> entries;
+    private final ObjectFactory<SampleByEntry> entryFactory;
+    private final ObjList<Function> recordFunctions;
+    private final VirtualRecord record;
+    private final TimestampSampler timestampSampler;
+    private final int timestampIndex;
+    private final long taskRows;
+    private final long[] frameAddresses;
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final boolean parallel;
+    private final CharSequence cacheKey;
+    private final ObjectFactory<SampleByCacheEntry> cacheEntryFactory;
+    private SampleByCache cache;
+    private SampleByCacheEntry cacheEntry;
+    private long cacheGeneration;
+    private int state;
+    private int cachedSampleIndex;
+    // timestamps of the first cached sample and of the sample after the last one
+    private long cachedTimestampLo;
+    private long cachedTimestampHi;
+    // tasks skip rows before "timestampLo" and end before "timestampHi"
+    private long timestampLo;
+    private long timestampHi;
+    private PageFrameCursor pageFrameCursor;
+    private Function filter;
+    private SqlExecutionInterruptor interruptor;
+    private RingQueue<SampleByTask> queue;
+    private Sequence pubSeq;
+    private RecordCursor mapCursor;
+    private int maxBatchSize;
+    private int batchSize;
+    private int entryIndex;
+    private int sequence;
+    private long frameRowLo;
+    private long frameRowHi;
+
+    ParallelSampleByRecordCursor(
+            ObjList<SampleByEntry> entries,
+            ObjectFactory<SampleByEntry> entryFactory,
+            ObjList<Function> recordFunctions,
+            TimestampSampler timestampSampler,
+            int timestampIndex,
+            int columnCount,
+            long taskRows,
+            boolean parallel,
+            // samples are cached under this key, null when they are not
+            @Nullable CharSequence cacheKey,
+            @Nullable ObjectFactory<SampleByCacheEntry> cacheEntryFactory
+    ) {
+        this.entries = entries;
+        this.entryFactory = entryFactory;
+        for (int i = 0, n = recordFunctions.size(); i < n; i++) {
+            if (recordFunctions.getQuick(i) == null) {
+                // sample timestamp is the first map value
+                recordFunctions.setQuick(i, new TimestampColumn(0, 0));
+            }
+        }
+        this.recordFunctions = recordFunctions;
+        this.record = new VirtualRecordNoRowid(recordFunctions);
+        this.timestampSampler = timestampSampler;
+        this.timestampIndex = timestampIndex;
+        this.taskRows = taskRows;
+        this.frameAddresses = new long[columnCount];
+        this.parallel = parallel;
+        this.cacheKey = cacheKey;
+        this.cacheEntryFactory = cacheEntryFactory;
+    }
+
+    @Override
+    public void close() {
+        if (cacheEntry != null) {
+            // samples are replaced only when cursor was read to the end
+            if (cacheEntry.update()) {
+                cache.put(cacheKey, cacheEntry, cacheGeneration);
+            } else {
+                Misc.free(cacheEntry);
+            }
+            cacheEntry = null;
+        }
+        pageFrameCursor = Misc.free(pageFrameCursor);
+        interruptor = null;
+    }
+
+    @Override
+    public Record getRecord() {
+        return record;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return (SymbolTable) recordFunctions.getQuick(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            if (mapCursor != null && mapCursor.hasNext()) {
+                if (cacheEntry != null) {
+                    cacheEntry.put(mapCursor.getRecord());
+                }
+                return true;
+            }
+
+            if (entryIndex + 1 < batchSize) {
+                entryIndex++;
+            } else if (state == STATE_CACHED && cachedSampleIndex < cacheEntry.getReuseHi()) {
+                mapCursor = cacheEntry.replay(cachedSampleIndex++);
+                record.of(mapCursor.getRecord());
+                continue;
+            } else {
+                if (state == STATE_CACHED) {
+                    state = STATE_TAIL;
+                    timestampLo = cachedTimestampHi;
+                    timestampHi = Long.MAX_VALUE;
+                }
+
+                if (!dispatchBatch()) {
+                    if (state == STATE_HEAD && cachedTimestampLo != Long.MAX_VALUE) {
+                        state = STATE_CACHED;
+                        cachedSampleIndex = cacheEntry.getReuseLo();
+                        continue;
+                    }
+                    mapCursor = null;
+                    if (cacheEntry != null) {
+                        cacheEntry.setComplete();
+                    }
+                    return false;
+                }
+                entryIndex = 0;
+            }
+            mapCursor = entries.getQuick(entryIndex).getMap().getCursor();
+            record.of(mapCursor.getRecord());
+        }
+    }
+
+    @Override
+    public void toTop() {
+        GroupByUtils.toTop(recordFunctions);
+        if (filter != null) {
+            filter.toTop();
+        }
+        pageFrameCursor.toTop();
+        if (cacheEntry != null) {
+            cacheEntry.rewind();
+        }
+        toHead();
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    void of(PageFrameCursor pageFrameCursor, Function filter, SqlExecutionContext executionContext) {
+        this.pageFrameCursor = pageFrameCursor;
+        this.filter = filter;
+        this.interruptor = executionContext.getSqlExecutionInterruptor();
+        final MessageBus bus = executionContext.getMessageBus();
+        if (parallel && bus != null) {
+            this.queue = bus.getSampleByQueue();
+            this.pubSeq = bus.getSampleByPubSequence();
+        } else {
+            this.queue = null;
+            this.pubSeq = null;
+        }
+        // keep workers busy while limiting number of maps held in memory
+        this.maxBatchSize = Math.max(1, executionContext.getWorkerCount()) * 2;
+
+        cachedTimestampLo = cachedTimestampHi = Long.MAX_VALUE;
+        if (cacheKey != null) {
+            cache = executionContext.getCairoEngine().getSampleByCache();
+            cacheGeneration = cache.getGeneration();
+            cacheEntry = cache.poll(cacheKey);
+            if (cacheEntry == null) {
+                cacheEntry = cacheEntryFactory.newInstance();
+            }
+            cacheEntry.of(pageFrameCursor.getTableReader());
+            scanSamples();
+            pageFrameCursor.toTop();
+            if (cacheEntry.findReusableSamples()) {
+                cachedTimestampLo = cacheEntry.getSampleTimestamp(cacheEntry.getReuseLo());
+                cachedTimestampHi = timestampSampler.nextTimestamp(cacheEntry.getSampleTimestamp(cacheEntry.getReuseHi() - 1));
+            }
+        }
+        toHead();
+    }
+
+    // finds first row in [lo, hi) with timestamp not less than "timestamp"
+    private static long searchTimestamp(long address, long lo, long hi, long timestamp) {
+        while (lo < hi) {
+            final long mid = (lo + hi) >>> 1;
+            if (Unsafe.getUnsafe().getLong(address + (mid << 3)) < timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private boolean dispatchBatch() {
+        doneLatch.reset();
+        int count = 0;
+        try {
+            while (count < maxBatchSize && nextTask(count)) {
+                final SampleByEntry entry = entries.getQuick(count++);
+                final long seq = pubSeq != null ? pubSeq.next() : -1;
+                if (seq < 0) {
+                    // queue is full or there is no worker pool, aggregate on this thread
+                    entry.run();
+                } else {
+                    queue.get(seq).entry = entry;
+                    pubSeq.done(seq);
+                }
+                interruptor.checkInterrupted();
+            }
+        } catch (Throwable e) {
+            // workers may still be reading pages, entries they did not pick up yet are dropped
+            for (int i = 0; i < count; i++) {
+                entries.getQuick(i).cancel();
+            }
+            doneLatch.await(count);
+            batchSize = 0;
+            throw e;
+        }
+        batchSize = count;
+
+        // start at the back to reduce chance of clashing with workers
+        for (int i = count - 1; i > -1 && doneLatch.getCount() > -count; i--) {
+            entries.getQuick(i).run();
+        }
+        doneLatch.await(count);
+
+        for (int i = 0; i < count; i++) {
+            final SampleByEntry entry = entries.getQuick(i);
+            if (entry.isFailed()) {
+                batchSize = 0;
+                throw CairoException.instance(0).put(entry.getError());
+            }
+        }
+        return count > 0;
+    }
+
+    private long getFrameTimestamp(long row) {
+        return Unsafe.getUnsafe().getLong(frameAddresses[timestampIndex] + (row << 3));
+    }
+
+    private boolean nextFrame() {
+        final PageFrame frame = pageFrameCursor.next();
+        if (frame == null) {
+            return false;
+        }
+        for (int i = 0, n = frameAddresses.length; i < n; i++) {
+            frameAddresses[i] = frame.getPageAddress(i);
+        }
+        frameRowLo = 0;
+        frameRowHi = frame.getPageValueCount(timestampIndex);
+        return true;
+    }
+
+    private boolean nextTask(int index) {
+        if (index == entries.size()) {
+            entries.add(entryFactory.newInstance());
+        }
+        final SampleByEntry entry = entries.getQuick(index);
+        // entry stays locked until "of()", worker might still have it on the queue from previous batch
+        entry.clear();
+
+        long rows = 0;
+        // once task has enough rows it continues up to first row of the next sample
+        long sampleHi = Long.MIN_VALUE;
+        while (true) {
+            if (frameRowLo >= frameRowHi && !nextFrame()) {
+                break;
+            }
+
+            if (getFrameTimestamp(frameRowLo) < timestampLo) {
+                // rows of cached samples
+                frameRowLo = searchTimestamp(frameAddresses[timestampIndex], frameRowLo, frameRowHi, timestampLo);
+                continue;
+            }
+
+            final long rowLimit;
+            if (getFrameTimestamp(frameRowHi - 1) < timestampHi) {
+                rowLimit = frameRowHi;
+            } else {
+                rowLimit = searchTimestamp(frameAddresses[timestampIndex], frameRowLo, frameRowHi, timestampHi);
+                if (rowLimit == frameRowLo) {
+                    // cached samples are next
+                    break;
+                }
+            }
+
+            final long hi;
+            if (sampleHi == Long.MIN_VALUE) {
+                hi = Math.min(rowLimit, frameRowLo + taskRows - rows);
+            } else {
+                hi = searchTimestamp(frameAddresses[timestampIndex], frameRowLo, rowLimit, sampleHi);
+            }
+
+            if (hi > frameRowLo) {
+                entry.addSegment(frameAddresses, frameRowLo, hi);
+                rows += hi - frameRowLo;
+                frameRowLo = hi;
+            }
+
+            if (sampleHi != Long.MIN_VALUE) {
+                if (frameRowLo < frameRowHi) {
+                    break;
+                }
+            } else if (rows >= taskRows) {
+                sampleHi = timestampSampler.nextTimestamp(timestampSampler.round(getFrameTimestamp(frameRowLo - 1)));
+            }
+        }
+
+        if (rows > 0) {
+            entry.of(sequence++, filter, doneLatch);
+            return true;
+        }
+        return false;
+    }
+
+    // finds table rows of each sample, samples of the cache entry are compared to them
+    private void scanSamples() {
+        long sampleHi = Long.MIN_VALUE;
+        PageFrame frame;
+        while ((frame = pageFrameCursor.next()) != null) {
+            interruptor.checkInterrupted();
+            final long address = frame.getPageAddress(timestampIndex);
+            final long rowCount = frame.getPageValueCount(timestampIndex);
+            final int partitionIndex = frame.getPartitionIndex();
+            final long partitionRowLo = frame.getRowLo();
+            long lo = 0;
+            while (lo < rowCount) {
+                final long timestamp = Unsafe.getUnsafe().getLong(address + (lo << 3));
+                if (timestamp >= sampleHi) {
+                    final long sample = timestampSampler.round(timestamp);
+                    if (!cacheEntry.addSample(sample)) {
+                        // too many samples to cache
+                        return;
+                    }
+                    sampleHi = timestampSampler.nextTimestamp(sample);
+                }
+                final long hi = searchTimestamp(address, lo, rowCount, sampleHi);
+                cacheEntry.addSegment(partitionIndex, partitionRowLo + lo, partitionRowLo + hi);
+                lo = hi;
+            }
+        }
+    }
+
+    private void toHead() {
+        state = STATE_HEAD;
+        timestampLo = Long.MIN_VALUE;
+        timestampHi = cachedTimestampLo;
+        frameRowLo = frameRowHi = 0;
+        batchSize = 0;
+        entryIndex = 0;
+        mapCursor = null;
+    }
+}
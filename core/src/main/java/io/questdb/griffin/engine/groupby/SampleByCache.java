@@ -0,0 +1,74 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.std.AssociativeCache;
+import io.questdb.std.Misc;
+
+import java.io.Closeable;
+
+/**
+ * Samples of repeated SAMPLE BY queries shared by all connections of the engine. Entry is taken
+ * out of the cache for the duration of the query and is put back when cursor is closed, concurrent
+ * executions of the same query compute their samples from scratch. Cache is cleared when tables
+ * are dropped or renamed, entries taken out before that are discarded when they are put back.
+ */
+public class SampleByCache implements Closeable {
+    private final AssociativeCache<SampleByCacheEntry> cache;
+    private long generation;
+
+    public SampleByCache(int capacity) {
+        // least recently added of 4 entries sharing hash bucket is evicted
+        this.cache = new AssociativeCache<>(4, Math.max(1, capacity / 4));
+    }
+
+    public synchronized void clear() {
+        generation++;
+        cache.clear();
+    }
+
+    @Override
+    public synchronized void close() {
+        cache.close();
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    public synchronized SampleByCacheEntry poll(CharSequence key) {
+        return cache.poll(key);
+    }
+
+    public synchronized void put(CharSequence key, SampleByCacheEntry entry, long generation) {
+        if (generation != this.generation) {
+            Misc.free(entry);
+            return;
+        }
+        // concurrent execution of the same query could have put its entry back first
+        Misc.free(cache.poll(key));
+        cache.put(key, entry);
+    }
+}
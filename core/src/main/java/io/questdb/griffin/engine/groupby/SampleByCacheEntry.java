@@ -0,0 +1,344 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordChain;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.Mutable;
+
+import java.io.Closeable;
+
+/**
+ * Result rows of complete samples of one SAMPLE BY query, each sample is accompanied by
+ * table rows it was computed from. Sample can be reused by the next execution when it covers
+ * exactly the same rows of the same table version. Rows the current execution returns are
+ * collected into the next generation of samples, which replaces cached samples once cursor
+ * is read to the end.
+ */
+public class SampleByCacheEntry implements Closeable {
+    private final long maxRows;
+    private Samples samples;
+    private Samples nextSamples;
+    private long structureVersion = -1;
+    private long dataVersion = -1;
+    private long partitionTableVersion = -1;
+    // reused samples, first index is inclusive, last is exclusive
+    private int reuseLo;
+    private int reuseHi;
+    private int lastSampleIndex;
+    private boolean overflow;
+    private boolean complete;
+
+    SampleByCacheEntry(CairoConfiguration configuration, ColumnTypes columnTypes, RecordSink recordSink) {
+        this.samples = new Samples(configuration, columnTypes, recordSink);
+        this.nextSamples = new Samples(configuration, columnTypes, recordSink);
+        this.maxRows = configuration.getSqlSampleByCacheMaxRows();
+    }
+
+    @Override
+    public void close() {
+        Misc.free(samples);
+        Misc.free(nextSamples);
+    }
+
+    // adds sample to the next generation, returns false when there are too many samples to cache
+    boolean addSample(long timestamp) {
+        if (overflow || nextSamples.size() >= maxRows) {
+            overflow = true;
+            return false;
+        }
+        nextSamples.addSample(timestamp);
+        return true;
+    }
+
+    // adds table rows to the last sample of the next generation, rowHi is exclusive
+    void addSegment(int partitionIndex, long rowLo, long rowHi) {
+        nextSamples.addSegment(partitionIndex, rowLo, rowHi);
+    }
+
+    /**
+     * Finds first run of consecutive samples, which have not changed since they were cached.
+     *
+     * @return true when there are samples to reuse
+     */
+    boolean findReusableSamples() {
+        reuseLo = reuseHi = 0;
+        if (overflow) {
+            return false;
+        }
+
+        int hi = -1;
+        for (int i = 0, n = nextSamples.size(); i < n; i++) {
+            final int index = samples.indexOf(nextSamples.getTimestamp(i));
+            if (index > -1 && samples.hasSameRows(index, nextSamples, i)) {
+                if (hi == -1) {
+                    reuseLo = index;
+                } else if (hi != index) {
+                    break;
+                }
+                hi = index + 1;
+            } else if (hi != -1) {
+                break;
+            }
+        }
+
+        if (hi != -1) {
+            reuseHi = hi;
+            return true;
+        }
+        return false;
+    }
+
+    int getReuseHi() {
+        return reuseHi;
+    }
+
+    int getReuseLo() {
+        return reuseLo;
+    }
+
+    long getSampleTimestamp(int index) {
+        return samples.getTimestamp(index);
+    }
+
+    boolean isOverflow() {
+        return overflow;
+    }
+
+    // discards cached samples unless they were computed from the same table version
+    void of(TableReader reader) {
+        if (reader.getVersion() != structureVersion
+                || reader.getDataVersion() != dataVersion
+                || reader.getPartitionTableVersion() != partitionTableVersion) {
+            samples.clear();
+            structureVersion = reader.getVersion();
+            dataVersion = reader.getDataVersion();
+            partitionTableVersion = reader.getPartitionTableVersion();
+        }
+        nextSamples.clear();
+        reuseLo = reuseHi = 0;
+        lastSampleIndex = 0;
+        overflow = false;
+        complete = false;
+    }
+
+    // copies result row into its sample of the next generation
+    void put(Record record) {
+        if (overflow) {
+            return;
+        }
+
+        final long timestamp = record.getTimestamp(0);
+        int index = lastSampleIndex;
+        if (index >= nextSamples.size() || nextSamples.getTimestamp(index) != timestamp) {
+            index = nextSamples.indexOf(timestamp);
+            if (index < 0) {
+                // row is not from the scanned samples, next generation would be incomplete
+                overflow = true;
+                return;
+            }
+            lastSampleIndex = index;
+        }
+
+        if (nextSamples.getRowCount() >= maxRows) {
+            overflow = true;
+            return;
+        }
+        nextSamples.put(index, record);
+    }
+
+    // positions cursor at the first row of cached sample
+    RecordCursor replay(int index) {
+        return samples.replay(index);
+    }
+
+    // cursor is about to return all rows again
+    void rewind() {
+        nextSamples.clearRows();
+        lastSampleIndex = 0;
+        complete = false;
+    }
+
+    // cursor has returned all rows
+    void setComplete() {
+        complete = true;
+    }
+
+    /**
+     * Makes next generation of samples current when cursor was read to the end.
+     *
+     * @return false when the entry has nothing to cache
+     */
+    boolean update() {
+        if (complete && !overflow) {
+            final Samples tmp = samples;
+            samples = nextSamples;
+            nextSamples = tmp;
+        }
+        nextSamples.clear();
+        return samples.size() > 0;
+    }
+
+    private static class Samples implements Closeable, Mutable {
+        private static final int SAMPLE_TIMESTAMP = 0;
+        private static final int SAMPLE_FIRST_ROW = 1;
+        private static final int SAMPLE_LAST_ROW = 2;
+        private static final int SAMPLE_SEGMENT_LO = 3;
+        private static final int SAMPLE_SEGMENT_HI = 4;
+        private static final int SAMPLE_SIZE = 5;
+        private static final int SEGMENT_SIZE = 3;
+        private final RecordChain chain;
+        // sample timestamp, first and last row offset in the chain, segment range, per sample
+        private final LongList samples = new LongList();
+        // partition index, row lo and row hi (exclusive) of table rows, per segment
+        private final LongList segments = new LongList();
+        private long rowCount;
+
+        private Samples(CairoConfiguration configuration, ColumnTypes columnTypes, RecordSink recordSink) {
+            this.chain = new RecordChain(
+                    columnTypes,
+                    recordSink,
+                    configuration.getSqlMapPageSize(),
+                    configuration.getSqlMapMaxPages()
+            );
+        }
+
+        @Override
+        public void clear() {
+            clearRows();
+            samples.clear();
+            segments.clear();
+        }
+
+        @Override
+        public void close() {
+            chain.close();
+        }
+
+        private void addSample(long timestamp) {
+            samples.add(timestamp);
+            samples.add(-1);
+            samples.add(-1);
+            samples.add(segments.size() / SEGMENT_SIZE);
+            samples.add(segments.size() / SEGMENT_SIZE);
+        }
+
+        private void addSegment(int partitionIndex, long rowLo, long rowHi) {
+            final int sample = samples.size() - SAMPLE_SIZE;
+            final long segmentLo = samples.getQuick(sample + SAMPLE_SEGMENT_LO);
+            final long segmentHi = samples.getQuick(sample + SAMPLE_SEGMENT_HI);
+            if (segmentHi > segmentLo) {
+                // page frames of one partition are merged, frame size depends on memory pages
+                final int last = segments.size() - SEGMENT_SIZE;
+                if (segments.getQuick(last) == partitionIndex && segments.getQuick(last + 2) == rowLo) {
+                    segments.setQuick(last + 2, rowHi);
+                    return;
+                }
+            }
+            segments.add(partitionIndex);
+            segments.add(rowLo);
+            segments.add(rowHi);
+            samples.setQuick(sample + SAMPLE_SEGMENT_HI, segmentHi + 1);
+        }
+
+        private void clearRows() {
+            chain.clear();
+            for (int i = 0, n = samples.size(); i < n; i += SAMPLE_SIZE) {
+                samples.setQuick(i + SAMPLE_FIRST_ROW, -1);
+                samples.setQuick(i + SAMPLE_LAST_ROW, -1);
+            }
+            rowCount = 0;
+        }
+
+        private long getRowCount() {
+            return rowCount;
+        }
+
+        private long getTimestamp(int index) {
+            return samples.getQuick(index * SAMPLE_SIZE + SAMPLE_TIMESTAMP);
+        }
+
+        private boolean hasSameRows(int index, Samples other, int otherIndex) {
+            final int lo = (int) samples.getQuick(index * SAMPLE_SIZE + SAMPLE_SEGMENT_LO) * SEGMENT_SIZE;
+            final int hi = (int) samples.getQuick(index * SAMPLE_SIZE + SAMPLE_SEGMENT_HI) * SEGMENT_SIZE;
+            final int otherLo = (int) other.samples.getQuick(otherIndex * SAMPLE_SIZE + SAMPLE_SEGMENT_LO) * SEGMENT_SIZE;
+            final int otherHi = (int) other.samples.getQuick(otherIndex * SAMPLE_SIZE + SAMPLE_SEGMENT_HI) * SEGMENT_SIZE;
+            if (hi - lo != otherHi - otherLo) {
+                return false;
+            }
+            for (int i = lo, j = otherLo; i < hi; i++, j++) {
+                if (segments.getQuick(i) != other.segments.getQuick(j)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // samples are in timestamp order
+        private int indexOf(long timestamp) {
+            int lo = 0;
+            int hi = size() - 1;
+            while (lo <= hi) {
+                final int mid = (lo + hi) >>> 1;
+                final long midTimestamp = getTimestamp(mid);
+                if (midTimestamp < timestamp) {
+                    lo = mid + 1;
+                } else if (midTimestamp > timestamp) {
+                    hi = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        private void put(int index, Record record) {
+            final int sample = index * SAMPLE_SIZE;
+            final long offset = chain.put(record, samples.getQuick(sample + SAMPLE_LAST_ROW));
+            if (samples.getQuick(sample + SAMPLE_FIRST_ROW) == -1) {
+                samples.setQuick(sample + SAMPLE_FIRST_ROW, offset);
+            }
+            samples.setQuick(sample + SAMPLE_LAST_ROW, offset);
+            rowCount++;
+        }
+
+        private RecordCursor replay(int index) {
+            // rows of each sample are linked together
+            chain.of(samples.getQuick(index * SAMPLE_SIZE + SAMPLE_FIRST_ROW));
+            return chain;
+        }
+
+        private int size() {
+            return samples.size() / SAMPLE_SIZE;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.Map;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.engine.functions.GroupByFunction;
+import io.questdb.griffin.engine.table.PageFrameFilterRecord;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Range of table rows aggregated by single worker. Range is made of page frame segments and
+ * starts and ends on sample boundaries, so that samples in the map are complete. Map key is
+ * group by key followed by scrambled sample timestamp, first map value is sample timestamp.
+ */
+public class SampleByEntry implements Mutable, Closeable {
+
+    private static final long TARGET_SEQUENCE_OFFSET;
+    // map hash drops upper half of each 8-byte word of the key, odd multiplier
+    // spreads sample timestamp over both halves without making keys collide
+    private static final long SAMPLE_KEY_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    static {
+        TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(SampleByEntry.class, "targetSequence");
+    }
+
+    private final Map map;
+    private final RecordSink keySink;
+    private final ObjList<GroupByFunction> groupByFunctions;
+    private final TimestampSampler timestampSampler;
+    private final int timestampIndex;
+    private final int columnCount;
+    private final ObjList<PageFrameFilterRecord> segmentRecords = new ObjList<>();
+    // row lo and row hi pairs, one per segment
+    private final LongList segmentRows = new LongList();
+    private final StringSink error = new StringSink();
+    private int segmentCount;
+    private boolean failed;
+    private Function filter;
+    private int srcSequence;
+    // to "lock" the entry thread must successfully CAS targetSequence form "srcSequence" value
+    // to "srcSequence+1". Executing thread must not be changing value of "srcSequence"
+    @SuppressWarnings({"FieldCanBeLocal", "unused"})
+    private int targetSequence;
+    private CountDownLatchSPI doneLatch;
+
+    SampleByEntry(
+            Map map,
+            RecordSink keySink,
+            ObjList<GroupByFunction> groupByFunctions,
+            TimestampSampler timestampSampler,
+            int timestampIndex,
+            int columnCount
+    ) {
+        this.map = map;
+        this.keySink = keySink;
+        this.groupByFunctions = groupByFunctions;
+        this.timestampSampler = timestampSampler;
+        this.timestampIndex = timestampIndex;
+        this.columnCount = columnCount;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        segmentRows.clear();
+        segmentCount = 0;
+        failed = false;
+        filter = null;
+    }
+
+    @Override
+    public void close() {
+        Misc.free(map);
+    }
+
+    public boolean run() {
+        if (tryLock()) {
+            try {
+                aggregate();
+            } catch (Throwable e) {
+                // exceptions are thread local, owner thread reports the message
+                error.clear();
+                error.put(e.getMessage());
+                failed = true;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean tryLock() {
+        return Unsafe.cas(this, TARGET_SEQUENCE_OFFSET, srcSequence, srcSequence + 1);
+    }
+
+    void addSegment(long[] pageAddresses, long rowLo, long rowHi) {
+        if (segmentCount == segmentRecords.size()) {
+            segmentRecords.add(new PageFrameFilterRecord(columnCount));
+        }
+        final PageFrameFilterRecord record = segmentRecords.getQuick(segmentCount++);
+        for (int i = 0; i < columnCount; i++) {
+            record.setPageAddress(i, pageAddresses[i]);
+        }
+        segmentRows.add(rowLo);
+        segmentRows.add(rowHi);
+    }
+
+    // releases entry nobody has started working on yet
+    void cancel() {
+        if (tryLock()) {
+            doneLatch.countDown();
+        }
+    }
+
+    CharSequence getError() {
+        return error;
+    }
+
+    Map getMap() {
+        return map;
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    // entry must be cleared and have its segments added before this call, which unlocks it
+    void of(int sequence, Function filter, CountDownLatchSPI doneLatch) {
+        this.filter = filter;
+        this.doneLatch = doneLatch;
+        this.srcSequence = sequence;
+        this.targetSequence = sequence;
+    }
+
+    private void aggregate() {
+        final int n = groupByFunctions.size();
+        for (int i = 0; i < segmentCount; i++) {
+            final PageFrameFilterRecord record = segmentRecords.getQuick(i);
+            final long rowHi = segmentRows.getQuick(2 * i + 1);
+            for (long r = segmentRows.getQuick(2 * i); r < rowHi; r++) {
+                record.setRow(r);
+                if (filter == null || filter.getBool(record)) {
+                    final long timestamp = timestampSampler.round(record.getTimestamp(timestampIndex));
+                    final MapKey key = map.withKey();
+                    keySink.copy(record, key);
+                    key.putLong(timestamp * SAMPLE_KEY_MULTIPLIER);
+                    final MapValue value = key.createValue();
+                    if (value.isNew()) {
+                        value.putTimestamp(0, timestamp);
+                        GroupByUtils.updateNew(groupByFunctions, n, value, record);
+                    } else {
+                        GroupByUtils.updateExisting(groupByFunctions, n, value, record);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -99,10 +99,11 @@ public class AvgDoubleVectorAggregateFunction extends DoubleFunction implements
     @Override
     public void aggregate(long address, long count, int workerId) {
         if (address != 0) {
-            double value = Vect.avgDouble(address, count);
+            // frames and their slices differ in size, sum and non-null count add up across them
+            final double value = Vect.sumDouble(address, count);
             if (value == value) {
                 sum.add(value);
-                this.count.increment();
+                this.count.add(Vect.countDouble(address, count));
             }
         }
     }
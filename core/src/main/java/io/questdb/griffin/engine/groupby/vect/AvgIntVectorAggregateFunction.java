@@ -28,6 +28,7 @@ import io.questdb.cairo.ArrayColumnTypes;
 import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.sql.Record;
 import io.questdb.griffin.engine.functions.DoubleFunction;
+import io.questdb.std.Numbers;
 import io.questdb.std.Rosti;
 import io.questdb.std.Unsafe;
 import io.questdb.std.Vect;
@@ -100,10 +101,11 @@ public class AvgIntVectorAggregateFunction extends DoubleFunction implements Vec
     @Override
     public void aggregate(long address, long count, int workerId) {
         if (address != 0) {
-            final double value = Vect.avgInt(address, count);
-            if (value == value) {
+            // frames and their slices differ in size, sum and non-null count add up across them
+            final long value = Vect.sumInt(address, count);
+            if (value != Numbers.LONG_NaN) {
                 sum.add(value);
-                this.count.increment();
+                this.count.add(Vect.countInt(address, count));
             }
         }
     }
@@ -0,0 +1,295 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.cairo.sql.PageFrameCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.griffin.engine.table.PageFrameFilterRecord;
+import io.questdb.log.Log;
+import io.questdb.log.LogFactory;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.*;
+import io.questdb.tasks.VectorAggregateTask;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.util.Arrays;
+
+/**
+ * Feeds vector aggregate functions with rows of page frame that pass the filter. Filter is evaluated
+ * row by row, key and values of passing rows are compacted into per-worker scratch buffers, which are then
+ * handed over to the same native kernels unfiltered frames go to. Filter must be read thread-safe.
+ * Frames larger than task row count are sliced, so that single large frame is shared by workers.
+ */
+class FilteredVectorAggregator implements Closeable {
+    private static final Log LOG = LogFactory.getLog(FilteredVectorAggregator.class);
+    private static final int BATCH_ROWS = 16 * 1024;
+    private static final long BATCH_SIZE = BATCH_ROWS * Long.BYTES;
+    private final Function filter;
+    private final ObjList<VectorAggregateFunction> vafList;
+    private final int columnCount;
+    private final int keyColumnIndex;
+    private final int keyShift;
+    private final int[] columnShifts;
+    private final int taskRows;
+    // distinct columns aggregate functions take their values from
+    private final IntList valueColumnIndexes = new IntList();
+    private final IntList valueColumnShifts = new IntList();
+    // position of aggregate function value column in the above list
+    private final IntList vafValueSlots = new IntList();
+    private final PageFrameFilterRecord[] records;
+    private final long[][] frameAddresses;
+    private final long[] scratch;
+    private final long scratchSize;
+    // count of rows that passed the filter, per worker
+    private final long[] rowCounts;
+
+    FilteredVectorAggregator(
+            Function filter,
+            RecordMetadata metadata,
+            @Transient ObjList<VectorAggregateFunction> vafList,
+            int keyColumnIndex,
+            int taskRows,
+            int workerCount
+    ) {
+        this.filter = filter;
+        this.vafList = new ObjList<>(vafList.size());
+        this.vafList.addAll(vafList);
+        this.columnCount = metadata.getColumnCount();
+        this.keyColumnIndex = keyColumnIndex;
+        this.keyShift = keyColumnIndex > -1 ? ColumnType.pow2SizeOf(metadata.getColumnType(keyColumnIndex)) : 0;
+        this.columnShifts = new int[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnShifts[i] = ColumnType.pow2SizeOf(metadata.getColumnType(i));
+        }
+        this.taskRows = taskRows;
+        for (int i = 0, n = vafList.size(); i < n; i++) {
+            final int columnIndex = vafList.getQuick(i).getColumnIndex();
+            int slot = 0;
+            for (int m = valueColumnIndexes.size(); slot < m; slot++) {
+                if (valueColumnIndexes.getQuick(slot) == columnIndex) {
+                    break;
+                }
+            }
+            if (slot == valueColumnIndexes.size()) {
+                slot = valueColumnIndexes.size();
+                valueColumnIndexes.add(columnIndex);
+                valueColumnShifts.add(ColumnType.pow2SizeOf(metadata.getColumnType(columnIndex)));
+            }
+            vafValueSlots.add(slot);
+        }
+        this.records = new PageFrameFilterRecord[workerCount];
+        this.frameAddresses = new long[workerCount][];
+        for (int i = 0; i < workerCount; i++) {
+            records[i] = new PageFrameFilterRecord(columnCount);
+            frameAddresses[i] = new long[columnCount];
+        }
+        this.scratch = new long[workerCount];
+        this.rowCounts = new long[workerCount * Misc.CACHE_LINE_SIZE];
+        // key column followed by value columns, each is BATCH_SIZE bytes
+        this.scratchSize = (valueColumnIndexes.size() + 1) * BATCH_SIZE;
+    }
+
+    @Override
+    public void close() {
+        for (int i = 0, n = scratch.length; i < n; i++) {
+            if (scratch[i] != 0) {
+                Unsafe.free(scratch[i], scratchSize);
+                scratch[i] = 0;
+            }
+        }
+        Misc.free(filter);
+    }
+
+    long[] copyFrameAddresses(PageFrame frame, long rowLo, long[] addresses) {
+        if (addresses == null || addresses.length < columnCount) {
+            addresses = new long[columnCount];
+        }
+        for (int i = 0; i < columnCount; i++) {
+            final long address = frame.getPageAddress(i);
+            addresses[i] = address == 0 ? 0 : address + (rowLo << columnShifts[i]);
+        }
+        return addresses;
+    }
+
+    void aggregate(PageFrame frame, long rowLo, long rowCount, long[] pRosti, int workerId, @Nullable SqlExecutionInterruptor interruptor) {
+        aggregate(copyFrameAddresses(frame, rowLo, frameAddresses[workerId]), rowCount, pRosti, workerId, interruptor);
+    }
+
+    void aggregate(long[] addresses, long rowCount, long[] pRosti, int workerId, @Nullable SqlExecutionInterruptor interruptor) {
+        final PageFrameFilterRecord record = records[workerId];
+        for (int i = 0; i < columnCount; i++) {
+            record.setPageAddress(i, addresses[i]);
+        }
+
+        long base = scratch[workerId];
+        if (base == 0) {
+            base = scratch[workerId] = Unsafe.malloc(scratchSize);
+        }
+
+        final int valueCount = valueColumnIndexes.size();
+        final long keyAddress = keyColumnIndex > -1 ? addresses[keyColumnIndex] : 0;
+        long row = 0;
+        while (row < rowCount) {
+            int n = 0;
+            for (; row < rowCount && n < BATCH_ROWS; row++) {
+                if (interruptor != null) {
+                    interruptor.checkInterrupted();
+                }
+                record.setRow(row);
+                if (filter.getBool(record)) {
+                    if (keyColumnIndex > -1) {
+                        if (keyAddress != 0) {
+                            copyValue(keyAddress, keyShift, row, base, n);
+                        } else if (keyShift == 3) {
+                            Unsafe.getUnsafe().putLong(base + ((long) n << 3), Numbers.LONG_NaN);
+                        } else {
+                            Unsafe.getUnsafe().putInt(base + ((long) n << 2), Numbers.INT_NaN);
+                        }
+                    }
+                    for (int i = 0; i < valueCount; i++) {
+                        final long valueAddress = addresses[valueColumnIndexes.getQuick(i)];
+                        // frames are cut at column tops, when there is no value address all values are null
+                        if (valueAddress != 0) {
+                            copyValue(valueAddress, valueColumnShifts.getQuick(i), row, base + (i + 1) * BATCH_SIZE, n);
+                        }
+                    }
+                    n++;
+                }
+            }
+
+            if (n > 0) {
+                rowCounts[workerId * Misc.CACHE_LINE_SIZE] += n;
+                for (int i = 0, k = vafList.size(); i < k; i++) {
+                    final VectorAggregateFunction vaf = vafList.getQuick(i);
+                    final int slot = vafValueSlots.getQuick(i);
+                    final long valueAddress = addresses[valueColumnIndexes.getQuick(slot)] == 0 ? 0 : base + (slot + 1) * BATCH_SIZE;
+                    if (keyColumnIndex > -1) {
+                        vaf.aggregate(pRosti[workerId], base, valueAddress, n, workerId);
+                    } else {
+                        vaf.aggregate(valueAddress, n, workerId);
+                    }
+                }
+            }
+        }
+    }
+
+    long getRowCount() {
+        long count = 0;
+        for (int i = 0, n = rowCounts.length; i < n; i += Misc.CACHE_LINE_SIZE) {
+            count += rowCounts[i];
+        }
+        return count;
+    }
+
+    /**
+     * Aggregates all frames of the cursor. Frames are published to the vector aggregate queue, those
+     * that could not be published or are not picked up by workers are aggregated by the calling thread.
+     */
+    void aggregate(
+            PageFrameCursor cursor,
+            long[] pRosti,
+            SqlExecutionContext executionContext,
+            int workerId,
+            ObjectPool<VectorAggregateEntry> entryPool,
+            ObjList<VectorAggregateEntry> activeEntries,
+            SOUnboundedCountDownLatch doneLatch
+    ) {
+        final MessageBus bus = executionContext.getMessageBus();
+        final RingQueue<VectorAggregateTask> queue = bus.getVectorAggregateQueue();
+        final Sequence pubSeq = bus.getVectorAggregatePubSequence();
+        final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+
+        Arrays.fill(rowCounts, 0);
+        filter.init(cursor, executionContext);
+
+        int queuedCount = 0;
+        int ownCount = 0;
+        int reclaimed = 0;
+        try {
+            PageFrame frame;
+            while ((frame = cursor.next()) != null) {
+                final long frameRowCount = frame.getPageValueCount(0);
+                for (long rowLo = 0; rowLo < frameRowCount; rowLo += taskRows) {
+                    final long rowCount = Math.min(taskRows, frameRowCount - rowLo);
+                    long seq = pubSeq.next();
+                    if (seq < 0) {
+                        aggregate(frame, rowLo, rowCount, pRosti, workerId, interruptor);
+                        ownCount++;
+                    } else {
+                        final VectorAggregateEntry entry = entryPool.next();
+                        entry.of(queuedCount++, this, pRosti, frame, rowLo, rowCount, doneLatch);
+                        activeEntries.add(entry);
+                        queue.get(seq).entry = entry;
+                        pubSeq.done(seq);
+                    }
+                }
+            }
+
+            // start at the back to reduce chance of clashing
+            for (int i = activeEntries.size() - 1; i > -1 && doneLatch.getCount() > -queuedCount; i--) {
+                if (activeEntries.getQuick(i).run(workerId, interruptor)) {
+                    reclaimed++;
+                }
+            }
+        } catch (Throwable e) {
+            // workers may still be reading frames, tasks they did not pick up yet are dropped
+            for (int i = 0, n = activeEntries.size(); i < n; i++) {
+                activeEntries.getQuick(i).cancel();
+            }
+            doneLatch.await(queuedCount);
+            throw e;
+        }
+
+        LOG.info().$("waiting for filtered parts [queuedCount=").$(queuedCount).$(']').$();
+        doneLatch.await(queuedCount);
+        LOG.info().$("done [ownCount=").$(ownCount).$(", reclaimed=").$(reclaimed).$(", queuedCount=").$(queuedCount).$(']').$();
+    }
+
+    private static void copyValue(long srcAddress, int shift, long row, long dstAddress, int n) {
+        switch (shift) {
+            case 0:
+                Unsafe.getUnsafe().putByte(dstAddress + n, Unsafe.getUnsafe().getByte(srcAddress + row));
+                break;
+            case 1:
+                Unsafe.getUnsafe().putShort(dstAddress + ((long) n << 1), Unsafe.getUnsafe().getShort(srcAddress + (row << 1)));
+                break;
+            case 2:
+                Unsafe.getUnsafe().putInt(dstAddress + ((long) n << 2), Unsafe.getUnsafe().getInt(srcAddress + (row << 2)));
+                break;
+            default:
+                Unsafe.getUnsafe().putLong(dstAddress + ((long) n << 3), Unsafe.getUnsafe().getLong(srcAddress + (row << 3)));
+                break;
+        }
+    }
+}
@@ -26,6 +26,7 @@ package io.questdb.griffin.engine.groupby.vect;
 
 import io.questdb.MessageBus;
 import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.log.Log;
@@ -34,11 +35,13 @@ import io.questdb.mp.RingQueue;
 import io.questdb.mp.SOUnboundedCountDownLatch;
 import io.questdb.mp.Sequence;
 import io.questdb.mp.Worker;
+import io.questdb.std.IntList;
 import io.questdb.std.Misc;
 import io.questdb.std.ObjList;
 import io.questdb.std.ObjectPool;
 import io.questdb.std.Transient;
 import io.questdb.tasks.VectorAggregateTask;
+import org.jetbrains.annotations.Nullable;
 
 public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFactory {
 
@@ -50,12 +53,19 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
     private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
     private final RecordMetadata metadata;
     private final GroupByNotKeyedVectorRecordCursor cursor;
+    private final FilteredVectorAggregator filteredAggregator;
+    // size of value of aggregate function column, page is sliced at row boundary
+    private final IntList vafShifts;
+    private final int taskRows;
 
     public GroupByNotKeyedVectorRecordCursorFactory(
             CairoConfiguration configuration,
             RecordCursorFactory base,
             RecordMetadata metadata,
-            @Transient ObjList<VectorAggregateFunction> vafList
+            @Transient ObjList<VectorAggregateFunction> vafList,
+            int workerCount,
+            // rows of base page frames that do not pass the filter are excluded from aggregation
+            @Nullable Function filter
     ) {
         this.entryPool = new ObjectPool<>(VectorAggregateEntry::new, configuration.getGroupByPoolCapacity());
         this.activeEntries = new ObjList<>(configuration.getGroupByPoolCapacity());
@@ -64,6 +74,21 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
         this.vafList = new ObjList<>(vafList.size());
         this.vafList.addAll(vafList);
         this.cursor = new GroupByNotKeyedVectorRecordCursor(this.vafList);
+        this.vafShifts = new IntList(vafList.size());
+        for (int i = 0, n = vafList.size(); i < n; i++) {
+            vafShifts.add(ColumnType.pow2SizeOf(base.getMetadata().getColumnType(vafList.getQuick(i).getColumnIndex())));
+        }
+        this.taskRows = configuration.getSqlParallelVectorAggregateTaskRows();
+        if (filter != null) {
+            this.filteredAggregator = new FilteredVectorAggregator(filter, base.getMetadata(), vafList, -1, taskRows, workerCount);
+        } else {
+            this.filteredAggregator = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        Misc.free(filteredAggregator);
     }
 
     @Override
@@ -100,29 +125,45 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
             workerId = 0;
         }
 
+        if (filteredAggregator != null) {
+            try {
+                filteredAggregator.aggregate(cursor, null, executionContext, workerId, entryPool, activeEntries, doneLatch);
+            } catch (Throwable e) {
+                Misc.free(cursor);
+                throw e;
+            }
+            // same as generic group by, there is no row when filter did not match anything
+            return this.cursor.of(cursor, filteredAggregator.getRowCount() > 0 ? 1 : 0);
+        }
+
         PageFrame frame;
         while ((frame = cursor.next()) != null) {
-            for (int i = 0; i < vafCount; i++) {
-                final VectorAggregateFunction vaf = vafList.getQuick(i);
-                final int columnIndex = vaf.getColumnIndex();
-                final long pageAddress = frame.getPageAddress(columnIndex);
-                final long pageValueCount = frame.getPageValueCount(columnIndex);
-                long seq = pubSeq.next();
-                if (seq < 0) {
-                    // diy the func
-                    // vaf need to know which column it is hitting int he frame and will need to
-                    // aggregate between frames until done
-                    vaf.aggregate(pageAddress, pageValueCount, workerId);
-                    ownCount++;
-                } else {
-                    final VectorAggregateEntry entry = entryPool.next();
-                    // null pRosti means that we do not need keyed aggregation
-                    entry.of(queuedCount++, vaf, null, 0, pageAddress, pageValueCount, doneLatch);
-                    activeEntries.add(entry);
-                    queue.get(seq).entry = entry;
-                    pubSeq.done(seq);
+            // large frames, such as the only frame of narrow interval, are sliced to keep all workers busy
+            final long frameValueCount = frame.getPageValueCount(0);
+            for (long rowLo = 0; rowLo < frameValueCount; rowLo += taskRows) {
+                final long pageValueCount = Math.min(taskRows, frameValueCount - rowLo);
+                for (int i = 0; i < vafCount; i++) {
+                    final VectorAggregateFunction vaf = vafList.getQuick(i);
+                    final int columnIndex = vaf.getColumnIndex();
+                    final long frameAddress = frame.getPageAddress(columnIndex);
+                    final long pageAddress = frameAddress == 0 ? 0 : frameAddress + (rowLo << vafShifts.getQuick(i));
+                    long seq = pubSeq.next();
+                    if (seq < 0) {
+                        // diy the func
+                        // vaf need to know which column it is hitting int he frame and will need to
+                        // aggregate between frames until done
+                        vaf.aggregate(pageAddress, pageValueCount, workerId);
+                        ownCount++;
+                    } else {
+                        final VectorAggregateEntry entry = entryPool.next();
+                        // null pRosti means that we do not need keyed aggregation
+                        entry.of(queuedCount++, vaf, null, 0, pageAddress, pageValueCount, doneLatch);
+                        activeEntries.add(entry);
+                        queue.get(seq).entry = entry;
+                        pubSeq.done(seq);
+                    }
+                    total++;
                 }
-                total++;
             }
         }
 
@@ -141,7 +182,7 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
         LOG.info().$("waiting for parts [queuedCount=").$(queuedCount).$(']').$();
         doneLatch.await(queuedCount);
         LOG.info().$("done [total=").$(total).$(", ownCount=").$(ownCount).$(", reclaimed=").$(reclaimed).$(", queuedCount=").$(queuedCount).$(']').$();
-        return this.cursor.of(cursor);
+        return this.cursor.of(cursor, 1);
     }
 
     @Override
@@ -157,6 +198,7 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
     private static class GroupByNotKeyedVectorRecordCursor implements NoRandomAccessRecordCursor {
         private final Record recordA;
         private int countDown = 1;
+        private int rowCount;
         private PageFrameCursor pageFrameCursor;
 
         public GroupByNotKeyedVectorRecordCursor(ObjList<? extends Function> functions) {
@@ -180,16 +222,17 @@ public class GroupByNotKeyedVectorRecordCursorFactory implements RecordCursorFac
 
         @Override
         public void toTop() {
-            countDown = 1;
+            countDown = rowCount;
         }
 
         @Override
         public long size() {
-            return 1;
+            return rowCount;
         }
 
-        private GroupByNotKeyedVectorRecordCursor of(PageFrameCursor pageFrameCursor) {
+        private GroupByNotKeyedVectorRecordCursor of(PageFrameCursor pageFrameCursor, int rowCount) {
             this.pageFrameCursor = pageFrameCursor;
+            this.rowCount = rowCount;
             toTop();
             return this;
         }
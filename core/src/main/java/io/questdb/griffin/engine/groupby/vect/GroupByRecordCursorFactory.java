@@ -39,6 +39,7 @@ import io.questdb.mp.Worker;
 import io.questdb.std.*;
 import io.questdb.std.str.CharSink;
 import io.questdb.tasks.VectorAggregateTask;
+import org.jetbrains.annotations.Nullable;
 
 public class GroupByRecordCursorFactory implements RecordCursorFactory {
 
@@ -54,6 +55,7 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
     private final long[] pRosti;
     private final int keyColumnIndex;
     private final RostiRecordCursor cursor;
+    private final FilteredVectorAggregator filteredAggregator;
 
     public GroupByRecordCursorFactory(
             CairoConfiguration configuration,
@@ -64,7 +66,9 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
             @Transient ObjList<VectorAggregateFunction> vafList,
             int keyColumnIndexInBase,
             int keyColumnIndexInThisCursor,
-            @Transient IntList symbolTableSkewIndex
+            @Transient IntList symbolTableSkewIndex,
+            // rows of base page frames that do not pass the filter are excluded from aggregation
+            @Nullable Function filter
     ) {
 
         this.entryPool = new ObjectPool<>(VectorAggregateEntry::new, configuration.getGroupByPoolCapacity());
@@ -134,6 +138,12 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
         } else {
             this.cursor = new RostiRecordCursor(pRosti, columnSkewIndex, null);
         }
+
+        if (filter != null) {
+            this.filteredAggregator = new FilteredVectorAggregator(filter, base.getMetadata(), vafList, keyColumnIndexInBase, configuration.getSqlParallelVectorAggregateTaskRows(), workerCount);
+        } else {
+            this.filteredAggregator = null;
+        }
     }
 
     private static void addOffsets(
@@ -154,6 +164,7 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
         for (int i = 0, n = pRosti.length; i < n; i++) {
             Rosti.free(pRosti[i]);
         }
+        Misc.free(filteredAggregator);
     }
 
     @Override
@@ -196,6 +207,17 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
             workerId = 0;
         }
 
+        if (filteredAggregator != null) {
+            try {
+                filteredAggregator.aggregate(cursor, pRosti, executionContext, workerId, entryPool, activeEntries, doneLatch);
+            } catch (Throwable e) {
+                Misc.free(cursor);
+                throw e;
+            }
+            mergeAndWrapUp();
+            return this.cursor.of(cursor);
+        }
+
         PageFrame frame;
         while ((frame = cursor.next()) != null) {
             final long keyColumnSize = frame.getPageValueCount(keyColumnIndex);
@@ -244,12 +266,30 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
 
         LOG.info().$("waiting for parts [queuedCount=").$(queuedCount).$(']').$();
         doneLatch.await(queuedCount);
+        mergeAndWrapUp();
+
+        LOG.info().$("done [total=").$(total).$(", ownCount=").$(ownCount).$(", reclaimed=").$(reclaimed).$(", queuedCount=").$(queuedCount).$(']').$();
+
+        return this.cursor.of(cursor);
+    }
+
+    @Override
+    public RecordMetadata getMetadata() {
+        return metadata;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    private void mergeAndWrapUp() {
         long pRosti0 = pRosti[0];
 
         if (pRosti.length > 1) {
             LOG.debug().$("merging").$();
 
-            for (int j = 0; j < vafCount; j++) {
+            for (int j = 0; j < vafList.size(); j++) {
                 final VectorAggregateFunction vaf = vafList.getQuick(j);
                 for (int i = 1, n = pRosti.length; i < n; i++) {
                     vaf.merge(pRosti0, pRosti[i]);
@@ -257,24 +297,10 @@ public class GroupByRecordCursorFactory implements RecordCursorFactory {
                 vaf.wrapUp(pRosti0);
             }
         } else {
-            for (int j = 0; j < vafCount; j++) {
+            for (int j = 0; j < vafList.size(); j++) {
                 vafList.getQuick(j).wrapUp(pRosti0);
             }
         }
-
-        LOG.info().$("done [total=").$(total).$(", ownCount=").$(ownCount).$(", reclaimed=").$(reclaimed).$(", queuedCount=").$(queuedCount).$(']').$();
-
-        return this.cursor.of(cursor);
-    }
-
-    @Override
-    public RecordMetadata getMetadata() {
-        return metadata;
-    }
-
-    @Override
-    public boolean recordCursorSupportsRandomAccess() {
-        return true;
     }
 
     private static class RostiRecordCursor implements RecordCursor {
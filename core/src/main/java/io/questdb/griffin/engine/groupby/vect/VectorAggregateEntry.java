@@ -24,9 +24,12 @@
 
 package io.questdb.griffin.engine.groupby.vect;
 
+import io.questdb.cairo.sql.PageFrame;
+import io.questdb.griffin.SqlExecutionInterruptor;
 import io.questdb.mp.CountDownLatchSPI;
 import io.questdb.std.Mutable;
 import io.questdb.std.Unsafe;
+import org.jetbrains.annotations.Nullable;
 
 public class VectorAggregateEntry implements Mutable {
 
@@ -47,6 +50,8 @@ public class VectorAggregateEntry implements Mutable {
     @SuppressWarnings({"FieldCanBeLocal", "unused"})
     private int targetSequence;
     private CountDownLatchSPI doneLatch;
+    private FilteredVectorAggregator filteredAggregator;
+    private long[] frameAddresses;
 
     void of(
             int sequence,
@@ -62,6 +67,27 @@ public class VectorAggregateEntry implements Mutable {
         this.valueAddress = valuePageAddress;
         this.valueCount = valuePageCount;
         this.func = vaf;
+        this.filteredAggregator = null;
+        this.srcSequence = sequence;
+        this.targetSequence = sequence;
+        this.doneLatch = doneLatch;
+    }
+
+    void of(
+            int sequence,
+            FilteredVectorAggregator filteredAggregator,
+            long[] pRosti,
+            PageFrame frame,
+            long rowLo,
+            long rowCount,
+            CountDownLatchSPI doneLatch
+    ) {
+        this.pRosti = pRosti;
+        // frame is reused by cursor, keep our own copy of page addresses
+        this.frameAddresses = filteredAggregator.copyFrameAddresses(frame, rowLo, frameAddresses);
+        this.valueCount = rowCount;
+        this.func = null;
+        this.filteredAggregator = filteredAggregator;
         this.srcSequence = sequence;
         this.targetSequence = sequence;
         this.doneLatch = doneLatch;
@@ -72,22 +98,40 @@ public class VectorAggregateEntry implements Mutable {
     }
 
     public boolean run(int workerId) {
+        return run(workerId, null);
+    }
+
+    // interruptor is only checked by the thread that owns the query
+    boolean run(int workerId, @Nullable SqlExecutionInterruptor interruptor) {
         if (tryLock()) {
-            if (pRosti != null) {
-                func.aggregate(pRosti[workerId], keyAddress, valueAddress, valueCount, workerId);
-            } else {
-                func.aggregate(valueAddress, valueCount, workerId);
+            try {
+                if (filteredAggregator != null) {
+                    filteredAggregator.aggregate(frameAddresses, valueCount, pRosti, workerId, interruptor);
+                } else if (pRosti != null) {
+                    func.aggregate(pRosti[workerId], keyAddress, valueAddress, valueCount, workerId);
+                } else {
+                    func.aggregate(valueAddress, valueCount, workerId);
+                }
+            } finally {
+                doneLatch.countDown();
             }
-            doneLatch.countDown();
             return true;
         }
         return false;
     }
 
+    // releases entry nobody has started working on yet
+    void cancel() {
+        if (tryLock()) {
+            doneLatch.countDown();
+        }
+    }
+
     @Override
     public void clear() {
         this.valueAddress = 0;
         this.valueCount = 0;
         func = null;
+        filteredAggregator = null;
     }
 }
@@ -43,6 +43,7 @@ import io.questdb.griffin.SqlExecutionContext;
 import io.questdb.griffin.SqlExecutionInterruptor;
 import io.questdb.std.Misc;
 import io.questdb.std.Transient;
+import org.jetbrains.annotations.Nullable;
 
 public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactory {
     private final Map joinKeyMap;
@@ -51,6 +52,7 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
     private final RecordCursorFactory slaveFactory;
     private final RecordSink masterKeySink;
     private final RecordSink slaveKeySink;
+    private final JoinKeyFilter masterKeyFilter;
     private final HashJoinRecordCursor cursor;
 
     public HashJoinLightRecordCursorFactory(
@@ -62,6 +64,8 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
             @Transient ColumnTypes valueTypes, // this expected to be just LONG, we store chain references in map
             RecordSink masterKeySink,
             RecordSink slaveKeySink,
+            // filter pushed down into master factory
+            @Nullable JoinKeyFilter masterKeyFilter,
             int columnSplit
 
     ) {
@@ -72,6 +76,7 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
         slaveChain = new LongChain(configuration.getSqlHashJoinLightValuePageSize(), configuration.getSqlHashJoinLightValueMaxPages());
         this.masterKeySink = masterKeySink;
         this.slaveKeySink = slaveKeySink;
+        this.masterKeyFilter = masterKeyFilter;
         this.cursor = new HashJoinRecordCursor(columnSplit, joinKeyMap, slaveChain);
     }
 
@@ -79,6 +84,7 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
     public void close() {
         joinKeyMap.close();
         slaveChain.close();
+        Misc.free(masterKeyFilter);
         ((JoinRecordMetadata) getMetadata()).close();
         masterFactory.close();
         slaveFactory.close();
@@ -105,6 +111,9 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
     private void buildMapOfSlaveRecords(RecordCursor slaveCursor, SqlExecutionInterruptor interruptor) {
         slaveChain.clear();
         joinKeyMap.clear();
+        if (masterKeyFilter != null) {
+            masterKeyFilter.clear();
+        }
         final Record record = slaveCursor.getRecord();
         while (slaveCursor.hasNext()) {
             interruptor.checkInterrupted();
@@ -115,10 +124,16 @@ public class HashJoinLightRecordCursorFactory extends AbstractRecordCursorFactor
                 final long offset = slaveChain.put(record.getRowId(), -1);
                 value.putLong(0, offset);
                 value.putLong(1, offset);
+                if (masterKeyFilter != null) {
+                    masterKeyFilter.add(record, slaveKeySink);
+                }
             } else {
                 value.putLong(1, slaveChain.put(record.getRowId(), value.getLong(1)));
             }
         }
+        if (masterKeyFilter != null) {
+            masterKeyFilter.build();
+        }
     }
 
     private class HashJoinRecordCursor implements NoRandomAccessRecordCursor {
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapKey;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.Record;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Mutable;
+import io.questdb.std.Transient;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Radix partition of parallel hash join build side. Partition collects join keys and row ids
+ * of slave rows, which hash into it, and then builds its own key map from them. Partitions
+ * do not share state, so each of them can be built by different thread. Collected rows and
+ * row id chains are moved to memory-mapped files once partition outgrows its share of memory
+ * budget.
+ */
+public class HashJoinPartition implements Closeable, Mutable {
+    private static final long TARGET_SEQUENCE_OFFSET;
+
+    static {
+        TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(HashJoinPartition.class, "targetSequence");
+    }
+
+    private final SpillableVirtualMemory rowMem;
+    private final SpillableVirtualMemory chainMem;
+    private final RecordChain rows;
+    private final Record rowRecord;
+    private final RecordSink rowKeySink;
+    private final FastMap joinKeyMap;
+    private final LongChain slaveChain;
+    private final int rowIdIndex;
+    private final long memoryBudget;
+    private final StringSink error = new StringSink();
+    private long lastRowOffset = -1;
+    private boolean failed;
+    private int srcSequence;
+    // to "lock" the partition thread must successfully CAS targetSequence form "srcSequence" value
+    // to "srcSequence+1". Executing thread must not be changing value of "srcSequence"
+    @SuppressWarnings({"FieldCanBeLocal", "unused"})
+    private int targetSequence;
+    private CountDownLatchSPI doneLatch;
+
+    public HashJoinPartition(
+            CairoConfiguration configuration,
+            CharSequence spillRoot,
+            int partitionCount,
+            @Transient ColumnTypes rowTypes,
+            @Transient ColumnTypes joinColumnTypes,
+            @Transient ColumnTypes valueTypes,
+            RecordSink slaveKeySink,
+            RecordSink rowKeySink
+    ) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        final int mkDirMode = configuration.getMkDirMode();
+        // partition pages are smaller, each partition can grow as large as the whole serial join
+        this.rowMem = new SpillableVirtualMemory(
+                ff,
+                spillRoot,
+                mkDirMode,
+                Math.max(configuration.getSqlHashJoinValuePageSize() / partitionCount, 4096),
+                configuration.getSqlHashJoinValueMaxPages() * partitionCount
+        );
+        this.chainMem = new SpillableVirtualMemory(
+                ff,
+                spillRoot,
+                mkDirMode,
+                Math.max(configuration.getSqlHashJoinLightValuePageSize() / partitionCount, 4096),
+                configuration.getSqlHashJoinLightValueMaxPages() * partitionCount
+        );
+        this.rows = new RecordChain(rowTypes, slaveKeySink, rowMem);
+        this.rowRecord = rows.getRecord();
+        this.rowKeySink = rowKeySink;
+        this.joinKeyMap = new FastMap(
+                Math.max(configuration.getSqlMapPageSize() / partitionCount, 1024),
+                joinColumnTypes,
+                valueTypes,
+                configuration.getSqlMapKeyCapacity(),
+                configuration.getSqlFastMapLoadFactor(),
+                configuration.getSqlMapMaxResizes()
+        );
+        this.slaveChain = new LongChain(chainMem);
+        // row id follows join key columns
+        this.rowIdIndex = rowTypes.getColumnCount() - 1;
+        this.memoryBudget = configuration.getSqlHashJoinMemoryBudget() / partitionCount;
+    }
+
+    @Override
+    public void clear() {
+        // releases memory and removes spill files
+        rows.clear();
+        joinKeyMap.clear();
+        chainMem.close();
+        rowMem.setSpill(false);
+        chainMem.setSpill(false);
+        lastRowOffset = -1;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        joinKeyMap.close();
+    }
+
+    public boolean run() {
+        if (tryLock()) {
+            try {
+                build();
+            } catch (Throwable e) {
+                // exceptions are thread local, owner thread reports the message
+                error.clear();
+                error.put(e.getMessage());
+                failed = true;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean tryLock() {
+        return Unsafe.cas(this, TARGET_SEQUENCE_OFFSET, srcSequence, srcSequence + 1);
+    }
+
+    // releases partition nobody has started building yet
+    void cancel() {
+        if (tryLock()) {
+            doneLatch.countDown();
+        }
+    }
+
+    MapValue findValue(Record masterRecord, RecordSink masterKeySink) {
+        final MapKey key = joinKeyMap.withKey();
+        key.put(masterRecord, masterKeySink);
+        return key.findValue();
+    }
+
+    CharSequence getError() {
+        return error;
+    }
+
+    LongChain getSlaveChain() {
+        return slaveChain;
+    }
+
+    boolean isEmpty() {
+        return lastRowOffset == -1;
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    // unlocks partition, rows must be collected before this call
+    void of(int sequence, CountDownLatchSPI doneLatch) {
+        this.doneLatch = doneLatch;
+        this.failed = false;
+        this.srcSequence = sequence;
+        this.targetSequence = sequence;
+    }
+
+    void put(Record slaveRecord) {
+        lastRowOffset = rows.put(slaveRecord, lastRowOffset);
+        rows.putLong(slaveRecord.getRowId());
+        if (!rowMem.isSpill() && rowMem.getAllocatedSize() > memoryBudget) {
+            // row id chain is about the same size, it is going to be spilled too
+            rowMem.setSpill(true);
+            chainMem.setSpill(true);
+        }
+    }
+
+    private void build() {
+        rows.toTop();
+        while (rows.hasNext()) {
+            final MapKey key = joinKeyMap.withKey();
+            key.put(rowRecord, rowKeySink);
+            final MapValue value = key.createValue();
+            final long rowId = rowRecord.getLong(rowIdIndex);
+            if (value.isNew()) {
+                final long offset = slaveChain.put(rowId, -1);
+                value.putLong(0, offset);
+                value.putLong(1, offset);
+            } else {
+                value.putLong(1, slaveChain.put(rowId, value.getLong(1)));
+            }
+        }
+        // map and row id chain have everything probe needs
+        rows.clear();
+        lastRowOffset = -1;
+    }
+}
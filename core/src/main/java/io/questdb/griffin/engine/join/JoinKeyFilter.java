@@ -0,0 +1,245 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RuntimeRecordFilter;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Numbers;
+import io.questdb.std.Transient;
+
+import java.io.Closeable;
+
+/**
+ * Bloom filter of slave join keys, which inner join pushes down into master table scan. Master
+ * rows, which keys are definitely not among slave keys, are rejected by the scan before they
+ * reach the join.
+ * <p>
+ * When join key is single symbol column filter outcome is cached for each symbol key, so that
+ * rows are rejected without reading symbol values. Otherwise keys are hashed the same way
+ * {@link FastMap} hashes them and filter stops rejecting when sample of probes shows it is not
+ * selective.
+ */
+public class JoinKeyFilter implements RuntimeRecordFilter, Closeable {
+    private static final int BITS_PER_KEY = 8;
+    private static final int PROBE_SAMPLE = 64 * 1024;
+    private static final int STATE_UNKNOWN = 0;
+    private static final int STATE_ACCEPT = 1;
+    private static final int STATE_REJECT = 2;
+    private final FastMap keyHasher;
+    private final RecordSink masterKeySink;
+    private final int symbolColumnIndex;
+    private final int maxKeys;
+    private final IntList keyHashes = new IntList();
+    private final LongList bits = new LongList();
+    private final IntList symbolStates = new IntList();
+    private final SymbolKeyRecord symbolKeyRecord;
+    private SymbolTable symbolTable;
+    private int nullSymbolState;
+    private int mask;
+    private boolean active;
+    private boolean overflow;
+    private boolean selective;
+    private long probeCount;
+    private long rejectCount;
+
+    public JoinKeyFilter(
+            CairoConfiguration configuration,
+            @Transient ColumnTypes joinColumnTypes,
+            RecordSink masterKeySink,
+            // master column of single symbol join key or -1
+            int symbolColumnIndex
+    ) {
+        this.keyHasher = new FastMap(1024, joinColumnTypes, 1, 0.5, configuration.getSqlMapMaxResizes());
+        this.masterKeySink = masterKeySink;
+        this.symbolColumnIndex = symbolColumnIndex;
+        this.symbolKeyRecord = symbolColumnIndex > -1 ? new SymbolKeyRecord(symbolColumnIndex) : null;
+        this.maxKeys = configuration.getSqlJoinBloomFilterMaxKeys();
+    }
+
+    @Override
+    public boolean accept(Record record) {
+        if (symbolTable != null) {
+            return acceptSymbol(record.getInt(symbolColumnIndex));
+        }
+
+        if (!selective) {
+            return true;
+        }
+
+        final boolean accepted = mightContain(keyHasher.hashOf(record, masterKeySink));
+        if (!accepted) {
+            rejectCount++;
+        }
+        if (++probeCount == PROBE_SAMPLE && rejectCount < PROBE_SAMPLE / 16) {
+            // most keys are found, hashing them twice is not worth it
+            selective = false;
+        }
+        return accepted;
+    }
+
+    @Override
+    public boolean isActive() {
+        return active;
+    }
+
+    @Override
+    public void of(RecordCursor cursor) {
+        probeCount = 0;
+        rejectCount = 0;
+        selective = true;
+        symbolStates.clear();
+        nullSymbolState = STATE_UNKNOWN;
+        symbolTable = symbolColumnIndex > -1 ? cursor.getSymbolTable(symbolColumnIndex) : null;
+    }
+
+    /**
+     * Adds hash of slave key, which must be calculated by {@link FastMap} of join key types.
+     *
+     * @param hash hash of slave join key
+     */
+    public void add(int hash) {
+        if (overflow) {
+            return;
+        }
+        if (keyHashes.size() == maxKeys) {
+            // slave is too large for the filter to pay off
+            overflow = true;
+            keyHashes.clear();
+            return;
+        }
+        keyHashes.add(hash);
+    }
+
+    public void add(Record slaveRecord, RecordSink slaveKeySink) {
+        if (!overflow) {
+            add(keyHasher.hashOf(slaveRecord, slaveKeySink));
+        }
+    }
+
+    /**
+     * Sets bits of keys added since last {@link #clear()}. Filter stays inactive when there
+     * were too many keys.
+     */
+    public void build() {
+        if (overflow) {
+            return;
+        }
+        final int keyCount = keyHashes.size();
+        final int bitCount = Math.max(Long.SIZE, Numbers.ceilPow2(Math.max(keyCount, 1) * BITS_PER_KEY));
+        bits.setAll(bitCount / Long.SIZE, 0);
+        mask = bitCount - 1;
+        for (int i = 0; i < keyCount; i++) {
+            final int hash = keyHashes.getQuick(i);
+            final int step = step(hash);
+            int bit = hash;
+            for (int k = 0; k < 3; k++) {
+                final int index = (bit & mask) >>> 6;
+                bits.setQuick(index, bits.getQuick(index) | (1L << bit));
+                bit += step;
+            }
+        }
+        keyHashes.clear();
+        active = true;
+    }
+
+    public void clear() {
+        active = false;
+        overflow = false;
+        keyHashes.clear();
+        symbolTable = null;
+    }
+
+    @Override
+    public void close() {
+        clear();
+        keyHasher.close();
+    }
+
+    private static int step(int hash) {
+        // second hash for double hashing, odd so that it cycles through all bits
+        return (Integer.rotateLeft(hash * 0x9E3779B9, 16)) | 1;
+    }
+
+    private boolean acceptSymbol(int key) {
+        int state;
+        if (key < 0) {
+            state = nullSymbolState;
+            if (state == STATE_UNKNOWN) {
+                state = nullSymbolState = testSymbol(key);
+            }
+        } else {
+            for (int i = symbolStates.size(); i <= key; i++) {
+                symbolStates.add(STATE_UNKNOWN);
+            }
+            state = symbolStates.getQuick(key);
+            if (state == STATE_UNKNOWN) {
+                state = testSymbol(key);
+                symbolStates.setQuick(key, state);
+            }
+        }
+        return state == STATE_ACCEPT;
+    }
+
+    private boolean mightContain(int hash) {
+        final int step = step(hash);
+        int bit = hash;
+        for (int k = 0; k < 3; k++) {
+            if ((bits.getQuick((bit & mask) >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+            bit += step;
+        }
+        return true;
+    }
+
+    private int testSymbol(int key) {
+        symbolKeyRecord.value = key == SymbolTable.VALUE_IS_NULL ? null : symbolTable.valueOf(key);
+        return mightContain(keyHasher.hashOf(symbolKeyRecord, masterKeySink)) ? STATE_ACCEPT : STATE_REJECT;
+    }
+
+    // presents value of symbol key to master key sink
+    private static class SymbolKeyRecord implements Record {
+        private final int columnIndex;
+        private CharSequence value;
+
+        private SymbolKeyRecord(int columnIndex) {
+            this.columnIndex = columnIndex;
+        }
+
+        @Override
+        public CharSequence getSym(int col) {
+            assert col == columnIndex;
+            return value;
+        }
+    }
+}
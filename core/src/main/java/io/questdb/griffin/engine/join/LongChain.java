@@ -35,7 +35,11 @@ public class LongChain implements Closeable, Mutable {
     private final TreeCursor cursor;
 
     public LongChain(long valuePageSize, int valueMaxPages) {
-        this.valueChain = new ContiguousVirtualMemory(valuePageSize, valueMaxPages);
+        this(new ContiguousVirtualMemory(valuePageSize, valueMaxPages));
+    }
+
+    public LongChain(ContiguousVirtualMemory valueChain) {
+        this.valueChain = valueChain;
         this.cursor = new TreeCursor();
     }
 
@@ -0,0 +1,315 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.*;
+import io.questdb.cairo.map.FastMap;
+import io.questdb.cairo.map.MapValue;
+import io.questdb.cairo.sql.NoRandomAccessRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import io.questdb.tasks.HashJoinBuildTask;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Inner hash join, which splits slave rows into radix partitions by the top bits of join key
+ * hash. Partitions build their key maps on worker threads. Master rows are probed against the
+ * partition their key hashes into, so join returns rows in the same order as
+ * {@link HashJoinLightRecordCursorFactory}.
+ */
+public class ParallelHashJoinLightRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory masterFactory;
+    private final RecordCursorFactory slaveFactory;
+    private final RecordSink masterKeySink;
+    private final RecordSink slaveKeySink;
+    private final JoinKeyFilter masterKeyFilter;
+    private final ObjList<HashJoinPartition> partitions = new ObjList<>();
+    private final ObjList<HashJoinPartition> pendingPartitions = new ObjList<>();
+    // hashes join keys, it never stores them
+    private final FastMap keyHasher;
+    private final int partitionShift;
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final HashJoinRecordCursor cursor;
+    private int sequence;
+
+    public ParallelHashJoinLightRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            RecordCursorFactory masterFactory,
+            RecordCursorFactory slaveFactory,
+            @Transient ColumnTypes joinColumnTypes,
+            @Transient ColumnTypes valueTypes, // this expected to be just LONG, we store chain references in map
+            RecordSink masterKeySink,
+            RecordSink slaveKeySink,
+            // filter pushed down into master factory
+            @Nullable JoinKeyFilter masterKeyFilter,
+            @Transient BytecodeAssembler asm,
+            int columnSplit
+    ) {
+        super(metadata);
+        this.masterFactory = masterFactory;
+        this.slaveFactory = slaveFactory;
+        this.masterKeySink = masterKeySink;
+        this.slaveKeySink = slaveKeySink;
+        this.masterKeyFilter = masterKeyFilter;
+
+        // partition rows are join keys followed by row id
+        final ArrayColumnTypes rowTypes = new ArrayColumnTypes();
+        final ListColumnFilter rowKeyFilter = new ListColumnFilter();
+        for (int i = 0, n = joinColumnTypes.getColumnCount(); i < n; i++) {
+            rowTypes.add(joinColumnTypes.getColumnType(i));
+            rowKeyFilter.add(i);
+        }
+        rowTypes.add(ColumnType.LONG);
+        final RecordSink rowKeySink = RecordSinkFactory.getInstance(asm, rowTypes, rowKeyFilter, false);
+
+        final int partitionCount = Numbers.ceilPow2(configuration.getSqlParallelHashJoinPartitions());
+        // hash is non-negative int, its top bits pick the partition
+        // and the rest of the bits are left to partition map
+        this.partitionShift = Integer.SIZE - 1 - Numbers.msb(partitionCount);
+        final String spillRoot = Chars.toString(configuration.getRoot()) + Files.SEPARATOR + ".join";
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new HashJoinPartition(
+                    configuration,
+                    spillRoot,
+                    partitionCount,
+                    rowTypes,
+                    joinColumnTypes,
+                    valueTypes,
+                    slaveKeySink,
+                    rowKeySink
+            ));
+        }
+        this.keyHasher = new FastMap(1024, joinColumnTypes, 1, 0.5, configuration.getSqlMapMaxResizes());
+        this.cursor = new HashJoinRecordCursor(columnSplit);
+    }
+
+    @Override
+    public void close() {
+        Misc.freeObjList(partitions);
+        keyHasher.close();
+        Misc.free(masterKeyFilter);
+        ((JoinRecordMetadata) getMetadata()).close();
+        masterFactory.close();
+        slaveFactory.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        RecordCursor slaveCursor = slaveFactory.getCursor(executionContext);
+        try {
+            buildPartitions(slaveCursor, executionContext);
+        } catch (CairoException e) {
+            slaveCursor.close();
+            throw e;
+        }
+        cursor.of(masterFactory.getCursor(executionContext), slaveCursor);
+        return cursor;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return false;
+    }
+
+    private void buildPartitions(RecordCursor slaveCursor, SqlExecutionContext executionContext) {
+        final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+        final int partitionCount = partitions.size();
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.getQuick(i).clear();
+        }
+        if (masterKeyFilter != null) {
+            masterKeyFilter.clear();
+        }
+
+        final Record record = slaveCursor.getRecord();
+        try {
+            while (slaveCursor.hasNext()) {
+                interruptor.checkInterrupted();
+                final int hash = keyHasher.hashOf(record, slaveKeySink);
+                partitions.getQuick(hash >>> partitionShift).put(record);
+                if (masterKeyFilter != null) {
+                    masterKeyFilter.add(hash);
+                }
+            }
+        } catch (Throwable e) {
+            clearPartitions();
+            throw e;
+        }
+
+        final MessageBus bus = executionContext.getMessageBus();
+        final RingQueue<HashJoinBuildTask> queue;
+        final Sequence pubSeq;
+        if (bus != null && executionContext.getWorkerCount() > 1) {
+            queue = bus.getHashJoinBuildQueue();
+            pubSeq = bus.getHashJoinBuildPubSequence();
+        } else {
+            queue = null;
+            pubSeq = null;
+        }
+
+        doneLatch.reset();
+        pendingPartitions.clear();
+        for (int i = 0; i < partitionCount; i++) {
+            final HashJoinPartition partition = partitions.getQuick(i);
+            if (partition.isEmpty()) {
+                continue;
+            }
+            partition.of(sequence++, doneLatch);
+            pendingPartitions.add(partition);
+            final long seq = pubSeq != null ? pubSeq.next() : -1;
+            if (seq < 0) {
+                // queue is full or there is no worker pool, build on this thread
+                partition.run();
+            } else {
+                queue.get(seq).partition = partition;
+                pubSeq.done(seq);
+            }
+        }
+
+        // start at the back to reduce chance of clashing with workers
+        final int count = pendingPartitions.size();
+        for (int i = count - 1; i > -1 && doneLatch.getCount() > -count; i--) {
+            pendingPartitions.getQuick(i).run();
+        }
+        doneLatch.await(count);
+
+        for (int i = 0; i < count; i++) {
+            final HashJoinPartition partition = pendingPartitions.getQuick(i);
+            if (partition.isFailed()) {
+                clearPartitions();
+                throw CairoException.instance(0).put(partition.getError());
+            }
+        }
+
+        if (masterKeyFilter != null) {
+            masterKeyFilter.build();
+        }
+    }
+
+    private void clearPartitions() {
+        for (int i = 0, n = partitions.size(); i < n; i++) {
+            partitions.getQuick(i).clear();
+        }
+    }
+
+    private HashJoinPartition getPartition(Record record, RecordSink keySink) {
+        return partitions.getQuick(keyHasher.hashOf(record, keySink) >>> partitionShift);
+    }
+
+    private class HashJoinRecordCursor implements NoRandomAccessRecordCursor {
+        private final JoinRecord record;
+        private final int columnSplit;
+        private RecordCursor masterCursor;
+        private RecordCursor slaveCursor;
+        private Record masterRecord;
+        private LongChain.TreeCursor slaveChainCursor;
+        private Record slaveRecord;
+
+        public HashJoinRecordCursor(int columnSplit) {
+            this.record = new JoinRecord(columnSplit);
+            this.columnSplit = columnSplit;
+        }
+
+        @Override
+        public void close() {
+            masterCursor = Misc.free(masterCursor);
+            slaveCursor = Misc.free(slaveCursor);
+            // releases memory and removes spill files
+            clearPartitions();
+        }
+
+        @Override
+        public Record getRecord() {
+            return record;
+        }
+
+        @Override
+        public SymbolTable getSymbolTable(int columnIndex) {
+            if (columnIndex < columnSplit) {
+                return masterCursor.getSymbolTable(columnIndex);
+            }
+            return slaveCursor.getSymbolTable(columnIndex - columnSplit);
+        }
+
+        @Override
+        public long size() {
+            return -1;
+        }
+
+        @Override
+        public void toTop() {
+            masterCursor.toTop();
+            slaveChainCursor = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (slaveChainCursor != null && slaveChainCursor.hasNext()) {
+                slaveCursor.recordAt(slaveRecord, slaveChainCursor.next());
+                return true;
+            }
+
+            while (masterCursor.hasNext()) {
+                final HashJoinPartition partition = getPartition(masterRecord, masterKeySink);
+                final MapValue value = partition.findValue(masterRecord, masterKeySink);
+                if (value != null) {
+                    slaveChainCursor = partition.getSlaveChain().getCursor(value.getLong(0));
+                    // we know cursor has values
+                    // advance to get first value
+                    slaveChainCursor.hasNext();
+                    slaveCursor.recordAt(slaveRecord, slaveChainCursor.next());
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void of(RecordCursor masterCursor, RecordCursor slaveCursor) {
+            this.masterCursor = masterCursor;
+            this.slaveCursor = slaveCursor;
+            this.masterRecord = masterCursor.getRecord();
+            this.slaveRecord = slaveCursor.getRecordB();
+            record.of(masterRecord, slaveRecord);
+            slaveChainCursor = null;
+        }
+    }
+}
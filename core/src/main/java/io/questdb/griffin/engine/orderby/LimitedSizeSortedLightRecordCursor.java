@@ -0,0 +1,238 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.sql.*;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.std.LongList;
+
+/**
+ * Keeps row ids of top N rows in binary heap, which is ordered by the comparator and,
+ * for rows that compare equal, by their position in base cursor. Equal rows come out
+ * last read first, in the same order {@link LongTreeChain} chains them. Negative limit ("last N rows") is served by
+ * heap in reverse order, which is then read back to front.
+ */
+class LimitedSizeSortedLightRecordCursor implements DelegatingRecordCursor {
+    // heap entry is a pair of row id and sequence of row in base cursor
+    private static final int ENTRY_SIZE = 2;
+    private final RecordComparator comparator;
+    private final Function loFunction;
+    private final Function hiFunction;
+    private final LongList heap = new LongList();
+    private RecordCursor base;
+    private Record baseRecord;
+    private Record placeHolderRecord;
+    private boolean reverse;
+    private long limit;
+    private int rowCount;
+    private int lo;
+    private int hi;
+    private int index;
+
+    public LimitedSizeSortedLightRecordCursor(RecordComparator comparator, Function loFunction, Function hiFunction) {
+        this.comparator = comparator;
+        this.loFunction = loFunction;
+        this.hiFunction = hiFunction;
+    }
+
+    @Override
+    public void close() {
+        heap.clear();
+        base.close();
+    }
+
+    @Override
+    public long size() {
+        return hi - lo;
+    }
+
+    @Override
+    public Record getRecord() {
+        return baseRecord;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (index < hi) {
+            // heap is sorted in the order of comparison, reverse heap is read back to front
+            final int entry = reverse ? rowCount - 1 - index : index;
+            base.recordAt(baseRecord, heap.getQuick(entry * ENTRY_SIZE));
+            index++;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return base.getRecordB();
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        base.recordAt(record, atRowId);
+    }
+
+    @Override
+    public void toTop() {
+        index = lo;
+    }
+
+    @Override
+    public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        this.base = base;
+        this.baseRecord = base.getRecord();
+        this.placeHolderRecord = base.getRecordB();
+        loFunction.init(base, executionContext);
+        if (hiFunction != null) {
+            hiFunction.init(base, executionContext);
+        }
+
+        // limit is interpreted the same way as by LimitRecordCursorFactory
+        final long loValue = loFunction.getLong(null);
+        final long hiValue = hiFunction != null ? hiFunction.getLong(null) : 0;
+        if (loValue < 0) {
+            // last N rows, -10,-5 keeps last 10 rows and then trims 5 of them
+            reverse = true;
+            limit = hiFunction == null || loValue < hiValue ? -loValue : 0;
+        } else {
+            reverse = false;
+            if (hiFunction == null) {
+                limit = loValue;
+            } else if (hiValue < 0) {
+                // 10,-5 depends on row count, we have to keep all rows
+                limit = Long.MAX_VALUE;
+            } else {
+                limit = hiValue;
+            }
+        }
+
+        heap.clear();
+        rowCount = 0;
+        if (limit > 0) {
+            final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+            long sequence = 0;
+            while (base.hasNext()) {
+                interruptor.checkInterrupted();
+                put(baseRecord.getRowId(), sequence++);
+            }
+            sortHeap();
+        }
+
+        // only "lo,hi" with positive lo skips rows from the head
+        lo = reverse || hiFunction == null ? 0 : (int) Math.min(loValue, rowCount);
+        if (hiFunction != null && hiValue < 0) {
+            // trim rows from the tail
+            hi = (int) Math.max(lo, rowCount + hiValue);
+        } else {
+            hi = rowCount;
+        }
+        toTop();
+    }
+
+    private int compare(int entryA, int entryB) {
+        base.recordAt(placeHolderRecord, heap.getQuick(entryA * ENTRY_SIZE));
+        comparator.setLeft(placeHolderRecord);
+        base.recordAt(placeHolderRecord, heap.getQuick(entryB * ENTRY_SIZE));
+        int cmp = comparator.compare(placeHolderRecord);
+        if (cmp == 0) {
+            cmp = Long.compare(heap.getQuick(entryB * ENTRY_SIZE + 1), heap.getQuick(entryA * ENTRY_SIZE + 1));
+        }
+        return reverse ? -cmp : cmp;
+    }
+
+    private void put(long rowId, long sequence) {
+        if (rowCount < limit) {
+            heap.add(rowId);
+            heap.add(sequence);
+            siftUp(rowCount++);
+            return;
+        }
+
+        // heap is full, its root is the greatest row kept so far
+        comparator.setLeft(baseRecord);
+        base.recordAt(placeHolderRecord, heap.getQuick(0));
+        final int cmp = comparator.compare(placeHolderRecord);
+        // new row follows root in base cursor, when rows are equal
+        // it is less than root unless the order is reversed
+        if (reverse ? cmp > 0 : cmp <= 0) {
+            heap.setQuick(0, rowId);
+            heap.setQuick(1, sequence);
+            siftDown(0, rowCount);
+        }
+    }
+
+    private void siftDown(int entry, int count) {
+        while (true) {
+            int child = 2 * entry + 1;
+            if (child >= count) {
+                break;
+            }
+            if (child + 1 < count && compare(child + 1, child) > 0) {
+                child++;
+            }
+            if (compare(entry, child) >= 0) {
+                break;
+            }
+            swap(entry, child);
+            entry = child;
+        }
+    }
+
+    private void siftUp(int entry) {
+        while (entry > 0) {
+            final int parent = (entry - 1) / 2;
+            if (compare(entry, parent) <= 0) {
+                break;
+            }
+            swap(entry, parent);
+            entry = parent;
+        }
+    }
+
+    private void sortHeap() {
+        for (int i = rowCount - 1; i > 0; i--) {
+            swap(0, i);
+            siftDown(0, i);
+        }
+    }
+
+    private void swap(int entryA, int entryB) {
+        final int a = entryA * ENTRY_SIZE;
+        final int b = entryB * ENTRY_SIZE;
+        final long rowId = heap.getQuick(a);
+        final long sequence = heap.getQuick(a + 1);
+        heap.setQuick(a, heap.getQuick(b));
+        heap.setQuick(a + 1, heap.getQuick(b + 1));
+        heap.setQuick(b, rowId);
+        heap.setQuick(b + 1, sequence);
+    }
+}
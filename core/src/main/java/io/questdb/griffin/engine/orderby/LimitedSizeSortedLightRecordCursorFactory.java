@@ -0,0 +1,82 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.AbstractRecordCursorFactory;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlExecutionContext;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Sorts rows of random access cursor and applies limit in one pass. Only row ids of
+ * rows that can still make it into the limit are kept, which makes memory footprint
+ * proportional to the limit rather than to the size of base cursor.
+ */
+public class LimitedSizeSortedLightRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final LimitedSizeSortedLightRecordCursor cursor;
+
+    public LimitedSizeSortedLightRecordCursorFactory(
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            RecordComparator comparator,
+            Function loFunction,
+            @Nullable Function hiFunction
+    ) {
+        super(metadata);
+        this.base = base;
+        this.cursor = new LimitedSizeSortedLightRecordCursor(comparator, loFunction, hiFunction);
+    }
+
+    @Override
+    public void close() {
+        base.close();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            cursor.of(baseCursor, executionContext);
+            return cursor;
+        } catch (RuntimeException ex) {
+            baseCursor.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean implementsLimit() {
+        return true;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+}
@@ -0,0 +1,298 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.sql.DelegatingRecordCursor;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.std.ObjectFactory;
+import io.questdb.tasks.SortTask;
+
+/**
+ * Copies sort keys and row ids of base cursor into runs of "runRows" rows. Each run is
+ * sorted by a worker as soon as it is filled, runs filled after memory budget is exhausted
+ * are kept in memory-mapped files. Sorted runs are merged through binary heap of run
+ * indexes and rows are read from base cursor by row id.
+ */
+class ParallelSortedLightRecordCursor implements DelegatingRecordCursor {
+    private final ObjList<SortRun> runs = new ObjList<>();
+    private final ObjList<SortEntry> entries = new ObjList<>();
+    private final ObjectFactory<SortRun> runFactory;
+    private final ObjectFactory<SortEntry> entryFactory;
+    private final RecordComparator mergeComparator;
+    private final IntList heap = new IntList();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final long runRows;
+    private final long memoryBudget;
+    private RingQueue<SortTask> queue;
+    private Sequence pubSeq;
+    private RecordCursor base;
+    private Record baseRecord;
+    private int runCount;
+    private int maxBatchSize;
+    private int batchSize;
+    private int sequence;
+    private int heapSize;
+
+    ParallelSortedLightRecordCursor(
+            ObjectFactory<SortRun> runFactory,
+            ObjectFactory<SortEntry> entryFactory,
+            RecordComparator mergeComparator,
+            long runRows,
+            long memoryBudget
+    ) {
+        this.runFactory = runFactory;
+        this.entryFactory = entryFactory;
+        this.mergeComparator = mergeComparator;
+        this.runRows = runRows;
+        this.memoryBudget = memoryBudget;
+    }
+
+    @Override
+    public void close() {
+        clearRuns();
+        base = Misc.free(base);
+    }
+
+    @Override
+    public Record getRecord() {
+        return baseRecord;
+    }
+
+    @Override
+    public SymbolTable getSymbolTable(int columnIndex) {
+        return base.getSymbolTable(columnIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (heapSize == 0) {
+            return false;
+        }
+
+        final SortRun run = runs.getQuick(heap.getQuick(0));
+        base.recordAt(baseRecord, run.getRowId());
+        if (!run.hasNext()) {
+            heap.setQuick(0, heap.getQuick(--heapSize));
+        }
+        siftDown(0);
+        return true;
+    }
+
+    @Override
+    public Record getRecordB() {
+        return base.getRecordB();
+    }
+
+    @Override
+    public void recordAt(Record record, long atRowId) {
+        base.recordAt(record, atRowId);
+    }
+
+    @Override
+    public void toTop() {
+        heapSize = 0;
+        for (int i = 0; i < runCount; i++) {
+            final SortRun run = runs.getQuick(i);
+            run.toTop();
+            if (run.hasNext()) {
+                heap.extendAndSet(heapSize, i);
+                siftUp(heapSize++);
+            }
+        }
+    }
+
+    @Override
+    public long size() {
+        return base.size();
+    }
+
+    @Override
+    public void of(RecordCursor base, SqlExecutionContext executionContext) {
+        this.base = base;
+        this.baseRecord = base.getRecord();
+        final MessageBus bus = executionContext.getMessageBus();
+        if (bus != null && executionContext.getWorkerCount() > 1) {
+            this.queue = bus.getSortQueue();
+            this.pubSeq = bus.getSortPubSequence();
+        } else {
+            this.queue = null;
+            this.pubSeq = null;
+        }
+        // keep workers busy while limiting number of entries
+        this.maxBatchSize = Math.max(1, executionContext.getWorkerCount()) * 2;
+        final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
+
+        clearRuns();
+        doneLatch.reset();
+        try {
+            long allocated = 0;
+            SortRun run = null;
+            while (base.hasNext()) {
+                interruptor.checkInterrupted();
+                if (run == null) {
+                    run = nextRun(allocated >= memoryBudget);
+                }
+                run.put(baseRecord);
+                if (run.getRowCount() == runRows) {
+                    allocated += run.getAllocatedSize();
+                    dispatch(run);
+                    run = null;
+                }
+            }
+            if (run != null) {
+                dispatch(run);
+            }
+            awaitBatch();
+        } catch (Throwable e) {
+            // workers may still be sorting runs, entries they did not pick up yet are dropped
+            for (int i = 0; i < batchSize; i++) {
+                entries.getQuick(i).cancel();
+            }
+            doneLatch.await(batchSize);
+            batchSize = 0;
+            clearRuns();
+            throw e;
+        }
+
+        toTop();
+    }
+
+    void free() {
+        clearRuns();
+        Misc.freeObjList(runs);
+    }
+
+    private void awaitBatch() {
+        final int count = batchSize;
+        // start at the back to reduce chance of clashing with workers
+        for (int i = count - 1; i > -1 && doneLatch.getCount() > -count; i--) {
+            entries.getQuick(i).run();
+        }
+        doneLatch.await(count);
+        doneLatch.reset();
+        batchSize = 0;
+
+        for (int i = 0; i < count; i++) {
+            final SortEntry entry = entries.getQuick(i);
+            if (entry.isFailed()) {
+                throw CairoException.instance(0).put(entry.getError());
+            }
+        }
+    }
+
+    private void clearRuns() {
+        // releases memory and removes spill files
+        for (int i = 0; i < runCount; i++) {
+            runs.getQuick(i).clear();
+        }
+        runCount = 0;
+        heapSize = 0;
+    }
+
+    // compares current records of two runs, rows of the same key are returned from later run first
+    private int compareRuns(int a, int b) {
+        runs.getQuick(a).setLeft(mergeComparator);
+        final int cmp = mergeComparator.compare(runs.getQuick(b).getRecord());
+        return cmp != 0 ? cmp : Integer.compare(b, a);
+    }
+
+    private void dispatch(SortRun run) {
+        if (batchSize == maxBatchSize) {
+            awaitBatch();
+        }
+
+        if (batchSize == entries.size()) {
+            entries.add(entryFactory.newInstance());
+        }
+        final SortEntry entry = entries.getQuick(batchSize++);
+        entry.of(sequence++, run, doneLatch);
+
+        final long seq = pubSeq != null ? pubSeq.next() : -1;
+        if (seq < 0) {
+            // queue is full or there is no worker pool, sort on this thread
+            entry.run();
+        } else {
+            queue.get(seq).entry = entry;
+            pubSeq.done(seq);
+        }
+    }
+
+    private SortRun nextRun(boolean spill) {
+        if (runCount == runs.size()) {
+            runs.add(runFactory.newInstance());
+        }
+        final SortRun run = runs.getQuick(runCount++);
+        run.of(spill);
+        return run;
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            final int left = 2 * index + 1;
+            if (left >= heapSize) {
+                return;
+            }
+            final int right = left + 1;
+            int child = left;
+            if (right < heapSize && compareRuns(heap.getQuick(right), heap.getQuick(left)) < 0) {
+                child = right;
+            }
+            final int run = heap.getQuick(index);
+            final int childRun = heap.getQuick(child);
+            if (compareRuns(run, childRun) <= 0) {
+                return;
+            }
+            heap.setQuick(index, childRun);
+            heap.setQuick(child, run);
+            index = child;
+        }
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            final int run = heap.getQuick(index);
+            final int parentRun = heap.getQuick(parent);
+            if (compareRuns(parentRun, run) <= 0) {
+                return;
+            }
+            heap.setQuick(index, parentRun);
+            heap.setQuick(parent, run);
+            index = parent;
+        }
+    }
+}
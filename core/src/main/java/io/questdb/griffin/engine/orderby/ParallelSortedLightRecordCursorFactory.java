@@ -0,0 +1,127 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.*;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.BytecodeAssembler;
+import io.questdb.std.Chars;
+import io.questdb.std.Files;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.IntList;
+import io.questdb.std.Transient;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Sorts row ids of random access base factory in runs, which are sorted on worker threads
+ * and merged. Unlike {@link SortedLightRecordCursorFactory} memory used by the sort is
+ * bounded by {@link CairoConfiguration#getSqlSortMemoryBudget()}, runs over the budget
+ * are kept in memory-mapped temporary files.
+ */
+public class ParallelSortedLightRecordCursorFactory extends AbstractRecordCursorFactory {
+    private final RecordCursorFactory base;
+    private final ParallelSortedLightRecordCursor cursor;
+
+    public ParallelSortedLightRecordCursorFactory(
+            CairoConfiguration configuration,
+            RecordMetadata metadata,
+            RecordCursorFactory base,
+            // sort columns of base metadata, 1-based, negative for descending order
+            @Transient @NotNull IntList sortColumns,
+            @Transient @NotNull BytecodeAssembler asm,
+            @Transient @NotNull RecordComparatorCompiler comparatorCompiler
+    ) {
+        super(metadata);
+        this.base = base;
+
+        // run copies sort keys, symbols as strings, followed by row id
+        final RecordMetadata baseMetadata = base.getMetadata();
+        final ListColumnFilter keyFilter = new ListColumnFilter();
+        final ArrayColumnTypes runColumnTypes = new ArrayColumnTypes();
+        final IntList runSortColumns = new IntList();
+        for (int i = 0, n = sortColumns.size(); i < n; i++) {
+            final int column = sortColumns.getQuick(i);
+            final int index = (column > 0 ? column : -column) - 1;
+            keyFilter.add(index);
+            final int type = baseMetadata.getColumnType(index);
+            runColumnTypes.add(type == ColumnType.SYMBOL ? ColumnType.STRING : type);
+            runSortColumns.add(column > 0 ? i + 1 : -i - 1);
+        }
+        runColumnTypes.add(ColumnType.LONG);
+
+        final RecordSink keySink = RecordSinkFactory.getInstance(asm, baseMetadata, keyFilter, true);
+        final Class<RecordComparator> comparatorClass = comparatorCompiler.compileClass(runColumnTypes, runSortColumns);
+        final FilesFacade ff = configuration.getFilesFacade();
+        final String spillRoot = Chars.toString(configuration.getRoot()) + Files.SEPARATOR + ".sort";
+        final int mkDirMode = configuration.getMkDirMode();
+        final long recordPageSize = configuration.getSqlSortValuePageSize();
+        final int recordMaxPages = configuration.getSqlSortValueMaxPages();
+        final long indexPageSize = configuration.getSqlSortLightValuePageSize();
+        final int indexMaxPages = configuration.getSqlSortLightValueMaxPages();
+        this.cursor = new ParallelSortedLightRecordCursor(
+                () -> new SortRun(
+                        ff,
+                        spillRoot,
+                        mkDirMode,
+                        runColumnTypes,
+                        keySink,
+                        recordPageSize,
+                        recordMaxPages,
+                        indexPageSize,
+                        indexMaxPages
+                ),
+                () -> new SortEntry(BytecodeAssembler.newInstance(comparatorClass)),
+                BytecodeAssembler.newInstance(comparatorClass),
+                configuration.getSqlParallelSortRunRows(),
+                configuration.getSqlSortMemoryBudget()
+        );
+    }
+
+    @Override
+    public void close() {
+        base.close();
+        cursor.free();
+    }
+
+    @Override
+    public RecordCursor getCursor(SqlExecutionContext executionContext) {
+        RecordCursor baseCursor = base.getCursor(executionContext);
+        try {
+            cursor.of(baseCursor, executionContext);
+            return cursor;
+        } catch (RuntimeException ex) {
+            baseCursor.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+}
@@ -57,6 +57,19 @@ public class RecordComparatorCompiler {
      * @return RecordComparator instance.
      */
     public RecordComparator compile(ColumnTypes columnTypes, @Transient IntList keyColumnIndices) {
+        return BytecodeAssembler.newInstance(compileClass(columnTypes, keyColumnIndices));
+    }
+
+    /**
+     * Same as {@link #compile(ColumnTypes, IntList)} but returns comparator class. Comparator instance
+     * caches values of the left argument, threads that compare records at the same time need an
+     * instance each.
+     *
+     * @param columnTypes      types of columns in the cursor
+     * @param keyColumnIndices 1-based indexes of columns, index sign indicates direction of sort
+     * @return RecordComparator class.
+     */
+    public Class<RecordComparator> compileClass(ColumnTypes columnTypes, @Transient IntList keyColumnIndices) {
 
         assert keyColumnIndices.size() < SqlParser.MAX_ORDER_BY_COLUMNS;
 
@@ -91,7 +104,7 @@ public class RecordComparatorCompiler {
 
         // class attribute count
         asm.putShort(0);
-        return asm.newInstance();
+        return asm.loadClass(RecordComparator.class);
     }
 
     private void instrumentCompareMethod(int stackMapTableIndex, int nameIndex, int descIndex, IntList keyColumns) {
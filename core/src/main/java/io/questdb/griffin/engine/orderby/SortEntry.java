@@ -0,0 +1,101 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+
+/**
+ * Sorts one run at a time. Entry owns its comparator because comparator caches values of
+ * the left record and cannot be shared between threads.
+ */
+public class SortEntry {
+    private static final long TARGET_SEQUENCE_OFFSET;
+
+    static {
+        TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(SortEntry.class, "targetSequence");
+    }
+
+    private final RecordComparator comparator;
+    private final StringSink error = new StringSink();
+    private SortRun sortRun;
+    private boolean failed;
+    private int srcSequence;
+    // to "lock" the entry thread must successfully CAS targetSequence form "srcSequence" value
+    // to "srcSequence+1". Executing thread must not be changing value of "srcSequence"
+    @SuppressWarnings({"FieldCanBeLocal", "unused"})
+    private int targetSequence;
+    private CountDownLatchSPI doneLatch;
+
+    SortEntry(RecordComparator comparator) {
+        this.comparator = comparator;
+    }
+
+    public boolean run() {
+        if (tryLock()) {
+            try {
+                sortRun.sort(comparator);
+            } catch (Throwable e) {
+                // exceptions are thread local, owner thread reports the message
+                error.clear();
+                error.put(e.getMessage());
+                failed = true;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean tryLock() {
+        return Unsafe.cas(this, TARGET_SEQUENCE_OFFSET, srcSequence, srcSequence + 1);
+    }
+
+    // releases entry nobody has started working on yet
+    void cancel() {
+        if (tryLock()) {
+            doneLatch.countDown();
+        }
+    }
+
+    CharSequence getError() {
+        return error;
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    // unlocks entry, run must be filled before this call
+    void of(int sequence, SortRun sortRun, CountDownLatchSPI doneLatch) {
+        this.sortRun = sortRun;
+        this.doneLatch = doneLatch;
+        this.failed = false;
+        this.srcSequence = sequence;
+        this.targetSequence = sequence;
+    }
+}
@@ -0,0 +1,320 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.ColumnTypes;
+import io.questdb.cairo.RecordChain;
+import io.questdb.cairo.RecordSink;
+import io.questdb.cairo.SpillableVirtualMemory;
+import io.questdb.cairo.sql.Record;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.Long256;
+import io.questdb.std.Long256Impl;
+import io.questdb.std.Mutable;
+import io.questdb.std.ObjList;
+import io.questdb.std.Transient;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Sorted run of rows. Run keeps copy of sort key columns and row id of each row in
+ * {@link RecordChain} together with index of record offsets, which is sorted in place. Run
+ * does not share state with the cursor it was copied from, so it can be sorted by any thread.
+ * Rows that compare equal are sorted last copied first, the same way {@link LongTreeChain}
+ * returns them.
+ */
+public class SortRun implements Closeable, Mutable {
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    private final SpillableVirtualMemory recordMem;
+    private final SpillableVirtualMemory indexMem;
+    private final RecordChain chain;
+    private final Record record;
+    private final Record pivotRecord;
+    private final LeftRecord leftRecord;
+    private final int rowIdIndex;
+    private long rowCount;
+    private long position;
+
+    public SortRun(
+            FilesFacade ff,
+            CharSequence spillRoot,
+            int mkDirMode,
+            @Transient ColumnTypes columnTypes,
+            RecordSink keySink,
+            long recordPageSize,
+            int recordMaxPages,
+            long indexPageSize,
+            int indexMaxPages
+    ) {
+        this.recordMem = new SpillableVirtualMemory(ff, spillRoot, mkDirMode, recordPageSize, recordMaxPages);
+        this.indexMem = new SpillableVirtualMemory(ff, spillRoot, mkDirMode, indexPageSize, indexMaxPages);
+        this.chain = new RecordChain(columnTypes, keySink, recordMem);
+        this.record = chain.getRecord();
+        this.pivotRecord = chain.getRecordB();
+        // row id follows key columns
+        this.rowIdIndex = columnTypes.getColumnCount() - 1;
+        this.leftRecord = new LeftRecord(rowIdIndex);
+    }
+
+    @Override
+    public void clear() {
+        chain.clear();
+        indexMem.close();
+        rowCount = 0;
+        position = 0;
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    public void sort(RecordComparator comparator) {
+        sort(comparator, 0, rowCount - 1);
+    }
+
+    long getAllocatedSize() {
+        return recordMem.getAllocatedSize() + indexMem.getAllocatedSize();
+    }
+
+    Record getRecord() {
+        return record;
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    long getRowId() {
+        return record.getLong(rowIdIndex);
+    }
+
+    boolean hasNext() {
+        if (position < rowCount) {
+            chain.recordAt(record, getOffset(position++));
+            return true;
+        }
+        return false;
+    }
+
+    void of(boolean spill) {
+        clear();
+        recordMem.setSpill(spill);
+        indexMem.setSpill(spill);
+    }
+
+    void put(Record baseRecord) {
+        final long offset = chain.put(baseRecord, -1);
+        chain.putLong(baseRecord.getRowId());
+        indexMem.putLong(offset);
+        rowCount++;
+    }
+
+    // sets current record as left record of comparator
+    void setLeft(RecordComparator comparator) {
+        setLeft(comparator, record);
+    }
+
+    void toTop() {
+        position = 0;
+    }
+
+    // compares left record set on comparator to the record at given offset
+    private int compareToLeft(RecordComparator comparator, long leftOffset, long offset) {
+        chain.recordAt(record, offset);
+        final int cmp = -comparator.compare(record);
+        // record copied later comes first
+        return cmp != 0 ? cmp : Long.compare(leftOffset, offset);
+    }
+
+    private long getOffset(long index) {
+        return indexMem.getLong(index << 3);
+    }
+
+    private void insertionSort(RecordComparator comparator, long lo, long hi) {
+        for (long i = lo + 1; i <= hi; i++) {
+            final long offset = getOffset(i);
+            chain.recordAt(pivotRecord, offset);
+            setLeft(comparator, pivotRecord);
+            long j = i - 1;
+            while (j >= lo) {
+                final long other = getOffset(j);
+                if (compareToLeft(comparator, offset, other) <= 0) {
+                    break;
+                }
+                setOffset(j + 1, other);
+                j--;
+            }
+            setOffset(j + 1, offset);
+        }
+    }
+
+    private void setLeft(RecordComparator comparator, Record left) {
+        comparator.setLeft(leftRecord.of(left));
+    }
+
+    private void setOffset(long index, long offset) {
+        indexMem.putLong(index << 3, offset);
+    }
+
+    private void sort(RecordComparator comparator, long lo, long hi) {
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+            // comparator caches pivot values, the whole partition
+            // is compared to the pivot without re-reading it
+            final long pivot = getOffset((lo + hi) >>> 1);
+            chain.recordAt(pivotRecord, pivot);
+            setLeft(comparator, pivotRecord);
+
+            long i = lo;
+            long j = hi;
+            while (i <= j) {
+                while (compareToLeft(comparator, pivot, getOffset(i)) < 0) {
+                    i++;
+                }
+                while (compareToLeft(comparator, pivot, getOffset(j)) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    final long tmp = getOffset(i);
+                    setOffset(i++, getOffset(j));
+                    setOffset(j--, tmp);
+                }
+            }
+
+            // recurse into smaller partition to keep stack shallow
+            if (j - lo < hi - i) {
+                sort(comparator, lo, j);
+                lo = i;
+            } else {
+                sort(comparator, i, hi);
+                hi = j;
+            }
+        }
+        insertionSort(comparator, lo, hi);
+    }
+
+    /**
+     * Comparator keeps values of left record. Strings and long256 values of chain records are
+     * views of the same memory, which are reused for every column, therefore they are copied
+     * for each key column.
+     */
+    private static class LeftRecord implements Record {
+        private final ObjList<StringSink> strings = new ObjList<>();
+        private final ObjList<Long256Impl> longs256 = new ObjList<>();
+        private Record base;
+
+        private LeftRecord(int columnCount) {
+            for (int i = 0; i < columnCount; i++) {
+                strings.add(new StringSink());
+                longs256.add(new Long256Impl());
+            }
+        }
+
+        @Override
+        public boolean getBool(int col) {
+            return base.getBool(col);
+        }
+
+        @Override
+        public byte getByte(int col) {
+            return base.getByte(col);
+        }
+
+        @Override
+        public char getChar(int col) {
+            return base.getChar(col);
+        }
+
+        @Override
+        public long getDate(int col) {
+            return base.getDate(col);
+        }
+
+        @Override
+        public double getDouble(int col) {
+            return base.getDouble(col);
+        }
+
+        @Override
+        public float getFloat(int col) {
+            return base.getFloat(col);
+        }
+
+        @Override
+        public int getInt(int col) {
+            return base.getInt(col);
+        }
+
+        @Override
+        public long getLong(int col) {
+            return base.getLong(col);
+        }
+
+        @Override
+        public Long256 getLong256A(int col) {
+            return getLong256B(col);
+        }
+
+        @Override
+        public Long256 getLong256B(int col) {
+            final Long256Impl value = longs256.getQuick(col);
+            value.copyFrom(base.getLong256B(col));
+            return value;
+        }
+
+        @Override
+        public short getShort(int col) {
+            return base.getShort(col);
+        }
+
+        @Override
+        public CharSequence getStr(int col) {
+            return getStrB(col);
+        }
+
+        @Override
+        public CharSequence getStrB(int col) {
+            final CharSequence value = base.getStrB(col);
+            if (value == null) {
+                return null;
+            }
+            final StringSink sink = strings.getQuick(col);
+            sink.clear();
+            sink.put(value);
+            return sink;
+        }
+
+        @Override
+        public long getTimestamp(int col) {
+            return base.getTimestamp(col);
+        }
+
+        private LeftRecord of(Record base) {
+            this.base = base;
+            return this;
+        }
+    }
+}
@@ -39,7 +39,11 @@ class DataFrameRecordCursor extends AbstractDataFrameRecordCursor {
     private BooleanSupplier next;
     private final BooleanSupplier nextRow = this::nextRow;
     private final BooleanSupplier nextFrame = this::nextFrame;
+    private final BooleanSupplier nextFilteredRow = this::nextFilteredRow;
+    private final BooleanSupplier nextFilteredFrame = this::nextFilteredFrame;
     private final Function filter;
+    private RuntimeRecordFilter runtimeFilter;
+    private BooleanSupplier firstFrame;
 
     public DataFrameRecordCursor(
             RowCursorFactory rowCursorFactory,
@@ -69,7 +73,8 @@ class DataFrameRecordCursor extends AbstractDataFrameRecordCursor {
             filter.toTop();
         }
         dataFrameCursor.toTop();
-        next = nextFrame;
+        firstFrame = runtimeFilter != null && runtimeFilter.isActive() ? nextFilteredFrame : nextFrame;
+        next = firstFrame;
     }
 
     private boolean nextRow() {
@@ -89,12 +94,52 @@ class DataFrameRecordCursor extends AbstractDataFrameRecordCursor {
         this.recordA.of(dataFrameCursor.getTableReader());
         this.recordB.of(dataFrameCursor.getTableReader());
         this.rowCursorFactory.prepareCursor(dataFrameCursor.getTableReader());
-        this.next = nextFrame;
+        if (runtimeFilter != null && runtimeFilter.isActive()) {
+            runtimeFilter.of(this);
+            this.firstFrame = nextFilteredFrame;
+        } else {
+            this.firstFrame = nextFrame;
+        }
+        this.next = firstFrame;
     }
 
     @Override
     public long size() {
-        return entityCursor ? dataFrameCursor.size() : -1;
+        return entityCursor && firstFrame == nextFrame ? dataFrameCursor.size() : -1;
+    }
+
+    void setRuntimeFilter(RuntimeRecordFilter runtimeFilter) {
+        assert this.runtimeFilter == null;
+        this.runtimeFilter = runtimeFilter;
+    }
+
+    private boolean nextFilteredFrame() {
+        DataFrame dataFrame;
+        while ((dataFrame = dataFrameCursor.next()) != null) {
+            rowCursor = rowCursorFactory.getCursor(dataFrame);
+            if (rowCursor.hasNext()) {
+                recordA.jumpTo(dataFrame.getPartitionIndex(), rowCursor.next());
+                next = nextFilteredRow;
+                if (runtimeFilter.accept(recordA) || nextAcceptedRow()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean nextFilteredRow() {
+        return nextAcceptedRow() || nextFilteredFrame();
+    }
+
+    private boolean nextAcceptedRow() {
+        while (rowCursor.hasNext()) {
+            recordA.setRecordIndex(rowCursor.next());
+            if (runtimeFilter.accept(recordA)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private boolean nextFrame() {
@@ -42,6 +42,7 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
     private final boolean framingSupported;
     private final IntList columnIndexes;
     private final IntList columnSizes;
+    private final boolean parallelFilterSupported;
     private TableReaderPageFrameCursor pageFrameCursor;
 
     public DataFrameRecordCursorFactory(
@@ -62,6 +63,8 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         this.framingSupported = framingSupported;
         this.columnIndexes = columnIndexes;
         this.columnSizes = columnSizes;
+        // plain scan of data frames, rows can be filtered by page frame tasks
+        this.parallelFilterSupported = filter == null && rowCursorFactory instanceof DataFrameRowCursorFactory;
     }
 
     @Override
@@ -104,25 +107,40 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         return framingSupported;
     }
 
+    @Override
+    public boolean pushDownRuntimeFilter(RuntimeRecordFilter filter) {
+        cursor.setRuntimeFilter(filter);
+        return true;
+    }
+
+    public boolean supportsParallelFilter() {
+        return parallelFilterSupported;
+    }
+
+    IntList getColumnIndexes() {
+        return columnIndexes;
+    }
+
     @Override
     public void close() {
         Misc.free(filter);
     }
 
     private static class TableReaderPageFrameCursor implements PageFrameCursor {
-        private final LongList columnPageNextAddress = new LongList();
         private final LongList columnPageAddress = new LongList();
         private final TableReaderPageFrameCursor.TableReaderPageFrame frame = new TableReaderPageFrameCursor.TableReaderPageFrame();
-        private final LongList topsRemaining = new LongList();
-        private final IntList pages = new IntList();
+        private final LongList columnTops = new LongList();
+        private final IntList columnPages = new IntList();
+        private final LongList columnPageOffsets = new LongList();
         private final int columnCount;
         private final IntList columnIndexes;
         private final IntList columnSizes;
-        private final LongList pageSizes = new LongList();
         private TableReader reader;
         private int partitionIndex;
+        private long partitionLo;
+        private long partitionHi;
+        private long pageRowLo;
         private long pageValueCount;
-        private long partitionRemaining = 0L;
         private DataFrameCursor dataFrameCursor;
 
         public TableReaderPageFrameCursor(IntList columnIndexes, IntList columnSizes) {
@@ -142,85 +160,42 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
         }
 
         @Override
-        public @Nullable PageFrame next() {
+        public TableReader getTableReader() {
+            return reader;
+        }
 
-            if (partitionIndex > -1) {
-                final long m = computePageMin(reader.getColumnBase(partitionIndex));
-                if (m < Long.MAX_VALUE) {
-                    return computeFrame(m);
+        @Override
+        public @Nullable PageFrame next() {
+            while (partitionLo >= partitionHi) {
+                final DataFrame dataFrame = dataFrameCursor.next();
+                if (dataFrame == null) {
+                    return null;
                 }
-            }
-
-            DataFrame dataFrame;
-            while ((dataFrame = dataFrameCursor.next()) != null) {
                 this.partitionIndex = dataFrame.getPartitionIndex();
-                long partitionSize = reader.openPartition(partitionIndex);
-                final long partitionLo = dataFrame.getRowLo();
-                final long partitionHi = dataFrame.getRowHi();
-
-                this.partitionRemaining = partitionHi - partitionLo;
-
-                if (partitionRemaining > 0) {
-                    final int base = reader.getColumnBase(dataFrame.getPartitionIndex());
-                    // copy table tops
-                    for (int i = 0; i < columnCount; i++) {
-                        final int columnIndex = columnIndexes.getQuick(i);
-                        topsRemaining.setQuick(i, reader.getColumnTop(base, columnIndex));
-                        pages.setQuick(i, 0);
-                        pageSizes.setQuick(i, -1L);
-                    }
+                reader.openPartition(partitionIndex);
+                this.partitionLo = dataFrame.getRowLo();
+                this.partitionHi = dataFrame.getRowHi();
 
-                    // reduce
-                    for (int i = 0; i < columnCount; i++) {
-                        long loRemaining = partitionLo;
-                        long top = topsRemaining.getQuick(i);
-                        if (top >= partitionLo) {
-                            loRemaining = 0;
-                            top -= partitionLo;
-                            topsRemaining.setQuick(i, top);
-                        } else {
-                            topsRemaining.setQuick(i, 0);
-                            loRemaining -= top;
-                        }
-
-                        if (loRemaining > 0) {
-                            final ReadOnlyColumn col = reader.getColumn(TableReader.getPrimaryColumnIndex(base, columnIndexes.getQuick(i)));
-                            if (col instanceof NullColumn) {
-                                columnPageNextAddress.setQuick(i, 0);
-                                pageSizes.setQuick(i, partitionSize - partitionLo);
-                            } else {
-                                int page = pages.getQuick(i);
-                                while (true) {
-                                    long pageSize = col.getPageSize(page) >> columnSizes.getQuick(i);
-                                    if (pageSize > loRemaining) {
-                                        long addr = col.getPageAddress(page);
-                                        addr += partitionLo << columnSizes.getQuick(i);
-                                        columnPageNextAddress.setQuick(i, addr);
-                                        pageSizes.setQuick(i, pageSize - partitionLo);
-                                        pages.setQuick(i, page);
-                                        break;
-                                    }
-                                    loRemaining -= pageSize;
-                                    page++;
-                                }
-                            }
-                        }
-                    }
-                    return computeFrame(computePageMin(base));
+                final int base = reader.getColumnBase(partitionIndex);
+                for (int i = 0; i < columnCount; i++) {
+                    columnTops.setQuick(i, reader.getColumnTop(base, columnIndexes.getQuick(i)));
+                    columnPages.setQuick(i, 0);
+                    columnPageOffsets.setQuick(i, 0);
                 }
             }
-            return null;
+            return computeFrame();
         }
 
         @Override
         public void toTop() {
             this.partitionIndex = -1;
+            this.partitionLo = 0;
+            this.partitionHi = 0;
             this.dataFrameCursor.toTop();
-            pages.setAll(columnCount, 0);
-            topsRemaining.setAll(columnCount, 0);
+            columnPages.setAll(columnCount, 0);
+            columnTops.setAll(columnCount, 0);
+            columnPageOffsets.setAll(columnCount, 0);
             columnPageAddress.setAll(columnCount, 0);
-            columnPageNextAddress.setAll(columnCount, 0);
-            pageSizes.setAll(columnCount, -1L);
             pageValueCount = 0;
         }
 
@@ -236,58 +211,52 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
             return this;
         }
 
-        private PageFrame computeFrame(long min) {
+        // frame starts at "partitionLo" and ends at nearest of: end of data frame,
+        // column top or end of column page, so that every column page is contiguous
+        private PageFrame computeFrame() {
+            final int base = reader.getColumnBase(partitionIndex);
+            final long lo = partitionLo;
+            long hi = partitionHi;
             for (int i = 0; i < columnCount; i++) {
-                final int columnIndex = columnIndexes.getQuick(i);
-                final long top = topsRemaining.getQuick(i);
-                if (top > 0) {
-                    topsRemaining.setQuick(i, top - min);
-                    columnPageAddress.setQuick(columnIndex, 0);
-                } else {
-                    long addr = columnPageNextAddress.getQuick(i);
-                    long psz = pageSizes.getQuick(i);
-                    pageSizes.setQuick(i, psz - min);
-                    columnPageAddress.setQuick(i, addr);
-                    columnPageNextAddress.setQuick(i, addr + (min << columnSizes.getQuick(i)));
+                final long top = columnTops.getQuick(i);
+                if (lo < top) {
+                    columnPageAddress.setQuick(i, 0);
+                    hi = Math.min(hi, top);
+                    continue;
                 }
-            }
-            pageValueCount = min;
-            partitionRemaining -= min;
-            return frame;
-        }
 
-        private long computePageMin(int base) {
-            // find min frame length
-            long min = Long.MAX_VALUE;
-            for (int i = 0; i < columnCount; i++) {
-                final long top = topsRemaining.getQuick(i);
-                if (top > 0) {
-                    if (min > top) {
-                        min = top;
-                    }
-                } else {
-                    long psz = pageSizes.getQuick(i);
-                    if (psz > 0) {
-                        if (min > psz) {
-                            min = psz;
-                        }
-                    } else if (partitionRemaining > 0) {
-                        final int page = pages.getQuick(i);
-                        pages.setQuick(i, page + 1);
-                        final ReadOnlyColumn col = reader.getColumn(TableReader.getPrimaryColumnIndex(base, columnIndexes.getQuick(i)));
-                        // page size is liable to change after it is mapped
-                        // it is important to map page first and call pageSize() after
-                        columnPageNextAddress.setQuick(i, col.getPageAddress(page));
-                        psz = !(col instanceof NullColumn) ? col.getPageSize(page) >> columnSizes.getQuick(i) : partitionRemaining;
-                        final long m = Math.min(psz, partitionRemaining);
-                        pageSizes.setQuick(i, m);
-                        if (min > m) {
-                            min = m;
-                        }
+                final ReadOnlyColumn col = reader.getColumn(TableReader.getPrimaryColumnIndex(base, columnIndexes.getQuick(i)));
+                if (col instanceof NullColumn) {
+                    columnPageAddress.setQuick(i, 0);
+                    continue;
+                }
+
+                final int shift = columnSizes.getQuick(i);
+                final long offset = (lo - top) << shift;
+                int page = columnPages.getQuick(i);
+                long pageOffset = columnPageOffsets.getQuick(i);
+                long pageAddress;
+                long pageSize;
+                while (true) {
+                    // page size is liable to change after it is mapped
+                    // it is important to map page first and call pageSize() after
+                    pageAddress = col.getPageAddress(page);
+                    pageSize = col.getPageSize(page);
+                    if (offset < pageOffset + pageSize) {
+                        break;
                     }
+                    pageOffset += pageSize;
+                    page++;
                 }
+                columnPages.setQuick(i, page);
+                columnPageOffsets.setQuick(i, pageOffset);
+                columnPageAddress.setQuick(i, pageAddress + offset - pageOffset);
+                hi = Math.min(hi, top + ((pageOffset + pageSize) >> shift));
             }
-            return min;
+            pageRowLo = lo;
+            pageValueCount = hi - lo;
+            partitionLo = hi;
+            return frame;
         }
 
         private class TableReaderPageFrame implements PageFrame {
@@ -301,6 +270,16 @@ public class DataFrameRecordCursorFactory extends AbstractDataFrameRecordCursorF
             public long getPageValueCount(int columnIndex) {
                 return pageValueCount;
             }
+
+            @Override
+            public int getPartitionIndex() {
+                return partitionIndex;
+            }
+
+            @Override
+            public long getRowLo() {
+                return pageRowLo;
+            }
         }
     }
 
@@ -28,6 +28,7 @@ import io.questdb.cairo.sql.Function;
 import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.cairo.sql.RuntimeRecordFilter;
 import io.questdb.griffin.SqlExecutionContext;
 
 public class FilteredRecordCursorFactory implements RecordCursorFactory {
@@ -60,6 +61,12 @@ public class FilteredRecordCursorFactory implements RecordCursorFactory {
         return base.getMetadata();
     }
 
+    @Override
+    public boolean pushDownRuntimeFilter(RuntimeRecordFilter filter) {
+        // metadata is that of base, rows rejected by base are not evaluated by this filter
+        return base.pushDownRuntimeFilter(filter);
+    }
+
     @Override
     public boolean recordCursorSupportsRandomAccess() {
         return base.recordCursorSupportsRandomAccess();
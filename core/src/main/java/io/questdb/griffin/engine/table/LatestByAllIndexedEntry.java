@@ -0,0 +1,183 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.BitmapIndexBwdReader;
+import io.questdb.cairo.BitmapIndexReader;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.Rows;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+
+import java.io.Closeable;
+
+/**
+ * Finds latest rows of a slice of symbol keys in one partition. Entry owns its index reader,
+ * because readers cached by table reader remap their memory as index grows and cannot be
+ * shared between threads.
+ */
+public class LatestByAllIndexedEntry implements Closeable {
+    private static final long TARGET_SEQUENCE_OFFSET;
+
+    static {
+        TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(LatestByAllIndexedEntry.class, "targetSequence");
+    }
+
+    private final BitmapIndexBwdReader indexReader = new BitmapIndexBwdReader();
+    // row ids of found keys, in the order of keys
+    private final LongList rows = new LongList();
+    // keys, which have no rows in the partition
+    private final IntList remainingKeys = new IntList();
+    private final StringSink error = new StringSink();
+    private IntList keys;
+    private int keyLo;
+    private int keyHi;
+    private int partitionIndex;
+    private long rowLo;
+    private long rowHi;
+    private boolean failed;
+    private int srcSequence;
+    // to "lock" the entry thread must successfully CAS targetSequence form "srcSequence" value
+    // to "srcSequence+1". Executing thread must not be changing value of "srcSequence"
+    @SuppressWarnings({"FieldCanBeLocal", "unused"})
+    private int targetSequence;
+    private CountDownLatchSPI doneLatch;
+
+    /**
+     * Looks up latest row of each key in the index, keys are probed in the order of the list.
+     *
+     * @param indexReader    backward index reader of the partition
+     * @param keys           index keys
+     * @param keyLo          first key position in the list, inclusive
+     * @param keyHi          last key position in the list, exclusive
+     * @param partitionIndex partition index to build row ids with
+     * @param rowLo          first row of the partition, inclusive
+     * @param rowHi          last row of the partition, inclusive
+     * @param rows           row ids of found keys
+     * @param remainingKeys  keys, which were not found
+     */
+    static void findRows(
+            BitmapIndexReader indexReader,
+            IntList keys,
+            int keyLo,
+            int keyHi,
+            int partitionIndex,
+            long rowLo,
+            long rowHi,
+            LongList rows,
+            IntList remainingKeys
+    ) {
+        for (int i = keyLo; i < keyHi; i++) {
+            final int key = keys.getQuick(i);
+            final RowCursor cursor = indexReader.getCursor(true, key, rowLo, rowHi);
+            if (cursor.hasNext()) {
+                rows.add(Rows.toRowID(partitionIndex, cursor.next()));
+            } else {
+                remainingKeys.add(key);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        indexReader.close();
+    }
+
+    public boolean run() {
+        if (tryLock()) {
+            try {
+                findRows(indexReader, keys, keyLo, keyHi, partitionIndex, rowLo, rowHi, rows, remainingKeys);
+            } catch (Throwable e) {
+                // exceptions are thread local, owner thread reports the message
+                error.clear();
+                error.put(e.getMessage());
+                failed = true;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean tryLock() {
+        return Unsafe.cas(this, TARGET_SEQUENCE_OFFSET, srcSequence, srcSequence + 1);
+    }
+
+    // releases entry nobody has started working on yet
+    void cancel() {
+        if (tryLock()) {
+            doneLatch.countDown();
+        }
+    }
+
+    CharSequence getError() {
+        return error;
+    }
+
+    BitmapIndexBwdReader getIndexReader() {
+        return indexReader;
+    }
+
+    IntList getRemainingKeys() {
+        return remainingKeys;
+    }
+
+    LongList getRows() {
+        return rows;
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    // unlocks entry, index reader must be open on the partition before this call
+    void of(
+            int sequence,
+            IntList keys,
+            int keyLo,
+            int keyHi,
+            int partitionIndex,
+            long rowLo,
+            long rowHi,
+            CountDownLatchSPI doneLatch
+    ) {
+        this.keys = keys;
+        this.keyLo = keyLo;
+        this.keyHi = keyHi;
+        this.partitionIndex = partitionIndex;
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.rows.clear();
+        this.remainingKeys.clear();
+        this.failed = false;
+        this.doneLatch = doneLatch;
+        this.srcSequence = sequence;
+        this.targetSequence = sequence;
+    }
+}
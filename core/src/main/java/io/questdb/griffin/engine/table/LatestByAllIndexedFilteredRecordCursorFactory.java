@@ -43,7 +43,7 @@ public class LatestByAllIndexedFilteredRecordCursorFactory extends AbstractTreeS
     ) {
         super(metadata, dataFrameCursorFactory, configuration);
         if (filter == null) {
-            this.cursor = new LatestByAllIndexedRecordCursor(columnIndex, rows, columnIndexes);
+            this.cursor = new LatestByAllIndexedRecordCursor(configuration, columnIndex, rows, columnIndexes);
         } else {
             this.cursor = new LatestByAllIndexedFilteredRecordCursor(columnIndex, rows, filter, columnIndexes);
         }
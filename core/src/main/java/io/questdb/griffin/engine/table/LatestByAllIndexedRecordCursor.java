@@ -24,67 +24,186 @@
 
 package io.questdb.griffin.engine.table;
 
+import io.questdb.MessageBus;
 import io.questdb.cairo.BitmapIndexReader;
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.TableReader;
 import io.questdb.cairo.sql.DataFrame;
-import io.questdb.cairo.sql.RowCursor;
 import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionInterruptor;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
 import io.questdb.std.DirectLongList;
-import io.questdb.std.IntHashSet;
 import io.questdb.std.IntList;
-import io.questdb.std.Rows;
+import io.questdb.std.LongList;
+import io.questdb.std.Misc;
+import io.questdb.std.ObjList;
+import io.questdb.tasks.LatestByTask;
 import org.jetbrains.annotations.NotNull;
 
+/**
+ * Probes backward index of each partition, newest first, for keys that have not been found
+ * in newer partitions. When there are enough keys left, they are split into slices, which
+ * are probed on worker threads. Found rows are collected in the order of keys, so the result
+ * is the same regardless of how keys are split.
+ */
 class LatestByAllIndexedRecordCursor extends AbstractRecordListCursor {
 
     private final int columnIndex;
-    private final IntHashSet found = new IntHashSet();
+    private final boolean parallelEnabled;
+    private final int minTaskKeys;
+    private final ObjList<LatestByAllIndexedEntry> entries = new ObjList<>();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    private final LongList foundRows = new LongList();
+    private IntList keys = new IntList();
+    private IntList remainingKeys = new IntList();
+    private int sequence;
 
-    public LatestByAllIndexedRecordCursor(int columnIndex, DirectLongList rows, @NotNull IntList columnIndexes) {
+    public LatestByAllIndexedRecordCursor(
+            @NotNull CairoConfiguration configuration,
+            int columnIndex,
+            DirectLongList rows,
+            @NotNull IntList columnIndexes
+    ) {
         super(rows, columnIndexes);
         this.columnIndex = columnIndex;
+        this.parallelEnabled = configuration.isSqlParallelLatestByEnabled();
+        this.minTaskKeys = Math.max(1, configuration.getSqlParallelLatestByTaskKeys());
     }
 
     @Override
-    protected void buildTreeMap(SqlExecutionContext executionContext) {
-        found.clear();
+    public void close() {
+        // index readers are reopened for every query, entries are kept
+        for (int i = 0, n = entries.size(); i < n; i++) {
+            Misc.free(entries.getQuick(i));
+        }
+        super.close();
+    }
 
-        int keyCount = dataFrameCursor.getTableReader().getSymbolMapReader(columnIndex).size() + 1;
-        int keyLo = 0;
-        int keyHi = keyCount;
+    @Override
+    protected void buildTreeMap(SqlExecutionContext executionContext) {
+        final TableReader reader = dataFrameCursor.getTableReader();
+        final int keyCount = reader.getSymbolMapReader(columnIndex).size() + 1;
+        keys.clear();
+        for (int i = 0; i < keyCount; i++) {
+            keys.add(i);
+        }
 
-        int localLo = Integer.MAX_VALUE;
-        int localHi = Integer.MIN_VALUE;
+        final MessageBus bus = executionContext.getMessageBus();
+        final RingQueue<LatestByTask> queue;
+        final Sequence pubSeq;
+        final int maxTaskCount;
+        if (parallelEnabled && bus != null && executionContext.getWorkerCount() > 1) {
+            queue = bus.getLatestByQueue();
+            pubSeq = bus.getLatestByPubSequence();
+            // keep workers busy when slices take different time
+            maxTaskCount = executionContext.getWorkerCount() * 2;
+        } else {
+            queue = null;
+            pubSeq = null;
+            maxTaskCount = 1;
+        }
+        final SqlExecutionInterruptor interruptor = executionContext.getSqlExecutionInterruptor();
 
         DataFrame frame;
-        while ((frame = this.dataFrameCursor.next()) != null && found.size() < keyCount) {
-            final BitmapIndexReader indexReader = frame.getBitmapIndexReader(columnIndex, BitmapIndexReader.DIR_BACKWARD);
+        while (keys.size() > 0 && (frame = this.dataFrameCursor.next()) != null) {
+            interruptor.checkInterrupted();
+            final int partitionIndex = frame.getPartitionIndex();
             final long rowLo = frame.getRowLo();
             final long rowHi = frame.getRowHi() - 1;
+            final int taskCount = Math.min(maxTaskCount, keys.size() / minTaskKeys);
 
-            for (int i = keyLo; i < keyHi; i++) {
-                int index = found.keyIndex(i);
-                if (index > -1) {
-                    RowCursor cursor = indexReader.getCursor(false, i, rowLo, rowHi);
-                    if (cursor.hasNext()) {
-                        rows.add(Rows.toRowID(frame.getPartitionIndex(), cursor.next()));
-                        found.addAt(index, i);
-                    } else {
-                        // adjust range
-                        if (i < localLo) {
-                            localLo = i;
-                        }
-
-                        if (i > localHi) {
-                            localHi = i;
-                        }
-                    }
-                }
+            remainingKeys.clear();
+            if (taskCount < 2 || !findRowsInParallel(reader, queue, pubSeq, taskCount, partitionIndex, rowLo, rowHi)) {
+                foundRows.clear();
+                LatestByAllIndexedEntry.findRows(
+                        frame.getBitmapIndexReader(columnIndex, BitmapIndexReader.DIR_BACKWARD),
+                        keys,
+                        0,
+                        keys.size(),
+                        partitionIndex,
+                        rowLo,
+                        rowHi,
+                        foundRows,
+                        remainingKeys
+                );
+                addRows(foundRows);
             }
 
-            keyLo = localLo;
-            keyHi = localHi + 1;
-            localLo = Integer.MAX_VALUE;
-            localHi = Integer.MIN_VALUE;
+            final IntList tmp = keys;
+            keys = remainingKeys;
+            remainingKeys = tmp;
+        }
+    }
+
+    private void addRows(LongList found) {
+        for (int i = 0, n = found.size(); i < n; i++) {
+            rows.add(found.getQuick(i));
+        }
+    }
+
+    private boolean findRowsInParallel(
+            TableReader reader,
+            RingQueue<LatestByTask> queue,
+            Sequence pubSeq,
+            int taskCount,
+            int partitionIndex,
+            long rowLo,
+            long rowHi
+    ) {
+        while (entries.size() < taskCount) {
+            entries.add(new LatestByAllIndexedEntry());
+        }
+
+        // readers are opened on this thread, table reader is not thread-safe
+        for (int i = 0; i < taskCount; i++) {
+            if (!reader.openBitmapIndexReader(entries.getQuick(i).getIndexReader(), partitionIndex, columnIndex)) {
+                // column was added after this partition, there is no index to share
+                return false;
+            }
+        }
+
+        final int keyCount = keys.size();
+        doneLatch.reset();
+        for (int i = 0; i < taskCount; i++) {
+            final LatestByAllIndexedEntry entry = entries.getQuick(i);
+            entry.of(
+                    sequence++,
+                    keys,
+                    (int) ((long) keyCount * i / taskCount),
+                    (int) ((long) keyCount * (i + 1) / taskCount),
+                    partitionIndex,
+                    rowLo,
+                    rowHi,
+                    doneLatch
+            );
+
+            final long seq = pubSeq.next();
+            if (seq < 0) {
+                // queue is full, probe on this thread
+                entry.run();
+            } else {
+                queue.get(seq).entry = entry;
+                pubSeq.done(seq);
+            }
+        }
+
+        // start at the back to reduce chance of clashing with workers
+        for (int i = taskCount - 1; i > -1 && doneLatch.getCount() > -taskCount; i--) {
+            entries.getQuick(i).run();
+        }
+        doneLatch.await(taskCount);
+
+        for (int i = 0; i < taskCount; i++) {
+            final LatestByAllIndexedEntry entry = entries.getQuick(i);
+            if (entry.isFailed()) {
+                throw CairoException.instance(0).put(entry.getError());
+            }
+            addRows(entry.getRows());
+            remainingKeys.addAll(entry.getRemainingKeys());
         }
+        return true;
     }
 }
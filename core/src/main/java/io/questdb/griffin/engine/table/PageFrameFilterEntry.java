@@ -0,0 +1,135 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.Function;
+import io.questdb.mp.CountDownLatchSPI;
+import io.questdb.std.LongList;
+import io.questdb.std.Mutable;
+import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
+
+public class PageFrameFilterEntry implements Mutable {
+
+    private static final long TARGET_SEQUENCE_OFFSET;
+
+    static {
+        TARGET_SEQUENCE_OFFSET = Unsafe.getFieldOffset(PageFrameFilterEntry.class, "targetSequence");
+    }
+
+    private final PageFrameFilterRecord record;
+    // partition rows that passed filter, in ascending order
+    private final LongList rows = new LongList();
+    private final StringSink error = new StringSink();
+    private Function filter;
+    private int partitionIndex;
+    private long rowLo;
+    private long rowHi;
+    private int srcSequence;
+    // to "lock" the entry thread must successfully CAS targetSequence form "srcSequence" value
+    // to "srcSequence+1". Executing thread must not be changing value of "srcSequence"
+    @SuppressWarnings({"FieldCanBeLocal", "unused"})
+    private int targetSequence;
+    private CountDownLatchSPI doneLatch;
+    private boolean failed;
+
+    PageFrameFilterEntry(int columnCount) {
+        this.record = new PageFrameFilterRecord(columnCount);
+    }
+
+    @Override
+    public void clear() {
+        rows.clear();
+        failed = false;
+        filter = null;
+    }
+
+    public int getPartitionIndex() {
+        return partitionIndex;
+    }
+
+    public LongList getRows() {
+        return rows;
+    }
+
+    public boolean run() {
+        if (tryLock()) {
+            try {
+                final PageFrameFilterRecord record = this.record;
+                final Function filter = this.filter;
+                for (long r = rowLo; r < rowHi; r++) {
+                    record.setRow(r);
+                    if (filter.getBool(record)) {
+                        rows.add(r);
+                    }
+                }
+            } catch (Throwable e) {
+                // exceptions are thread local, owner thread reports the message
+                error.clear();
+                error.put(e.getMessage());
+                failed = true;
+            } finally {
+                doneLatch.countDown();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public boolean tryLock() {
+        return Unsafe.cas(this, TARGET_SEQUENCE_OFFSET, srcSequence, srcSequence + 1);
+    }
+
+    CharSequence getError() {
+        return error;
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    void of(
+            int sequence,
+            Function filter,
+            int partitionIndex,
+            long rowLo,
+            long rowHi,
+            CountDownLatchSPI doneLatch
+    ) {
+        this.rows.clear();
+        this.failed = false;
+        this.filter = filter;
+        this.partitionIndex = partitionIndex;
+        this.rowLo = rowLo;
+        this.rowHi = rowHi;
+        this.doneLatch = doneLatch;
+        this.srcSequence = sequence;
+        this.targetSequence = sequence;
+    }
+
+    void setPageAddress(int columnIndex, long address) {
+        record.setPageAddress(columnIndex, address);
+    }
+}
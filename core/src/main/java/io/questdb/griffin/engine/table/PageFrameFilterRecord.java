@@ -0,0 +1,110 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.sql.Record;
+import io.questdb.std.Numbers;
+import io.questdb.std.Unsafe;
+
+/**
+ * Record over raw column page addresses. It does not touch table reader state, which makes it
+ * usable from worker threads. Page address of each column is biased so that value of
+ * partition row "r" is at address + (r << columnSizeShift). Zero address is a column top, all
+ * values of such column are null.
+ */
+public class PageFrameFilterRecord implements Record {
+    private final long[] pageAddresses;
+    private long row;
+
+    public PageFrameFilterRecord(int columnCount) {
+        this.pageAddresses = new long[columnCount];
+    }
+
+    @Override
+    public boolean getBool(int col) {
+        final long address = pageAddresses[col];
+        return address != 0 && Unsafe.getUnsafe().getByte(address + row) == 1;
+    }
+
+    @Override
+    public byte getByte(int col) {
+        final long address = pageAddresses[col];
+        return address == 0 ? 0 : Unsafe.getUnsafe().getByte(address + row);
+    }
+
+    @Override
+    public char getChar(int col) {
+        final long address = pageAddresses[col];
+        return address == 0 ? 0 : Unsafe.getUnsafe().getChar(address + (row << 1));
+    }
+
+    @Override
+    public long getDate(int col) {
+        return getLong(col);
+    }
+
+    @Override
+    public double getDouble(int col) {
+        final long address = pageAddresses[col];
+        return address == 0 ? Double.NaN : Unsafe.getUnsafe().getDouble(address + (row << 3));
+    }
+
+    @Override
+    public float getFloat(int col) {
+        final long address = pageAddresses[col];
+        return address == 0 ? Float.NaN : Unsafe.getUnsafe().getFloat(address + (row << 2));
+    }
+
+    @Override
+    public int getInt(int col) {
+        final long address = pageAddresses[col];
+        return address == 0 ? Numbers.INT_NaN : Unsafe.getUnsafe().getInt(address + (row << 2));
+    }
+
+    @Override
+    public long getLong(int col) {
+        final long address = pageAddresses[col];
+        return address == 0 ? Numbers.LONG_NaN : Unsafe.getUnsafe().getLong(address + (row << 3));
+    }
+
+    @Override
+    public short getShort(int col) {
+        final long address = pageAddresses[col];
+        return address == 0 ? 0 : Unsafe.getUnsafe().getShort(address + (row << 1));
+    }
+
+    @Override
+    public long getTimestamp(int col) {
+        return getLong(col);
+    }
+
+    public void setPageAddress(int col, long address) {
+        pageAddresses[col] = address;
+    }
+
+    public void setRow(long row) {
+        this.row = row;
+    }
+}
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.MessageBus;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.NullColumn;
+import io.questdb.cairo.ReadOnlyColumn;
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.sql.DataFrame;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.Function;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.mp.RingQueue;
+import io.questdb.mp.SOUnboundedCountDownLatch;
+import io.questdb.mp.Sequence;
+import io.questdb.std.IntList;
+import io.questdb.std.LongList;
+import io.questdb.std.ObjList;
+import io.questdb.tasks.PageFrameFilterTask;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Cuts data frames into tasks of at most "frameRows" rows, which also do not cross column
+ * tops or column page boundaries. Tasks are published in batches, filter is evaluated
+ * by worker threads and rows that passed are returned in the order of tasks.
+ */
+class ParallelFilteredRecordCursor extends AbstractDataFrameRecordCursor {
+    private final Function filter;
+    private final int columnCount;
+    // metadata indexes of fixed-size columns, these are visible to filter on worker threads
+    private final IntList frameColumnIndexes;
+    private final IntList frameColumnShifts;
+    private final IntList columnIndexes;
+    private final long frameRows;
+    private final ObjList<PageFrameFilterEntry> entries = new ObjList<>();
+    private final SOUnboundedCountDownLatch doneLatch = new SOUnboundedCountDownLatch();
+    // per frame column state of the current partition
+    private final LongList columnTops = new LongList();
+    private final IntList columnPages = new IntList();
+    private final LongList columnPageOffsets = new LongList();
+    private RingQueue<PageFrameFilterTask> queue;
+    private Sequence pubSeq;
+    private int maxBatchSize;
+    private int batchSize;
+    private int entryIndex;
+    private int sequence;
+    private LongList rows;
+    private int rowIndex;
+    private int partitionIndex;
+    private long partitionRowLo;
+    private long partitionRowHi;
+
+    ParallelFilteredRecordCursor(
+            @NotNull IntList columnIndexes,
+            int columnCount,
+            IntList frameColumnIndexes,
+            IntList frameColumnShifts,
+            Function filter,
+            long frameRows
+    ) {
+        super(columnIndexes);
+        this.columnIndexes = columnIndexes;
+        this.columnCount = columnCount;
+        this.frameColumnIndexes = frameColumnIndexes;
+        this.frameColumnShifts = frameColumnShifts;
+        this.filter = filter;
+        this.frameRows = frameRows;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            if (rowIndex < rows.size()) {
+                recordA.jumpTo(entries.getQuick(entryIndex).getPartitionIndex(), rows.getQuick(rowIndex++));
+                return true;
+            }
+
+            if (entryIndex + 1 < batchSize) {
+                rows = entries.getQuick(++entryIndex).getRows();
+            } else {
+                try {
+                    if (!dispatchBatch()) {
+                        return false;
+                    }
+                } catch (NoMoreFramesException ignore) {
+                    return false;
+                }
+                entryIndex = 0;
+                rows = entries.getQuick(0).getRows();
+            }
+            rowIndex = 0;
+        }
+    }
+
+    @Override
+    public long size() {
+        return -1;
+    }
+
+    @Override
+    public void toTop() {
+        filter.toTop();
+        dataFrameCursor.toTop();
+        partitionRowLo = partitionRowHi = 0;
+        batchSize = 0;
+        entryIndex = 0;
+        rowIndex = 0;
+        rows = entries.size() > 0 ? entries.getQuick(0).getRows() : null;
+        if (rows != null) {
+            rows.clear();
+        }
+    }
+
+    @Override
+    void of(DataFrameCursor dataFrameCursor, SqlExecutionContext executionContext) {
+        if (this.dataFrameCursor != dataFrameCursor) {
+            close();
+            this.dataFrameCursor = dataFrameCursor;
+        }
+        this.recordA.of(dataFrameCursor.getTableReader());
+        this.recordB.of(dataFrameCursor.getTableReader());
+
+        final MessageBus bus = executionContext.getMessageBus();
+        if (bus != null) {
+            this.queue = bus.getPageFrameFilterQueue();
+            this.pubSeq = bus.getPageFrameFilterPubSequence();
+        } else {
+            this.queue = null;
+            this.pubSeq = null;
+        }
+        // keep workers busy while limiting amount of filtered row ids held in memory
+        this.maxBatchSize = Math.max(1, executionContext.getWorkerCount()) * 2;
+        if (entries.size() == 0) {
+            entries.add(new PageFrameFilterEntry(columnCount));
+        }
+        toTop();
+    }
+
+    private boolean dispatchBatch() {
+        doneLatch.reset();
+        int count = 0;
+        while (count < maxBatchSize && nextTask(count)) {
+            final PageFrameFilterEntry entry = entries.getQuick(count++);
+            final long seq = pubSeq != null ? pubSeq.next() : -1;
+            if (seq < 0) {
+                // queue is full or there is no worker pool, filter on this thread
+                entry.run();
+            } else {
+                queue.get(seq).entry = entry;
+                pubSeq.done(seq);
+            }
+        }
+        batchSize = count;
+
+        // start at the back to reduce chance of clashing with workers
+        for (int i = count - 1; i > -1 && doneLatch.getCount() > -count; i--) {
+            entries.getQuick(i).run();
+        }
+        doneLatch.await(count);
+
+        for (int i = 0; i < count; i++) {
+            final PageFrameFilterEntry entry = entries.getQuick(i);
+            if (entry.isFailed()) {
+                batchSize = 0;
+                throw CairoException.instance(0).put(entry.getError());
+            }
+        }
+        return count > 0;
+    }
+
+    private boolean nextTask(int index) {
+        while (partitionRowLo >= partitionRowHi) {
+            final DataFrame dataFrame = dataFrameCursor.next();
+            if (dataFrame == null) {
+                return false;
+            }
+            openFrame(dataFrame);
+        }
+
+        if (index == entries.size()) {
+            entries.add(new PageFrameFilterEntry(columnCount));
+        }
+        final PageFrameFilterEntry entry = entries.getQuick(index);
+        final TableReader reader = dataFrameCursor.getTableReader();
+        final int base = reader.getColumnBase(partitionIndex);
+        final long lo = partitionRowLo;
+        long hi = Math.min(partitionRowHi, lo + frameRows);
+
+        for (int i = 0, n = frameColumnIndexes.size(); i < n; i++) {
+            final int columnIndex = frameColumnIndexes.getQuick(i);
+            final int shift = frameColumnShifts.getQuick(i);
+            final long top = columnTops.getQuick(i);
+            if (lo < top) {
+                // task must not straddle column top
+                entry.setPageAddress(columnIndex, 0);
+                hi = Math.min(hi, top);
+                continue;
+            }
+
+            final ReadOnlyColumn col = reader.getColumn(TableReader.getPrimaryColumnIndex(base, columnIndexes.getQuick(columnIndex)));
+            if (col instanceof NullColumn) {
+                entry.setPageAddress(columnIndex, 0);
+                continue;
+            }
+
+            final long offset = (lo - top) << shift;
+            int page = columnPages.getQuick(i);
+            long pageOffset = columnPageOffsets.getQuick(i);
+            long pageAddress;
+            long pageSize;
+            while (true) {
+                // page size is liable to change after it is mapped
+                pageAddress = col.getPageAddress(page);
+                pageSize = col.getPageSize(page);
+                if (offset < pageOffset + pageSize) {
+                    break;
+                }
+                pageOffset += pageSize;
+                page++;
+            }
+            columnPages.setQuick(i, page);
+            columnPageOffsets.setQuick(i, pageOffset);
+            // bias address so that row "r" of partition is at address + (r << shift)
+            entry.setPageAddress(columnIndex, pageAddress - pageOffset - (top << shift));
+            hi = Math.min(hi, top + ((pageOffset + pageSize) >> shift));
+        }
+
+        entry.of(sequence++, filter, partitionIndex, lo, hi, doneLatch);
+        partitionRowLo = hi;
+        return true;
+    }
+
+    private void openFrame(DataFrame dataFrame) {
+        final TableReader reader = dataFrameCursor.getTableReader();
+        partitionIndex = dataFrame.getPartitionIndex();
+        reader.openPartition(partitionIndex);
+        partitionRowLo = dataFrame.getRowLo();
+        partitionRowHi = dataFrame.getRowHi();
+
+        final int base = reader.getColumnBase(partitionIndex);
+        final int n = frameColumnIndexes.size();
+        columnTops.setAll(n, 0);
+        columnPages.setAll(n, 0);
+        columnPageOffsets.setAll(n, 0);
+        for (int i = 0; i < n; i++) {
+            columnTops.setQuick(i, reader.getColumnTop(base, columnIndexes.getQuick(frameColumnIndexes.getQuick(i))));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.sql.DataFrameCursor;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordMetadata;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.std.IntList;
+import io.questdb.std.Misc;
+import io.questdb.std.Numbers;
+
+/**
+ * Table scan with filter evaluated on worker threads. Filter must be read thread-safe,
+ * see {@link Function#isReadThreadSafe()}.
+ */
+public class ParallelFilteredRecordCursorFactory extends AbstractDataFrameRecordCursorFactory {
+    private final DataFrameRecordCursorFactory base;
+    private final ParallelFilteredRecordCursor cursor;
+    private final Function filter;
+
+    public ParallelFilteredRecordCursorFactory(
+            CairoConfiguration configuration,
+            DataFrameRecordCursorFactory base,
+            Function filter
+    ) {
+        super(base.getMetadata(), base.dataFrameCursorFactory);
+        this.base = base;
+        this.filter = filter;
+
+        final RecordMetadata metadata = base.getMetadata();
+        final IntList frameColumnIndexes = new IntList();
+        final IntList frameColumnShifts = new IntList();
+        for (int i = 0, n = metadata.getColumnCount(); i < n; i++) {
+            final int type = metadata.getColumnType(i);
+            if (isFrameColumnType(type)) {
+                frameColumnIndexes.add(i);
+                frameColumnShifts.add(Numbers.msb(ColumnType.sizeOf(type)));
+            }
+        }
+        this.cursor = new ParallelFilteredRecordCursor(
+                base.getColumnIndexes(),
+                metadata.getColumnCount(),
+                frameColumnIndexes,
+                frameColumnShifts,
+                filter,
+                configuration.getSqlParallelFilterFrameRows()
+        );
+    }
+
+    @Override
+    public void close() {
+        Misc.free(base);
+        Misc.free(filter);
+    }
+
+    public DataFrameRecordCursorFactory getBase() {
+        return base;
+    }
+
+    public Function getFilter() {
+        return filter;
+    }
+
+    @Override
+    public boolean recordCursorSupportsRandomAccess() {
+        return true;
+    }
+
+    @Override
+    protected RecordCursor getCursorInstance(DataFrameCursor dataFrameCursor, SqlExecutionContext executionContext) {
+        cursor.of(dataFrameCursor, executionContext);
+        filter.init(cursor, executionContext);
+        return cursor;
+    }
+
+    private static boolean isFrameColumnType(int type) {
+        switch (type) {
+            case ColumnType.BOOLEAN:
+            case ColumnType.BYTE:
+            case ColumnType.SHORT:
+            case ColumnType.CHAR:
+            case ColumnType.INT:
+            case ColumnType.SYMBOL:
+            case ColumnType.FLOAT:
+            case ColumnType.LONG:
+            case ColumnType.DOUBLE:
+            case ColumnType.DATE:
+            case ColumnType.TIMESTAMP:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
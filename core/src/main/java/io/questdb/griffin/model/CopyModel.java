@@ -34,9 +34,24 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
     private ExpressionNode tableName;
     private ExpressionNode fileName;
     private boolean header;
+    private byte delimiter = -1;
+    private CharSequence nullValue;
 
     @Override
     public void clear() {
+        tableName = null;
+        fileName = null;
+        header = false;
+        delimiter = -1;
+        nullValue = null;
+    }
+
+    public byte getDelimiter() {
+        return delimiter;
+    }
+
+    public void setDelimiter(byte delimiter) {
+        this.delimiter = delimiter;
     }
 
     public ExpressionNode getFileName() {
@@ -52,6 +67,14 @@ public class CopyModel implements ExecutionModel, Mutable, Sinkable {
         return ExecutionModel.COPY;
     }
 
+    public CharSequence getNullValue() {
+        return nullValue;
+    }
+
+    public void setNullValue(CharSequence nullValue) {
+        this.nullValue = nullValue;
+    }
+
     public ExpressionNode getTableName() {
         return tableName;
     }
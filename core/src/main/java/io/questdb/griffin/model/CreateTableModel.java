@@ -34,6 +34,7 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
     public static final ObjectFactory<CreateTableModel> FACTORY = CreateTableModel::new;
     private static final int COLUMN_FLAG_CACHED = 1;
     private static final int COLUMN_FLAG_INDEXED = 2;
+    private static final int COLUMN_FLAG_COMPRESSED = 4;
     private final CharSequenceObjHashMap<ColumnCastModel> columnCastModels = new CharSequenceObjHashMap<>();
     private final LongList columnBits = new LongList();
     private final ObjList<CharSequence> columnNames = new ObjList<>();
@@ -119,6 +120,11 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         return false;
     }
 
+    @Override
+    public boolean isCompressed(int index) {
+        return (getLowAt(index * 2 + 1) & COLUMN_FLAG_COMPRESSED) != 0;
+    }
+
     @Override
     public int getPartitionBy() {
         return partitionBy == null ? PartitionBy.NONE : PartitionBy.fromString(partitionBy.token);
@@ -191,6 +197,11 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
         setIndexFlags0(columnIndex * 2 + 1, indexFlag, indexValueBlockSize);
     }
 
+    public void setCompressed(int columnIndex) {
+        final int index = columnIndex * 2 + 1;
+        columnBits.setQuick(index, Numbers.encodeLowHighInts(getLowAt(index) | COLUMN_FLAG_COMPRESSED, getHighAt(index)));
+    }
+
     public void symbolCapacity(int capacity) {
         final int pos = columnBits.size() - 2;
         assert pos > -1;
@@ -272,6 +283,14 @@ public class CreateTableModel implements Mutable, ExecutionModel, Sinkable, Tabl
             sink.put(')');
         }
 
+        for (int i = 0, n = getColumnCount(); i < n; i++) {
+            if (isCompressed(i)) {
+                sink.put(", compress(");
+                sink.put(getColumnName(i));
+                sink.put(')');
+            }
+        }
+
         if (getTimestamp() != null) {
             sink.put(" timestamp(");
             sink.put(getTimestamp().token);
@@ -30,12 +30,12 @@ import io.questdb.std.str.CharSink;
 public class InsertModel implements ExecutionModel, Mutable, Sinkable {
     public static final ObjectFactory<InsertModel> FACTORY = InsertModel::new;
     private final CharSequenceHashSet columnSet = new CharSequenceHashSet();
-    private final ObjList<ExpressionNode> columnValues = new ObjList<>();
+    private final ObjList<ObjList<ExpressionNode>> rowTupleValues = new ObjList<>();
+    private final IntList endOfRowTupleValuesPositions = new IntList();
     private final IntList columnPositions = new IntList();
     private ExpressionNode tableName;
     private QueryModel queryModel;
     private int selectKeywordPosition;
-    private int endOfValuesPosition;
 
     private InsertModel() {
     }
@@ -48,8 +48,12 @@ public class InsertModel implements ExecutionModel, Mutable, Sinkable {
         return false;
     }
 
-    public void addColumnValue(ExpressionNode value) {
-        columnValues.add(value);
+    public void addEndOfRowTupleValuesPosition(int endOfValuesPosition) {
+        endOfRowTupleValuesPositions.add(endOfValuesPosition);
+    }
+
+    public void addRowTupleValues(ObjList<ExpressionNode> values) {
+        rowTupleValues.add(values);
     }
 
     @Override
@@ -58,9 +62,9 @@ public class InsertModel implements ExecutionModel, Mutable, Sinkable {
         this.queryModel = null;
         this.columnSet.clear();
         this.columnPositions.clear();
-        this.columnValues.clear();
+        this.rowTupleValues.clear();
+        this.endOfRowTupleValuesPositions.clear();
         this.selectKeywordPosition = 0;
-        this.endOfValuesPosition = 0;
     }
 
     public int getColumnPosition(int columnIndex) {
@@ -71,8 +75,16 @@ public class InsertModel implements ExecutionModel, Mutable, Sinkable {
         return columnSet;
     }
 
-    public ObjList<ExpressionNode> getColumnValues() {
-        return columnValues;
+    public int getEndOfRowTupleValuesPosition(int index) {
+        return endOfRowTupleValuesPositions.getQuick(index);
+    }
+
+    public int getRowTupleCount() {
+        return rowTupleValues.size();
+    }
+
+    public ObjList<ExpressionNode> getRowTupleValues(int index) {
+        return rowTupleValues.getQuick(index);
     }
 
     public int getSelectKeywordPosition() {
@@ -104,14 +116,6 @@ public class InsertModel implements ExecutionModel, Mutable, Sinkable {
         this.tableName = tableName;
     }
 
-    public int getEndOfValuesPosition() {
-        return endOfValuesPosition;
-    }
-
-    public void setEndOfValuesPosition(int endOfValuesPosition) {
-        this.endOfValuesPosition = endOfValuesPosition;
-    }
-
     @Override
     public void toSink(CharSink sink) {
         sink.put("insert into ").put(tableName.token).put(' ');
@@ -129,16 +133,21 @@ public class InsertModel implements ExecutionModel, Mutable, Sinkable {
         if (queryModel != null) {
             queryModel.toSink(sink);
         } else {
-            sink.put("values (");
-
-            for (int i = 0, m = columnValues.size(); i < m; i++) {
-                if (i > 0) {
+            sink.put("values ");
+            for (int t = 0, k = rowTupleValues.size(); t < k; t++) {
+                if (t > 0) {
                     sink.put(", ");
                 }
-                sink.put(columnValues.getQuick(i));
+                sink.put('(');
+                final ObjList<ExpressionNode> columnValues = rowTupleValues.getQuick(t);
+                for (int i = 0, m = columnValues.size(); i < m; i++) {
+                    if (i > 0) {
+                        sink.put(", ");
+                    }
+                    sink.put(columnValues.getQuick(i));
+                }
+                sink.put(')');
             }
-
-            sink.put(')');
         }
     }
 }
@@ -100,7 +100,7 @@ public class AssociativeCache<V> implements Closeable {
         return outgoingKey;
     }
 
-    private void clear() {
+    public void clear() {
         for (int i = 0, n = keys.length; i < n; i++) {
             if (keys[i] != null) {
                 keys[i] = null;
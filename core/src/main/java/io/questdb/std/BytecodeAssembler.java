@@ -391,11 +391,14 @@ public class BytecodeAssembler {
     }
 
     public <T> T newInstance() {
-        Class<T> x = loadClass(host);
+        return newInstance(loadClass(host));
+    }
+
+    public static <T> T newInstance(Class<T> clazz) {
         try {
-            return x.getDeclaredConstructor().newInstance();
+            return clazz.getDeclaredConstructor().newInstance();
         } catch (Exception e) {
-            LOG.error().$("could not create an instance of ").$(host.getName()).$(", cause: ").$(e).$();
+            LOG.error().$("could not create an instance of ").$(clazz.getName()).$(", cause: ").$(e).$();
             throw BytecodeException.INSTANCE;
         }
     }
@@ -0,0 +1,107 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.std;
+
+/**
+ * Sorts off-heap arrays of 16-byte (long key, long value) entries by key. Sort is stable, which
+ * preserves insertion order of entries that have the same key.
+ */
+public final class LongSort {
+
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    private LongSort() {
+    }
+
+    /**
+     * Sorts index entries in ascending order of their keys.
+     *
+     * @param pIndex address of first entry
+     * @param count  number of entries
+     * @param pTemp  scratch memory of the same size as index, e.g. count * 16 bytes
+     */
+    public static void sortLongIndexAsc(long pIndex, long count, long pTemp) {
+        if (count < 2) {
+            return;
+        }
+
+        // sort short runs in-place first
+        for (long lo = 0; lo < count; lo += INSERTION_SORT_THRESHOLD) {
+            insertionSort(pIndex, lo, Math.min(lo + INSERTION_SORT_THRESHOLD, count));
+        }
+
+        // then merge runs bottom-up, swapping source and target on every pass
+        long src = pIndex;
+        long dst = pTemp;
+        for (long width = INSERTION_SORT_THRESHOLD; width < count; width <<= 1) {
+            for (long lo = 0; lo < count; lo += width << 1) {
+                final long mid = Math.min(lo + width, count);
+                final long hi = Math.min(lo + (width << 1), count);
+                merge(src, dst, lo, mid, hi);
+            }
+            final long t = src;
+            src = dst;
+            dst = t;
+        }
+
+        if (src != pIndex) {
+            Unsafe.getUnsafe().copyMemory(src, pIndex, count << 4);
+        }
+    }
+
+    private static void insertionSort(long pIndex, long lo, long hi) {
+        for (long i = lo + 1; i < hi; i++) {
+            final long key = Unsafe.getUnsafe().getLong(pIndex + (i << 4));
+            final long value = Unsafe.getUnsafe().getLong(pIndex + (i << 4) + 8);
+            long j = i - 1;
+            while (j >= lo && Unsafe.getUnsafe().getLong(pIndex + (j << 4)) > key) {
+                Unsafe.getUnsafe().copyMemory(pIndex + (j << 4), pIndex + ((j + 1) << 4), 16);
+                j--;
+            }
+            Unsafe.getUnsafe().putLong(pIndex + ((j + 1) << 4), key);
+            Unsafe.getUnsafe().putLong(pIndex + ((j + 1) << 4) + 8, value);
+        }
+    }
+
+    private static void merge(long src, long dst, long lo, long mid, long hi) {
+        long l = lo;
+        long r = mid;
+        long d = lo;
+        while (l < mid && r < hi) {
+            // take from the left on equal keys to keep sort stable
+            if (Unsafe.getUnsafe().getLong(src + (r << 4)) < Unsafe.getUnsafe().getLong(src + (l << 4))) {
+                Unsafe.getUnsafe().copyMemory(src + (r++ << 4), dst + (d++ << 4), 16);
+            } else {
+                Unsafe.getUnsafe().copyMemory(src + (l++ << 4), dst + (d++ << 4), 16);
+            }
+        }
+
+        if (l < mid) {
+            Unsafe.getUnsafe().copyMemory(src + (l << 4), dst + (d << 4), (mid - l) << 4);
+        } else if (r < hi) {
+            Unsafe.getUnsafe().copyMemory(src + (r << 4), dst + (d << 4), (hi - r) << 4);
+        }
+    }
+}
@@ -32,6 +32,49 @@ public final class Vect {
 
     public static native double avgLong(long pLong, long count);
 
+    /**
+     * @return number of non-null values, nulls are NaN
+     */
+    public static long countDouble(long pDouble, long count) {
+        long n = 0;
+        for (long p = pDouble, lim = pDouble + count * Double.BYTES; p < lim; p += Double.BYTES) {
+            final double d = Unsafe.getUnsafe().getDouble(p);
+            if (d == d) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return number of non-null values, nulls are {@link Numbers#INT_NaN}
+     */
+    public static long countInt(long pInt, long count) {
+        if (!hasNull(pInt, count)) {
+            return count;
+        }
+        long n = 0;
+        for (long p = pInt, lim = pInt + count * Integer.BYTES; p < lim; p += Integer.BYTES) {
+            if (Unsafe.getUnsafe().getInt(p) != Numbers.INT_NaN) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return number of non-null values, nulls are {@link Numbers#LONG_NaN}
+     */
+    public static long countLong(long pLong, long count) {
+        long n = 0;
+        for (long p = pLong, lim = pLong + count * Long.BYTES; p < lim; p += Long.BYTES) {
+            if (Unsafe.getUnsafe().getLong(p) != Numbers.LONG_NaN) {
+                n++;
+            }
+        }
+        return n;
+    }
+
     public static native boolean hasNull(long pInt, long count);
 
     public static native int getSupportedInstructionSet();
@@ -33,7 +33,12 @@ import io.questdb.cairo.sql.RecordCursor;
 import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.SqlCompiler;
 import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.groupby.SampleByJob;
 import io.questdb.griffin.engine.groupby.vect.GroupByJob;
+import io.questdb.griffin.engine.join.HashJoinBuildJob;
+import io.questdb.griffin.engine.orderby.SortJob;
+import io.questdb.griffin.engine.table.LatestByAllIndexedJob;
+import io.questdb.griffin.engine.table.PageFrameFilterJob;
 import io.questdb.log.Log;
 import io.questdb.log.LogFactory;
 import io.questdb.mp.WorkerPool;
@@ -79,6 +84,11 @@ public class EmbeddedApiTest {
             try (CairoEngine engine = new CairoEngine(configuration)) {
                 final MessageBusImpl messageBus = new MessageBusImpl(configuration);
                 workerPool.assign(new GroupByJob(messageBus));
+                workerPool.assign(new PageFrameFilterJob(messageBus));
+                workerPool.assign(new SampleByJob(messageBus));
+                workerPool.assign(new SortJob(messageBus));
+                workerPool.assign(new HashJoinBuildJob(messageBus));
+                workerPool.assign(new LatestByAllIndexedJob(messageBus));
                 workerPool.start(log);
                 try {
                     // number of cores is current thread + workers in the pool
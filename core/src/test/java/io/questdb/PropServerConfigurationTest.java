@@ -164,6 +164,32 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
         Assert.assertEquals(10000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
         Assert.assertTrue(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+        Assert.assertFalse(configuration.getCairoConfiguration().isOutOfOrderEnabled());
+        Assert.assertEquals(256 * 1024, configuration.getCairoConfiguration().getOutOfOrderPageSize());
+        Assert.assertTrue(configuration.getCairoConfiguration().isOutOfOrderParallelMergeEnabled());
+        Assert.assertEquals(16 * 1024 * 1024, configuration.getCairoConfiguration().getWalSegmentRolloverSize());
+        Assert.assertEquals(500_000, configuration.getCairoConfiguration().getWalApplyBatchRows());
+        Assert.assertFalse(configuration.getCairoConfiguration().isWalEnabled());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
+        Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSqlParallelFilterFrameRows());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelSampleByEnabled());
+        Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSqlParallelSampleByTaskRows());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelSortEnabled());
+        Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSqlParallelSortRunRows());
+        Assert.assertEquals(512 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortMemoryBudget());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelHashJoinEnabled());
+        Assert.assertEquals(16, configuration.getCairoConfiguration().getSqlParallelHashJoinPartitions());
+        Assert.assertEquals(1024 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinMemoryBudget());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlJoinBloomFilterEnabled());
+        Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSqlJoinBloomFilterMaxKeys());
+        Assert.assertTrue(configuration.getCairoConfiguration().isSqlParallelLatestByEnabled());
+        Assert.assertEquals(16384, configuration.getCairoConfiguration().getSqlParallelLatestByTaskKeys());
+        Assert.assertFalse(configuration.getCairoConfiguration().isSqlSampleByCacheEnabled());
+        Assert.assertEquals(64, configuration.getCairoConfiguration().getSqlSampleByCacheCapacity());
+        Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSqlSampleByCacheMaxRows());
+        Assert.assertEquals(1_000_000, configuration.getCairoConfiguration().getSqlParallelVectorAggregateTaskRows());
+        Assert.assertFalse(configuration.getCairoConfiguration().isSqlPlanCacheEnabled());
+        Assert.assertEquals(256, configuration.getCairoConfiguration().getSqlPlanCacheCapacity());
         Assert.assertEquals(16 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
         Assert.assertEquals(Integer.MAX_VALUE, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
         Assert.assertEquals(64, configuration.getCairoConfiguration().getAnalyticColumnPoolCapacity());
@@ -229,6 +255,9 @@ public class PropServerConfigurationTest {
         Assert.assertEquals(1.9, configuration.getLineTcpReceiverConfiguration().getMaxLoadRatio(), 0.001);
         Assert.assertEquals(1000, configuration.getLineTcpReceiverConfiguration().getMaxUncommittedRows());
         Assert.assertEquals(250, configuration.getLineTcpReceiverConfiguration().getMaintenanceJobHysteresisInMs());
+        Assert.assertEquals(0, configuration.getLineTcpReceiverConfiguration().getCommitLagMicros());
+        Assert.assertEquals(0, configuration.getLineTcpReceiverConfiguration().getMaxUncommittedBytes());
+        Assert.assertEquals(1, configuration.getLineTcpReceiverConfiguration().getParserJobCount());
 
         Assert.assertTrue(configuration.getHttpServerConfiguration().getServerKeepAlive());
         Assert.assertEquals("HTTP/1.1 ", configuration.getHttpServerConfiguration().getHttpVersion());
@@ -451,6 +480,32 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(1028, configuration.getCairoConfiguration().getSqlSortValueMaxPages());
             Assert.assertEquals(1000000, configuration.getCairoConfiguration().getWorkStealTimeoutNanos());
             Assert.assertFalse(configuration.getCairoConfiguration().isParallelIndexingEnabled());
+            Assert.assertTrue(configuration.getCairoConfiguration().isOutOfOrderEnabled());
+            Assert.assertEquals(1024 * 1024, configuration.getCairoConfiguration().getOutOfOrderPageSize());
+            Assert.assertFalse(configuration.getCairoConfiguration().isOutOfOrderParallelMergeEnabled());
+            Assert.assertEquals(4 * 1024 * 1024, configuration.getCairoConfiguration().getWalSegmentRolloverSize());
+            Assert.assertEquals(10_000, configuration.getCairoConfiguration().getWalApplyBatchRows());
+            Assert.assertTrue(configuration.getCairoConfiguration().isWalEnabled());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelFilterEnabled());
+            Assert.assertEquals(50_000, configuration.getCairoConfiguration().getSqlParallelFilterFrameRows());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelSampleByEnabled());
+            Assert.assertEquals(60_000, configuration.getCairoConfiguration().getSqlParallelSampleByTaskRows());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelSortEnabled());
+            Assert.assertEquals(70_000, configuration.getCairoConfiguration().getSqlParallelSortRunRows());
+            Assert.assertEquals(64 * 1024 * 1024, configuration.getCairoConfiguration().getSqlSortMemoryBudget());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelHashJoinEnabled());
+            Assert.assertEquals(32, configuration.getCairoConfiguration().getSqlParallelHashJoinPartitions());
+            Assert.assertEquals(256 * 1024 * 1024, configuration.getCairoConfiguration().getSqlHashJoinMemoryBudget());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlJoinBloomFilterEnabled());
+            Assert.assertEquals(50000, configuration.getCairoConfiguration().getSqlJoinBloomFilterMaxKeys());
+            Assert.assertFalse(configuration.getCairoConfiguration().isSqlParallelLatestByEnabled());
+            Assert.assertEquals(1000, configuration.getCairoConfiguration().getSqlParallelLatestByTaskKeys());
+            Assert.assertTrue(configuration.getCairoConfiguration().isSqlSampleByCacheEnabled());
+            Assert.assertEquals(32, configuration.getCairoConfiguration().getSqlSampleByCacheCapacity());
+            Assert.assertEquals(200000, configuration.getCairoConfiguration().getSqlSampleByCacheMaxRows());
+            Assert.assertEquals(80000, configuration.getCairoConfiguration().getSqlParallelVectorAggregateTaskRows());
+            Assert.assertTrue(configuration.getCairoConfiguration().isSqlPlanCacheEnabled());
+            Assert.assertEquals(128, configuration.getCairoConfiguration().getSqlPlanCacheCapacity());
             Assert.assertEquals(8 * 1024, configuration.getCairoConfiguration().getSqlJoinMetadataPageSize());
             Assert.assertEquals(10_000, configuration.getCairoConfiguration().getSqlJoinMetadataMaxResizes());
 
@@ -495,6 +550,9 @@ public class PropServerConfigurationTest {
             Assert.assertEquals(1.5, configuration.getLineTcpReceiverConfiguration().getMaxLoadRatio(), 0.001);
             Assert.assertEquals(100000, configuration.getLineTcpReceiverConfiguration().getMaxUncommittedRows());
             Assert.assertEquals(1000, configuration.getLineTcpReceiverConfiguration().getMaintenanceJobHysteresisInMs());
+            Assert.assertEquals(2_000_000, configuration.getLineTcpReceiverConfiguration().getCommitLagMicros());
+            Assert.assertEquals(1048576, configuration.getLineTcpReceiverConfiguration().getMaxUncommittedBytes());
+            Assert.assertEquals(4, configuration.getLineTcpReceiverConfiguration().getParserJobCount());
 
             Assert.assertTrue(configuration.getCairoConfiguration().getTelemetryConfiguration().getEnabled());
             Assert.assertEquals(512, configuration.getCairoConfiguration().getTelemetryConfiguration().getQueueCapacity());
@@ -0,0 +1,415 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.std.*;
+import io.questdb.std.microtime.TimestampFormatUtils;
+import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.Path;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ColumnCompressorTest extends AbstractCairoTest {
+    private static final FilesFacade FF = FilesFacadeImpl.INSTANCE;
+    // 1KB blocks make sure values span many blocks
+    private static final int BLOCK_SHIFT = 10;
+
+    @Test
+    public void testBitPack() throws Exception {
+        final Rnd rnd = new Rnd();
+        final int count = 3000;
+        assertRoundTrip(ColumnType.SYMBOL, count * Integer.BYTES, count * Integer.BYTES / 2, (address) -> {
+            for (int i = 0; i < count; i++) {
+                final int value;
+                if (i % 11 == 0) {
+                    value = SymbolTable.VALUE_IS_NULL;
+                } else if (i > 2000 && i < 2100) {
+                    // wide block
+                    value = rnd.nextInt();
+                } else {
+                    value = rnd.nextPositiveInt() % 20;
+                }
+                Unsafe.getUnsafe().putInt(address + i * Integer.BYTES, value);
+            }
+        });
+    }
+
+    @Test
+    public void testBitPackSameKey() throws Exception {
+        final int count = 1000;
+        assertRoundTrip(ColumnType.SYMBOL, count * Integer.BYTES, 256, (address) -> {
+            for (int i = 0; i < count; i++) {
+                Unsafe.getUnsafe().putInt(address + i * Integer.BYTES, 7);
+            }
+        });
+    }
+
+    @Test
+    public void testDeltaOfDelta() throws Exception {
+        final Rnd rnd = new Rnd();
+        final int count = 3000;
+        assertRoundTrip(ColumnType.TIMESTAMP, count * Long.BYTES, count * Long.BYTES / 4, (address) -> {
+            long ts = TimestampFormatUtils.parseTimestamp("2020-01-01T00:00:00.000000Z");
+            for (int i = 0; i < count; i++) {
+                ts += Timestamps.SECOND_MICROS + rnd.nextPositiveInt() % 10;
+                Unsafe.getUnsafe().putLong(address + i * Long.BYTES, ts);
+            }
+        });
+    }
+
+    @Test
+    public void testDeltaOfDeltaExtremes() throws Exception {
+        final Rnd rnd = new Rnd();
+        final int count = 1001;
+        assertRoundTrip(ColumnType.LONG, count * Long.BYTES, Long.MAX_VALUE, (address) -> {
+            for (int i = 0; i < count; i++) {
+                final long value;
+                switch (i % 5) {
+                    case 0:
+                        value = Numbers.LONG_NaN;
+                        break;
+                    case 1:
+                        value = Long.MAX_VALUE;
+                        break;
+                    case 2:
+                        value = rnd.nextLong();
+                        break;
+                    default:
+                        value = i;
+                        break;
+                }
+                Unsafe.getUnsafe().putLong(address + i * Long.BYTES, value);
+            }
+        });
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertRoundTrip(ColumnType.DOUBLE, 0, 64, (address) -> {
+        });
+    }
+
+    @Test
+    public void testXor() throws Exception {
+        final Rnd rnd = new Rnd();
+        final int count = 3000;
+        assertRoundTrip(ColumnType.DOUBLE, count * Double.BYTES, count * Double.BYTES * 3 / 4, (address) -> {
+            double value = 100;
+            for (int i = 0; i < count; i++) {
+                switch (i % 13) {
+                    case 0:
+                        Unsafe.getUnsafe().putDouble(address + i * Double.BYTES, Double.NaN);
+                        break;
+                    case 1:
+                        Unsafe.getUnsafe().putDouble(address + i * Double.BYTES, -0.0);
+                        break;
+                    case 2:
+                        Unsafe.getUnsafe().putDouble(address + i * Double.BYTES, rnd.nextDouble() * Double.MAX_VALUE);
+                        break;
+                    default:
+                        // slowly changing series is what XOR is good at
+                        if (i % 3 == 0) {
+                            value += 0.25;
+                        }
+                        Unsafe.getUnsafe().putDouble(address + i * Double.BYTES, value);
+                        break;
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testSealedPartitionsAreCompressed() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable("x", PartitionBy.DAY, true);
+            createTable("y", PartitionBy.DAY, false);
+            final long ts = TimestampFormatUtils.parseTimestamp("2020-01-01T00:00:00.000000Z");
+            try (
+                    TableWriter x = new TableWriter(configuration, "x");
+                    TableWriter y = new TableWriter(configuration, "y")
+            ) {
+                // two transactions, the first one leaves active partition behind
+                for (int i = 0; i < 100; i++) {
+                    appendRow(x, ts, i);
+                    appendRow(y, ts, i);
+                }
+                x.commit();
+                y.commit();
+
+                assertCompressed("x", "2020-01-01", true);
+                assertCompressed("x", "2020-01-02", false);
+                assertTablesEqual("y", "x");
+
+                for (int i = 100; i < 300; i++) {
+                    appendRow(x, ts, i);
+                    appendRow(y, ts, i);
+                }
+                x.commit();
+                y.commit();
+            }
+
+            assertCompressed("x", "2020-01-01", true);
+            assertCompressed("x", "2020-01-02", true);
+            assertCompressed("x", "2020-01-03", true);
+            assertCompressed("x", "2020-01-04", false);
+            assertTablesEqual("y", "x");
+
+            // compressed partitions are readable by re-opened writer
+            try (TableWriter x = new TableWriter(configuration, "x")) {
+                x.renameColumn("l", "l2");
+                x.removeColumn("d");
+                assertCompressed("x", "2020-01-02", "l2", true);
+                assertCompressed("x", "2020-01-02", "d", false);
+                Assert.assertTrue(x.removePartition(ts));
+            }
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                Assert.assertEquals(204, reader.size());
+                final StringSink sink = new StringSink();
+                final RecordCursorPrinter printer = new RecordCursorPrinter(sink);
+                printer.print(reader.getCursor(), reader.getMetadata(), true);
+                TestUtils.assertContains(sink, "2020-01-02T00:00:00.000000Z");
+            }
+        });
+    }
+
+    @Test
+    public void testOutOfOrderMergeIntoCompressedPartitions() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable("x", PartitionBy.DAY, true);
+            createTable("y", PartitionBy.DAY, false);
+            final CairoConfiguration oooConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isOutOfOrderEnabled() {
+                    return true;
+                }
+            };
+            final long ts = TimestampFormatUtils.parseTimestamp("2020-01-01T00:00:00.000000Z");
+            try (
+                    TableWriter x = new TableWriter(oooConfiguration, "x");
+                    TableWriter y = new TableWriter(oooConfiguration, "y")
+            ) {
+                for (int i = 0; i < 300; i += 2) {
+                    appendRow(x, ts, i);
+                    appendRow(y, ts, i);
+                }
+                x.commit();
+                y.commit();
+                assertCompressed("x", "2020-01-02", true);
+
+                // odd rows go into every partition, including compressed ones
+                for (int i = 299; i > 0; i -= 2) {
+                    appendRow(x, ts, i);
+                    appendRow(y, ts, i);
+                }
+                x.commit();
+                y.commit();
+            }
+
+            assertCompressed("x", "2020-01-01", true);
+            assertCompressed("x", "2020-01-02", true);
+            assertCompressed("x", "2020-01-04", false);
+            assertTablesEqual("y", "x");
+
+            // index is rebuilt from compressed symbol column
+            try (TableWriter x = new TableWriter(configuration, "x"); TableWriter y = new TableWriter(configuration, "y")) {
+                x.addIndex("sym", 64);
+                y.addIndex("sym", 64);
+            }
+            assertIndexesEqual("y", "x");
+        });
+    }
+
+    private static void appendRow(TableWriter writer, long baseTimestamp, int id) {
+        TableWriter.Row r = writer.newRow(baseTimestamp + id * Timestamps.HOUR_MICROS / 4);
+        r.putInt(0, id);
+        if (id % 3 != 0) {
+            r.putLong(1, id * 10L);
+        }
+        r.putDouble(2, id / 2.0);
+        if (id % 7 != 0) {
+            r.putSym(3, "sym" + (id % 5));
+        }
+        r.append();
+    }
+
+    private static void assertCompressed(String tableName, String partitionName, boolean compressed) {
+        assertCompressed(tableName, partitionName, "l", compressed);
+        assertCompressed(tableName, partitionName, "sym", compressed);
+        assertCompressed(tableName, partitionName, "timestamp", compressed);
+        assertCompressed(tableName, partitionName, "id", false);
+    }
+
+    private static void assertCompressed(String tableName, String partitionName, String columnName, boolean compressed) {
+        try (Path path = new Path()) {
+            path.of(root).concat(tableName).concat(partitionName);
+            final int plen = path.length();
+            Assert.assertEquals(compressed, FF.exists(TableUtils.dzFile(path, columnName)));
+            Assert.assertFalse(FF.exists(path.trimTo(plen).concat(columnName).put(".dz.tmp").$()));
+        }
+    }
+
+    private static void assertIndexesEqual(String expected, String actual) {
+        try (
+                TableReader expectedReader = new TableReader(configuration, expected);
+                TableReader actualReader = new TableReader(configuration, actual)
+        ) {
+            final int columnIndex = expectedReader.getMetadata().getColumnIndex("sym");
+            for (int k = 0; k < 5; k++) {
+                Assert.assertEquals(
+                        countIndexedRows(expectedReader, columnIndex, "sym" + k),
+                        countIndexedRows(actualReader, columnIndex, "sym" + k)
+                );
+            }
+        }
+    }
+
+    private static void assertTablesEqual(String expected, String actual) {
+        try (
+                TableReader expectedReader = new TableReader(configuration, expected);
+                TableReader actualReader = new TableReader(configuration, actual)
+        ) {
+            Assert.assertEquals(expectedReader.size(), actualReader.size());
+            final StringSink expectedSink = new StringSink();
+            final StringSink actualSink = new StringSink();
+            new RecordCursorPrinter(expectedSink).print(expectedReader.getCursor(), expectedReader.getMetadata(), true);
+            new RecordCursorPrinter(actualSink).print(actualReader.getCursor(), actualReader.getMetadata(), true);
+            TestUtils.assertEquals(expectedSink, actualSink);
+        }
+    }
+
+    private static long countIndexedRows(TableReader reader, int columnIndex, CharSequence symbol) {
+        final int key = reader.getSymbolMapReader(columnIndex).keyOf(symbol);
+        long count = 0;
+        for (int partitionIndex = 0, n = reader.getPartitionCount(); partitionIndex < n; partitionIndex++) {
+            final long partitionSize = reader.openPartition(partitionIndex);
+            if (partitionSize < 1) {
+                continue;
+            }
+            final BitmapIndexReader indexReader = reader.getBitmapIndexReader(reader.getColumnBase(partitionIndex), columnIndex, BitmapIndexReader.DIR_FORWARD);
+            final io.questdb.cairo.sql.RowCursor cursor = indexReader.getCursor(true, TableUtils.toIndexKey(key), 0, partitionSize - 1);
+            while (cursor.hasNext()) {
+                cursor.next();
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void createTable(String name, int partitionBy, boolean compressed) {
+        try (TableModel model = new TableModel(configuration, name, partitionBy)) {
+            model.col("id", ColumnType.INT)
+                    .col("l", ColumnType.LONG);
+            if (compressed) {
+                model.compressed();
+            }
+            model.col("d", ColumnType.DOUBLE);
+            if (compressed) {
+                model.compressed();
+            }
+            model.col("sym", ColumnType.SYMBOL);
+            if (compressed) {
+                model.compressed();
+            }
+            model.timestamp();
+            if (compressed) {
+                model.compressed();
+            }
+            CairoTestUtils.create(model);
+        }
+    }
+
+    private void assertRoundTrip(int columnType, long size, long maxCompressedSize, Filler filler) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            final long expected = Unsafe.malloc(Math.max(size, 1));
+            try (Path path = new Path(); ColumnCompressor compressor = new ColumnCompressor(BLOCK_SHIFT)) {
+                filler.fill(expected);
+                path.of(root);
+                final int plen = path.length();
+
+                final long fd = FF.openRW(TableUtils.dFile(path, "c"));
+                Assert.assertTrue(fd > -1);
+                try {
+                    Assert.assertEquals(size, FF.write(fd, expected, size, 0));
+                } finally {
+                    FF.close(fd);
+                }
+
+                compressor.compress(FF, path.trimTo(plen), "c", columnType, size);
+                Assert.assertEquals(plen, path.length());
+                Assert.assertFalse(FF.exists(TableUtils.dFile(path.trimTo(plen), "c")));
+                Assert.assertTrue(FF.length(TableUtils.dzFile(path.trimTo(plen), "c")) <= maxCompressedSize);
+
+                try (CompressedReadOnlyMemory mem = new CompressedReadOnlyMemory(FF, TableUtils.dzFile(path.trimTo(plen), "c"))) {
+                    Assert.assertEquals(size, mem.size());
+                    Assert.assertEquals((size + (1 << BLOCK_SHIFT) - 1) >> BLOCK_SHIFT, mem.getPageCount());
+
+                    // page by page
+                    long offset = 0;
+                    for (int i = 0, n = mem.getPageCount(); i < n; i++) {
+                        final long pageSize = mem.getPageSize(i);
+                        final long address = mem.getPageAddress(i);
+                        for (long k = 0; k < pageSize; k++) {
+                            Assert.assertEquals(Unsafe.getUnsafe().getByte(expected + offset + k), Unsafe.getUnsafe().getByte(address + k));
+                        }
+                        offset += pageSize;
+                    }
+                    Assert.assertEquals(size, offset);
+
+                    // random access
+                    final int valueSize = ColumnType.sizeOf(columnType);
+                    for (long o = size - valueSize; o >= 0; o -= valueSize) {
+                        if (valueSize == Long.BYTES) {
+                            Assert.assertEquals(Unsafe.getUnsafe().getLong(expected + o), mem.getLong(o));
+                        } else {
+                            Assert.assertEquals(Unsafe.getUnsafe().getInt(expected + o), mem.getInt(o));
+                        }
+                    }
+                }
+
+                compressor.decompress(FF, path.trimTo(plen), "c");
+                Assert.assertFalse(FF.exists(TableUtils.dzFile(path.trimTo(plen), "c")));
+                Assert.assertEquals(size, FF.length(TableUtils.dFile(path.trimTo(plen), "c")));
+                try (OnePageMemory mem = new OnePageMemory(FF, TableUtils.dFile(path.trimTo(plen), "c"), size)) {
+                    for (long o = 0; o < size; o++) {
+                        Assert.assertEquals(Unsafe.getUnsafe().getByte(expected + o), mem.getByte(o));
+                    }
+                }
+                Assert.assertTrue(FF.remove(TableUtils.dFile(path.trimTo(plen), "c")));
+            } finally {
+                Unsafe.free(expected, Math.max(size, 1));
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Filler {
+        void fill(long address) throws Exception;
+    }
+}
@@ -35,6 +35,12 @@ import io.questdb.std.microtime.Timestamps;
 import io.questdb.std.str.LPSZ;
 import io.questdb.std.str.StringSink;
 import io.questdb.tasks.ColumnIndexerTask;
+import io.questdb.tasks.HashJoinBuildTask;
+import io.questdb.tasks.LatestByTask;
+import io.questdb.tasks.OutOfOrderMergeTask;
+import io.questdb.tasks.PageFrameFilterTask;
+import io.questdb.tasks.SampleByTask;
+import io.questdb.tasks.SortTask;
 import io.questdb.tasks.VectorAggregateTask;
 import io.questdb.test.tools.TestUtils;
 import org.junit.Assert;
@@ -2467,6 +2473,21 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
             return subSeq;
         }
 
+        @Override
+        public Sequence getOutOfOrderMergePubSequence() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<OutOfOrderMergeTask> getOutOfOrderMergeQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getOutOfOrderMergeSubSequence() {
+            return null;
+        }
+
         @Override
         public RingQueue<VectorAggregateTask> getVectorAggregateQueue() {
             return null;
@@ -2481,5 +2502,80 @@ public class FullFwdDataFrameCursorTest extends AbstractCairoTest {
         public Sequence getVectorAggregateSubSequence() {
             return null;
         }
+
+        @Override
+        public RingQueue<PageFrameFilterTask> getPageFrameFilterQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getPageFrameFilterPubSequence() {
+            return null;
+        }
+
+        @Override
+        public Sequence getPageFrameFilterSubSequence() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<SampleByTask> getSampleByQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getSampleByPubSequence() {
+            return null;
+        }
+
+        @Override
+        public Sequence getSampleBySubSequence() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<SortTask> getSortQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getSortPubSequence() {
+            return null;
+        }
+
+        @Override
+        public Sequence getSortSubSequence() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<HashJoinBuildTask> getHashJoinBuildQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getHashJoinBuildPubSequence() {
+            return null;
+        }
+
+        @Override
+        public Sequence getHashJoinBuildSubSequence() {
+            return null;
+        }
+
+        @Override
+        public RingQueue<LatestByTask> getLatestByQueue() {
+            return null;
+        }
+
+        @Override
+        public Sequence getLatestByPubSequence() {
+            return null;
+        }
+
+        @Override
+        public Sequence getLatestBySubSequence() {
+            return null;
+        }
     }
 }
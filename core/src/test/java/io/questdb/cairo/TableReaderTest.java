@@ -1915,12 +1915,24 @@ public class TableReaderTest extends AbstractCairoTest {
         TestUtils.assertMemoryLeak(this::testTableCursor);
     }
 
+    @Test
+    public void testReadByHour() throws Exception {
+        CairoTestUtils.createAllTable(configuration, PartitionBy.HOUR);
+        TestUtils.assertMemoryLeak(() -> testTableCursor(15 * 60 * 1000000L));
+    }
+
     @Test
     public void testReadByMonth() throws Exception {
         CairoTestUtils.createAllTable(configuration, PartitionBy.MONTH);
         TestUtils.assertMemoryLeak(() -> testTableCursor(60 * 60 * 60000));
     }
 
+    @Test
+    public void testReadByWeek() throws Exception {
+        CairoTestUtils.createAllTable(configuration, PartitionBy.WEEK);
+        TestUtils.assertMemoryLeak(() -> testTableCursor(24 * 60 * 60 * 1000000L));
+    }
+
     @Test
     public void testReadByYear() throws Exception {
         CairoTestUtils.createAllTable(configuration, PartitionBy.YEAR);
@@ -2516,6 +2528,16 @@ public class TableReaderTest extends AbstractCairoTest {
         testRemovePartitionReload(PartitionBy.DAY, "2017-12-14", 3000, current -> Timestamps.addDays(Timestamps.floorDD(current), 1));
     }
 
+    @Test
+    public void testRemovePartitionByHour() throws Exception {
+        testRemovePartition(PartitionBy.HOUR, "2017-12-11T13", 3000, current -> Timestamps.addHours(Timestamps.floorHH(current), 1));
+    }
+
+    @Test
+    public void testRemovePartitionByHourReload() throws Exception {
+        testRemovePartitionReload(PartitionBy.HOUR, "2017-12-11T03", 3000, current -> Timestamps.addHours(Timestamps.floorHH(current), 1));
+    }
+
     @Test
     public void testRemovePartitionByMonth() throws Exception {
         testRemovePartition(PartitionBy.MONTH, "2018-01", 1000, current -> Timestamps.addMonths(Timestamps.floorMM(current), 1));
@@ -2526,6 +2548,16 @@ public class TableReaderTest extends AbstractCairoTest {
         testRemovePartitionReload(PartitionBy.MONTH, "2018-01", 1000, current -> Timestamps.addMonths(Timestamps.floorMM(current), 1));
     }
 
+    @Test
+    public void testRemovePartitionByWeek() throws Exception {
+        testRemovePartition(PartitionBy.WEEK, "2018-01-01", 3000, current -> Timestamps.addWeeks(Timestamps.floorWW(current), 1));
+    }
+
+    @Test
+    public void testRemovePartitionByWeekReload() throws Exception {
+        testRemovePartitionReload(PartitionBy.WEEK, "2018-01-01", 3000, current -> Timestamps.addWeeks(Timestamps.floorWW(current), 1));
+    }
+
     @Test
     public void testRemovePartitionByYear() throws Exception {
         testRemovePartition(PartitionBy.YEAR, "2020", 3000, current -> Timestamps.addYear(Timestamps.floorYYYY(current), 1));
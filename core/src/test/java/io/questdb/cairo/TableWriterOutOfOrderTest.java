@@ -0,0 +1,462 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.MessageBus;
+import io.questdb.MessageBusImpl;
+import io.questdb.cairo.sql.RowCursor;
+import io.questdb.cairo.sql.SymbolTable;
+import io.questdb.mp.WorkerPool;
+import io.questdb.mp.WorkerPoolConfiguration;
+import io.questdb.std.*;
+import io.questdb.std.microtime.TimestampFormatUtils;
+import io.questdb.std.microtime.Timestamps;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TableWriterOutOfOrderTest extends AbstractCairoTest {
+
+    @Test
+    public void testAddColumnThenMergeIntoOlderPartitions() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable("x", PartitionBy.DAY);
+            createTable("y", PartitionBy.DAY);
+            final CairoConfiguration oooConfiguration = createConfiguration();
+            final long ts = TimestampFormatUtils.parseTimestamp("2020-01-01T00:00:00.000000Z");
+            try (
+                    TableWriter x = new TableWriter(oooConfiguration, "x");
+                    TableWriter y = new TableWriter(oooConfiguration, "y")
+            ) {
+                // in-order rows across three partitions
+                for (int i = 0; i < 300; i += 2) {
+                    appendRow(x, ts, i);
+                    appendRow(y, ts, i);
+                }
+                x.commit();
+                y.commit();
+
+                x.addColumn("extra", ColumnType.STRING);
+                y.addColumn("extra", ColumnType.STRING);
+
+                // rows with odd ids land in every partition including those without "extra" column files
+                for (int i = 299; i > 0; i -= 2) {
+                    appendRow(x, ts, i);
+                }
+                x.commit();
+
+                for (int i = 0; i < 300; i++) {
+                    if (i % 2 == 0) {
+                        continue;
+                    }
+                    appendRow(y, ts, i);
+                }
+                y.commit();
+            }
+            assertTablesEqual("y", "x");
+        });
+    }
+
+    @Test
+    public void testCancelOutOfOrderRow() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable("x", PartitionBy.DAY);
+            createTable("y", PartitionBy.DAY);
+            final CairoConfiguration oooConfiguration = createConfiguration();
+            final long ts = TimestampFormatUtils.parseTimestamp("2020-01-01T00:00:00.000000Z");
+            try (
+                    TableWriter x = new TableWriter(oooConfiguration, "x");
+                    TableWriter y = new TableWriter(oooConfiguration, "y")
+            ) {
+                appendRow(x, ts, 10);
+                appendRow(x, ts, 5);
+
+                TableWriter.Row r = x.newRow(ts + 3 * ROW_INTERVAL);
+                r.putInt(0, 3);
+                r.putStr(3, "cancelled");
+                r.cancel();
+
+                // pending row is cancelled implicitly
+                r = x.newRow(ts + 2 * ROW_INTERVAL);
+                r.putStr(3, "cancelled too");
+
+                appendRow(x, ts, 7);
+                x.commit();
+
+                appendRow(y, ts, 5);
+                appendRow(y, ts, 7);
+                appendRow(y, ts, 10);
+                y.commit();
+            }
+            assertTablesEqual("y", "x");
+        });
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable("x", PartitionBy.DAY);
+            final long ts = TimestampFormatUtils.parseTimestamp("2020-01-01T00:00:00.000000Z");
+            try (TableWriter x = new TableWriter(configuration, "x")) {
+                appendRow(x, ts, 10);
+                try {
+                    x.newRow(ts);
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getMessage(), "Cannot insert rows out of order");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testMergeNonPartitioned() throws Exception {
+        testMergeShuffled(PartitionBy.NONE, 1000, 3);
+    }
+
+    @Test
+    public void testMergePartitionedByDay() throws Exception {
+        testMergeShuffled(PartitionBy.DAY, 2000, 4);
+    }
+
+    @Test
+    public void testMergePartitionedByMonth() throws Exception {
+        testMergeShuffled(PartitionBy.MONTH, 1000, 1);
+    }
+
+    @Test
+    public void testMergeParallel() throws Exception {
+        final MessageBus messageBus = new MessageBusImpl(configuration);
+        final WorkerPool workerPool = new WorkerPool(new WorkerPoolConfiguration() {
+            @Override
+            public int[] getWorkerAffinity() {
+                return new int[]{-1, -1};
+            }
+
+            @Override
+            public int getWorkerCount() {
+                return 2;
+            }
+
+            @Override
+            public boolean haltOnError() {
+                return false;
+            }
+        });
+        workerPool.assign(new OutOfOrderMergeJob(messageBus));
+        workerPool.start(null);
+        try {
+            testMergeShuffled(PartitionBy.DAY, 2000, 4, messageBus);
+        } finally {
+            workerPool.halt();
+        }
+    }
+
+    @Test
+    public void testMergeParallelWorkStealing() throws Exception {
+        // nobody consumes the queue, writer has to steal all of its merge tasks back
+        testMergeShuffled(PartitionBy.DAY, 2000, 4, new MessageBusImpl(configuration));
+    }
+
+    @Test
+    public void testMergeIntoRemovedPartition() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable("x", PartitionBy.DAY);
+            createTable("y", PartitionBy.DAY);
+            final CairoConfiguration oooConfiguration = createConfiguration();
+            final long ts = TimestampFormatUtils.parseTimestamp("2020-01-01T00:00:00.000000Z");
+            final long expectedSize;
+            try (
+                    TableWriter x = new TableWriter(oooConfiguration, "x");
+                    TableWriter y = new TableWriter(oooConfiguration, "y")
+            ) {
+                for (int i = 0; i < 300; i++) {
+                    appendRow(x, ts, i);
+                }
+                x.commit();
+                Assert.assertTrue(x.removePartition(ts + Timestamps.DAY_MICROS));
+
+                // second day is gone, put some of its rows back
+                for (int i = 190; i > 96; i -= 3) {
+                    appendRow(x, ts, i);
+                }
+                x.commit();
+
+                for (int i = 0; i < 300; i++) {
+                    if (i < 96 || i > 191 || (i > 96 && i <= 190 && (190 - i) % 3 == 0)) {
+                        appendRow(y, ts, i);
+                    }
+                }
+                y.commit();
+                Assert.assertEquals(y.size(), x.size());
+                expectedSize = y.size();
+            }
+            assertTablesEqual("y", "x");
+
+            // partition table must survive writer re-open
+            try (TableWriter x = new TableWriter(oooConfiguration, "x")) {
+                Assert.assertEquals(expectedSize, x.size());
+            }
+        });
+    }
+
+    @Test
+    public void testReaderReloadsAfterMerge() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable("x", PartitionBy.DAY);
+            createTable("y", PartitionBy.DAY);
+            final CairoConfiguration oooConfiguration = createConfiguration();
+            final long ts = TimestampFormatUtils.parseTimestamp("2020-01-02T00:00:00.000000Z");
+            try (
+                    TableWriter x = new TableWriter(oooConfiguration, "x");
+                    TableReader reader = new TableReader(oooConfiguration, "x")
+            ) {
+                for (int i = 0; i < 200; i++) {
+                    appendRow(x, ts, i);
+                }
+                x.commit();
+                Assert.assertTrue(reader.reload());
+                Assert.assertEquals(200, reader.size());
+                print(reader);
+
+                // rows that precede first partition, they move table min timestamp
+                for (int i = -50; i < 0; i++) {
+                    appendRow(x, ts, i);
+                }
+                x.commit();
+                Assert.assertTrue(reader.reload());
+                Assert.assertEquals(250, reader.size());
+
+                try (TableWriter y = new TableWriter(oooConfiguration, "y")) {
+                    for (int i = -50; i < 200; i++) {
+                        appendRow(y, ts, i);
+                    }
+                    y.commit();
+                }
+
+                try (TableReader expected = new TableReader(oooConfiguration, "y")) {
+                    final String expectedText = print(expected);
+                    TestUtils.assertEquals(expectedText, print(reader));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testRollback() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable("x", PartitionBy.DAY);
+            createTable("y", PartitionBy.DAY);
+            final CairoConfiguration oooConfiguration = createConfiguration();
+            final long ts = TimestampFormatUtils.parseTimestamp("2020-01-01T00:00:00.000000Z");
+            try (
+                    TableWriter x = new TableWriter(oooConfiguration, "x");
+                    TableWriter y = new TableWriter(oooConfiguration, "y")
+            ) {
+                for (int i = 0; i < 200; i += 2) {
+                    appendRow(x, ts, i);
+                    appendRow(y, ts, i);
+                }
+                x.commit();
+                y.commit();
+
+                for (int i = 1; i < 100; i += 2) {
+                    appendRow(x, ts, i);
+                }
+                Assert.assertTrue(x.inTransaction());
+                x.rollback();
+                Assert.assertFalse(x.inTransaction());
+
+                // writer remains usable after rollback
+                appendRow(x, ts, 201);
+                appendRow(x, ts, 199);
+                x.commit();
+
+                appendRow(y, ts, 199);
+                appendRow(y, ts, 201);
+                y.commit();
+            }
+            assertTablesEqual("y", "x");
+        });
+    }
+
+    private static final long ROW_INTERVAL = Timestamps.HOUR_MICROS / 4;
+
+    private static void appendRow(TableWriter writer, long baseTimestamp, int id) {
+        TableWriter.Row r = writer.newRow(baseTimestamp + id * ROW_INTERVAL);
+        r.putInt(0, id);
+        if (id % 3 != 0) {
+            r.putLong(1, id * 10L);
+        }
+        r.putDouble(2, id / 2.0);
+        if (id % 7 != 0) {
+            r.putStr(3, "str" + id);
+        }
+        r.putSym(4, "sym" + (Math.abs(id) % 5));
+        if (id % 4 == 1) {
+            final long address = Unsafe.malloc(16);
+            try {
+                for (int i = 0; i < 16; i++) {
+                    Unsafe.getUnsafe().putByte(address + i, (byte) (id + i));
+                }
+                r.putBin(5, address, id % 16 + 1);
+            } finally {
+                Unsafe.free(address, 16);
+            }
+        }
+        r.append();
+    }
+
+    private static void assertTablesEqual(String expected, String actual) {
+        try (
+                TableReader expectedReader = new TableReader(configuration, expected);
+                TableReader actualReader = new TableReader(configuration, actual)
+        ) {
+            Assert.assertEquals(expectedReader.size(), actualReader.size());
+            final String expectedText = print(expectedReader);
+            TestUtils.assertEquals(expectedText, print(actualReader));
+
+            // index has to be consistent with data
+            final int symbolIndex = expectedReader.getMetadata().getColumnIndex("sym");
+            for (int k = 0; k < 5; k++) {
+                TestUtils.assertEquals(
+                        printIndexedRows(expectedReader, symbolIndex, "sym" + k),
+                        printIndexedRows(actualReader, symbolIndex, "sym" + k)
+                );
+            }
+        }
+    }
+
+    private static CairoConfiguration createConfiguration() {
+        return new DefaultCairoConfiguration(root) {
+            @Override
+            public long getOutOfOrderPageSize() {
+                // small pages make values straddle page boundaries
+                return 256;
+            }
+
+            @Override
+            public boolean isOutOfOrderEnabled() {
+                return true;
+            }
+        };
+    }
+
+    private static void createTable(String name, int partitionBy) {
+        try (TableModel model = new TableModel(configuration, name, partitionBy)
+                .col("id", ColumnType.INT)
+                .col("l", ColumnType.LONG)
+                .col("d", ColumnType.DOUBLE)
+                .col("s", ColumnType.STRING)
+                .col("sym", ColumnType.SYMBOL).indexed(true, 64)
+                .col("b", ColumnType.BINARY)
+                .timestamp()
+        ) {
+            CairoTestUtils.create(model);
+        }
+    }
+
+    private static String print(TableReader reader) {
+        final StringSink sink = new StringSink();
+        final RecordCursorPrinter printer = new RecordCursorPrinter(sink);
+        printer.print(reader.getCursor(), reader.getMetadata(), true);
+        return sink.toString();
+    }
+
+    private static String printIndexedRows(TableReader reader, int columnIndex, CharSequence symbol) {
+        final StringSink sink = new StringSink();
+        final int key = reader.getSymbolMapReader(columnIndex).keyOf(symbol);
+        if (key == SymbolTable.VALUE_NOT_FOUND) {
+            return "";
+        }
+        for (int i = 0, n = reader.getPartitionCount(); i < n; i++) {
+            if (reader.openPartition(i) < 1) {
+                continue;
+            }
+            final int columnBase = reader.getColumnBase(i);
+            final BitmapIndexReader indexReader = reader.getBitmapIndexReader(columnBase, columnIndex, BitmapIndexReader.DIR_FORWARD);
+            final RowCursor cursor = indexReader.getCursor(true, TableUtils.toIndexKey(key), 0, Long.MAX_VALUE);
+            final ReadOnlyColumn idColumn = reader.getColumn(TableReader.getPrimaryColumnIndex(columnBase, 0));
+            while (cursor.hasNext()) {
+                sink.put(i).put(':').put(idColumn.getInt(cursor.next() * Integer.BYTES)).put('\n');
+            }
+        }
+        return sink.toString();
+    }
+
+    private static void testMergeShuffled(int partitionBy, int rowCount, int commitCount) throws Exception {
+        testMergeShuffled(partitionBy, rowCount, commitCount, null);
+    }
+
+    private static void testMergeShuffled(int partitionBy, int rowCount, int commitCount, MessageBus messageBus) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createTable("x", partitionBy);
+            createTable("y", partitionBy);
+            final CairoConfiguration oooConfiguration = createConfiguration();
+            final long ts = TimestampFormatUtils.parseTimestamp("2020-01-01T00:00:00.000000Z");
+
+            final IntList ids = new IntList(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                ids.add(i);
+            }
+            final Rnd rnd = new Rnd();
+            for (int i = rowCount - 1; i > 0; i--) {
+                final int j = rnd.nextPositiveInt() % (i + 1);
+                final int t = ids.getQuick(i);
+                ids.setQuick(i, ids.getQuick(j));
+                ids.setQuick(j, t);
+            }
+
+            try (TableWriter x = new TableWriter(oooConfiguration, "x", messageBus)) {
+                final int batch = rowCount / commitCount;
+                for (int i = 0; i < rowCount; i++) {
+                    appendRow(x, ts, ids.getQuick(i));
+                    if ((i + 1) % batch == 0) {
+                        x.commit();
+                    }
+                }
+                x.commit();
+                Assert.assertEquals(rowCount, x.size());
+            }
+
+            try (TableWriter y = new TableWriter(oooConfiguration, "y")) {
+                for (int i = 0; i < rowCount; i++) {
+                    appendRow(y, ts, i);
+                }
+                y.commit();
+            }
+
+            assertTablesEqual("y", "x");
+
+            // re-opened writer continues from merged state
+            try (TableWriter x = new TableWriter(oooConfiguration, "x")) {
+                Assert.assertEquals(rowCount, x.size());
+                Assert.assertEquals(ts + (rowCount - 1) * ROW_INTERVAL, x.getMaxTimestamp());
+            }
+        });
+    }
+}
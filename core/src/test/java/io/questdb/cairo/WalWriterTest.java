@@ -0,0 +1,665 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.cairo;
+
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.std.FilesFacade;
+import io.questdb.std.str.Path;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class WalWriterTest extends AbstractCairoTest {
+    private static final long TS = 1_600_000_000_000_000L;
+
+    @Test
+    public void testAddColumn() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createX();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    writeRows(writer, 0, 2);
+                    final long segmentId = writer.getSegmentId();
+                    writer.addColumn("extra", ColumnType.LONG);
+                    Assert.assertEquals(segmentId + 1, writer.getSegmentId());
+                    final int index = writer.getMetadata().getColumnIndex("extra");
+                    WalWriter.Row row = writer.newRow(TS + 2);
+                    row.putInt(0, 2);
+                    row.putLong(index, 42);
+                    row.append();
+                    writer.commit();
+                }
+                drain(engine);
+            }
+
+            assertTable("i\td\ts\tstr\tts\textra\n" +
+                    "0\t0.0\tsym0\tstr0\t2020-09-13T12:26:40.000000Z\tNaN\n" +
+                    "1\t0.5\tsym1\tstr1\t2020-09-13T12:26:40.000001Z\tNaN\n" +
+                    "2\tNaN\t\t\t2020-09-13T12:26:40.000002Z\t42\n");
+        });
+    }
+
+    @Test
+    public void testApplyIsSuspendedWhenTableRejectsRow() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createX();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    writeRows(writer, 0, 1);
+                }
+
+                // table moves past committed WAL row behind the back of WAL
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    TableWriter.Row row = writer.newRow(TS + 10);
+                    row.putInt(0, 10);
+                    row.append();
+                    writer.commit();
+                }
+
+                final WalApplyJob job = engine.getWalApplyJob();
+                Assert.assertFalse(job.run(0));
+                Assert.assertTrue(engine.getTableWal("x").isApplySuspended());
+                Assert.assertFalse(job.run(0));
+
+                // acknowledged row is not dropped
+                Assert.assertTrue(segmentExists(0));
+                Assert.assertTrue(engine.getTableWal("x").getTxnCount() > 0);
+            }
+
+            assertTable("i\td\ts\tstr\tts\n" +
+                    "10\tNaN\t\t\t2020-09-13T12:26:40.000010Z\n");
+        });
+    }
+
+    @Test
+    public void testApplyBatches() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createX();
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public int getWalApplyBatchRows() {
+                    return 10;
+                }
+            };
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    for (int i = 0; i < 35; i++) {
+                        writeRows(writer, i, 1);
+                    }
+                }
+
+                final WalApplyJob job = engine.getWalApplyJob();
+                try (TableReader reader = new TableReader(configuration, "x")) {
+                    Assert.assertTrue(job.run(0));
+                    reader.reload();
+                    Assert.assertEquals(10, reader.size());
+                    Assert.assertTrue(job.run(0));
+                    reader.reload();
+                    Assert.assertEquals(20, reader.size());
+                    drain(engine);
+                    reader.reload();
+                    Assert.assertEquals(35, reader.size());
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testCommitIsAppliedAsynchronously() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createX();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (
+                        WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x");
+                        TableReader reader = new TableReader(configuration, "x")
+                ) {
+                    writeRows(writer, 0, 3);
+                    reader.reload();
+                    Assert.assertEquals(0, reader.size());
+
+                    drain(engine);
+                    reader.reload();
+                    Assert.assertEquals(3, reader.size());
+
+                    // active segment is kept
+                    Assert.assertTrue(segmentExists(writer.getSegmentId()));
+
+                    writeRows(writer, 3, 2);
+                    drain(engine);
+                    reader.reload();
+                    Assert.assertEquals(5, reader.size());
+                }
+                // released writer keeps its segment for the next session
+                drain(engine);
+                Assert.assertTrue(segmentExists(0));
+            }
+
+            // segment is removed once writer is done with it
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                drain(engine);
+                Assert.assertFalse(segmentExists(0));
+            }
+
+            assertTable("i\td\ts\tstr\tts\n" +
+                    "0\t0.0\tsym0\tstr0\t2020-09-13T12:26:40.000000Z\n" +
+                    "1\t0.5\tsym1\tstr1\t2020-09-13T12:26:40.000001Z\n" +
+                    "2\t1.0\tsym2\tstr2\t2020-09-13T12:26:40.000002Z\n" +
+                    "3\t1.5\tsym3\tstr3\t2020-09-13T12:26:40.000003Z\n" +
+                    "4\t2.0\tsym4\tstr4\t2020-09-13T12:26:40.000004Z\n");
+        });
+    }
+
+    @Test
+    public void testInterleavedOlderCommits() throws Exception {
+        assertInterleavedOlderCommits(false, "i\tts\n" +
+                "10\t2020-09-13T12:26:40.000010Z\n" +
+                "11\t2020-09-13T12:26:40.000011Z\n");
+    }
+
+    @Test
+    public void testInterleavedOlderCommitsOutOfOrderEnabled() throws Exception {
+        assertInterleavedOlderCommits(true, "i\tts\n" +
+                "5\t2020-09-13T12:26:40.000005Z\n" +
+                "7\t2020-09-13T12:26:40.000007Z\n" +
+                "10\t2020-09-13T12:26:40.000010Z\n" +
+                "11\t2020-09-13T12:26:40.000011Z\n");
+    }
+
+    @Test
+    public void testOutOfOrderCommitIsRejected() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createX();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    writeRows(writer, 5, 1);
+
+                    // older than committed row
+                    try {
+                        writeRows(writer, 3, 1);
+                        Assert.fail();
+                    } catch (CairoException e) {
+                        TestUtils.assertContains(e.getFlyweightMessage(), "Cannot insert rows out of order");
+                    }
+                    Assert.assertFalse(writer.inTransaction());
+
+                    // older than row of the same transaction
+                    WalWriter.Row row = writer.newRow(TS + 7);
+                    row.putInt(0, 7);
+                    row.append();
+                    try {
+                        writer.newRow(TS + 6);
+                        Assert.fail();
+                    } catch (CairoException e) {
+                        TestUtils.assertContains(e.getFlyweightMessage(), "Cannot insert rows out of order");
+                    }
+                    writer.rollback();
+
+                    writeRows(writer, 6, 1);
+                }
+                drain(engine);
+            }
+
+            // max timestamp survives restart
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    try {
+                        writeRows(writer, 4, 1);
+                        Assert.fail();
+                    } catch (CairoException e) {
+                        TestUtils.assertContains(e.getFlyweightMessage(), "Cannot insert rows out of order");
+                    }
+                    writeRows(writer, 8, 1);
+                }
+                drain(engine);
+            }
+
+            assertTable("i\td\ts\tstr\tts\n" +
+                    "5\t2.5\tsym5\tstr5\t2020-09-13T12:26:40.000005Z\n" +
+                    "6\t3.0\tsym6\tstr6\t2020-09-13T12:26:40.000006Z\n" +
+                    "8\t4.0\tsym8\tstr8\t2020-09-13T12:26:40.000008Z\n");
+        });
+    }
+
+    @Test
+    public void testRecoverAfterRestart() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createX();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    writeRows(writer, 0, 2);
+                }
+            }
+
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                drain(engine);
+                Assert.assertFalse(segmentExists(0));
+
+                // segment ids keep growing after applied segments are removed
+                try (WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(1, writer.getSegmentId());
+                    writeRows(writer, 2, 1);
+                }
+                drain(engine);
+            }
+
+            assertTable("i\td\ts\tstr\tts\n" +
+                    "0\t0.0\tsym0\tstr0\t2020-09-13T12:26:40.000000Z\n" +
+                    "1\t0.5\tsym1\tstr1\t2020-09-13T12:26:40.000001Z\n" +
+                    "2\t1.0\tsym2\tstr2\t2020-09-13T12:26:40.000002Z\n");
+        });
+    }
+
+    @Test
+    public void testRollover() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createX();
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public long getWalSegmentRolloverSize() {
+                    return 4096;
+                }
+            };
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    for (int i = 0; i < 500; i++) {
+                        writeRows(writer, i, 1);
+                    }
+                    Assert.assertTrue(writer.getSegmentId() > 2);
+                }
+                drain(engine);
+                Assert.assertFalse(segmentExists(0));
+            }
+
+            try (TableReader reader = new TableReader(configuration, "x")) {
+                Assert.assertEquals(500, reader.size());
+                final TableReaderRecordCursor cursor = reader.getCursor();
+                int i = 0;
+                while (cursor.hasNext()) {
+                    Assert.assertEquals(i++, cursor.getRecord().getInt(0));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testUncommittedRowsAreNotApplied() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createX();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    writeRows(writer, 0, 1);
+
+                    WalWriter.Row row = writer.newRow(TS + 1);
+                    row.putInt(0, 1);
+                    row.append();
+                    Assert.assertTrue(writer.inTransaction());
+                    drain(engine);
+
+                    writer.rollback();
+                    Assert.assertFalse(writer.inTransaction());
+                    drain(engine);
+
+                    row = writer.newRow(TS + 2);
+                    row.putInt(0, 2);
+                    row.append();
+                }
+                drain(engine);
+            }
+
+            assertTable("i\td\ts\tstr\tts\n" +
+                    "0\t0.0\tsym0\tstr0\t2020-09-13T12:26:40.000000Z\n");
+        });
+    }
+
+    @Test
+    public void testTableDoesNotExist() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try {
+                    engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "y");
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "table does not exist");
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testWritersAreAppliedInCommitOrder() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createY();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (
+                        WalWriter a = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "y");
+                        WalWriter b = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "y")
+                ) {
+                    Assert.assertNotEquals(a.getSegmentId(), b.getSegmentId());
+                    appendInt(a, 0);
+                    appendInt(b, 1);
+                    a.commit();
+                    b.commit();
+                    appendInt(b, 2);
+                    appendInt(a, 3);
+                    b.commit();
+                    appendInt(a, 4);
+                    a.commit();
+                    appendInt(b, 5);
+                    b.commit();
+                }
+                drain(engine);
+            }
+
+            try (TableReader reader = new TableReader(configuration, "y")) {
+                assertThat("i\n0\n1\n2\n3\n4\n5\n", reader.getCursor(), reader.getMetadata(), true);
+            }
+        });
+    }
+
+    @Test
+    public void testWritersAreConcurrent() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createY();
+            final int threadCount = 4;
+            final int txnCount = 200;
+            final CyclicBarrier startBarrier = new CyclicBarrier(threadCount + 1);
+            final CountDownLatch stopLatch = new CountDownLatch(threadCount);
+            final AtomicInteger errors = new AtomicInteger();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                for (int t = 0; t < threadCount; t++) {
+                    final int from = t * txnCount;
+                    new Thread(() -> {
+                        try {
+                            startBarrier.await();
+                            try (WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "y")) {
+                                for (int i = from; i < from + txnCount; i++) {
+                                    appendInt(writer, i);
+                                    writer.commit();
+                                }
+                            }
+                        } catch (Throwable e) {
+                            e.printStackTrace();
+                            errors.incrementAndGet();
+                        } finally {
+                            stopLatch.countDown();
+                        }
+                    }).start();
+                }
+
+                startBarrier.await();
+                final WalApplyJob job = engine.getWalApplyJob();
+                while (stopLatch.getCount() > 0) {
+                    job.run(0);
+                }
+                drain(engine);
+                Assert.assertEquals(0, errors.get());
+            }
+
+            try (TableReader reader = new TableReader(configuration, "y")) {
+                final int rowCount = threadCount * txnCount;
+                Assert.assertEquals(rowCount, reader.size());
+                final TableReaderRecordCursor cursor = reader.getCursor();
+                long sum = 0;
+                while (cursor.hasNext()) {
+                    sum += cursor.getRecord().getInt(0);
+                }
+                Assert.assertEquals((long) rowCount * (rowCount - 1) / 2, sum);
+            }
+        });
+    }
+
+    @Test
+    public void testWritersAreConcurrentOnTimestampedTable() throws Exception {
+        assertConcurrentOlderCommits(false);
+    }
+
+    @Test
+    public void testWritersAreConcurrentOnTimestampedTableOutOfOrderEnabled() throws Exception {
+        assertConcurrentOlderCommits(true);
+    }
+
+    @Test
+    public void testWriterIsReleasedForReuse() throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createX();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                final long segmentId;
+                try (WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    segmentId = writer.getSegmentId();
+                    writeRows(writer, 0, 1);
+                }
+                try (WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertEquals(segmentId, writer.getSegmentId());
+                    writeRows(writer, 1, 1);
+                }
+                drain(engine);
+
+                try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    writer.addColumn("extra", ColumnType.LONG);
+                }
+
+                // released writer is out of date with table structure
+                try (WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                    Assert.assertNotEquals(segmentId, writer.getSegmentId());
+                    final int index = writer.getMetadata().getColumnIndex("extra");
+                    WalWriter.Row row = writer.newRow(TS + 2);
+                    row.putInt(0, 2);
+                    row.putLong(index, 42);
+                    row.append();
+                    writer.commit();
+                }
+                drain(engine);
+                Assert.assertFalse(segmentExists(segmentId));
+            }
+
+            assertTable("i\td\ts\tstr\tts\textra\n" +
+                    "0\t0.0\tsym0\tstr0\t2020-09-13T12:26:40.000000Z\tNaN\n" +
+                    "1\t0.5\tsym1\tstr1\t2020-09-13T12:26:40.000001Z\tNaN\n" +
+                    "2\tNaN\t\t\t2020-09-13T12:26:40.000002Z\t42\n");
+        });
+    }
+
+    private static boolean appendAndCommit(WalWriter writer, int value, long timestamp) {
+        WalWriter.Row row = writer.newRow(timestamp);
+        row.putInt(0, value);
+        row.append();
+        try {
+            writer.commit();
+            return true;
+        } catch (CairoException e) {
+            TestUtils.assertContains(e.getFlyweightMessage(), "Cannot insert rows out of order");
+            Assert.assertFalse(writer.inTransaction());
+            return false;
+        }
+    }
+
+    private static void appendInt(WalWriter writer, int value) {
+        WalWriter.Row row = writer.newRow();
+        row.putInt(0, value);
+        row.append();
+    }
+
+    private static void drain(CairoEngine engine) {
+        final WalApplyJob job = engine.getWalApplyJob();
+        //noinspection StatementWithEmptyBody
+        while (job.run(0)) ;
+    }
+
+    private static boolean segmentExists(long segmentId) {
+        final FilesFacade ff = configuration.getFilesFacade();
+        try (Path path = new Path()) {
+            path.of(root).concat("x").concat(TableUtils.WAL_DIR_NAME);
+            return ff.exists(TableUtils.walSegmentFile(path, segmentId));
+        }
+    }
+
+    private static void writeRows(WalWriter writer, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            WalWriter.Row row = writer.newRow(TS + i);
+            row.putInt(0, i);
+            row.putDouble(1, i / 2.0);
+            row.putSym(2, "sym" + i);
+            row.putStr(3, "str" + i);
+            row.append();
+        }
+        writer.commit();
+    }
+
+    private void assertConcurrentOlderCommits(boolean outOfOrderEnabled) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createZ();
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isOutOfOrderEnabled() {
+                    return outOfOrderEnabled;
+                }
+            };
+            final int threadCount = 4;
+            final int txnCount = 200;
+            final CyclicBarrier startBarrier = new CyclicBarrier(threadCount + 1);
+            final CountDownLatch stopLatch = new CountDownLatch(threadCount);
+            final AtomicInteger errors = new AtomicInteger();
+            final AtomicLong acknowledgedCount = new AtomicLong();
+            final AtomicLong acknowledgedSum = new AtomicLong();
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                for (int t = 0; t < threadCount; t++) {
+                    final int offset = t;
+                    new Thread(() -> {
+                        try {
+                            startBarrier.await();
+                            try (WalWriter writer = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "z")) {
+                                for (int i = 0; i < txnCount; i++) {
+                                    // sessions interleave and every third commit steps back in time
+                                    final int value = i * threadCount + offset;
+                                    if (appendAndCommit(writer, value, TS + value - (i % 3) * 10)) {
+                                        acknowledgedCount.incrementAndGet();
+                                        acknowledgedSum.addAndGet(value);
+                                    }
+                                }
+                            }
+                        } catch (Throwable e) {
+                            e.printStackTrace();
+                            errors.incrementAndGet();
+                        } finally {
+                            stopLatch.countDown();
+                        }
+                    }).start();
+                }
+
+                startBarrier.await();
+                final WalApplyJob job = engine.getWalApplyJob();
+                while (stopLatch.getCount() > 0) {
+                    job.run(0);
+                }
+                drain(engine);
+                Assert.assertEquals(0, errors.get());
+                Assert.assertFalse(engine.getTableWal("z").isApplySuspended());
+            }
+
+            if (outOfOrderEnabled) {
+                Assert.assertEquals(threadCount * txnCount, acknowledgedCount.get());
+            }
+
+            // every acknowledged row is in the table
+            try (TableReader reader = new TableReader(configuration, "z")) {
+                Assert.assertEquals(acknowledgedCount.get(), reader.size());
+                final TableReaderRecordCursor cursor = reader.getCursor();
+                long sum = 0;
+                long prevTimestamp = Long.MIN_VALUE;
+                while (cursor.hasNext()) {
+                    sum += cursor.getRecord().getInt(0);
+                    final long timestamp = cursor.getRecord().getTimestamp(1);
+                    Assert.assertTrue(timestamp >= prevTimestamp);
+                    prevTimestamp = timestamp;
+                }
+                Assert.assertEquals(acknowledgedSum.get(), sum);
+            }
+        });
+    }
+
+    private void assertInterleavedOlderCommits(boolean outOfOrderEnabled, CharSequence expected) throws Exception {
+        TestUtils.assertMemoryLeak(() -> {
+            createZ();
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isOutOfOrderEnabled() {
+                    return outOfOrderEnabled;
+                }
+            };
+            try (CairoEngine engine = new CairoEngine(configuration)) {
+                try (
+                        WalWriter a = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "z");
+                        WalWriter b = engine.getWalWriter(AllowAllCairoSecurityContext.INSTANCE, "z")
+                ) {
+                    Assert.assertTrue(appendAndCommit(a, 10, TS + 10));
+                    Assert.assertEquals(outOfOrderEnabled, appendAndCommit(b, 5, TS + 5));
+                    Assert.assertTrue(appendAndCommit(b, 11, TS + 11));
+                    Assert.assertEquals(outOfOrderEnabled, appendAndCommit(a, 7, TS + 7));
+                }
+                drain(engine);
+                Assert.assertFalse(engine.getTableWal("z").isApplySuspended());
+            }
+
+            try (TableReader reader = new TableReader(configuration, "z")) {
+                assertThat(expected, reader.getCursor(), reader.getMetadata(), true);
+            }
+        });
+    }
+
+    private void assertTable(CharSequence expected) {
+        try (TableReader reader = new TableReader(configuration, "x")) {
+            assertThat(expected, reader.getCursor(), reader.getMetadata(), true);
+        }
+    }
+
+    private void createX() {
+        try (TableModel model = new TableModel(configuration, "x", PartitionBy.DAY)
+                .col("i", ColumnType.INT)
+                .col("d", ColumnType.DOUBLE)
+                .col("s", ColumnType.SYMBOL)
+                .col("str", ColumnType.STRING)
+                .timestamp("ts")) {
+            CairoTestUtils.create(model);
+        }
+    }
+
+    private void createY() {
+        try (TableModel model = new TableModel(configuration, "y", PartitionBy.NONE).col("i", ColumnType.INT)) {
+            CairoTestUtils.create(model);
+        }
+    }
+
+    private void createZ() {
+        try (TableModel model = new TableModel(configuration, "z", PartitionBy.DAY).col("i", ColumnType.INT).timestamp("ts")) {
+            CairoTestUtils.create(model);
+        }
+    }
+}
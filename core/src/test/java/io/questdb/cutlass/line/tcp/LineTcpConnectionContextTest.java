@@ -34,6 +34,7 @@ import io.questdb.network.IORequestProcessor;
 import io.questdb.network.NetworkFacade;
 import io.questdb.network.NetworkFacadeImpl;
 import io.questdb.std.Unsafe;
+import io.questdb.std.str.StringSink;
 import io.questdb.std.microtime.MicrosecondClock;
 import io.questdb.std.microtime.MicrosecondClockImpl;
 import io.questdb.std.time.MillisecondClockImpl;
@@ -42,6 +43,9 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Random;
@@ -56,6 +60,7 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
     private LineTcpMeasurementScheduler scheduler;
     private boolean disconnected;
     private String recvBuffer;
+    private Charset recvCharset;
     private int nWriterThreads;
     private WorkerPool workerPool;
 
@@ -64,6 +69,10 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
     private int rebalanceNRebalances = 0;
 
     private long microSecondTicks;
+    private long commitLagMicros;
+    private int maxUncommittedRows;
+    private long maxUncommittedBytes;
+    private int nUpdatesPerLoadRebalance;
 
     @Before
     public void before() {
@@ -75,17 +84,22 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
                     return -1;
                 }
 
-                byte[] bytes = recvBuffer.getBytes(StandardCharsets.UTF_8);
+                byte[] bytes = recvBuffer.getBytes(recvCharset);
                 int n = 0;
                 while (n < bufferLen && n < bytes.length) {
                     Unsafe.getUnsafe().putByte(buffer++, bytes[n++]);
                 }
-                recvBuffer = new String(bytes, n, bytes.length - n);
+                recvBuffer = new String(bytes, n, bytes.length - n, recvCharset);
                 return n;
             }
         };
         nWriterThreads = 2;
+        recvCharset = StandardCharsets.UTF_8;
         microSecondTicks = -1;
+        commitLagMicros = 0;
+        maxUncommittedRows = 1000;
+        maxUncommittedBytes = 0;
+        nUpdatesPerLoadRebalance = 1000;
         lineTcpConfiguration = new DefaultLineTcpReceiverConfiguration() {
             @Override
             public int getNetMsgBufferSize() {
@@ -102,6 +116,26 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
                 return nf;
             }
 
+            @Override
+            public long getCommitLagMicros() {
+                return commitLagMicros;
+            }
+
+            @Override
+            public int getMaxUncommittedRows() {
+                return maxUncommittedRows;
+            }
+
+            @Override
+            public long getMaxUncommittedBytes() {
+                return maxUncommittedBytes;
+            }
+
+            @Override
+            public int getnUpdatesPerLoadRebalance() {
+                return nUpdatesPerLoadRebalance;
+            }
+
             @Override
             public MicrosecondClock getMicrosecondClock() {
                 return new MicrosecondClockImpl() {
@@ -145,6 +179,179 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         });
     }
 
+    @Test
+    public void testBinaryProtocol() throws Exception {
+        // binary frames are sent as raw bytes
+        recvCharset = StandardCharsets.ISO_8859_1;
+        runInContext(() -> {
+            ByteBuffer buf = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+            buf.put(LineTcpBinaryProtocol.MAGIC);
+            String[] locations = {"us-midwest", "us-eastcoast", "us-westcost"};
+            for (int i = 0; i < 12; i++) {
+                putBinaryFrame(buf, "weather", 1465839830100400L + i * 1000L, locations[i % 3], 80.5 + i, i - 5, i % 2 == 0, "n" + i);
+            }
+            recvBuffer = new String(buf.array(), 0, buf.position(), StandardCharsets.ISO_8859_1);
+            // 12 frames do not fit receive buffer, frames are split across reads
+            Assert.assertTrue(recvBuffer.length() > lineTcpConfiguration.getNetMsgBufferSize());
+            do {
+                context.handleIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBuffer.length() > 0);
+            waitForIOCompletion();
+            closeContext();
+            StringBuilder expected = new StringBuilder("location\ttemperature\tcount\tok\tnote\ttimestamp\n");
+            for (int i = 0; i < 12; i++) {
+                expected.append(locations[i % 3]).append('\t')
+                        .append(80.5 + i).append('\t')
+                        .append(i - 5).append('\t')
+                        .append(i % 2 == 0).append('\t')
+                        .append('n').append(i).append('\t')
+                        .append("2016-06-13T17:43:50.").append(100400 + i * 1000).append("Z\n");
+            }
+            assertTable(expected, "weather");
+        });
+    }
+
+    @Test
+    public void testBinaryProtocolSkipsBadFrame() throws Exception {
+        recvCharset = StandardCharsets.ISO_8859_1;
+        runInContext(() -> {
+            ByteBuffer buf = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+            buf.put(LineTcpBinaryProtocol.MAGIC);
+            putBinaryFrame(buf, "weather", 1465839830100400L, "us-midwest", 82, 1, true, "a");
+            // frame with unknown field type
+            int frameStart = buf.position();
+            buf.putInt(0);
+            putBinaryStr(buf, "weather");
+            buf.putLong(1465839830100500L);
+            buf.putShort((short) 0);
+            buf.putShort((short) 1);
+            putBinaryStr(buf, "temperature");
+            buf.put((byte) 'x');
+            buf.putLong(0);
+            buf.putInt(frameStart, buf.position() - frameStart - Integer.BYTES);
+            putBinaryFrame(buf, "weather", 1465839830100600L, "us-eastcoast", 83, 2, false, "b");
+            recvBuffer = new String(buf.array(), 0, buf.position(), StandardCharsets.ISO_8859_1);
+            do {
+                context.handleIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBuffer.length() > 0);
+            waitForIOCompletion();
+            closeContext();
+            String expected = "location\ttemperature\tcount\tok\tnote\ttimestamp\n" +
+                    "us-midwest\t82.0\t1\ttrue\ta\t2016-06-13T17:43:50.100400Z\n" +
+                    "us-eastcoast\t83.0\t2\tfalse\tb\t2016-06-13T17:43:50.100600Z\n";
+            assertTable(expected, "weather");
+        });
+    }
+
+    @Test
+    public void testCommitLagDefersCommitUntilClose() throws Exception {
+        commitLagMicros = 3_600_000_000L;
+        runInContext(() -> {
+            recvBuffer = "weather,location=us-midwest temperature=82 1465839830100400200\n" +
+                    "weather,location=us-midwest temperature=83 1465839830100500200\n" +
+                    "weather,location=us-eastcoast temperature=81 1465839830101400200\n" +
+                    "weather,location=us-midwest temperature=85 1465839830102300200\n";
+            do {
+                context.handleIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBuffer.length() > 0);
+            waitForIOCompletion();
+            LineTcpMeasurementScheduler scheduler = this.scheduler;
+            closeContext();
+            Assert.assertEquals(1, scheduler.getCommitCount());
+            Assert.assertEquals(4, scheduler.getCommittedRowCount());
+            Assert.assertEquals(4, scheduler.getMaxCommitRowCount());
+            assertTableCount("weather", 4, 1465839830102300200L);
+        });
+    }
+
+    @Test
+    public void testHotTableValuesStaged() throws Exception {
+        nUpdatesPerLoadRebalance = 2;
+        runInContext(() -> {
+            recvBuffer = "weather,location=us-midwest temperature=82,count=1i,ok=t,note=\"a\" 1465839830100400200\n" +
+                    "weather,location=us-midwest temperature=83,count=2i,ok=f,note=\"b\" 1465839830100500200\n" +
+                    "weather,location=us-eastcoast temperature=81,count=3i,ok=true,note=\"c\" 1465839830101400200\n" +
+                    "weather,location=us-midwest temperature=85,count=4i,ok=false,note=\"d\" 1465839830102300200\n" +
+                    "weather,location=us-eastcoast temperature=89.5,count=-5i,ok=T,note=\"e\" 1465839830102400200\n" +
+                    "weather,location=us-eastcoast temperature=80,count=6i,ok=F,note=\"f\" 1465839830102400200\n" +
+                    "weather,location=us-westcost temperature=-82.25,count=7i,ok=t,note=\"g\" 1465839830102500200\n";
+            do {
+                context.handleIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBuffer.length() > 0);
+            waitForIOCompletion();
+            StringSink sink = new StringSink();
+            scheduler.appendWriterAssignment(sink);
+            TestUtils.assertContains(sink, "weather\t");
+            TestUtils.assertContains(sink, "\ttrue\n");
+            closeContext();
+            String expected = "location\ttemperature\tcount\tok\tnote\ttimestamp\n" +
+                    "us-midwest\t82.0\t1\ttrue\ta\t2016-06-13T17:43:50.100400Z\n" +
+                    "us-midwest\t83.0\t2\tfalse\tb\t2016-06-13T17:43:50.100500Z\n" +
+                    "us-eastcoast\t81.0\t3\ttrue\tc\t2016-06-13T17:43:50.101400Z\n" +
+                    "us-midwest\t85.0\t4\tfalse\td\t2016-06-13T17:43:50.102300Z\n" +
+                    "us-eastcoast\t89.5\t-5\ttrue\te\t2016-06-13T17:43:50.102400Z\n" +
+                    "us-eastcoast\t80.0\t6\tfalse\tf\t2016-06-13T17:43:50.102400Z\n" +
+                    "us-westcost\t-82.25\t7\ttrue\tg\t2016-06-13T17:43:50.102500Z\n";
+            assertTable(expected, "weather");
+        });
+    }
+
+    @Test
+    public void testMaxUncommittedBytes() throws Exception {
+        commitLagMicros = 3_600_000_000L;
+        // each line below is 64 bytes, commit is forced every two lines
+        maxUncommittedBytes = 100;
+        runInContext(() -> {
+            recvBuffer = "weather,location=us-midwest temperature=82 1465839830100400200\n" +
+                    "weather,location=us-midwest temperature=83 1465839830100500200\n" +
+                    "weather,location=us-midwest temperature=81 1465839830101400200\n" +
+                    "weather,location=us-midwest temperature=85 1465839830102300200\n" +
+                    "weather,location=us-midwest temperature=89 1465839830102400200\n";
+            do {
+                context.handleIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBuffer.length() > 0);
+            waitForIOCompletion();
+            LineTcpMeasurementScheduler scheduler = this.scheduler;
+            closeContext();
+            Assert.assertEquals(3, scheduler.getCommitCount());
+            Assert.assertEquals(5, scheduler.getCommittedRowCount());
+            Assert.assertEquals(2, scheduler.getMaxCommitRowCount());
+            assertTableCount("weather", 5, 1465839830102400200L);
+        });
+    }
+
+    @Test
+    public void testTableMaxUncommittedRowsOverride() throws Exception {
+        commitLagMicros = 3_600_000_000L;
+        runInContext(() -> {
+            addTable("weather");
+            try (TableWriter writer = new TableWriter(configuration, "weather")) {
+                writer.setMaxUncommittedRows(1);
+            }
+            recvBuffer = "weather,location=us-midwest temperature=82 1465839830100400200\n" +
+                    "weather,location=us-midwest temperature=83 1465839830100500200\n" +
+                    "weather,location=us-eastcoast temperature=81 1465839830101400200\n" +
+                    "weather,location=us-midwest temperature=85 1465839830102300200\n" +
+                    "weather,location=us-eastcoast temperature=89 1465839830102400200\n";
+            do {
+                context.handleIO();
+                Assert.assertFalse(disconnected);
+            } while (recvBuffer.length() > 0);
+            waitForIOCompletion();
+            LineTcpMeasurementScheduler scheduler = this.scheduler;
+            closeContext();
+            Assert.assertEquals(3, scheduler.getCommitCount());
+            Assert.assertEquals(5, scheduler.getCommittedRowCount());
+            Assert.assertEquals(2, scheduler.getMaxCommitRowCount());
+            assertTableCount("weather", 5, 1465839830102400200L);
+        });
+    }
+
     @Test
     public void testAddTagColumn() throws Exception {
         runInContext(() -> {
@@ -766,6 +973,36 @@ public class LineTcpConnectionContextTest extends AbstractCairoTest {
         });
     }
 
+    private static void putBinaryFrame(ByteBuffer buf, String tableName, long timestamp, String location, double temperature, long count, boolean ok, String note) {
+        int frameStart = buf.position();
+        buf.putInt(0);
+        putBinaryStr(buf, tableName);
+        buf.putLong(timestamp);
+        buf.putShort((short) 1);
+        putBinaryStr(buf, "location");
+        putBinaryStr(buf, location);
+        buf.putShort((short) 4);
+        putBinaryStr(buf, "temperature");
+        buf.put(LineTcpBinaryProtocol.TYPE_DOUBLE);
+        buf.putDouble(temperature);
+        putBinaryStr(buf, "count");
+        buf.put(LineTcpBinaryProtocol.TYPE_LONG);
+        buf.putLong(count);
+        putBinaryStr(buf, "ok");
+        buf.put(LineTcpBinaryProtocol.TYPE_BOOLEAN);
+        buf.put((byte) (ok ? 1 : 0));
+        putBinaryStr(buf, "note");
+        buf.put(LineTcpBinaryProtocol.TYPE_STRING);
+        putBinaryStr(buf, note);
+        buf.putInt(frameStart, buf.position() - frameStart - Integer.BYTES);
+    }
+
+    private static void putBinaryStr(ByteBuffer buf, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buf.putShort((short) bytes.length);
+        buf.put(bytes);
+    }
+
     private void addTable(String tableName) {
         try (@SuppressWarnings("resource")
              TableModel model = new TableModel(configuration, tableName,
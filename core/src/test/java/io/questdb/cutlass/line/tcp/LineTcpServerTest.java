@@ -52,6 +52,15 @@ public class LineTcpServerTest extends AbstractCairoTest {
 
     @Test(timeout = 120000)
     public void test() {
+        testIngestion(1, 9002);
+    }
+
+    @Test(timeout = 120000)
+    public void testMultipleParserJobs() {
+        testIngestion(2, 9003);
+    }
+
+    private void testIngestion(int parserJobCount, int bindPort) {
         WorkerPool sharedWorkerPool = new WorkerPool(new WorkerPoolConfiguration() {
             private final int[] affinity = { -1, -1 };
 
@@ -72,7 +81,7 @@ public class LineTcpServerTest extends AbstractCairoTest {
         });
 
         final int bindIp = 0;
-        final int bindPort = 9002; // Dont clash with other tests since they may run in parallel
+        // bindPort must not clash with other tests since they may run in parallel
         IODispatcherConfiguration ioDispatcherConfiguration = new DefaultIODispatcherConfiguration() {
             @Override
             public int getBindIPv4Address() {
@@ -115,6 +124,11 @@ public class LineTcpServerTest extends AbstractCairoTest {
                 // Always rebalance as long as there are more tables than threads;
                 return 1;
             }
+
+            @Override
+            public int getParserJobCount() {
+                return parserJobCount;
+            }
         };
 
         final int nRows = 1000;
@@ -24,14 +24,20 @@
 
 package io.questdb.griffin;
 
+import io.questdb.MessageBus;
 import io.questdb.cairo.AbstractCairoTest;
+import io.questdb.cairo.CairoConfiguration;
 import io.questdb.cairo.CairoEngine;
 import io.questdb.cairo.ColumnType;
+import io.questdb.cairo.RecordCursorPrinter;
 import io.questdb.cairo.TableUtils;
 import io.questdb.cairo.security.AllowAllCairoSecurityContext;
 import io.questdb.cairo.sql.*;
 import io.questdb.griffin.engine.functions.bind.BindVariableService;
+import io.questdb.mp.Job;
+import io.questdb.mp.SOCountDownLatch;
 import io.questdb.std.*;
+import io.questdb.std.str.StringSink;
 import io.questdb.test.tools.TestUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -40,6 +46,8 @@ import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class AbstractGriffinTest extends AbstractCairoTest {
     protected static final BindVariableService bindVariableService = new BindVariableService();
     private static final LongList rows = new LongList();
@@ -584,6 +592,106 @@ public class AbstractGriffinTest extends AbstractCairoTest {
         });
     }
 
+    /**
+     * Runs each query on serial and on parallel engine and asserts that both print the same rows,
+     * including after cursor is rewound. Test engine is used where configuration is null.
+     */
+    protected static void assertParallelMatchesSerial(
+            @Nullable CairoConfiguration serialConfiguration,
+            @Nullable CairoConfiguration parallelConfiguration,
+            String[] queries,
+            JobFactory... jobFactories
+    ) throws Exception {
+        final String[][] pairs = new String[queries.length][];
+        for (int i = 0, n = queries.length; i < n; i++) {
+            pairs[i] = new String[]{queries[i], queries[i]};
+        }
+        assertParallelMatchesSerial(serialConfiguration, parallelConfiguration, pairs, jobFactories);
+    }
+
+    /**
+     * Same as above, except that each pair holds serial and parallel variant of the query.
+     */
+    protected static void assertParallelMatchesSerial(
+            @Nullable CairoConfiguration serialConfiguration,
+            @Nullable CairoConfiguration parallelConfiguration,
+            String[][] queries,
+            JobFactory... jobFactories
+    ) throws Exception {
+        final StringSink expected = new StringSink();
+        final StringSink actual = new StringSink();
+        try (
+                CairoEngine serialEngine = serialConfiguration != null ? new CairoEngine(serialConfiguration) : null;
+                CairoEngine parallelEngine = parallelConfiguration != null ? new CairoEngine(parallelConfiguration) : null
+        ) {
+            final CairoEngine serial = serialEngine != null ? serialEngine : engine;
+            final CairoEngine parallel = parallelEngine != null ? parallelEngine : engine;
+            try (
+                    SqlCompiler serialCompiler = new SqlCompiler(serial);
+                    SqlCompiler parallelCompiler = new SqlCompiler(parallel)
+            ) {
+                final SqlExecutionContext serialContext = new SqlExecutionContextImpl(serial, 1)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null);
+                final SqlExecutionContext parallelContext = new SqlExecutionContextImpl(parallel, 4)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null);
+
+                runWithJobs(parallel.getMessageBus(), () -> {
+                    for (int i = 0, n = queries.length; i < n; i++) {
+                        selectAndRewind(serialCompiler, serialContext, queries[i][0], expected);
+                        selectAndRewind(parallelCompiler, parallelContext, queries[i][1], actual);
+                        TestUtils.assertEquals(expected, actual);
+                    }
+                }, jobFactories);
+            } finally {
+                serial.releaseAllReaders();
+                parallel.releaseAllReaders();
+            }
+        }
+    }
+
+    /**
+     * Runs code while each job is run by two worker threads. Query runs on non-worker
+     * thread with id 0, therefore workers start at id 1 for jobs that keep state per worker id.
+     */
+    protected static void runWithJobs(MessageBus messageBus, TestUtils.LeakProneCode code, JobFactory... jobFactories) throws Exception {
+        final int workerCount = 2;
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final SOCountDownLatch haltLatch = new SOCountDownLatch(jobFactories.length * workerCount);
+        for (int i = 0, n = jobFactories.length; i < n; i++) {
+            final Job job = jobFactories[i].newInstance(messageBus);
+            for (int j = 0; j < workerCount; j++) {
+                final int workerId = j + 1;
+                new Thread(() -> {
+                    while (running.get()) {
+                        job.run(workerId);
+                    }
+                    haltLatch.countDown();
+                }).start();
+            }
+        }
+
+        try {
+            code.run();
+        } finally {
+            running.set(false);
+            haltLatch.await();
+        }
+    }
+
+    private static void selectAndRewind(SqlCompiler compiler, SqlExecutionContext executionContext, String query, StringSink sink) throws SqlException {
+        sink.clear();
+        try (
+                RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(executionContext)
+        ) {
+            final RecordCursorPrinter printer = new RecordCursorPrinter(sink);
+            printer.print(cursor, factory.getMetadata(), true);
+            // make sure cursor can be rewound
+            cursor.toTop();
+            printer.print(cursor, factory.getMetadata(), false);
+        }
+    }
+
     void assertFactoryCursor(String expected, String expectedTimestamp, RecordCursorFactory factory, boolean supportsRandomAccess) {
         assertFactoryCursor(expected, expectedTimestamp, factory, supportsRandomAccess, sqlExecutionContext);
     }
@@ -722,4 +830,9 @@ public class AbstractGriffinTest extends AbstractCairoTest {
             assertFactoryCursor(expected, timestamp, factory, true, sqlExecutionContext, true, true);
         }
     }
+
+    @FunctionalInterface
+    protected interface JobFactory {
+        Job newInstance(MessageBus messageBus);
+    }
 }
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.TableReader;
+import io.questdb.cairo.TableUtils;
+import io.questdb.cairo.TableWriter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static io.questdb.griffin.CompiledQuery.ALTER;
+
+public class AlterTableSetParamTest extends AbstractGriffinTest {
+
+    @Test
+    public void testDefaultsAreZero() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x", TableUtils.ANY_TABLE_VERSION)) {
+                Assert.assertEquals(0, reader.getMetadata().getCommitLag());
+                Assert.assertEquals(0, reader.getMetadata().getMaxUncommittedRows());
+                Assert.assertEquals(0, reader.getMetadata().getMaxUncommittedBytes());
+            }
+        });
+    }
+
+    @Test
+    public void testExpectEquals() throws Exception {
+        assertFailure("alter table x set param commitLag 10", 34, "'=' expected");
+    }
+
+    @Test
+    public void testExpectParamKeyword() throws Exception {
+        assertFailure("alter table x set commitLag = 10", 18, "'param' expected");
+    }
+
+    @Test
+    public void testExpectParamName() throws Exception {
+        assertFailure("alter table x set param", 23, "param name expected");
+    }
+
+    @Test
+    public void testExpectParamValue() throws Exception {
+        assertFailure("alter table x set param commitLag =", 35, "param value expected");
+    }
+
+    @Test
+    public void testNegativeValue() throws Exception {
+        assertFailure("alter table x set param commitLag = -1", 36, "numeric value expected");
+    }
+
+    @Test
+    public void testNonNumericValue() throws Exception {
+        assertFailure("alter table x set param maxUncommittedRows = abc", 45, "numeric value expected");
+    }
+
+    @Test
+    public void testSetParams() throws Exception {
+        assertMemoryLeak(() -> {
+            createX();
+            Assert.assertEquals(ALTER, compiler.compile("alter table x set param commitLag = 5000000", sqlExecutionContext).getType());
+            Assert.assertEquals(ALTER, compiler.compile("alter table x set param maxUncommittedRows = 20000", sqlExecutionContext).getType());
+            Assert.assertEquals(ALTER, compiler.compile("alter table x set param MAXUNCOMMITTEDBYTES = 1048576", sqlExecutionContext).getType());
+
+            try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "x", TableUtils.ANY_TABLE_VERSION)) {
+                Assert.assertEquals(5000000, reader.getMetadata().getCommitLag());
+                Assert.assertEquals(20000, reader.getMetadata().getMaxUncommittedRows());
+                Assert.assertEquals(1048576, reader.getMetadata().getMaxUncommittedBytes());
+            }
+
+            // params survive metadata rewrites
+            compiler.compile("alter table x add column z int", sqlExecutionContext);
+            compiler.compile("alter table x rename column z to y", sqlExecutionContext);
+            compiler.compile("alter table x drop column y", sqlExecutionContext);
+            compiler.compile("alter table x alter column sym add index", sqlExecutionContext);
+
+            engine.releaseAllWriters();
+            try (TableWriter writer = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "x")) {
+                Assert.assertEquals(5000000, writer.getMetadata().getCommitLag());
+                Assert.assertEquals(20000, writer.getMetadata().getMaxUncommittedRows());
+                Assert.assertEquals(1048576, writer.getMetadata().getMaxUncommittedBytes());
+            }
+        });
+    }
+
+    @Test
+    public void testUnknownParam() throws Exception {
+        assertFailure("alter table x set param foo = 10", 24, "unknown param 'foo'");
+    }
+
+    private void assertFailure(String sql, int position, String message) throws Exception {
+        assertMemoryLeak(() -> {
+            try {
+                createX();
+                compiler.compile(sql, sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(position, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), message);
+            }
+        });
+    }
+
+    private void createX() throws SqlException {
+        compiler.compile(
+                "create table x as (" +
+                        "select" +
+                        " cast(x as int) i," +
+                        " rnd_symbol('msft','ibm', 'googl') sym," +
+                        " to_timestamp('2018-01', 'yyyy-MM') + x * 720000000 timestamp" +
+                        " from long_sequence(10)" +
+                        ") timestamp (timestamp)",
+                sqlExecutionContext
+        );
+    }
+}
@@ -648,6 +648,36 @@ public class CopyTest extends AbstractCairoTest {
         ));
     }
 
+    @Test
+    public void testCopyStdinBinaryFormat() throws Exception {
+        assertMemoryLeak(() -> assertFailure(
+                "copy x from stdin with (format binary)",
+                null,
+                31,
+                "binary COPY format is not supported"
+        ));
+    }
+
+    @Test
+    public void testCopyStdinInvalidDelimiter() throws Exception {
+        assertMemoryLeak(() -> assertFailure(
+                "copy x from stdin with (delimiter ';;')",
+                null,
+                34,
+                "single character delimiter expected"
+        ));
+    }
+
+    @Test
+    public void testCopyStdinInvalidFormat() throws Exception {
+        assertMemoryLeak(() -> assertFailure(
+                "copy x from stdin with (format json)",
+                null,
+                31,
+                "'text' or 'csv' expected"
+        ));
+    }
+
     @After
     public void tearDownAfterTest() {
         engine.releaseAllReaders();
@@ -206,6 +206,74 @@ public class InsertTest extends AbstractGriffinTest {
         });
     }
 
+    @Test
+    public void testInsertMultipleRowTuples() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table balances(cust_id int, ccy symbol, balance double, ts timestamp) timestamp(ts)", sqlExecutionContext);
+            CompiledQuery cq = compiler.compile(
+                    "insert into balances values (1, 'USD', 356.12, to_timestamp('2019-12-04T13:20:49', 'yyyy-MM-ddTHH:mm:ss')), " +
+                            "(2, 'EUR', 12, to_timestamp('2019-12-04T13:20:50', 'yyyy-MM-ddTHH:mm:ss')), " +
+                            "(3, 'GBP', 7.5, to_timestamp('2019-12-04T13:20:51', 'yyyy-MM-ddTHH:mm:ss'))",
+                    sqlExecutionContext
+            );
+            Assert.assertEquals(CompiledQuery.INSERT, cq.getType());
+            InsertStatement insert = cq.getInsertStatement();
+            try (InsertMethod method = insert.createMethod(sqlExecutionContext)) {
+                method.execute();
+                method.commit();
+            }
+
+            String expected = "cust_id\tccy\tbalance\tts\n" +
+                    "1\tUSD\t356.12\t2019-12-04T13:20:49.000000Z\n" +
+                    "2\tEUR\t12.0\t2019-12-04T13:20:50.000000Z\n" +
+                    "3\tGBP\t7.5\t2019-12-04T13:20:51.000000Z\n";
+
+            sink.clear();
+            try (TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), insert.getTableName())) {
+                printer.print(reader.getCursor(), reader.getMetadata(), true);
+                TestUtils.assertEquals(expected, sink);
+            }
+        });
+    }
+
+    @Test
+    public void testInsertMultipleRowTuplesNotEnoughValues() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table balances(cust_id int, ccy symbol, balance double)", sqlExecutionContext);
+            try {
+                compiler.compile("insert into balances values (1, 'USD', 356.12), (2, 'EUR')", sqlExecutionContext);
+                Assert.fail();
+            } catch (SqlException e) {
+                Assert.assertEquals(57, e.getPosition());
+                TestUtils.assertContains(e.getFlyweightMessage(), "not enough values");
+            }
+        });
+    }
+
+    @Test
+    public void testInsertMultipleRowTuplesRollback() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table balances(cust_id int, ccy symbol, balance double)", sqlExecutionContext);
+            InsertStatement insert = compiler.compile("insert into balances values (1, 'USD', 356.12), (2, 'EUR', 1.5)", sqlExecutionContext).getInsertStatement();
+            try (InsertMethod method = insert.createMethod(sqlExecutionContext)) {
+                method.execute();
+                method.commit();
+                method.execute();
+                method.rollback();
+            }
+
+            String expected = "cust_id\tccy\tbalance\n" +
+                    "1\tUSD\t356.12\n" +
+                    "2\tEUR\t1.5\n";
+
+            sink.clear();
+            try (TableReader reader = engine.getReader(sqlExecutionContext.getCairoSecurityContext(), insert.getTableName())) {
+                printer.print(reader.getCursor(), reader.getMetadata(), true);
+                TestUtils.assertEquals(expected, sink);
+            }
+        });
+    }
+
     @Test
     public void testInsertNoSelfReference() throws Exception {
         assertMemoryLeak(() -> {
@@ -425,6 +493,120 @@ public class InsertTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testInsertViaWalInterleavedOlderRows() throws Exception {
+        assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isWalEnabled() {
+                    return true;
+                }
+            };
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    SqlCompiler compiler = new SqlCompiler(engine)
+            ) {
+                final SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 1)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, new BindVariableService(), null, -1, null);
+                compiler.compile("create table balances(cust_id int, ccy symbol, balance double, ts timestamp) timestamp(ts)", executionContext);
+                final InsertStatement newer = compiler.compile(
+                        "insert into balances values (1, 'GBP', 150.4, to_timestamp('2020-01-01T00:00:10', 'yyyy-MM-ddTHH:mm:ss'))",
+                        executionContext
+                ).getInsertStatement();
+                final InsertStatement older = compiler.compile(
+                        "insert into balances values (2, 'USD', 7.5, to_timestamp('2020-01-01T00:00:05', 'yyyy-MM-ddTHH:mm:ss'))",
+                        executionContext
+                ).getInsertStatement();
+                final InsertStatement newest = compiler.compile(
+                        "insert into balances values (3, 'EUR', 12.0, to_timestamp('2020-01-01T00:00:20', 'yyyy-MM-ddTHH:mm:ss'))",
+                        executionContext
+                ).getInsertStatement();
+
+                // two sessions, one commits older row after the other committed newer one
+                try (
+                        InsertMethod a = newer.createMethod(executionContext);
+                        InsertMethod b = older.createMethod(executionContext)
+                ) {
+                    a.execute();
+                    b.execute();
+                    a.commit();
+                    try {
+                        b.commit();
+                        Assert.fail();
+                    } catch (CairoException e) {
+                        TestUtils.assertContains(e.getFlyweightMessage(), "Cannot insert rows out of order");
+                    }
+                }
+                try (InsertMethod method = newest.createMethod(executionContext)) {
+                    method.execute();
+                    method.commit();
+                }
+
+                final WalApplyJob job = engine.getWalApplyJob();
+                //noinspection StatementWithEmptyBody
+                while (job.run(0)) ;
+
+                // every acknowledged row reads back
+                sink.clear();
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "balances")) {
+                    printer.print(reader.getCursor(), reader.getMetadata(), true);
+                }
+            }
+        });
+        TestUtils.assertEquals("cust_id\tccy\tbalance\tts\n" +
+                        "1\tGBP\t150.4\t2020-01-01T00:00:10.000000Z\n" +
+                        "3\tEUR\t12.0\t2020-01-01T00:00:20.000000Z\n",
+                sink
+        );
+    }
+
+    @Test
+    public void testInsertViaWalWhileWriterIsBusy() throws Exception {
+        assertMemoryLeak(() -> {
+            final CairoConfiguration configuration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isWalEnabled() {
+                    return true;
+                }
+            };
+            try (
+                    CairoEngine engine = new CairoEngine(configuration);
+                    SqlCompiler compiler = new SqlCompiler(engine)
+            ) {
+                final SqlExecutionContext executionContext = new SqlExecutionContextImpl(engine, 1)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, new BindVariableService(), null, -1, null);
+                compiler.compile("create table balances(cust_id int, ccy symbol, balance double, ts timestamp) timestamp(ts)", executionContext);
+                final InsertStatement insertStatement = compiler.compile(
+                        "insert into balances values (1, 'GBP', 150.4, to_timestamp('2020-01-01T00:00:00', 'yyyy-MM-ddTHH:mm:ss'))",
+                        executionContext
+                ).getInsertStatement();
+
+                try (TableWriter ignored = engine.getWriter(AllowAllCairoSecurityContext.INSTANCE, "balances")) {
+                    for (int i = 0; i < 2; i++) {
+                        try (InsertMethod method = insertStatement.createMethod(executionContext)) {
+                            method.execute();
+                            method.commit();
+                        }
+                    }
+                }
+
+                final WalApplyJob job = engine.getWalApplyJob();
+                //noinspection StatementWithEmptyBody
+                while (job.run(0)) ;
+
+                sink.clear();
+                try (TableReader reader = engine.getReader(AllowAllCairoSecurityContext.INSTANCE, "balances")) {
+                    printer.print(reader.getCursor(), reader.getMetadata(), true);
+                }
+            }
+        });
+        TestUtils.assertEquals("cust_id\tccy\tbalance\tts\n" +
+                        "1\tGBP\t150.4\t2020-01-01T00:00:00.000000Z\n" +
+                        "1\tGBP\t150.4\t2020-01-01T00:00:00.000000Z\n",
+                sink
+        );
+    }
+
     @Test
     public void testInsertWithLessColumnsThanExistingTable() throws Exception {
         assertMemoryLeak(() -> {
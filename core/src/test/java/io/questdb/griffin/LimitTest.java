@@ -24,9 +24,15 @@
 
 package io.questdb.griffin;
 
+import io.questdb.cairo.RecordCursorPrinter;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
+import io.questdb.griffin.engine.orderby.LimitedSizeSortedLightRecordCursorFactory;
 import io.questdb.std.Rnd;
+import io.questdb.std.str.StringSink;
 import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -215,6 +221,43 @@ public class LimitTest extends AbstractGriffinTest {
         testLimit(expected, expected2, query);
     }
 
+    @Test
+    public void testOrderByLimitBindVariable() throws Exception {
+        assertMemoryLeak(() -> {
+            createOrderByLimitTable();
+            final String query = "select * from y order by k desc, c limit :lo, :hi";
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertEquals(LimitedSizeSortedLightRecordCursorFactory.class, factory.getClass());
+            }
+
+            final long[] limits = {0, 10, 5, 25, -25, -5, -25, 3, 990, 1200, 12, -10};
+            for (int i = 0; i < limits.length; i += 2) {
+                bindVariableService.setLong("lo", limits[i]);
+                bindVariableService.setLong("hi", limits[i + 1]);
+                assertOrderByLimit(query, "select * from (select * from y order by k desc, c) limit :lo, :hi");
+            }
+        });
+    }
+
+    @Test
+    public void testOrderByLimitMatchesFullSort() throws Exception {
+        assertMemoryLeak(() -> {
+            createOrderByLimitTable();
+            // sort keys have many duplicates, rows must come out in the order full sort returns them
+            final String[] limits = {"10", "-10", "5,25", "-25,-5", "-25,3", "25,3", "-3,-10", "0", "995,1200", "-1200", "5,-10"};
+            for (int i = 0, n = limits.length; i < n; i++) {
+                assertOrderByLimit(
+                        "select * from y order by k desc, c limit " + limits[i],
+                        "select * from (select * from y order by k desc, c) limit " + limits[i]
+                );
+                assertOrderByLimit(
+                        "select * from y order by n limit " + limits[i],
+                        "select * from (select * from y order by n) limit " + limits[i]
+                );
+            }
+        });
+    }
+
     @Test
     public void testRangeVariable() throws Exception {
         String query = "select * from y limit :lo,:hi";
@@ -525,6 +568,41 @@ public class LimitTest extends AbstractGriffinTest {
         testLimit(expected, expected, query);
     }
 
+    private void assertOrderByLimit(String query, String fullSortQuery) throws SqlException {
+        final StringSink expected = new StringSink();
+        final StringSink actual = new StringSink();
+        printOrderByLimit(fullSortQuery, expected);
+        printOrderByLimit(query, actual);
+        TestUtils.assertEquals(expected, actual);
+    }
+
+    private void createOrderByLimitTable() throws SqlException {
+        compiler.compile(
+                "create table y as (" +
+                        "select" +
+                        " cast(x as int) i," +
+                        " rnd_int(0, 5, 0) k," +
+                        " rnd_symbol('msft','ibm', 'googl') c," +
+                        " rnd_str(1,2,2) n," +
+                        " to_timestamp('2018-01', 'yyyy-MM') + x * 120000000 timestamp" +
+                        " from long_sequence(1000)" +
+                        ") timestamp(timestamp)"
+                , sqlExecutionContext
+        );
+    }
+
+    private void printOrderByLimit(String query, StringSink sink) throws SqlException {
+        try (
+                RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(sqlExecutionContext)
+        ) {
+            final RecordCursorPrinter printer = new RecordCursorPrinter(sink);
+            printer.print(cursor, factory.getMetadata(), true);
+            cursor.toTop();
+            printer.print(cursor, factory.getMetadata(), false);
+        }
+    }
+
     private void testLimit(String expected1, String expected2, String query) throws Exception {
         assertMemoryLeak(() -> {
             compiler.compile(
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin;
+
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PlanCacheTest extends AbstractGriffinTest {
+
+    @Test
+    public void testCheckOutCheckIn() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x a from long_sequence(10))", sqlExecutionContext);
+            try (PlanCache cache = new PlanCache(16)) {
+                final String key = "select * from x where a > 5";
+                long generation = cache.getGeneration();
+                final RecordCursorFactory factory = compiler.compile(key, sqlExecutionContext).getRecordCursorFactory();
+                cache.put(key, factory, generation);
+
+                // plan is checked out by one user at a time
+                Assert.assertSame(factory, cache.poll(key));
+                Assert.assertNull(cache.poll(key));
+
+                try (RecordCursor cursor = factory.getCursor(sqlExecutionContext)) {
+                    sink.clear();
+                    printer.print(cursor, factory.getMetadata(), true);
+                    TestUtils.assertEquals("a\n6\n7\n8\n9\n10\n", sink);
+                }
+
+                cache.put(key, factory, generation);
+                Assert.assertSame(factory, cache.poll(key));
+
+                // concurrent user compiled its own plan and put it back first
+                final RecordCursorFactory other = compiler.compile(key, sqlExecutionContext).getRecordCursorFactory();
+                cache.put(key, other, generation);
+                cache.put(key, factory, generation);
+                Assert.assertSame(factory, cache.poll(key));
+                Assert.assertNull(cache.poll(key));
+
+                // plan checked out before cache is cleared is not put back
+                cache.clear();
+                cache.put(key, factory, generation);
+                Assert.assertNull(cache.poll(key));
+            }
+        });
+    }
+
+    @Test
+    public void testDropTableClearsEngineCache() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x a from long_sequence(10))", sqlExecutionContext);
+            final PlanCache cache = engine.getPlanCache();
+            final String key = "select * from x";
+            final long generation = cache.getGeneration();
+            cache.put(key, compiler.compile(key, sqlExecutionContext).getRecordCursorFactory(), generation);
+
+            compiler.compile("drop table x", sqlExecutionContext);
+            Assert.assertNull(cache.poll(key));
+            Assert.assertNotEquals(generation, cache.getGeneration());
+        });
+    }
+
+    @Test
+    public void testNormalize() {
+        assertNormalized("select * from x where a = 'x  y'", "select  *\n\tfrom x   where a = 'x  y'  ");
+        assertNormalized("select \"a  b\" from x", "  select \"a  b\"\r\nfrom x");
+        assertNormalized("select 'it''s' from x", "select 'it''s'   from x");
+        assertNormalized("", "   ");
+    }
+
+    private static void assertNormalized(String expected, String sql) {
+        final StringSink sink = new StringSink();
+        PlanCache.normalize(sql, sink);
+        TestUtils.assertEquals(expected, sink);
+    }
+}
@@ -30,6 +30,8 @@ import io.questdb.cairo.sql.RecordCursorFactory;
 import io.questdb.griffin.engine.functions.rnd.SharedRandom;
 import io.questdb.griffin.engine.functions.test.TestMatchFunctionFactory;
 import io.questdb.griffin.engine.groupby.vect.GroupByJob;
+import io.questdb.griffin.engine.groupby.vect.GroupByNotKeyedVectorRecordCursorFactory;
+import io.questdb.griffin.engine.groupby.vect.GroupByRecordCursorFactory;
 import io.questdb.mp.SOCountDownLatch;
 import io.questdb.mp.Sequence;
 import io.questdb.std.Chars;
@@ -781,6 +783,47 @@ public class SqlCodeGeneratorTest extends AbstractGriffinTest {
         Assert.assertTrue(TestMatchFunctionFactory.assertAPI());
     }
 
+    @Test
+    public void testFilterOnIntervalPartitionedByHour() throws Exception {
+        assertQuery("a\tb\tk\n" +
+                        "84.45258177211063\tPEHN\t1970-01-01T03:36:40.000000Z\n" +
+                        "97.5019885372507\t\t1970-01-01T03:53:20.000000Z\n" +
+                        "49.00510449885239\tPEHN\t1970-01-01T04:10:00.000000Z\n",
+                "select * from x o where k = '1970-01-01T03:36:40;45m'",
+                "create table x as " +
+                        "(" +
+                        "select" +
+                        " rnd_double(0)*100 a," +
+                        " rnd_symbol(5,4,4,1) b," +
+                        " timestamp_sequence(0, 1000000000) k" +
+                        " from long_sequence(20)" +
+                        "), index(b) timestamp(k) partition by HOUR",
+                "k",
+                true,
+                true,
+                true);
+    }
+
+    @Test
+    public void testFilterOnIntervalPartitionedByWeek() throws Exception {
+        assertQuery("a\tb\tk\n" +
+                        "87.99634725391621\t\t1970-01-21T00:00:00.000000Z\n" +
+                        "32.881769076795045\t\t1970-01-26T00:00:00.000000Z\n",
+                "select * from x o where k = '1970-01-21;6d'",
+                "create table x as " +
+                        "(" +
+                        "select" +
+                        " rnd_double(0)*100 a," +
+                        " rnd_symbol(5,4,4,1) b," +
+                        " timestamp_sequence(0, 432000000000) k" +
+                        " from long_sequence(20)" +
+                        "), index(b) timestamp(k) partition by WEEK",
+                "k",
+                true,
+                true,
+                true);
+    }
+
     @Test
     public void testFilterOnIntervalAndFilter() throws Exception {
         TestMatchFunctionFactory.clear();
@@ -4434,6 +4477,28 @@ public class SqlCodeGeneratorTest extends AbstractGriffinTest {
 //        }
 //    }
 
+    @Test
+    public void testVectorAggregateOnIntervalWithColumnTop() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x, timestamp_sequence(0, 1000000) ts from long_sequence(100)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x add column y long", sqlExecutionContext);
+            compiler.compile("insert into x select x, timestamp_sequence(100000000, 1000000) ts, x y from long_sequence(100)", sqlExecutionContext);
+
+            // interval starts and ends inside of partition and crosses column top of "y"
+            printSqlResult(
+                    "sum\tsum1\tcount\n" +
+                            "5525\t496\t125\n",
+                    "select sum(x), sum(y), count() from x where ts > '1970-01-01T00:00:05' and ts < '1970-01-01T00:02:10'",
+                    null,
+                    null,
+                    null,
+                    false,
+                    true,
+                    true
+            );
+        });
+    }
+
     @Test
     public void testVectorAggregateOnSparsePartitions() throws Exception {
         final String expected = "a\tk\n";
@@ -4462,6 +4527,32 @@ public class SqlCodeGeneratorTest extends AbstractGriffinTest {
         }
     }
 
+    @Test
+    public void testVectorAggregateWithFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (select x, x / 10.0 price, timestamp_sequence(0, 1000000) ts from long_sequence(100)) timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x add column y long", sqlExecutionContext);
+            compiler.compile("insert into x select x, x / 10.0 price, timestamp_sequence(100000000, 1000000) ts, x y from long_sequence(100)", sqlExecutionContext);
+
+            final String query = "select sum(x), sum(y), count() from x where price > 5.0";
+            try (RecordCursorFactory factory = compiler.compile(query, sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof GroupByNotKeyedVectorRecordCursorFactory);
+            }
+
+            printSqlResult(
+                    "sum\tsum1\tcount\n" +
+                            "7550\t3775\t100\n",
+                    query,
+                    null,
+                    null,
+                    null,
+                    false,
+                    true,
+                    true
+            );
+        });
+    }
+
     @Test
     public void testVectorSumAvgDoubleRndColumnWithNulls() throws Exception {
         assertQuery("avg\tsum\n" +
@@ -4529,6 +4620,33 @@ public class SqlCodeGeneratorTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testVectorKeyedAggregateWithFilter() throws Exception {
+        assertQuery(
+                "sym\tsum\tcount\n" +
+                        "A\t147\t7\n" +
+                        "B\t123\t6\n",
+                "select sym, sum(k), count() from x where price > 1.0 and not(sym = 'C') order by sym",
+                "create table x as (" +
+                        "select cast(case when x % 3 = 0 then 'A' when x % 3 = 1 then 'B' else 'C' end as symbol) sym," +
+                        " cast(x as int) k," +
+                        " x / 10.0 price," +
+                        " timestamp_sequence(0, 3600000000) ts" +
+                        " from long_sequence(30)" +
+                        ") timestamp(ts) partition by DAY",
+                null,
+                true,
+                true,
+                true
+        );
+
+        assertMemoryLeak(() -> {
+            try (RecordCursorFactory factory = compiler.compile("select sym, sum(k) from x where price > 1.0", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof GroupByRecordCursorFactory);
+            }
+        });
+    }
+
     @Test
     public void testVirtualColumns() throws Exception {
         assertQuery("a\ta1\tb\tc\tcolumn\tf1\tf\tg\th\ti\tj\tj1\tk\tl\tm\n" +
@@ -766,6 +766,35 @@ public class SqlParserTest extends AbstractGriffinTest {
         );
     }
 
+    @Test
+    public void testCreateTableAsSelectCompress() throws SqlException {
+        assertCreateTable(
+                "create table X as (select-choose a, b, c from (select [a, b, c] from tab)), compress(b)",
+                "create table X as ( select a, b, c from tab ), compress(b)",
+                modelOf("tab")
+                        .col("a", ColumnType.INT)
+                        .col("b", ColumnType.DOUBLE)
+                        .col("c", ColumnType.STRING)
+        );
+    }
+
+    @Test
+    public void testCreateTableCompress() throws SqlException {
+        assertCreateTable(
+                "create table x (a INT, d LONG, f DOUBLE, x SYMBOL capacity 128 cache, t TIMESTAMP), compress(d), compress(x), compress(t) timestamp(t) partition by DAY",
+                "create table x (a INT, d LONG, f DOUBLE, x SYMBOL, t TIMESTAMP), compress(t), compress(d), compress(x) timestamp(t) partition by DAY"
+        );
+    }
+
+    @Test
+    public void testCreateTableCompressUnsupportedType() throws Exception {
+        assertSyntaxError(
+                "create table x (a INT, b BINARY), compress(b)",
+                43,
+                "compression is not supported for BINARY"
+        );
+    }
+
     @Test
     public void testCreateTableDuplicateCast() throws Exception {
         assertSyntaxError(
@@ -1047,7 +1076,7 @@ public class SqlParserTest extends AbstractGriffinTest {
                         "timestamp(t) " +
                         "partition by EPOCH",
                 128,
-                "'NONE', 'DAY', 'MONTH' or 'YEAR' expected"
+                "'NONE', 'HOUR', 'DAY', 'WEEK', 'MONTH' or 'YEAR' expected"
         );
     }
 
@@ -2142,6 +2171,39 @@ public class SqlParserTest extends AbstractGriffinTest {
                         .col("c", ColumnType.STRING));
     }
 
+    @Test
+    public void testInsertMultipleRowTuples() throws SqlException {
+        assertModel("insert into x values (3, 'abc', ?), (4, 'def', ?)",
+                "insert into x values (3, 'abc', ?),(4,'def',?)",
+                ExecutionModel.INSERT,
+                modelOf("x")
+                        .col("a", ColumnType.INT)
+                        .col("b", ColumnType.STRING)
+                        .col("c", ColumnType.STRING));
+    }
+
+    @Test
+    public void testInsertMultipleRowTuplesColumnValueMismatch() throws Exception {
+        assertSyntaxError("insert into x (a,b) values (1, ?), (2)",
+                15,
+                "value count does not match column count",
+                modelOf("x")
+                        .col("a", ColumnType.INT)
+                        .col("b", ColumnType.STRING)
+                        .col("c", ColumnType.STRING));
+    }
+
+    @Test
+    public void testInsertMultipleRowTuplesMissingTuple() throws Exception {
+        assertSyntaxError("insert into x values (1, 'abc', ?),",
+                35,
+                "'(' expected",
+                modelOf("x")
+                        .col("a", ColumnType.INT)
+                        .col("b", ColumnType.STRING)
+                        .col("c", ColumnType.STRING));
+    }
+
     @Test
     public void testInsertValues() throws SqlException {
         assertModel("insert into x values (3, 'abc', ?)",
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.functions.eq;
+
+import io.questdb.griffin.AbstractGriffinTest;
+import org.junit.Test;
+
+public class EqSymStrFunctionFactoryTest extends AbstractGriffinTest {
+    private static final String DDL = "create table x as (" +
+            "select cast(case when x % 3 = 0 then 'AA' when x % 3 = 1 then 'BB' else null end as symbol) sym," +
+            " cast(case when x % 2 = 0 then 'A' else 'B' end as symbol) c," +
+            " x k," +
+            " timestamp_sequence(0, 1000000) ts" +
+            " from long_sequence(6)" +
+            ") timestamp(ts)";
+    // adds symbol values after query is compiled
+    private static final String DDL2 = "insert into x select cast('CC' as symbol), cast('C' as symbol), 7, cast(10000000 as timestamp) from long_sequence(1)";
+
+    @Test
+    public void testCharConstantAddedLater() throws Exception {
+        assertQuery(
+                "sym\tc\tk\tts\n",
+                "x where c = 'C'",
+                DDL,
+                "ts",
+                DDL2,
+                "sym\tc\tk\tts\n" +
+                        "CC\tC\t7\t1970-01-01T00:00:10.000000Z\n"
+        );
+    }
+
+    @Test
+    public void testEqNull() throws Exception {
+        assertQuery(
+                "sym\tc\tk\tts\n" +
+                        "\tA\t2\t1970-01-01T00:00:01.000000Z\n" +
+                        "\tB\t5\t1970-01-01T00:00:04.000000Z\n",
+                "x where sym = null",
+                DDL,
+                "ts"
+        );
+    }
+
+    @Test
+    public void testEqStrNotFound() throws Exception {
+        assertQuery(
+                "sym\tc\tk\tts\n",
+                "x where sym = 'ZZ'",
+                DDL,
+                "ts"
+        );
+    }
+
+    @Test
+    public void testJoinedColumns() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile(DDL, sqlExecutionContext);
+            compiler.compile("create table y as (" +
+                    "select x k, cast(case when x % 2 = 0 then 'AA' else 'CC' end as symbol) s" +
+                    " from long_sequence(6)" +
+                    ")", sqlExecutionContext);
+            // filter on slave column is pushed down to slave table
+            assertQuery(
+                    "k\ts\n" +
+                            "2\tAA\n" +
+                            "4\tAA\n" +
+                            "6\tAA\n",
+                    "select x.k, s from x join y on (k) where s = 'AA'",
+                    null,
+                    false
+            );
+            // filter on master column is applied to join output
+            assertQuery(
+                    "k\tsym\ts\n" +
+                            "4\tBB\tAA\n",
+                    "select x.k, sym, s from x join y on (k) where sym = 'BB' and s != 'CC'",
+                    null,
+                    false
+            );
+        });
+    }
+
+    @Test
+    public void testNotEqChar() throws Exception {
+        assertQuery(
+                "sym\tc\tk\tts\n" +
+                        "BB\tB\t1\t1970-01-01T00:00:00.000000Z\n" +
+                        "AA\tB\t3\t1970-01-01T00:00:02.000000Z\n" +
+                        "\tB\t5\t1970-01-01T00:00:04.000000Z\n",
+                "x where c != 'A'",
+                DDL,
+                "ts",
+                DDL2,
+                "sym\tc\tk\tts\n" +
+                        "BB\tB\t1\t1970-01-01T00:00:00.000000Z\n" +
+                        "AA\tB\t3\t1970-01-01T00:00:02.000000Z\n" +
+                        "\tB\t5\t1970-01-01T00:00:04.000000Z\n" +
+                        "CC\tC\t7\t1970-01-01T00:00:10.000000Z\n"
+        );
+    }
+
+    @Test
+    public void testNotEqNull() throws Exception {
+        assertQuery(
+                "sym\tc\tk\tts\n" +
+                        "BB\tB\t1\t1970-01-01T00:00:00.000000Z\n" +
+                        "AA\tB\t3\t1970-01-01T00:00:02.000000Z\n" +
+                        "BB\tA\t4\t1970-01-01T00:00:03.000000Z\n" +
+                        "AA\tA\t6\t1970-01-01T00:00:05.000000Z\n",
+                "x where sym != null",
+                DDL,
+                "ts"
+        );
+    }
+
+    @Test
+    public void testNotEqStr() throws Exception {
+        assertQuery(
+                "sym\tc\tk\tts\n" +
+                        "BB\tB\t1\t1970-01-01T00:00:00.000000Z\n" +
+                        "\tA\t2\t1970-01-01T00:00:01.000000Z\n" +
+                        "BB\tA\t4\t1970-01-01T00:00:03.000000Z\n" +
+                        "\tB\t5\t1970-01-01T00:00:04.000000Z\n",
+                "x where sym != 'AA'",
+                DDL,
+                "ts"
+        );
+    }
+
+    @Test
+    public void testNotEqStrNotFound() throws Exception {
+        assertQuery(
+                "sym\tc\tk\tts\n" +
+                        "BB\tB\t1\t1970-01-01T00:00:00.000000Z\n" +
+                        "\tA\t2\t1970-01-01T00:00:01.000000Z\n" +
+                        "AA\tB\t3\t1970-01-01T00:00:02.000000Z\n" +
+                        "BB\tA\t4\t1970-01-01T00:00:03.000000Z\n" +
+                        "\tB\t5\t1970-01-01T00:00:04.000000Z\n" +
+                        "AA\tA\t6\t1970-01-01T00:00:05.000000Z\n",
+                "x where sym != 'ZZ'",
+                DDL,
+                "ts"
+        );
+    }
+
+    @Test
+    public void testStrConstantAddedLater() throws Exception {
+        assertQuery(
+                "sym\tc\tk\tts\n",
+                "x where sym = 'CC'",
+                DDL,
+                "ts",
+                DDL2,
+                "sym\tc\tk\tts\n" +
+                        "CC\tC\t7\t1970-01-01T00:00:10.000000Z\n"
+        );
+    }
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelSampleByFillNoneRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testSampleByIsParallelWhenThreadSafe() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, price double, s string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            final SqlExecutionContext parallelContext = new SqlExecutionContextImpl(engine, 4)
+                    .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null);
+
+            assertFactory("select ts, sym, sum(price) from x sample by 1m", parallelContext, ParallelSampleByFillNoneRecordCursorFactory.class);
+            assertFactory("select ts, sym, sum(price) from x where price > 0.5 sample by 1m", parallelContext, ParallelSampleByFillNoneRecordCursorFactory.class);
+            // string column cannot be read by workers
+            assertFactory("select ts, s, sum(price) from x sample by 1m", parallelContext, SampleByFillNoneRecordCursorFactory.class);
+            // count of strings is not safe to evaluate on worker threads
+            assertFactory("select ts, count(s) from x sample by 1m", parallelContext, SampleByFillNoneNotKeyedRecordCursorFactory.class);
+            assertFactory("select ts, sym, sum(price) from x sample by 1m fill(prev)", parallelContext, SampleByFillPrevRecordCursorFactory.class);
+            // single worker has nothing to share work with
+            assertFactory("select ts, sym, sum(price) from x sample by 1m", sqlExecutionContext, SampleByFillNoneRecordCursorFactory.class);
+        });
+    }
+
+    @Test
+    public void testMatchesSerialSampleBy() throws Exception {
+        assertMemoryLeak(() -> {
+            // column "q" is added half-way, samples cross partitions and frames
+            compiler.compile("create table x as (" +
+                    "select rnd_symbol('A','B','C') sym, rnd_double(2) price, rnd_int(0, 100, 2) k, rnd_str(3,5,1) s, timestamp_sequence(0, 10000000) ts" +
+                    " from long_sequence(30000)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x add column q long", sqlExecutionContext);
+            compiler.compile("insert into x select rnd_symbol('A','B','C') sym, rnd_double(2) price, rnd_int(0, 100, 2) k, rnd_str(3,5,1) s," +
+                    " timestamp_sequence(300000000000, 10000000) ts, rnd_long(0, 1000, 2) q" +
+                    " from long_sequence(20000)", sqlExecutionContext);
+
+            final String[] queries = {
+                    "select ts, sym, count(), sum(price), max(k), first(price), last(k), min(q) from x sample by 1m",
+                    "select ts, count(), avg(price), max(q) from x sample by 1h",
+                    "select ts, sym, count(), sum(k) from x where price > 0.5 and sym = 'A' sample by 10m",
+                    "select ts, sym, count(), sum(k) from x where ts > '1970-01-02T03:00' and ts < '1970-01-04T11:13:01' sample by 7m",
+                    "select ts, k, count(), ksum(price) from x sample by 1d",
+                    "select ts, sym, count() from x sample by 1M"
+            };
+
+            // small tasks, so that samples have to be extended across frames
+            final CairoConfiguration parallelConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public int getSqlParallelSampleByTaskRows() {
+                    return 1000;
+                }
+            };
+
+            assertParallelMatchesSerial(null, parallelConfiguration, queries, SampleByJob::new);
+        });
+    }
+
+    private static void assertFactory(String query, SqlExecutionContext executionContext, Class<?> expectedClass) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(expectedClass, factory.getClass());
+        }
+    }
+}
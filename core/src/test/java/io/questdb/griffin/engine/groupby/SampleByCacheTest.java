@@ -0,0 +1,163 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.RecordCursorPrinter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SampleByCacheTest extends AbstractGriffinTest {
+
+    @Test
+    public void testCachedMatchesUncached() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (" +
+                    "select rnd_symbol('A','B','C') sym, rnd_double(2) price, rnd_int(0, 100, 2) k, timestamp_sequence(0, 10000000) ts" +
+                    " from long_sequence(30000)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+
+            final String[] queries = {
+                    "select ts, count(), sum(price), max(k), first(price), last(k) from x sample by 1h",
+                    "select * from (select ts, sym, count(), sum(price) from x sample by 1h) order by ts, sym",
+                    // dashboards slide time range of the same query
+                    "select ts, count(), sum(price) from x where ts > '1970-01-02T01:30' sample by 1h",
+                    "select ts, count(), sum(price) from x where ts > '1970-01-02T02:10' and ts < '1970-01-03T11:13:01' sample by 1h"
+            };
+
+            final CairoConfiguration cachedConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isSqlSampleByCacheEnabled() {
+                    return true;
+                }
+            };
+
+            final StringSink expected = new StringSink();
+            final StringSink actual = new StringSink();
+
+            try (
+                    CairoEngine cachedEngine = new CairoEngine(cachedConfiguration);
+                    SqlCompiler cachedCompiler = new SqlCompiler(cachedEngine)
+            ) {
+                final SqlExecutionContext cachedContext = new SqlExecutionContextImpl(cachedEngine, 1)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null);
+
+                assertQueries(queries, cachedCompiler, cachedContext, expected, actual);
+                // samples of previous run are reused
+                assertQueries(queries, cachedCompiler, cachedContext, expected, actual);
+
+                // last sample and new samples are aggregated again
+                compiler.compile("insert into x select rnd_symbol('A','B','C') sym, rnd_double(2) price, rnd_int(0, 100, 2) k," +
+                        " timestamp_sequence(300000000000, 10000000) ts from long_sequence(5000)", sqlExecutionContext);
+                assertQueries(queries, cachedCompiler, cachedContext, expected, actual);
+
+                // structure change invalidates cached samples
+                compiler.compile("alter table x add column q long", sqlExecutionContext);
+                assertQueries(queries, cachedCompiler, cachedContext, expected, actual);
+
+                compiler.compile("truncate table x", sqlExecutionContext);
+                compiler.compile("insert into x select rnd_symbol('A','B','C') sym, rnd_double(2) price, rnd_int(0, 100, 2) k," +
+                        " timestamp_sequence(0, 10000000) ts, rnd_long(0, 1000, 2) q from long_sequence(1000)", sqlExecutionContext);
+                assertQueries(queries, cachedCompiler, cachedContext, expected, actual);
+
+                cachedEngine.releaseAllReaders();
+            }
+        });
+    }
+
+    @Test
+    public void testSampleByIsCachedWithoutWorkers() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, price double, s string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+
+            final CairoConfiguration cachedConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isSqlSampleByCacheEnabled() {
+                    return true;
+                }
+            };
+
+            try (
+                    CairoEngine cachedEngine = new CairoEngine(cachedConfiguration);
+                    SqlCompiler cachedCompiler = new SqlCompiler(cachedEngine)
+            ) {
+                final SqlExecutionContext cachedContext = new SqlExecutionContextImpl(cachedEngine, 1)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null);
+
+                assertFactory(cachedCompiler, cachedContext, "select ts, sym, sum(price) from x sample by 1m", ParallelSampleByFillNoneRecordCursorFactory.class);
+                assertFactory(cachedCompiler, cachedContext, "select ts, sum(price) from x where ts > '1970-01-02' sample by 1m", ParallelSampleByFillNoneRecordCursorFactory.class);
+                // filtered rows cannot be validated against table row ranges
+                assertFactory(cachedCompiler, cachedContext, "select ts, sym, sum(price) from x where price > 0.5 sample by 1m", SampleByFillNoneRecordCursorFactory.class);
+                assertFactory(cachedCompiler, cachedContext, "select ts, s, sum(price) from x sample by 1m", SampleByFillNoneRecordCursorFactory.class);
+            }
+        });
+    }
+
+    private static void assertFactory(SqlCompiler compiler, SqlExecutionContext executionContext, String query, Class<?> expectedClass) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(expectedClass, factory.getClass());
+        }
+    }
+
+    private static void assertQueries(
+            String[] queries,
+            SqlCompiler cachedCompiler,
+            SqlExecutionContext cachedContext,
+            StringSink expected,
+            StringSink actual
+    ) throws SqlException {
+        for (int i = 0, n = queries.length; i < n; i++) {
+            select(compiler, sqlExecutionContext, queries[i], expected);
+            select(cachedCompiler, cachedContext, queries[i], actual);
+            TestUtils.assertEquals(expected, actual);
+        }
+    }
+
+    private static void select(SqlCompiler compiler, SqlExecutionContext executionContext, String query, StringSink sink) throws SqlException {
+        sink.clear();
+        try (
+                RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(executionContext)
+        ) {
+            final RecordCursorPrinter printer = new RecordCursorPrinter(sink);
+            printer.print(cursor, factory.getMetadata(), true);
+            // make sure cursor can be rewound
+            cursor.toTop();
+            printer.print(cursor, factory.getMetadata(), false);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.groupby.vect;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GroupByNotKeyedVectorRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testIntervalMatchesRowByRowAggregation() throws Exception {
+        assertMemoryLeak(() -> {
+            // column "z" is added half-way, so that some slices start at column top
+            compiler.compile("create table x as (" +
+                    "select rnd_long(0, 1000, 2) y, rnd_int(0, 1000, 2) i, timestamp_sequence(0, 1000000) ts" +
+                    " from long_sequence(300000)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("alter table x add column z long", sqlExecutionContext);
+            compiler.compile("insert into x select rnd_long(0, 1000, 2) y, rnd_int(0, 1000, 2) i," +
+                    " timestamp_sequence(300000000000, 1000000) ts, rnd_long(0, 1000, 2) z" +
+                    " from long_sequence(100000)", sqlExecutionContext);
+
+            // row by row aggregated query, which columns are virtual, is paired with vector aggregated query
+            final String[][] queries = {
+                    {
+                            "select count(), sum(y), max(y), min(i), sum(z), max(ts) from (select y + 0 y, i + 0 i, z + 0 z, ts from x where ts = '1970-01-02')",
+                            "select count(), sum(y), max(y), min(i), sum(z), max(ts) from x where ts = '1970-01-02'"
+                    },
+                    {
+                            "select count(), sum(y), sum(i), min(z), max(ts) from (select y + 0 y, i + 0 i, z + 0 z, ts from x where ts > '1970-01-01T07:13' and ts < '1970-01-04T13')",
+                            "select count(), sum(y), sum(i), min(z), max(ts) from x where ts > '1970-01-01T07:13' and ts < '1970-01-04T13'"
+                    },
+                    {
+                            "select count(), sum(y), max(i), sum(z) from (select y + 0 y, i + 0 i, z + 0 z, ts from x where ts = '1970-01-04' and y > 500)",
+                            "select count(), sum(y), max(i), sum(z) from x where ts = '1970-01-04' and y > 500"
+                    },
+                    {
+                            // interval starts inside partition after column top of "z"
+                            "select count(), sum(y), min(z), max(z), sum(z) from (select y + 0 y, z + 0 z, ts from x where ts > '1970-01-04T12' and ts < '1970-01-04T20')",
+                            "select count(), sum(y), min(z), max(z), sum(z) from x where ts > '1970-01-04T12' and ts < '1970-01-04T20'"
+                    },
+                    {
+                            "select count(), sum(y), min(z), max(z), sum(z) from (select y + 0 y, z + 0 z, ts from x where ts > '1970-01-04T12' and ts < '1970-01-04T20' and y > 500)",
+                            "select count(), sum(y), min(z), max(z), sum(z) from x where ts > '1970-01-04T12' and ts < '1970-01-04T20' and y > 500"
+                    },
+                    {
+                            // slices have different null counts, avg() must not weigh them by row count
+                            "select avg(y), avg(i), avg(z) from (select y + 0 y, i + 0 i, z + 0 z, ts from x where ts > '1970-01-03T07:13' and ts < '1970-01-04T13')",
+                            "select avg(y), avg(i), avg(z) from x where ts > '1970-01-03T07:13' and ts < '1970-01-04T13'"
+                    }
+            };
+
+            // small tasks, so that frames of single partition are sliced
+            final CairoConfiguration slicedConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public int getSqlParallelVectorAggregateTaskRows() {
+                    return 1000;
+                }
+            };
+
+            final SqlExecutionContext parallelContext = new SqlExecutionContextImpl(engine, 4)
+                    .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null);
+            for (int i = 0, n = queries.length; i < n; i++) {
+                try (RecordCursorFactory factory = compiler.compile(queries[i][1], parallelContext).getRecordCursorFactory()) {
+                    Assert.assertEquals(GroupByNotKeyedVectorRecordCursorFactory.class, factory.getClass());
+                }
+            }
+
+            assertParallelMatchesSerial(null, slicedConfiguration, queries, GroupByJob::new);
+        });
+    }
+}
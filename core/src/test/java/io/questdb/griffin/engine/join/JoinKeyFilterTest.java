@@ -0,0 +1,112 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoEngine;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.RecordCursorPrinter;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlCompiler;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.std.str.StringSink;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Test;
+
+public class JoinKeyFilterTest extends AbstractGriffinTest {
+
+    @Test
+    public void testMatchesUnfilteredJoin() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table f as (" +
+                    "select rnd_symbol(50, 3, 6, 1) sym, rnd_int(0, 10000, 0) k, rnd_str(2,3,1) str, rnd_double(2) d," +
+                    " timestamp_sequence(0, 10000000) ts" +
+                    " from long_sequence(20000)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("create table dim as (" +
+                    "select rnd_symbol(50, 3, 6, 1) sym, rnd_int(0, 10000, 0) k, rnd_str(2,3,1) str, rnd_long() v," +
+                    " timestamp_sequence(0, 10000000) ts" +
+                    " from long_sequence(300)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+
+            final String[] queries = {
+                    // single symbol key is filtered by symbol keys
+                    "select f.sym, f.d, dim.v from f join (dim where v > 9100000000000000000) dim on (sym)",
+                    "select f.k, dim.v from f join (dim where v > 0) dim on (k)",
+                    "select f.k, dim.v from f join dim on (k, sym)",
+                    "select f.str, dim.v from f join (dim where v > 9100000000000000000) dim on (str)",
+                    "select f.k, dim.v from f join dim on (k) where f.d > 0.5",
+                    "select f.k, dim.v from f join dim on (k) where f.ts > '1970-01-02'",
+                    // empty slave rejects all master rows
+                    "select f.k, dim.v from f join (dim where k < 0) dim on (k)",
+                    "select f.sym, dim.v from f join (dim where k < 0) dim on (sym)",
+                    "select count() from f join dim on (k)"
+            };
+
+            final CairoConfiguration unfilteredConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isSqlJoinBloomFilterEnabled() {
+                    return false;
+                }
+            };
+
+            final StringSink expected = new StringSink();
+            final StringSink actual = new StringSink();
+
+            try (
+                    CairoEngine unfilteredEngine = new CairoEngine(unfilteredConfiguration);
+                    SqlCompiler unfilteredCompiler = new SqlCompiler(unfilteredEngine)
+            ) {
+                final SqlExecutionContext unfilteredContext = new SqlExecutionContextImpl(unfilteredEngine, 1)
+                        .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null);
+                for (int i = 0, n = queries.length; i < n; i++) {
+                    select(unfilteredCompiler, unfilteredContext, queries[i], expected);
+                    select(compiler, sqlExecutionContext, queries[i], actual);
+                    TestUtils.assertEquals(expected, actual);
+                }
+                unfilteredEngine.releaseAllReaders();
+            }
+        });
+    }
+
+    private static void select(SqlCompiler compiler, SqlExecutionContext executionContext, String query, StringSink sink) throws SqlException {
+        sink.clear();
+        try (
+                RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory();
+                RecordCursor cursor = factory.getCursor(executionContext)
+        ) {
+            final RecordCursorPrinter printer = new RecordCursorPrinter(sink);
+            printer.print(cursor, factory.getMetadata(), true);
+            // make sure filter is applied after rewind
+            cursor.toTop();
+            printer.print(cursor, factory.getMetadata(), false);
+        }
+    }
+}
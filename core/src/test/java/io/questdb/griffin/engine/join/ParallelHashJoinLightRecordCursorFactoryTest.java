@@ -0,0 +1,88 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.join;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.griffin.AbstractGriffinTest;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+public class ParallelHashJoinLightRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testMatchesSerialJoin() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table m as (" +
+                    "select rnd_int(0, 500, 0) k, rnd_symbol('a','b','c',null) s, rnd_str(2,3,1) str, rnd_double(2) d," +
+                    " timestamp_sequence(0, 10000000) ts" +
+                    " from long_sequence(2000)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+            compiler.compile("create table r as (" +
+                    "select rnd_int(0, 500, 0) k, rnd_symbol('b','c','d') s, rnd_str(2,3,1) str, rnd_long() v," +
+                    " timestamp_sequence(0, 10000000) ts" +
+                    " from long_sequence(3000)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+
+            final String[] queries = {
+                    "select * from m join r on (k)",
+                    "select * from m join r on (k, s)",
+                    "select m.k, r.v from m join r on (str) where m.k < 10",
+                    "select * from m join r on (k) where m.d > 0.5",
+                    "select * from m join (r where k < 0) r on (k)",
+                    "select count() from m join r on (k)"
+            };
+
+            final CairoConfiguration serialConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isSqlParallelHashJoinEnabled() {
+                    return false;
+                }
+            };
+
+            // small budget, so that most partitions are spilled
+            final CairoConfiguration parallelConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public long getSqlHashJoinMemoryBudget() {
+                    return 64 * 1024;
+                }
+
+                @Override
+                public int getSqlParallelHashJoinPartitions() {
+                    return 4;
+                }
+            };
+
+            assertParallelMatchesSerial(serialConfiguration, parallelConfiguration, queries, HashJoinBuildJob::new);
+
+            // spill files are removed when cursor is closed
+            final String[] spillFiles = new File(root.toString(), ".join").list();
+            Assert.assertNotNull(spillFiles);
+            Assert.assertEquals(0, spillFiles.length);
+        });
+    }
+}
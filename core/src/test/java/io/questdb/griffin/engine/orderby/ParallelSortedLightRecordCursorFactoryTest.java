@@ -0,0 +1,114 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.orderby;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlException;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+public class ParallelSortedLightRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testMatchesSerialSort() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (" +
+                    "select rnd_symbol('A','B','C',null) sym, rnd_double(2) price, rnd_int(0, 100, 2) k, rnd_str(3,5,1) s," +
+                    " rnd_long(0, 10, 1) l, timestamp_sequence(0, 10000000) ts" +
+                    " from long_sequence(20000)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+
+            final String[] queries = {
+                    "select * from x order by k",
+                    "select * from x order by sym, l desc",
+                    "select * from x order by s desc, price",
+                    // symbol keys are copied as strings, string keys must not share value
+                    "select * from x order by sym, s desc",
+                    "select * from x order by price",
+                    "select * from x order by ts desc",
+                    "select sym, k from x where k > 50 order by sym desc, k",
+                    "select * from x where k < 0 order by k"
+            };
+
+            // serial sort keeps equal rows in the same order as parallel sort
+            final CairoConfiguration serialConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isSqlParallelSortEnabled() {
+                    return false;
+                }
+            };
+
+            // small runs and budget, so that most runs are spilled and merged
+            final CairoConfiguration parallelConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public int getSqlParallelSortRunRows() {
+                    return 1000;
+                }
+
+                @Override
+                public long getSqlSortMemoryBudget() {
+                    return 64 * 1024;
+                }
+            };
+
+            assertParallelMatchesSerial(serialConfiguration, parallelConfiguration, queries, SortJob::new);
+
+            // spill files are removed when cursor is closed
+            final String[] spillFiles = new File(root.toString(), ".sort").list();
+            Assert.assertNotNull(spillFiles);
+            Assert.assertEquals(0, spillFiles.length);
+        });
+    }
+
+    @Test
+    public void testSortIsParallelWhenEnabled() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, price double, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            final SqlExecutionContext parallelContext = new SqlExecutionContextImpl(engine, 4)
+                    .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null);
+
+            assertFactory("select * from x order by price", parallelContext, ParallelSortedLightRecordCursorFactory.class);
+            assertFactory("select * from x order by sym desc, ts", parallelContext, ParallelSortedLightRecordCursorFactory.class);
+            // limited sort keeps only top rows
+            assertFactory("select * from x order by price limit 10", parallelContext, LimitedSizeSortedLightRecordCursorFactory.class);
+            // single worker has nothing to share work with
+            assertFactory("select * from x order by price", sqlExecutionContext, SortedLightRecordCursorFactory.class);
+        });
+    }
+
+    private static void assertFactory(String query, SqlExecutionContext executionContext, Class<?> expectedClass) throws SqlException {
+        try (RecordCursorFactory factory = compiler.compile(query, executionContext).getRecordCursorFactory()) {
+            Assert.assertEquals(expectedClass, factory.getClass());
+        }
+    }
+}
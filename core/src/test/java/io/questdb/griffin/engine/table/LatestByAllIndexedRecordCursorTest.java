@@ -0,0 +1,74 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.griffin.AbstractGriffinTest;
+import org.junit.Test;
+
+public class LatestByAllIndexedRecordCursorTest extends AbstractGriffinTest {
+
+    @Test
+    public void testParallelMatchesSerial() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (" +
+                    "select rnd_symbol(3000,4,8,50) s, rnd_double() d, timestamp_sequence(0, 30000000) ts" +
+                    " from long_sequence(60000)" +
+                    "), index(s) timestamp(ts) partition by DAY", sqlExecutionContext);
+            // newer partitions have only some of the keys
+            compiler.compile("insert into x select rnd_symbol(1000,4,8,0) s, rnd_double() d," +
+                    " timestamp_sequence(3000000000000, 30000000) ts from long_sequence(10000)", sqlExecutionContext);
+            // indexed column added later, older partitions have no index for it
+            compiler.compile("alter table x add column s2 symbol index", sqlExecutionContext);
+            compiler.compile("insert into x select rnd_symbol(1000,4,8,0) s, rnd_double() d," +
+                    " timestamp_sequence(4000000000000, 30000000) ts, rnd_symbol(2000,4,4,10) s2" +
+                    " from long_sequence(10000)", sqlExecutionContext);
+
+            final String[] queries = {
+                    "select * from x latest by s",
+                    "select * from x latest by s2",
+                    "select count(), sum(d), min(ts), max(ts) from (x latest by s)"
+            };
+
+            final CairoConfiguration serialConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isSqlParallelLatestByEnabled() {
+                    return false;
+                }
+            };
+
+            // small slices, so that each partition is probed by several workers
+            final CairoConfiguration parallelConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public int getSqlParallelLatestByTaskKeys() {
+                    return 100;
+                }
+            };
+
+            assertParallelMatchesSerial(serialConfiguration, parallelConfiguration, queries, LatestByAllIndexedJob::new);
+        });
+    }
+}
@@ -0,0 +1,166 @@
+/*******************************************************************************
+ *     ___                  _   ____  ____
+ *    / _ \ _   _  ___  ___| |_|  _ \| __ )
+ *   | | | | | | |/ _ \/ __| __| | | |  _ \
+ *   | |_| | |_| |  __/\__ \ |_| |_| | |_) |
+ *    \__\_\\__,_|\___||___/\__|____/|____/
+ *
+ *  Copyright (c) 2014-2019 Appsicle
+ *  Copyright (c) 2019-2020 QuestDB
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ *
+ ******************************************************************************/
+
+package io.questdb.griffin.engine.table;
+
+import io.questdb.cairo.CairoConfiguration;
+import io.questdb.cairo.CairoException;
+import io.questdb.cairo.DefaultCairoConfiguration;
+import io.questdb.cairo.security.AllowAllCairoSecurityContext;
+import io.questdb.cairo.sql.Function;
+import io.questdb.cairo.sql.Record;
+import io.questdb.cairo.sql.RecordCursor;
+import io.questdb.cairo.sql.RecordCursorFactory;
+import io.questdb.griffin.AbstractGriffinTest;
+import io.questdb.griffin.SqlExecutionContext;
+import io.questdb.griffin.SqlExecutionContextImpl;
+import io.questdb.griffin.engine.functions.BooleanFunction;
+import io.questdb.griffin.engine.groupby.vect.GroupByJob;
+import io.questdb.mp.Sequence;
+import io.questdb.test.tools.TestUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParallelFilteredRecordCursorFactoryTest extends AbstractGriffinTest {
+
+    @Test
+    public void testFilterErrorIsReportedByOwnerThread() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x as (" +
+                    "select rnd_double() price, timestamp_sequence(0, 1000000) ts" +
+                    " from long_sequence(100000)" +
+                    ") timestamp(ts) partition by DAY", sqlExecutionContext);
+
+            final SqlExecutionContext parallelContext = new SqlExecutionContextImpl(engine, 4)
+                    .with(AllowAllCairoSecurityContext.INSTANCE, bindVariableService, null);
+            final Function filter = new BooleanFunction(0) {
+                @Override
+                public boolean getBool(Record rec) {
+                    throw CairoException.instance(0).put("filter failed");
+                }
+
+                @Override
+                public boolean isReadThreadSafe() {
+                    return true;
+                }
+            };
+
+            runWithJobs(engine.getMessageBus(), () -> {
+                // interval scan is backed by data frames
+                final RecordCursorFactory base = compiler.compile("x where ts > '1970-01-01T00:00:01'", sqlExecutionContext).getRecordCursorFactory();
+                Assert.assertTrue(base instanceof DataFrameRecordCursorFactory);
+                try (
+                        RecordCursorFactory factory = new ParallelFilteredRecordCursorFactory(configuration, (DataFrameRecordCursorFactory) base, filter);
+                        RecordCursor cursor = factory.getCursor(parallelContext)
+                ) {
+                    // filter fails on worker threads as well as on this one, none of them must leave query hanging
+                    cursor.hasNext();
+                    Assert.fail();
+                } catch (CairoException e) {
+                    TestUtils.assertContains(e.getFlyweightMessage(), "filter failed");
+                }
+            }, PageFrameFilterJob::new);
+        });
+    }
+
+    @Test
+    public void testFilterIsParallelWhenThreadSafe() throws Exception {
+        assertMemoryLeak(() -> {
+            compiler.compile("create table x (sym symbol, price double, s string, ts timestamp) timestamp(ts) partition by DAY", sqlExecutionContext);
+            try (RecordCursorFactory factory = compiler.compile("x where sym = 'A' and price > 0.5", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory.getClass().getName(), factory instanceof ParallelFilteredRecordCursorFactory);
+            }
+            try (RecordCursorFactory factory = compiler.compile("x where s = 'A' and price > 0.5", sqlExecutionContext).getRecordCursorFactory()) {
+                Assert.assertTrue(factory instanceof FilteredRecordCursorFactory);
+            }
+        });
+    }
+
+    @Test
+    public void testSmallTable() throws Exception {
+        assertQuery(
+                "sym\tprice\tk\tts\n" +
+                        "A\t0.6\t12\t1970-01-01T05:00:00.000000Z\n" +
+                        "A\t0.8\t16\t1970-01-01T07:00:00.000000Z\n" +
+                        "A\t1.0\t20\t1970-01-01T09:00:00.000000Z\n",
+                "x where sym = 'A' and price > 0.5",
+                "create table x as (" +
+                        "select cast(case when x % 2 = 0 then 'A' else 'B' end as symbol) sym, x / 10.0 price, x * 2 k, timestamp_sequence(0, 3600000000) ts" +
+                        " from long_sequence(10)" +
+                        ") timestamp(ts) partition by DAY",
+                "ts",
+                true
+        );
+    }
+
+    @Test
+    public void testMatchesSerialFilter() throws Exception {
+        assertMemoryLeak(() -> {
+            // single partition holds more rows than frame and column "k" is added half-way
+            compiler.compile("create table x as (" +
+                    "select rnd_symbol('A','B','C') sym, rnd_double(2) price, rnd_str(3,5,1) s, timestamp_sequence(0, 1000000) ts" +
+                    " from long_sequence(1500000)" +
+                    ") timestamp(ts) partition by MONTH", sqlExecutionContext);
+            compiler.compile("alter table x add column k int", sqlExecutionContext);
+            compiler.compile("insert into x select rnd_symbol('A','B','C') sym, rnd_double(2) price, rnd_str(3,5,1) s," +
+                    " timestamp_sequence(1500000000000, 1000000) ts, rnd_int(0, 100, 2) k" +
+                    " from long_sequence(1500000)", sqlExecutionContext);
+
+            // group by queries aggregate filtered page frames, double sums depend on summation order
+            final String[] queries = {
+                    "select count(), round(sum(price), 6) sum, min(ts), max(ts) from x where sym = 'A' and price > 0.5",
+                    "select count(), round(sum(price), 6) sum, sum(k) from x where k > 90 or price < 0.1",
+                    "select count(), sum(k) from x where not(sym = 'C') and k = 42",
+                    "select sym, count(), max(k), min(ts) from x where price > 0.5 order by sym",
+                    "select k, count(), max(ts) from x where sym = 'A' or price < 0.01 order by k",
+                    "x where sym = 'B' and price > 0.9999",
+                    "x where ts > '1970-01-20' and price > 0.9999 and k <> 5"
+            };
+
+            final CairoConfiguration serialConfiguration = new DefaultCairoConfiguration(root) {
+                @Override
+                public boolean isSqlParallelFilterEnabled() {
+                    return false;
+                }
+            };
+
+            // consume tasks other tests may have left on the queues
+            consumeQueue(engine.getMessageBus().getPageFrameFilterSubSequence());
+            consumeQueue(engine.getMessageBus().getVectorAggregateSubSequence());
+
+            assertParallelMatchesSerial(serialConfiguration, null, queries, PageFrameFilterJob::new, GroupByJob::new);
+        });
+    }
+
+    private static void consumeQueue(Sequence subSeq) {
+        while (true) {
+            long cursor = subSeq.next();
+            if (cursor == -1) {
+                break;
+            } else if (cursor > -1) {
+                subSeq.done(cursor);
+            }
+        }
+    }
+}
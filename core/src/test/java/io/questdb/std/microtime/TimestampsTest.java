@@ -164,6 +164,18 @@ public class TimestampsTest {
         TestUtils.assertEquals("2008-05-01T00:00:00.000Z", sink);
     }
 
+    @Test
+    public void testFloorWW() throws Exception {
+        long micros = TimestampFormatUtils.parseDateTime("2008-05-18T23:45:51.045Z");
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.floorWW(micros));
+        TestUtils.assertEquals("2008-05-12T00:00:00.000Z", sink);
+
+        sink.clear();
+        micros = TimestampFormatUtils.parseDateTime("1969-12-31T10:00:00.000Z");
+        TimestampFormatUtils.appendDateTime(sink, Timestamps.floorWW(micros));
+        TestUtils.assertEquals("1969-12-29T00:00:00.000Z", sink);
+    }
+
     @Test
     public void testFloorYYYY() throws Exception {
         long micros = TimestampFormatUtils.parseDateTime("2008-05-12T23:45:51.045Z");